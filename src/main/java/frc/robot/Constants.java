@@ -50,6 +50,60 @@ public final class Constants {
     public static double kSlewLimit = 3;
     public static double kTurboSlew = 4;
 
+    // Profiled driving (DriveDistanceProfiled), in meters and volts. The profile reaches its
+    // top speed in 1 / kSlewLimit seconds, the same ramp the driver's slew limiter allows.
+    public static double kDriveProfileMaxVelocity = 1.5;
+    public static double kDrivePositionP = 8;
+    public static double kDriveVelocityP = 2;
+    public static double kDriveDistanceTolerance = 0.03;
+    public static double kDriveSettleVelocity = 0.05;
+
+    // Once the profile is done, give up on the tolerance if the robot stays stopped this long
+    // (e.g. held by friction), and give up regardless this long after the profile ends
+    public static double kDriveStallSeconds = 0.25;
+    public static double kDriveTimeoutMarginSeconds = 1.0;
+
+    // $TODO - Characterize the drivetrain. kV and kA are the simulated drivetrain's. kS is a
+    // guess at the voltage it takes to get a real drivetrain moving.
+    public static double kDriveKs = 0.3;
+    public static double kDriveKv = 1.98;
+    public static double kDriveKa = 0.2;
+
+    // Profiled turning (TurnDegrees), in degrees and volts
+    public static double kTurnMaxVelocity = 360;
+    public static double kTurnMaxAcceleration = 720;
+    public static double kTurnP = 0.15;
+    public static double kTurnD = 0.01;
+    public static double kTurnTolerance = 1.0;
+    public static double kTurnSettleSeconds = 0.1;
+    public static double kTurnSettleRate = 5.0;
+    public static double kTurnTimeoutMarginSeconds = 1.0;
+    // $TODO - A guess, like kDriveKs. The least that turns the robot in place.
+    public static double kTurnMinVolts = 0.3;
+
+    // $TODO - Characterize the drivetrain turning. These are the simulated drivetrain's, in
+    // volts per wheel speed while turning in place.
+    public static double kDriveTrackWidthMeters = 0.762;
+    public static double kTurnKs = 0;
+    public static double kTurnKv = 1.5;
+    public static double kTurnKa = 0.3;
+
+    // Auto Balance (AutoBalanceCommand), by the roll in degrees. The Pigeon2 reads
+    // kBalanceLevelRoll when level.
+    public static double kBalanceLevelRoll = -2.5;
+    // The competition rule: stop while the roll changes by more than kBalanceTipping in one
+    // loop, or is within kBalanceLevel of level, and slow down every kBalanceCycleSeconds
+    public static double kBalanceTipping = 3;
+    public static double kBalanceLevel = 2;
+    public static double kBalanceCycleSeconds = 0.5;
+    // $TODO - The PD rule, in tankDrive() speed per degree of roll and per degree per second
+    // of roll rate, is tuned against the simulated drivetrain and charge station only. The
+    // simulated tankDrive() reaches 3 m/s at full output, but the robot's is scaled by
+    // kMaxOutputDrive, so leave it off until it has been retuned on the robot.
+    public static boolean kBalanceUsePd = false;
+    public static double kBalanceP = 0.03;
+    public static double kBalanceD = 0.02;
+
     public static double maxExtenderOutput = 0.6;
 
     public static double kWheelDiameterInchWinch = 0.75;
@@ -81,6 +135,31 @@ public final class Constants {
     public static double kWinchGroundAngle = 0.57 - 0.16;
     public static double kEmergencyAngle = 0.72 - 0.16;
 
+    // Profiled winch positioning (MoveWinchToAngle), in absolute encoder rotations
+    public static double kWinchMaxVelocity = 0.22;
+    public static double kWinchMaxAcceleration = 3.0;
+    public static double kWinchPositionP = 30;
+    public static double kWinchSettleTolerance = 0.003;
+    public static double kWinchSettleSeconds = 0.1;
+
+    // $TODO - Measure these on the robot. The string speed is the simulated winch's.
+    public static double kWinchMaxStringSpeedMetersPerSec = 0.38;
+    public static double kWinchGravityFeedforward = 0.05;
+
+    // Extender Smart Motion, run on the SparkMax (MoveExtenderToPosition). In encoder
+    // rotations and RPM; the gains are duty cycle per RPM, as REV defines them.
+    // $TODO - Tune on the robot. kFF is 1 / the NEO's free speed.
+    public static double kExtenderP = 0.0005;
+    public static double kExtenderI = 0;
+    public static double kExtenderFF = 1.0 / 5676;
+    public static double kExtenderMaxVelocityRpm = 4500;
+    public static double kExtenderMaxAccelRpmPerSec = 12000;
+    public static double kExtenderAllowedErrorRotations = 0.5;
+
+    // MoveExtenderToPosition gives up this long after the Smart Motion profile should have
+    // arrived, e.g. if the extender is jammed
+    public static double kExtenderTimeoutMarginSeconds = 1.0;
+
     public static float kExtenderSoftLimitTurns = (float) -54; // Max is 155
     public static int kHallEffectExtenderChannel = 4;
 
@@ -89,6 +168,12 @@ public final class Constants {
 
     public static Integer kActiveIntakeMotorChannel1 = 51;
     public static Integer kActiveIntakeMotorChannel2 = 52;
+
+    // Time the pieces of robotPeriodic(), and publish the worst ones under "LoopProfiler"
+    public static boolean kLoopProfilerEnabled = true;
+
+    // Diagnostics: also count the bytes each section allocates per loop (too slow to leave on)
+    public static boolean kLoopProfilerTrackAllocations = false;
   }
 
   /**
@@ -121,6 +206,50 @@ public final class Constants {
     // Grabber
     public static boolean kgrabberInitiallyOpened = false;
 
+    // Charge station, lying along the field's x axis. The robot starts facing +x, with the
+    // station's center this far along x from it: Auto Balance drives 8 feet backward, which
+    // ends just past the center, like on the field.
+    // $TODO - Check the sizes against the field drawings, and measure the robot.
+    public static double kchargeStationOffsetMeters = -2.06;
+    public static double kchargeStationPlatformLenMeters = 1.22;
+    public static double kchargeStationRampLenMeters = 0.36; // Along the carpet
+    public static double kchargeStationWidthMeters = 2.44;
+    public static double kchargeStationPivotHeightMeters = 0.23;
+    public static double kchargeStationMaxAngleDegrees = 15;
+    public static double kchargeStationInertia = 15; // kg m^2, about the pivot
+    public static double kchargeStationDamping = 300; // N m per rad/s
+    public static double kchargeStationFrictionTorque = 30; // N m, holds the robot ~5cm off center
+    public static double krobotMassKg = 55;
+
+    // Pigeon2 roll when the robot is level. Matches kBalanceLevelRoll.
+    public static double kgyroRollOffsetDegrees = -2.5;
+
+    // Simulation models advance by the real elapsed time (FPGA clock) each tick, instead
+    // of a fixed 20ms. The drivetrain is also sub-stepped, since it is integrated numerically.
+    public static boolean ksimUseElapsedTime = true;
+    public static double kdriveSimMaxStepSeconds = 0.005;
+
+    // Time each stage of the sim managers, and publish latencies under "SimTiming"
+    public static boolean ksimStageTimingEnabled = false;
+
+    // Publish each model's sub-steps and cost per tick under "SimTiming/[name]/Stepper"
+    public static boolean ksimStepperStatsEnabled = true;
+
+    // Threads used to step independent simulation chains. 1 means step serially.
+    public static int ksimThreadCount = 1;
+
+    // Snapshots of the simulation kept for rewinding (one per tick). 0 turns snapshots off.
+    public static int ksimSnapshotCapacity = 250;
+
+    // Record the arm's motor inputs to this file, or replay them from it (null to turn off).
+    // Replay with the same ksimUseElapsedTime the session was recorded with.
+    public static String ksimInputRecordPath = null;
+    public static String ksimInputReplayPath = null;
+
+    // Scalar Shuffleboard widgets for the arm. Off by default: the same values are published
+    // together in the packed "Telemetry/Arm" topic.
+    public static boolean ksimScalarWidgetsEnabled = false;
+
     // Arm widget for shuffleboard to load
     public static final String kAnimatedArmWidget = "AnimatedArm";
   }
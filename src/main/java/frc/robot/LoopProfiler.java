@@ -0,0 +1,534 @@
+package frc.robot;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.simulation.framework.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the pieces of robotPeriodic(), so a loop overrun can be blamed on the subsystem or
+ * command that caused it, instead of just WPILib's watchdog epoch dump.
+ *
+ * <p>
+ * Each piece registers a named section once (in a static final field), then brackets its
+ * work with startSection() and endSection(). Sections run one after the other, never nested:
+ * </p>
+ *
+ * <pre>
+ * private static final int kPeriodicSection = LoopProfiler.addSection("ArmSystem.periodic");
+ * ...
+ * LoopProfiler.startSection();
+ * ...
+ * LoopProfiler.endSection(kPeriodicSection);
+ * </pre>
+ *
+ * <p>
+ * Commands are timed through the CommandScheduler callbacks (see registerCommandHooks), one
+ * section per command name. Like the scheduler's own watchdog epochs, a command's section
+ * includes the isFinished() of the command that ran just before it.
+ * </p>
+ *
+ * <p>
+ * Every section keeps two latency histograms, reset kWindowSeconds apart and staggered by
+ * half a window, so the stats always cover between half and all of the last window. When a
+ * loop goes over kLoopBudgetSeconds, the section that took the most time in that loop is
+ * blamed for it. About once per second the kNumTopSections worst sections (by p99) are
+ * published under "LoopProfiler". Timing a section is two System.nanoTime() calls and a few
+ * array writes, so the profiler stays on in competition.
+ * </p>
+ *
+ * <p>
+ * As a diagnostics mode, setAllocationTracking(true) also reads the thread's allocated bytes
+ * (com.sun.management.ThreadMXBean) at every section boundary, and publishes the bytes
+ * allocated per loop by each section, to find what is feeding the garbage collector. That
+ * read is slower than nanoTime(), and allocates a little itself (measured once and
+ * subtracted), so leave it off in competition.
+ * </p>
+ */
+public final class LoopProfiler {
+  /**
+   * One timed piece of the loop.
+   */
+  private static final class Section {
+    private final String m_name;
+    private final LatencyHistogram[] m_windows = {new LatencyHistogram(), new LatencyHistogram()};
+    private long m_loopNanos;
+    private long m_overrunCount;
+    private long m_periodBytes;
+    private double m_bytesPerLoop;
+
+    private Section(String name) {
+      m_name = name;
+    }
+
+    private void record(long nanos) {
+      m_windows[0].record(nanos);
+      m_windows[1].record(nanos);
+      m_loopNanos += nanos;
+    }
+  }
+
+  public static final double kLoopBudgetSeconds = 0.02;
+  public static final double kWindowSeconds = 10.0;
+  public static final double kPublishPeriodSeconds = 1.0;
+  public static final int kNumTopSections = 5;
+  public static final int kNumTopAllocators = 5;
+
+  private static final RobotLogger.Site kOverrunLog = RobotLogger.createSite(
+      "Loop overrun, mostly in %s (%s ms)", 1.0);
+  private static final RobotLogger.Site kNoAllocationTrackingLog = RobotLogger.createSite(
+      "LoopProfiler: this JVM can't count allocated bytes per thread", 0);
+  private static final LoopProfiler kInstance = new LoopProfiler();
+
+  private final List<Section> m_sections = new ArrayList<>();
+  private final Map<String, Integer> m_sectionIds = new HashMap<>();
+  private final Map<String, Integer> m_commandSectionIds = new HashMap<>();
+  private final Section m_loop = new Section("robotPeriodic");
+  private long[] m_p99Nanos = new long[0];
+  private final int[] m_topIds = new int[kNumTopSections];
+  private double[] m_bytesScratch = new double[0];
+
+  private boolean m_enabled = true;
+  private long m_markNanos;
+  private long m_loopStartNanos;
+  private long m_overrunCount = 0;
+  private int m_lastOverrunSection = -1;
+  private final long[] m_windowStartNanos = new long[2];
+  private long m_lastPublishNanos;
+
+  private com.sun.management.ThreadMXBean m_threadBean = null;
+  private long m_threadId;
+  private long m_allocationReadBytes;
+  private long m_markBytes;
+  private long m_loopStartBytes;
+  private long m_periodLoops;
+
+  private final DoublePublisher m_loopP99Publisher;
+  private final DoublePublisher m_loopMaxPublisher;
+  private final DoublePublisher m_overrunCountPublisher;
+  private final StringPublisher m_lastOverrunPublisher;
+  private final StringPublisher[] m_topNamePublishers = new StringPublisher[kNumTopSections];
+  private final DoublePublisher[] m_topP99Publishers = new DoublePublisher[kNumTopSections];
+  private final DoublePublisher[] m_topMaxPublishers = new DoublePublisher[kNumTopSections];
+  private final DoublePublisher[] m_topOverrunPublishers = new DoublePublisher[kNumTopSections];
+  private final DoublePublisher m_loopBytesPublisher;
+  private final StringPublisher[] m_allocNamePublishers = new StringPublisher[kNumTopAllocators];
+  private final DoublePublisher[] m_allocBytesPublishers = new DoublePublisher[kNumTopAllocators];
+
+  private LoopProfiler() {
+    NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+    m_loopP99Publisher = table.getDoubleTopic("LoopP99Micros").publish();
+    m_loopMaxPublisher = table.getDoubleTopic("LoopMaxMicros").publish();
+    m_overrunCountPublisher = table.getDoubleTopic("OverrunCount").publish();
+    m_lastOverrunPublisher = table.getStringTopic("LastOverrunSection").publish();
+
+    for (int i = 0; i < kNumTopSections; i++) {
+      NetworkTable topTable = table.getSubTable("Top" + i);
+      m_topNamePublishers[i] = topTable.getStringTopic("Name").publish();
+      m_topP99Publishers[i] = topTable.getDoubleTopic("p99Micros").publish();
+      m_topMaxPublishers[i] = topTable.getDoubleTopic("maxMicros").publish();
+      m_topOverrunPublishers[i] = topTable.getDoubleTopic("Overruns").publish();
+    }
+
+    m_loopBytesPublisher = table.getDoubleTopic("LoopBytesPerLoop").publish();
+    for (int i = 0; i < kNumTopAllocators; i++) {
+      NetworkTable allocTable = table.getSubTable("TopAlloc" + i);
+      m_allocNamePublishers[i] = allocTable.getStringTopic("Name").publish();
+      m_allocBytesPublishers[i] = allocTable.getDoubleTopic("BytesPerLoop").publish();
+    }
+
+    long nowNanos = System.nanoTime();
+    m_markNanos = nowNanos;
+    m_loopStartNanos = nowNanos;
+    m_windowStartNanos[0] = nowNanos;
+    m_windowStartNanos[1] = nowNanos - secondsToNanos(kWindowSeconds / 2);
+    m_lastPublishNanos = nowNanos;
+  }
+
+  private static long secondsToNanos(double seconds) {
+    return (long) (seconds * 1e9);
+  }
+
+  /**
+   * Registers a section, and returns the id to pass to endSection(). Registering a name that
+   * already exists returns the existing id.
+   */
+  public static int addSection(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    return kInstance.getOrAddSection(name);
+  }
+
+  private int getOrAddSection(String name) {
+    Integer id = m_sectionIds.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    m_sections.add(new Section(name));
+    m_p99Nanos = Arrays.copyOf(m_p99Nanos, m_sections.size());
+    m_bytesScratch = Arrays.copyOf(m_bytesScratch, m_sections.size());
+    m_sectionIds.put(name, m_sections.size() - 1);
+    return m_sections.size() - 1;
+  }
+
+  /**
+   * Times every command the scheduler runs. Each execute() is timed from the end of the
+   * section before it, and a finishing command is also charged for its isFinished() and
+   * end().
+   */
+  public static void registerCommandHooks(CommandScheduler scheduler) {
+    if (scheduler == null) {
+      throw new IllegalArgumentException("scheduler cannot be null");
+    }
+
+    scheduler.onCommandExecute(kInstance::endCommandSection);
+    scheduler.onCommandFinish(kInstance::endCommandSection);
+  }
+
+  private void endCommandSection(Command command) {
+    if (!m_enabled) {
+      return;
+    }
+
+    String name = command.getName();
+    Integer id = m_commandSectionIds.get(name);
+    if (id == null) {
+      id = getOrAddSection("Command." + name);
+      m_commandSectionIds.put(name, id);
+    }
+
+    endSection(id);
+  }
+
+  public static void setEnabled(boolean enabled) {
+    kInstance.m_enabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return kInstance.m_enabled;
+  }
+
+  /**
+   * Turns counting of allocated bytes per section on or off.
+   *
+   * @return false if this JVM can't count allocated bytes per thread, in which case
+   *         tracking stays off
+   */
+  public static boolean setAllocationTracking(boolean enabled) {
+    if (!enabled) {
+      kInstance.m_threadBean = null;
+      return true;
+    }
+
+    return kInstance.startAllocationTracking();
+  }
+
+  public static boolean isAllocationTracking() {
+    return kInstance.m_threadBean != null;
+  }
+
+  private boolean startAllocationTracking() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      RobotLogger.log(kNoAllocationTrackingLog);
+      return false;
+    }
+
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    if (!threadBean.isThreadAllocatedMemorySupported()) {
+      RobotLogger.log(kNoAllocationTrackingLog);
+      return false;
+    }
+
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    // Sections are timed on the thread that turns tracking on (the robot loop). Reading the
+    // counter allocates a couple of small arrays on Java 11; measure that to subtract it.
+    long threadId = Thread.currentThread().getId();
+    threadBean.getThreadAllocatedBytes(threadId);
+    long firstBytes = threadBean.getThreadAllocatedBytes(threadId);
+    long secondBytes = threadBean.getThreadAllocatedBytes(threadId);
+
+    m_threadId = threadId;
+    m_allocationReadBytes = Math.max(0, secondBytes - firstBytes);
+    m_markBytes = secondBytes;
+    m_loopStartBytes = secondBytes;
+    m_threadBean = threadBean;
+    return true;
+  }
+
+  // Bytes allocated by the robot loop thread so far, not counting this read
+  private long readAllocatedBytes() {
+    return m_threadBean.getThreadAllocatedBytes(m_threadId);
+  }
+
+  // Bytes allocated since markBytes, minus what the read at the end of it allocated
+  private long getBytesSince(long markBytes, long nowBytes) {
+    return Math.max(0, nowBytes - markBytes - m_allocationReadBytes);
+  }
+
+  /**
+   * Marks the start of robotPeriodic().
+   */
+  public static void beginLoop() {
+    if (!kInstance.m_enabled) {
+      return;
+    }
+
+    long nowNanos = System.nanoTime();
+    for (Section section : kInstance.m_sections) {
+      section.m_loopNanos = 0;
+    }
+
+    kInstance.m_loopStartNanos = nowNanos;
+    kInstance.m_markNanos = nowNanos;
+
+    if (kInstance.m_threadBean != null) {
+      long nowBytes = kInstance.readAllocatedBytes();
+      kInstance.m_loopStartBytes = nowBytes;
+      kInstance.m_markBytes = nowBytes;
+    }
+  }
+
+  /**
+   * Marks the start of a section.
+   */
+  public static void startSection() {
+    if (kInstance.m_enabled) {
+      kInstance.m_markNanos = System.nanoTime();
+      if (kInstance.m_threadBean != null) {
+        kInstance.m_markBytes = kInstance.readAllocatedBytes();
+      }
+    }
+  }
+
+  /**
+   * Records the time since the last startSection() (or endSection()) under the section.
+   */
+  public static void endSection(int id) {
+    if (kInstance.m_enabled) {
+      kInstance.endSectionAt(id, System.nanoTime());
+    }
+  }
+
+  private void endSectionAt(int id, long nowNanos) {
+    Section section = m_sections.get(id);
+    section.record(nowNanos - m_markNanos);
+    m_markNanos = nowNanos;
+
+    if (m_threadBean != null) {
+      long nowBytes = readAllocatedBytes();
+      section.m_periodBytes += getBytesSince(m_markBytes, nowBytes);
+      m_markBytes = nowBytes;
+    }
+  }
+
+  /**
+   * Marks the end of robotPeriodic(). Blames an overrun on the slowest section of the loop,
+   * rotates the histogram windows and publishes when they are due.
+   */
+  public static void endLoop() {
+    if (kInstance.m_enabled) {
+      kInstance.endLoopAt(System.nanoTime());
+    }
+  }
+
+  private void endLoopAt(long nowNanos) {
+    long loopNanos = nowNanos - m_loopStartNanos;
+    m_loop.record(loopNanos);
+    m_periodLoops++;
+
+    if (m_threadBean != null) {
+      m_loop.m_periodBytes += getBytesSince(m_loopStartBytes, readAllocatedBytes());
+    }
+
+    if (loopNanos > secondsToNanos(kLoopBudgetSeconds)) {
+      onOverrun();
+    }
+
+    for (int i = 0; i < m_windowStartNanos.length; i++) {
+      if (nowNanos - m_windowStartNanos[i] >= secondsToNanos(kWindowSeconds)) {
+        m_windowStartNanos[i] = nowNanos;
+        m_loop.m_windows[i].reset();
+        for (Section section : m_sections) {
+          section.m_windows[i].reset();
+        }
+      }
+    }
+
+    if (nowNanos - m_lastPublishNanos >= secondsToNanos(kPublishPeriodSeconds)) {
+      m_lastPublishNanos = nowNanos;
+      publish();
+    }
+  }
+
+  private void onOverrun() {
+    m_overrunCount++;
+
+    int worstId = -1;
+    long worstNanos = -1;
+    for (int i = 0; i < m_sections.size(); i++) {
+      long sectionNanos = m_sections.get(i).m_loopNanos;
+      if (sectionNanos > worstNanos) {
+        worstNanos = sectionNanos;
+        worstId = i;
+      }
+    }
+
+    if (worstId >= 0) {
+      Section worst = m_sections.get(worstId);
+      worst.m_overrunCount++;
+      m_lastOverrunSection = worstId;
+      RobotLogger.log(kOverrunLog, worst.m_name, worstNanos / 1e6);
+    }
+  }
+
+  // The window that has been recording the longest
+  private int getReportWindow() {
+    return (m_windowStartNanos[0] - m_windowStartNanos[1] <= 0) ? 0 : 1;
+  }
+
+  /**
+   * Publishes the loop time and the worst sections by p99 to NetworkTables, in microseconds.
+   */
+  public static void publish() {
+    kInstance.publishTop();
+  }
+
+  private void publishTop() {
+    int window = getReportWindow();
+    for (int i = 0; i < m_sections.size(); i++) {
+      m_p99Nanos[i] = m_sections.get(i).m_windows[window].getPercentileNanos(99);
+    }
+
+    int numTop = Math.min(kNumTopSections, m_sections.size());
+    for (int rank = 0; rank < numTop; rank++) {
+      int bestId = -1;
+      for (int i = 0; i < m_sections.size(); i++) {
+        if (m_p99Nanos[i] >= 0 && (bestId < 0 || m_p99Nanos[i] > m_p99Nanos[bestId])) {
+          bestId = i;
+        }
+      }
+
+      m_topIds[rank] = bestId;
+      Section section = m_sections.get(bestId);
+      m_topNamePublishers[rank].set(section.m_name);
+      m_topP99Publishers[rank].set(m_p99Nanos[bestId] / 1000.0);
+      m_topMaxPublishers[rank].set(section.m_windows[window].getMaxNanos() / 1000.0);
+      m_topOverrunPublishers[rank].set(section.m_overrunCount);
+
+      // Taken; don't pick it again for a lower rank
+      m_p99Nanos[bestId] = -1;
+    }
+
+    m_loopP99Publisher.set(m_loop.m_windows[window].getPercentileNanos(99) / 1000.0);
+    m_loopMaxPublisher.set(m_loop.m_windows[window].getMaxNanos() / 1000.0);
+    m_overrunCountPublisher.set(m_overrunCount);
+    if (m_lastOverrunSection >= 0) {
+      m_lastOverrunPublisher.set(m_sections.get(m_lastOverrunSection).m_name);
+    }
+
+    publishAllocations();
+  }
+
+  // Publishes the bytes per loop of the loop and of the worst sections since the last publish
+  private void publishAllocations() {
+    long numLoops = Math.max(1, m_periodLoops);
+    m_periodLoops = 0;
+
+    m_loop.m_bytesPerLoop = (double) m_loop.m_periodBytes / numLoops;
+    m_loop.m_periodBytes = 0;
+    for (int i = 0; i < m_sections.size(); i++) {
+      Section section = m_sections.get(i);
+      section.m_bytesPerLoop = (double) section.m_periodBytes / numLoops;
+      section.m_periodBytes = 0;
+      m_bytesScratch[i] = section.m_bytesPerLoop;
+    }
+
+    if (m_threadBean == null) {
+      return;
+    }
+
+    m_loopBytesPublisher.set(m_loop.m_bytesPerLoop);
+
+    int numTop = Math.min(kNumTopAllocators, m_sections.size());
+    for (int rank = 0; rank < numTop; rank++) {
+      int bestId = -1;
+      for (int i = 0; i < m_sections.size(); i++) {
+        if (m_bytesScratch[i] >= 0 && (bestId < 0 || m_bytesScratch[i] > m_bytesScratch[bestId])) {
+          bestId = i;
+        }
+      }
+
+      Section section = m_sections.get(bestId);
+      m_allocNamePublishers[rank].set(section.m_name);
+      m_allocBytesPublishers[rank].set(section.m_bytesPerLoop);
+      m_bytesScratch[bestId] = -1;
+    }
+  }
+
+  public static int getNumSections() {
+    return kInstance.m_sections.size();
+  }
+
+  public static String getSectionName(int id) {
+    return kInstance.m_sections.get(id).m_name;
+  }
+
+  /**
+   * Returns the histogram that is currently reported for the section.
+   */
+  public static LatencyHistogram getHistogram(int id) {
+    return kInstance.m_sections.get(id).m_windows[kInstance.getReportWindow()];
+  }
+
+  // Number of overruns blamed on the section
+  public static long getOverrunCount(int id) {
+    return kInstance.m_sections.get(id).m_overrunCount;
+  }
+
+  public static long getOverrunCount() {
+    return kInstance.m_overrunCount;
+  }
+
+  /**
+   * Returns the average bytes the section allocated per loop, as of the last publish.
+   */
+  public static double getBytesPerLoop(int id) {
+    return kInstance.m_sections.get(id).m_bytesPerLoop;
+  }
+
+  public static double getLoopBytesPerLoop() {
+    return kInstance.m_loop.m_bytesPerLoop;
+  }
+
+  // Id of the section blamed for the last overrun, or -1 if there was none
+  public static int getLastOverrunSection() {
+    return kInstance.m_lastOverrunSection;
+  }
+
+  /**
+   * Returns the ids of the sections in the last publish, worst first. Ids past the number of
+   * sections are -1.
+   */
+  public static int[] getTopSections() {
+    int[] result = Arrays.copyOf(kInstance.m_topIds, kNumTopSections);
+    for (int i = Math.min(kNumTopSections, kInstance.m_sections.size()); i < result.length; i++) {
+      result[i] = -1;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,96 @@
+package frc.robot;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArrayTopic;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * One subsystem's state, packed into a single double[] topic under "Telemetry/[name]" and
+ * published once per loop. Compared to a scalar topic per value, there are far fewer
+ * NetworkTables entries to update, and every field of a sample comes from the same tick.
+ *
+ * <p>
+ * The schema is a list of field names, one per array index. The owner defines an index
+ * constant for each field next to the names, e.g. ArmSystemSim.kTelemetryArmDegrees. The
+ * names are also published, comma separated, as "Telemetry/[name]Schema" and in the topic's
+ * "schema" property, so logs and dashboards can decode the array. Booleans are 1.0 or 0.0.
+ * </p>
+ */
+public class PackedTelemetry {
+  private final String m_name;
+  private final String[] m_fieldNames;
+  private final double[] m_values;
+  private final DoubleArrayPublisher m_publisher;
+  private long m_publishCount = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param name       Topic name, under the "Telemetry" table
+   * @param fieldNames Name of the field at each index of the array
+   */
+  public PackedTelemetry(String name, String[] fieldNames) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (fieldNames == null || fieldNames.length == 0) {
+      throw new IllegalArgumentException("fieldNames cannot be empty");
+    }
+
+    m_name = name;
+    m_fieldNames = fieldNames.clone();
+    m_values = new double[fieldNames.length];
+
+    String schema = String.join(",", m_fieldNames);
+    NetworkTable table = NetworkTableInstance.getDefault().getTable("Telemetry");
+    DoubleArrayTopic topic = table.getDoubleArrayTopic(name);
+    topic.setProperties("{\"schema\": \"" + schema + "\"}");
+    m_publisher = topic.publish();
+
+    table.getStringTopic(name + "Schema").publish().set(schema);
+  }
+
+  public String getName() {
+    return m_name;
+  }
+
+  public int getNumFields() {
+    return m_values.length;
+  }
+
+  public String getFieldName(int index) {
+    return m_fieldNames[index];
+  }
+
+  public void set(int index, double value) {
+    m_values[index] = value;
+  }
+
+  public void set(int index, boolean value) {
+    m_values[index] = value ? 1.0 : 0.0;
+  }
+
+  public double get(int index) {
+    return m_values[index];
+  }
+
+  public boolean getBoolean(int index) {
+    return m_values[index] != 0.0;
+  }
+
+  // Number of samples published so far
+  public long getPublishCount() {
+    return m_publishCount;
+  }
+
+  /**
+   * Publishes the current values as one sample. NetworkTables copies the array, so the
+   * values can be overwritten for the next loop right away.
+   */
+  public void publish() {
+    m_publisher.set(m_values);
+    m_publishCount++;
+  }
+}
@@ -0,0 +1,243 @@
+package frc.robot;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The last few seconds of robot poses, for questions like "where was the robot when this
+ * camera frame was taken, 60ms ago". A fixed-capacity ring buffer of timestamped samples,
+ * kept in parallel double arrays, so adding a sample doesn't allocate (unlike WPILib's
+ * TimeInterpolatableBuffer, which adds a TreeMap entry per sample).
+ *
+ * <p>
+ * Lookups binary search the timestamps and interpolate between the two samples around the
+ * requested time: linearly for x and y, and along the shorter arc for the heading. Times
+ * outside the history return the oldest or newest sample.
+ * </p>
+ *
+ * <p>
+ * One thread may add samples (e.g. the odometry thread) while any number of threads look
+ * them up. A lookup that overlaps an add is retried, like DoubleBufferedState.read().
+ * </p>
+ */
+public class PoseHistory {
+  /**
+   * Mutable result of a lookup, so that lookups don't allocate.
+   */
+  public static class Sample {
+    private double m_timestampSeconds;
+    private double m_xmeters;
+    private double m_ymeters;
+    private double m_headingRadians;
+
+    public double getTimestampSeconds() {
+      return m_timestampSeconds;
+    }
+
+    public double getX() {
+      return m_xmeters;
+    }
+
+    public double getY() {
+      return m_ymeters;
+    }
+
+    public double getHeadingRadians() {
+      return m_headingRadians;
+    }
+
+    // Allocates, so prefer the getters in code that runs every loop
+    public Pose2d getPose() {
+      return new Pose2d(m_xmeters, m_ymeters, new Rotation2d(m_headingRadians));
+    }
+  }
+
+  private final double[] m_timestamps;
+  private final double[] m_xmeters;
+  private final double[] m_ymeters;
+  private final double[] m_headingRadians;
+
+  // Ring buffer of m_size samples, the oldest at m_first
+  private int m_first = 0;
+  private int m_size = 0;
+
+  // Odd while add() or clear() is writing
+  private volatile long m_version = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity Number of samples kept. At 200 samples per second, 300 covers 1.5s.
+   */
+  public PoseHistory(int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("capacity must be >=2");
+    }
+
+    m_timestamps = new double[capacity];
+    m_xmeters = new double[capacity];
+    m_ymeters = new double[capacity];
+    m_headingRadians = new double[capacity];
+  }
+
+  public int getCapacity() {
+    return m_timestamps.length;
+  }
+
+  // Only exact on the writing thread
+  public int size() {
+    return m_size;
+  }
+
+  public void add(double timestampSeconds, Pose2d pose) {
+    add(timestampSeconds, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /**
+   * Adds a sample, replacing the oldest one if the history is full. Timestamps must increase:
+   * a sample that isn't newer than the newest one is ignored.
+   *
+   * @return false if the sample was ignored
+   */
+  public boolean add(double timestampSeconds, double xmeters, double ymeters,
+      double headingRadians) {
+    if (m_size > 0 && !(timestampSeconds > m_timestamps[getIndex(m_size - 1)])) {
+      return false;
+    }
+
+    beginWrite();
+
+    int index;
+    if (m_size < m_timestamps.length) {
+      index = getIndex(m_size);
+      m_size++;
+    }
+    else {
+      index = m_first;
+      m_first = getIndex(1);
+    }
+
+    m_timestamps[index] = timestampSeconds;
+    m_xmeters[index] = xmeters;
+    m_ymeters[index] = ymeters;
+    m_headingRadians[index] = headingRadians;
+
+    endWrite();
+    return true;
+  }
+
+  /**
+   * Removes every sample, e.g. when the pose is reset and the old samples no longer line up
+   * with the new ones.
+   */
+  public void clear() {
+    beginWrite();
+    m_first = 0;
+    m_size = 0;
+    endWrite();
+  }
+
+  /**
+   * Looks up the pose at timestampSeconds. Safe from any thread.
+   *
+   * @param target Filled in with the interpolated pose, and timestampSeconds
+   * @return false if the history is empty
+   */
+  public boolean getSample(double timestampSeconds, Sample target) {
+    if (target == null) {
+      throw new IllegalArgumentException("target cannot be null");
+    }
+
+    while (true) {
+      long version = m_version;
+      if ((version & 1) != 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      boolean found = interpolate(timestampSeconds, target);
+
+      // Keep the reads of the arrays from being reordered after the version check
+      VarHandle.acquireFence();
+      if (m_version == version) {
+        return found;
+      }
+    }
+  }
+
+  /**
+   * Looks up the pose at timestampSeconds. Allocates; prefer getSample() in code that runs
+   * every loop.
+   *
+   * @return null if the history is empty
+   */
+  public Pose2d getPose(double timestampSeconds) {
+    Sample sample = new Sample();
+    return getSample(timestampSeconds, sample) ? sample.getPose() : null;
+  }
+
+  private void beginWrite() {
+    m_version = m_version + 1;
+
+    // Keep the array writes from being reordered ahead of the odd version
+    VarHandle.storeStoreFence();
+  }
+
+  private void endWrite() {
+    m_version = m_version + 1;
+  }
+
+  // Array index of the i-th oldest sample
+  private int getIndex(int i) {
+    return (m_first + i) % m_timestamps.length;
+  }
+
+  // May read a half-written history; getSample() retries if it did. The indexes stay in
+  // bounds either way.
+  private boolean interpolate(double timestampSeconds, Sample target) {
+    int size = Math.min(m_size, m_timestamps.length);
+    if (size == 0) {
+      return false;
+    }
+
+    target.m_timestampSeconds = timestampSeconds;
+
+    // Find the first sample at or after the requested time
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (m_timestamps[getIndex(middle)] < timestampSeconds) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
+      }
+    }
+
+    if (low == 0 || low == size) {
+      copySample(getIndex(low == 0 ? 0 : size - 1), target);
+      return true;
+    }
+
+    int before = getIndex(low - 1);
+    int after = getIndex(low);
+    double span = m_timestamps[after] - m_timestamps[before];
+    double t = (span > 0) ? (timestampSeconds - m_timestamps[before]) / span : 1;
+
+    target.m_xmeters = m_xmeters[before] + (m_xmeters[after] - m_xmeters[before]) * t;
+    target.m_ymeters = m_ymeters[before] + (m_ymeters[after] - m_ymeters[before]) * t;
+
+    double turn = Math.IEEEremainder(m_headingRadians[after] - m_headingRadians[before],
+        2 * Math.PI);
+    target.m_headingRadians = m_headingRadians[before] + turn * t;
+    return true;
+  }
+
+  private void copySample(int index, Sample target) {
+    target.m_xmeters = m_xmeters[index];
+    target.m_ymeters = m_ymeters[index];
+    target.m_headingRadians = m_headingRadians[index];
+  }
+}
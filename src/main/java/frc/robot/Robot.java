@@ -7,11 +7,11 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.commands.Auto;
 import frc.robot.commands.RetractArmCommand;
+import frc.robot.subsystems.ArmSystem;
 
 /**
  * The JVM is configured to automatically run this class, and to call the functions corresponding to
@@ -20,18 +20,40 @@ import frc.robot.commands.RetractArmCommand;
  * project.
  */
 public class Robot extends TimedRobot {
+  private static final int kSensorsSection = LoopProfiler.addSection("Sensors");
+  private static final int kSchedulerSection = LoopProfiler.addSection("CommandScheduler");
+  private static final int kVerifyJoysticksSection = LoopProfiler.addSection("VerifyJoysticks");
+  private static final int kLedLightsSection = LoopProfiler.addSection("LedLights");
+  private static final int kDashboardSection = LoopProfiler.addSection("Robot.dashboard");
+  private static final int kSimulationSection = LoopProfiler.addSection("Simulation");
+
   private Command m_autonomousCommand;
   private RobotContainer m_robotContainer;
   private VerifyJoysticks m_verifyJoysticks;
   private SendableChooser<String> m_chooser;
   private LedLights m_ledLights;
 
+  private final Telemetry.BooleanEntry m_getCubeTelemetry =
+      Telemetry.addBoolean("Get Cube", Telemetry.kSensorRateHz);
+  private final Telemetry.BooleanEntry m_hallEffectTelemetry =
+      Telemetry.addBoolean("See Hall Effect", Telemetry.kSensorRateHz);
+  private final Telemetry.DoubleEntry m_extenderEncoderTelemetry =
+      Telemetry.addDouble("Extender encoder value.", 0.01, Telemetry.kSensorRateHz);
+  private final Telemetry.DoubleEntry m_winchEncoderTelemetry =
+      Telemetry.addDouble(ArmSystem.kWinchAbsolutePositionKey, 0.001, Telemetry.kSensorRateHz);
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   @Override
   public void robotInit() {
+    LoopProfiler.setEnabled(Constants.OperatorConstants.kLoopProfilerEnabled);
+    LoopProfiler.registerCommandHooks(CommandScheduler.getInstance());
+    if (Constants.OperatorConstants.kLoopProfilerTrackAllocations) {
+      LoopProfiler.setAllocationTracking(true);
+    }
+
     m_robotContainer = new RobotContainer();
     m_robotContainer.initDashboard();
     m_chooser = Auto.addAutoModeChooser();
@@ -41,7 +63,7 @@ public class Robot extends TimedRobot {
         new DriverStationFunctions(), 1);
 
     // $TODO - This should be in init or update DashBoard?
-    SmartDashboard.putBoolean("Get Cube", true);
+    m_getCubeTelemetry.set(true);
   }
 
   /**
@@ -54,13 +76,29 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    LoopProfiler.beginLoop();
+
+    m_robotContainer.refreshSensors();
+    LoopProfiler.endSection(kSensorsSection);
+
+    // Subsystems and commands mark their own sections while the scheduler runs; what's
+    // left at the end is the scheduler's own work
     CommandScheduler.getInstance().run();
+    LoopProfiler.endSection(kSchedulerSection);
 
+    // Each endSection() starts the next section
     m_verifyJoysticks.verifyJoysticksPeriodically();
+    LoopProfiler.endSection(kVerifyJoysticksSection);
+
     m_ledLights.updateLeds();
+    LoopProfiler.endSection(kLedLightsSection);
 
-    SmartDashboard.putBoolean("See Hall Effect", m_robotContainer.m_armSystem.getDigitalSensor());
-    SmartDashboard.putNumber("Extender encoder value.", m_robotContainer.m_armSystem.getExtenderEncoder());
+    m_hallEffectTelemetry.set(m_robotContainer.m_armSystem.getDigitalSensor());
+    m_extenderEncoderTelemetry.set(m_robotContainer.m_armSystem.getExtenderEncoder());
+    Telemetry.periodic();
+    LoopProfiler.endSection(kDashboardSection);
+
+    LoopProfiler.endLoop();
   }
 
   /**
@@ -86,8 +124,7 @@ public class Robot extends TimedRobot {
     new RetractArmCommand(m_robotContainer.m_armSystem).schedule();
 
     // $TODO - This should be in init or update DashBoard?
-    SmartDashboard.putNumber("Winch Encoder",
-        m_robotContainer.m_armSystem.getWinchAbsoluteEncoder());
+    m_winchEncoderTelemetry.set(m_robotContainer.m_armSystem.getWinchAbsoluteEncoder());
   }
 
   /**
@@ -98,13 +135,13 @@ public class Robot extends TimedRobot {
 
     if (m_robotContainer.m_controller2.getLeftTriggerAxis() > 0.05) {
       // $TODO - This should be in init or update DashBoard?
-      SmartDashboard.putBoolean("Get Cube", true);
+      m_getCubeTelemetry.set(true);
 
       m_ledLights.setLedsYellow();
     }
     else if (m_robotContainer.m_controller2.getRightTriggerAxis() > 0.05) {
       // $TODO - This should be in init or update DashBoard?
-      SmartDashboard.putBoolean("Get Cube", false);
+      m_getCubeTelemetry.set(false);
 
       m_ledLights.setLedsMagenta();
     }
@@ -124,11 +161,23 @@ public class Robot extends TimedRobot {
     CommandScheduler.getInstance().cancelAll();
   }
 
+  /**
+   * This function is called every 20 ms in simulation, after robotPeriodic().
+   */
+  @Override
+  public void simulationPeriodic() {
+    // Runs after endLoop(), so it is timed but never blamed for a robotPeriodic() overrun
+    LoopProfiler.startSection();
+    m_robotContainer.simulationPeriodic();
+    LoopProfiler.endSection(kSimulationSection);
+  }
+
   @Override
   public void disabledInit() {
     m_ledLights.resetLeds();
 
     CommandScheduler.getInstance().cancelAll();
     m_robotContainer.m_driveSystem.calibrate();
+    m_robotContainer.flushSimInputRecording();
   }
 }
@@ -4,15 +4,22 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.commands.Auto;
+import frc.robot.commands.MoveWinchToAngle;
 import frc.robot.commands.RetractArmCommand;
 import frc.robot.commands.SetSoftLimitCommand;
-import frc.robot.commands.SetWinchToAngle;
 import frc.robot.commands.TurnActiveIntake;
+import frc.robot.simulation.framework.SimGraph;
+import frc.robot.simulation.framework.SimInputRecorder;
+import frc.robot.simulation.framework.SimInputReplay;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimSnapshotRing;
 import frc.robot.subsystems.ActiveIntakeSystem;
 import frc.robot.subsystems.ArmSystem;
 import frc.robot.subsystems.ArmSystemSim;
@@ -20,6 +27,9 @@ import frc.robot.subsystems.GrabberSystem;
 import frc.robot.subsystems.GrabberSystemSim;
 import frc.robot.subsystems.TankDriveSystem;
 import frc.robot.subsystems.TankDriveSystemSim;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BooleanSupplier;
 
 import com.revrobotics.CANSparkMax; // $TODO1 - Move into subsystem
@@ -40,6 +50,11 @@ public class RobotContainer {
   public final GrabberSystem m_grabSystem;
   public final ActiveIntakeSystem m_intakeSystem;
 
+  // Only created when running in simulation
+  private final SimGraph m_simGraph;
+  private final SimSnapshotRing m_simSnapshots;
+  private SimInputRecorder m_simInputRecorder = null;
+
   private final CANSparkMax m_activeIntakeMotor1; // $TODO1 - Move into subsystem
   private final CANSparkMax m_activeIntakeMotor2; // $TODO1 - Move into subsystem
 
@@ -81,9 +96,17 @@ public class RobotContainer {
 
     m_intakeSystem = new ActiveIntakeSystem(m_activeIntakeMotor1, m_activeIntakeMotor2,
         m_controller2);
+    refreshSensors();
+    m_driveSystem.startOdometry();
 
     setDefaultCommands();
     setupGrabberNotificationsToArm();
+
+    m_simGraph = RobotBase.isSimulation() ? createSimGraph() : null;
+    setupSimInputRecording();
+    m_simSnapshots = (m_simGraph != null && Constants.SimConstants.ksimSnapshotCapacity > 0)
+        ? createSimSnapshots()
+        : null;
   }
 
   /**
@@ -91,7 +114,7 @@ public class RobotContainer {
    */
   public void configureBindings() {
     new Trigger(m_controller2::getXButtonReleased).onTrue(
-        new SetWinchToAngle(m_armSystem, Constants.OperatorConstants.kWinchMiddleNodeCube, 1));
+        new MoveWinchToAngle(m_armSystem, Constants.OperatorConstants.kWinchMiddleNodeCube));
 
     new Trigger(m_controller2::getYButtonReleased)
         .onTrue(new RetractArmCommand(m_armSystem).andThen(new SetSoftLimitCommand(m_armSystem)));
@@ -138,4 +161,116 @@ public class RobotContainer {
       ((ArmSystemSim) m_armSystem).setGrabberOpenSupplier(supplier);
     }
   }
+
+  // Register every simulated subsystem into one graph, so they are stepped in dependency order
+  private SimGraph createSimGraph() {
+    SimGraph result = new SimGraph();
+    result.setThreadCount(Constants.SimConstants.ksimThreadCount);
+
+    if (m_driveSystem instanceof TankDriveSystemSim) {
+      ((TankDriveSystemSim) m_driveSystem).registerSimNodes(result);
+    }
+
+    if (m_grabSystem instanceof GrabberSystemSim) {
+      ((GrabberSystemSim) m_grabSystem).registerSimNodes(result);
+    }
+
+    if (m_armSystem instanceof ArmSystemSim) {
+      ((ArmSystemSim) m_armSystem).registerSimNodes(result);
+    }
+
+    // The arm simulation reads whether the grabber is open
+    if (result.hasNode(ArmSystemSim.kArmSimNode)
+        && result.hasNode(GrabberSystemSim.kGrabberSimNode)) {
+      result.addDependency(ArmSystemSim.kArmSimNode, GrabberSystemSim.kGrabberSimNode);
+    }
+
+    return result;
+  }
+
+  // Optionally record the simulated arm's inputs, or replay a previous recording instead
+  private void setupSimInputRecording() {
+    if (m_simGraph == null || !(m_armSystem instanceof ArmSystemSim)) {
+      return;
+    }
+
+    ArmSystemSim armSystemSim = (ArmSystemSim) m_armSystem;
+
+    if (Constants.SimConstants.ksimInputReplayPath != null) {
+      armSystemSim.replayInputs(
+          new SimInputReplay(Paths.get(Constants.SimConstants.ksimInputReplayPath)));
+    }
+    else if (Constants.SimConstants.ksimInputRecordPath != null) {
+      m_simInputRecorder = new SimInputRecorder(
+          Paths.get(Constants.SimConstants.ksimInputRecordPath), Timer::getFPGATimestamp);
+      armSystemSim.recordInputs(m_simInputRecorder);
+
+      // The robot program has no shutdown callback, so close the file when the JVM exits
+      Runtime.getRuntime().addShutdownHook(new Thread(m_simInputRecorder::close));
+    }
+  }
+
+  /**
+   * Writes any recorded simulation inputs to disk. Called when the robot is disabled.
+   */
+  public void flushSimInputRecording() {
+    if (m_simInputRecorder != null) {
+      m_simInputRecorder.flush();
+    }
+  }
+
+  private SimSnapshotRing createSimSnapshots() {
+    List<SimSnapshotInterface> parts = new ArrayList<>();
+
+    if (m_driveSystem instanceof TankDriveSystemSim) {
+      ((TankDriveSystemSim) m_driveSystem).addSnapshotParts(parts);
+    }
+
+    if (m_armSystem instanceof ArmSystemSim) {
+      ((ArmSystemSim) m_armSystem).addSnapshotParts(parts);
+    }
+
+    return parts.isEmpty() ? null
+        : new SimSnapshotRing(parts, Constants.SimConstants.ksimSnapshotCapacity);
+  }
+
+  /**
+   * Reads every subsystem's sensors once. Called at the start of each loop, so the
+   * subsystems and commands that run afterwards all see the same values.
+   */
+  public void refreshSensors() {
+    m_driveSystem.refreshSensors();
+    m_armSystem.refreshSensors();
+  }
+
+  /**
+   * Steps all simulated subsystems. Called from Robot.simulationPeriodic().
+   */
+  public void simulationPeriodic() {
+    if (m_simGraph != null) {
+      long tickCount = m_simGraph.getTickCount();
+      m_simGraph.simulationPeriodic();
+
+      // Only capture ticks that actually stepped (the graph freezes while disabled)
+      if (m_simSnapshots != null && m_simGraph.getTickCount() != tickCount) {
+        m_simSnapshots.capture(Timer.getFPGATimestamp());
+      }
+    }
+  }
+
+  /**
+   * Rewinds the simulation to the latest snapshot at least secondsBack old, e.g. to replay
+   * the moments before the arm broke.
+   *
+   * @return true if there was a snapshot that old to rewind to
+   */
+  public boolean rewindSimulation(double secondsBack) {
+    if (m_simSnapshots == null) {
+      return false;
+    }
+
+    double restoredTime = m_simSnapshots.restoreAtOrBefore(Timer.getFPGATimestamp()
+        - secondsBack);
+    return !Double.isNaN(restoredTime);
+  }
 }
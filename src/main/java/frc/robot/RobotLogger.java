@@ -0,0 +1,331 @@
+package frc.robot;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logging for the robot loop. Printing to the console on the roboRIO is slow enough to cause
+ * loop overruns, so log() only copies its arguments into a preallocated slot of a lock-free
+ * ring buffer. A background thread formats and prints them.
+ *
+ * <p>
+ * Each call site creates its Site once (in a static final field), with a format string and
+ * a minimum time between messages. Messages from a site that come in faster than that are
+ * counted instead of queued, and the count is printed with the next message. Arguments are
+ * doubles or Strings, so nothing is boxed or concatenated on the calling thread:
+ * </p>
+ *
+ * <pre>
+ * private static final RobotLogger.Site kLog = RobotLogger.createSite("Encoder at %s", 0.5);
+ * ...
+ * RobotLogger.log(kLog, encoderPosition);
+ * </pre>
+ *
+ * <p>
+ * If the ring buffer is full, the message is dropped and counted (getDroppedCount).
+ * </p>
+ */
+public final class RobotLogger {
+  /**
+   * One place in the code that logs. Also does the rate limiting for that place.
+   */
+  public static final class Site {
+    private final String m_format;
+    private final long m_minPeriodNanos;
+    private final AtomicLong m_nextAllowedNanos = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong m_suppressedCount = new AtomicLong(0);
+
+    private Site(String format, double minPeriodSeconds) {
+      m_format = format;
+      m_minPeriodNanos = (long) (minPeriodSeconds * 1e9);
+    }
+
+    public String getFormat() {
+      return m_format;
+    }
+
+    // Returns true if a message may be logged now, and claims the slot in time for it
+    private boolean tryAcquire() {
+      if (m_minPeriodNanos <= 0) {
+        return true;
+      }
+
+      long nowNanos = System.nanoTime();
+      long nextAllowedNanos = m_nextAllowedNanos.get();
+      if (nowNanos - nextAllowedNanos < 0 && nextAllowedNanos != Long.MIN_VALUE) {
+        m_suppressedCount.incrementAndGet();
+        return false;
+      }
+
+      if (!m_nextAllowedNanos.compareAndSet(nextAllowedNanos, nowNanos + m_minPeriodNanos)) {
+        // Another thread logged from this site at the same moment
+        m_suppressedCount.incrementAndGet();
+        return false;
+      }
+
+      return true;
+    }
+  }
+
+  public static final int kCapacity = 1024;
+  public static final int kMaxArgs = 2;
+
+  private static final int kMask = kCapacity - 1;
+  private static final byte kDoubleArg = 0;
+  private static final byte kStringArg = 1;
+  private static final long kIdleParkNanos = TimeUnit.MILLISECONDS.toNanos(2);
+  private static final RobotLogger kInstance = new RobotLogger();
+
+  // Vyukov-style bounded queue. A slot is free for the producer at position p when its
+  // sequence is p, and ready for the consumer when its sequence is p + 1.
+  private final AtomicLongArray m_sequences = new AtomicLongArray(kCapacity);
+  private final AtomicLong m_tail = new AtomicLong(0);
+  private final Site[] m_sites = new Site[kCapacity];
+  private final int[] m_numArgs = new int[kCapacity];
+  private final byte[] m_argKinds = new byte[kCapacity * kMaxArgs];
+  private final double[] m_doubleArgs = new double[kCapacity * kMaxArgs];
+  private final String[] m_stringArgs = new String[kCapacity * kMaxArgs];
+
+  // Only touched by the writer thread
+  private long m_head = 0;
+  private final Object[] m_formatArgs1 = new Object[1];
+  private final Object[] m_formatArgs2 = new Object[2];
+  private final StringBuilder m_line = new StringBuilder();
+
+  private final AtomicLong m_droppedCount = new AtomicLong(0);
+  private final AtomicLong m_writtenCount = new AtomicLong(0);
+  private volatile PrintStream m_output = System.out;
+
+  private RobotLogger() {
+    for (int i = 0; i < kCapacity; i++) {
+      m_sequences.set(i, i);
+    }
+
+    Thread writer = new Thread(this::runWriter, "RobotLogger");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Creates a call site.
+   *
+   * @param format           String.format() format string. Every argument is passed as %s.
+   * @param minPeriodSeconds Minimum time between two messages from this site, or 0 for
+   *                         no limit.
+   */
+  public static Site createSite(String format, double minPeriodSeconds) {
+    if (format == null) {
+      throw new IllegalArgumentException("format cannot be null");
+    }
+
+    if (minPeriodSeconds < 0) {
+      throw new IllegalArgumentException("minPeriodSeconds must be >=0");
+    }
+
+    return new Site(format, minPeriodSeconds);
+  }
+
+  public static void log(Site site) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.publish(slot, site, 0);
+    }
+  }
+
+  /**
+   * Logs a message with one double argument.
+   */
+  public static void log(Site site, double arg0) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.setDouble(slot, 0, arg0);
+      kInstance.publish(slot, site, 1);
+    }
+  }
+
+  /**
+   * Logs a message with two double arguments.
+   */
+  public static void log(Site site, double arg0, double arg1) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.setDouble(slot, 0, arg0);
+      kInstance.setDouble(slot, 1, arg1);
+      kInstance.publish(slot, site, 2);
+    }
+  }
+
+  /**
+   * Logs a message with one String argument.
+   */
+  public static void log(Site site, String arg0) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.setString(slot, 0, arg0);
+      kInstance.publish(slot, site, 1);
+    }
+  }
+
+  /**
+   * Logs a message with two String arguments.
+   */
+  public static void log(Site site, String arg0, String arg1) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.setString(slot, 0, arg0);
+      kInstance.setString(slot, 1, arg1);
+      kInstance.publish(slot, site, 2);
+    }
+  }
+
+  /**
+   * Logs a message with a String and a double argument.
+   */
+  public static void log(Site site, String arg0, double arg1) {
+    int slot = kInstance.claimSlot(site);
+    if (slot >= 0) {
+      kInstance.setString(slot, 0, arg0);
+      kInstance.setDouble(slot, 1, arg1);
+      kInstance.publish(slot, site, 2);
+    }
+  }
+
+  // Messages dropped because the ring buffer was full
+  public static long getDroppedCount() {
+    return kInstance.m_droppedCount.get();
+  }
+
+  public static long getWrittenCount() {
+    return kInstance.m_writtenCount.get();
+  }
+
+  /**
+   * Sends messages somewhere other than System.out (e.g. for tests).
+   */
+  public static void setOutput(PrintStream output) {
+    if (output == null) {
+      throw new IllegalArgumentException("output cannot be null");
+    }
+
+    kInstance.m_output = output;
+  }
+
+  /**
+   * Waits until every message queued so far has been written, or timeoutSeconds passed.
+   *
+   * @return true if everything was written
+   */
+  public static boolean flush(double timeoutSeconds) {
+    long target = kInstance.m_tail.get();
+    long deadlineNanos = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+
+    while (kInstance.m_writtenCount.get() < target) {
+      if (System.nanoTime() - deadlineNanos > 0) {
+        return false;
+      }
+
+      LockSupport.parkNanos(kIdleParkNanos);
+    }
+
+    return true;
+  }
+
+  // Returns the slot to fill in, or -1 if the message is rate limited or dropped
+  private int claimSlot(Site site) {
+    if (!site.tryAcquire()) {
+      return -1;
+    }
+
+    long position = m_tail.get();
+    while (true) {
+      int slot = (int) (position & kMask);
+      long difference = m_sequences.get(slot) - position;
+
+      if (difference == 0) {
+        if (m_tail.compareAndSet(position, position + 1)) {
+          return slot;
+        }
+
+        position = m_tail.get();
+      }
+      else if (difference < 0) {
+        // Full: the writer hasn't freed this slot from the last lap yet
+        m_droppedCount.incrementAndGet();
+        return -1;
+      }
+      else {
+        position = m_tail.get();
+      }
+    }
+  }
+
+  private void setDouble(int slot, int index, double value) {
+    m_argKinds[slot * kMaxArgs + index] = kDoubleArg;
+    m_doubleArgs[slot * kMaxArgs + index] = value;
+  }
+
+  private void setString(int slot, int index, String value) {
+    m_argKinds[slot * kMaxArgs + index] = kStringArg;
+    m_stringArgs[slot * kMaxArgs + index] = value;
+  }
+
+  private void publish(int slot, Site site, int numArgs) {
+    m_sites[slot] = site;
+    m_numArgs[slot] = numArgs;
+
+    // The sequence is written last (volatile), so the writer sees everything above
+    long position = m_sequences.get(slot);
+    m_sequences.set(slot, position + 1);
+  }
+
+  private void runWriter() {
+    while (true) {
+      if (!writeNext()) {
+        LockSupport.parkNanos(kIdleParkNanos);
+      }
+    }
+  }
+
+  // Formats and prints one message. Returns false if there was nothing to write.
+  private boolean writeNext() {
+    int slot = (int) (m_head & kMask);
+    if (m_sequences.get(slot) != m_head + 1) {
+      return false;
+    }
+
+    Site site = m_sites[slot];
+    int numArgs = m_numArgs[slot];
+    Object[] args = (numArgs == 1) ? m_formatArgs1 : m_formatArgs2;
+    for (int i = 0; i < numArgs; i++) {
+      int index = slot * kMaxArgs + i;
+      args[i] = (m_argKinds[index] == kDoubleArg) ? (Object) m_doubleArgs[index]
+          : m_stringArgs[index];
+      m_stringArgs[index] = null;
+    }
+
+    m_sites[slot] = null;
+    m_sequences.set(slot, m_head + kCapacity);
+    m_head++;
+
+    m_line.setLength(0);
+    try {
+      m_line.append(numArgs == 0 ? site.m_format : String.format(site.m_format, args));
+    }
+    catch (IllegalArgumentException e) {
+      m_line.append(site.m_format).append(" (bad log format: ").append(e.getMessage())
+          .append(')');
+    }
+
+    long suppressedCount = site.m_suppressedCount.getAndSet(0);
+    if (suppressedCount > 0) {
+      m_line.append(" (").append(suppressedCount).append(" more suppressed)");
+    }
+
+    m_output.println(m_line);
+    m_writtenCount.incrementAndGet();
+    return true;
+  }
+}
@@ -0,0 +1,271 @@
+package frc.robot;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard values, published under the same "SmartDashboard" keys as SmartDashboard.put*(),
+ * but without its per-call cost. Each key's publisher is resolved once when the entry is
+ * created (in a field), and set() only publishes when the value changed by more than the
+ * entry's epsilon, and no faster than its maximum rate:
+ *
+ * <pre>
+ * private final Telemetry.DoubleEntry m_leftMotorTelemetry =
+ *     Telemetry.addDouble("Left Motor", 0.001, Telemetry.kFastRateHz);
+ * ...
+ * m_leftMotorTelemetry.set(m_leftMotors.get());
+ * </pre>
+ *
+ * <p>
+ * A change that arrives too soon isn't lost: it is held as pending, and goes out on the first
+ * set() or periodic() after the rate allows it. Robot.robotPeriodic() calls periodic() every
+ * loop, so a value set only once (e.g. in teleopInit) still reaches the dashboard.
+ * </p>
+ */
+public final class Telemetry {
+  /**
+   * Rate limiting shared by the entry types.
+   */
+  private abstract static class Entry {
+    private final String m_key;
+    private final long m_minPeriodNanos;
+    private long m_lastPublishNanos;
+    private boolean m_hasPublished = false;
+    private boolean m_isPending = false;
+    private boolean m_isQueued = false;
+    private long m_publishCount = 0;
+
+    private Entry(String key, double maxRateHz) {
+      m_key = key;
+      m_minPeriodNanos = (maxRateHz > 0) ? (long) (1e9 / maxRateHz) : 0;
+    }
+
+    public String getKey() {
+      return m_key;
+    }
+
+    // Number of times the value was actually sent to NetworkTables
+    public long getPublishCount() {
+      return m_publishCount;
+    }
+
+    // True if a change is waiting for the rate to allow it
+    public boolean isPending() {
+      return m_isPending;
+    }
+
+    // Returns true if enough time passed since the last publish, and claims the publish.
+    // Otherwise a change is held as pending, for periodic() to publish later.
+    protected boolean tryPublish(boolean changed) {
+      if (m_hasPublished && !changed) {
+        m_isPending = false;
+        return false;
+      }
+
+      long nowNanos = System.nanoTime();
+      if (m_hasPublished && nowNanos - m_lastPublishNanos < m_minPeriodNanos) {
+        m_isPending = true;
+        if (!m_isQueued) {
+          m_isQueued = true;
+          kInstance.m_pendingEntries.add(this);
+        }
+
+        return false;
+      }
+
+      m_hasPublished = true;
+      m_isPending = false;
+      m_lastPublishNanos = nowNanos;
+      m_publishCount++;
+      return true;
+    }
+
+    // Publishes the pending value if the rate allows it. Returns false if it is still pending.
+    private boolean flushPending() {
+      if (m_isPending && tryPublish(true)) {
+        publishPending();
+      }
+
+      m_isQueued = m_isPending;
+      return !m_isPending;
+    }
+
+    // Sends the value held back by the last set()
+    protected abstract void publishPending();
+  }
+
+  /**
+   * A number on the dashboard.
+   */
+  public static final class DoubleEntry extends Entry {
+    private final DoublePublisher m_publisher;
+    private final double m_epsilon;
+    private double m_lastValue;
+    private double m_pendingValue;
+
+    private DoubleEntry(String key, DoublePublisher publisher, double epsilon,
+        double maxRateHz) {
+      super(key, maxRateHz);
+      m_publisher = publisher;
+      m_epsilon = epsilon;
+    }
+
+    /**
+     * Publishes value, if it changed by more than epsilon since the last publish and the
+     * rate allows it.
+     */
+    public void set(double value) {
+      // NaN counts as a change, except NaN to NaN
+      boolean changed = !(Math.abs(value - m_lastValue) <= m_epsilon)
+          && Double.compare(value, m_lastValue) != 0;
+
+      m_pendingValue = value;
+      if (tryPublish(changed)) {
+        publishPending();
+      }
+    }
+
+    @Override
+    protected void publishPending() {
+      m_lastValue = m_pendingValue;
+      m_publisher.set(m_pendingValue);
+    }
+  }
+
+  /**
+   * A flag on the dashboard.
+   */
+  public static final class BooleanEntry extends Entry {
+    private final BooleanPublisher m_publisher;
+    private boolean m_lastValue;
+    private boolean m_pendingValue;
+
+    private BooleanEntry(String key, BooleanPublisher publisher, double maxRateHz) {
+      super(key, maxRateHz);
+      m_publisher = publisher;
+    }
+
+    /**
+     * Publishes value, if it changed since the last publish and the rate allows it.
+     */
+    public void set(boolean value) {
+      m_pendingValue = value;
+      if (tryPublish(value != m_lastValue)) {
+        publishPending();
+      }
+    }
+
+    @Override
+    protected void publishPending() {
+      m_lastValue = m_pendingValue;
+      m_publisher.set(m_pendingValue);
+    }
+  }
+
+  // Drive and mechanism outputs, that drivers watch move
+  public static final double kFastRateHz = 50;
+
+  // Sensor readouts
+  public static final double kSensorRateHz = 10;
+
+  // Health and status flags
+  public static final double kHealthRateHz = 2;
+
+  private static final Telemetry kInstance = new Telemetry();
+
+  private final NetworkTable m_table;
+  private final Map<String, Entry> m_entries = new HashMap<>();
+  private final List<Entry> m_pendingEntries = new ArrayList<>();
+
+  private Telemetry() {
+    m_table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  }
+
+  /**
+   * Publishes every change that was held back by its entry's rate, once the rate allows it.
+   * Call once per loop.
+   */
+  public static void periodic() {
+    List<Entry> pending = kInstance.m_pendingEntries;
+
+    // Swap-remove the flushed entries, so this doesn't allocate
+    int i = 0;
+    while (i < pending.size()) {
+      if (pending.get(i).flushPending()) {
+        int last = pending.size() - 1;
+        pending.set(i, pending.get(last));
+        pending.remove(last);
+      }
+      else {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Creates the entry for a number. Adding a key that already exists returns the existing
+   * entry, with the epsilon and rate it was first created with.
+   *
+   * @param epsilon   Changes this small or smaller are not published
+   * @param maxRateHz Most times per second the value is published, or 0 for no limit
+   */
+  public static DoubleEntry addDouble(String key, double epsilon, double maxRateHz) {
+    if (epsilon < 0) {
+      throw new IllegalArgumentException("epsilon must be >=0");
+    }
+
+    Entry existing = kInstance.getExisting(key, maxRateHz);
+    if (existing != null) {
+      return kInstance.cast(existing, DoubleEntry.class);
+    }
+
+    DoubleEntry entry = new DoubleEntry(key, kInstance.m_table.getDoubleTopic(key).publish(),
+        epsilon, maxRateHz);
+    kInstance.m_entries.put(key, entry);
+    return entry;
+  }
+
+  /**
+   * Creates the entry for a flag. Adding a key that already exists returns the existing
+   * entry, with the rate it was first created with.
+   *
+   * @param maxRateHz Most times per second the value is published, or 0 for no limit
+   */
+  public static BooleanEntry addBoolean(String key, double maxRateHz) {
+    Entry existing = kInstance.getExisting(key, maxRateHz);
+    if (existing != null) {
+      return kInstance.cast(existing, BooleanEntry.class);
+    }
+
+    BooleanEntry entry = new BooleanEntry(key, kInstance.m_table.getBooleanTopic(key).publish(),
+        maxRateHz);
+    kInstance.m_entries.put(key, entry);
+    return entry;
+  }
+
+  private Entry getExisting(String key, double maxRateHz) {
+    if (key == null) {
+      throw new IllegalArgumentException("key cannot be null");
+    }
+
+    if (maxRateHz < 0) {
+      throw new IllegalArgumentException("maxRateHz must be >=0");
+    }
+
+    return m_entries.get(key);
+  }
+
+  private <T extends Entry> T cast(Entry entry, Class<T> type) {
+    if (!type.isInstance(entry)) {
+      throw new IllegalArgumentException("key " + entry.getKey() + " already has a different type");
+    }
+
+    return type.cast(entry);
+  }
+}
@@ -1,6 +1,5 @@
 package frc.robot;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.time.Instant;
 import java.util.function.Supplier;
 
@@ -11,6 +10,11 @@ import java.util.function.Supplier;
  * test fails.
  */
 public class VerifyJoysticks {
+  private static final RobotLogger.Site kTestFailedLog = RobotLogger.createSite(
+      "Joystick test [%s] FAILED: %s", 0);
+  private static final RobotLogger.Site kTestPassedLog = RobotLogger.createSite(
+      "Joystick test [%s] passed on port=%.0f", 0);
+
   private class JoystickTest {
     private boolean m_lastSuccess;
     private final String m_joystickTestName;
@@ -33,12 +37,10 @@ public class VerifyJoysticks {
 
       // NOTE: We only print errors or successes when there's a change
       if (!newSuccess && m_lastSuccess) {
-        System.out
-            .println(String.format("Joystick test [%s] FAILED: %s", m_joystickTestName, errorMsg));
+        RobotLogger.log(kTestFailedLog, m_joystickTestName, errorMsg);
       }
       else if (newSuccess && !m_lastSuccess) {
-        System.out.println(
-            String.format("Joystick test [%s] passed on port=%d", m_joystickTestName, port));
+        RobotLogger.log(kTestPassedLog, m_joystickTestName, port);
       }
 
       m_lastSuccess = newSuccess;
@@ -67,6 +69,8 @@ public class VerifyJoysticks {
   private final JoystickConfig[] m_joystickConfigs;
   private JoystickTest[][] m_tests;
   private final int m_periodSeconds;
+  private final Telemetry.BooleanEntry m_healthTelemetry =
+      Telemetry.addBoolean("Joystick health", Telemetry.kHealthRateHz);
 
   /**
    * Constructor.
@@ -253,7 +257,7 @@ public class VerifyJoysticks {
 
   private void updateDashboard() {
     // $TODO - This should be in init or update DashBoard? THIS IS JUST FOR JOYSTICKS?
-    SmartDashboard.putBoolean("Joystick health", m_lastResult);
+    m_healthTelemetry.set(m_lastResult);
   }
 
   private String testIsJoystickConnected(int port) {
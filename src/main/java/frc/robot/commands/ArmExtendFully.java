@@ -5,9 +5,9 @@ import frc.robot.subsystems.ArmSystem;
 /**
  * Command to extend the arm fully.
  */
-public class ArmExtendFully extends SetExtenderToLength {
+public class ArmExtendFully extends MoveExtenderToPosition {
   // Constructor
   public ArmExtendFully(ArmSystem armSystem) {
-    super(armSystem, -100, 0.9);
+    super(armSystem, -100);
   }
 }
@@ -6,9 +6,9 @@ import frc.robot.subsystems.ArmSystem;
 /**
  * Lowers arm all the way down to the ground.
  */
-public class ArmToGround extends SetWinchToAngle {
+public class ArmToGround extends MoveWinchToAngle {
   // Constructor
   public ArmToGround(ArmSystem armSystem) {
-    super(armSystem, Constants.OperatorConstants.kWinchGroundAngle, 1);
+    super(armSystem, Constants.OperatorConstants.kWinchGroundAngle);
   }
 }
@@ -6,9 +6,9 @@ import frc.robot.subsystems.ArmSystem;
 /**
  * Raises arm to middle node cone.
  */
-public class ArmToMiddleNodeCone extends SetWinchToAngle {
+public class ArmToMiddleNodeCone extends MoveWinchToAngle {
   // Constructor
   public ArmToMiddleNodeCone(ArmSystem armSystem) {
-    super(armSystem, Constants.OperatorConstants.kWinchMiddleNodeCone, 1);
+    super(armSystem, Constants.OperatorConstants.kWinchMiddleNodeCone);
   }
 }
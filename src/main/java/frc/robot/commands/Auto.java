@@ -1,5 +1,6 @@
 package frc.robot.commands;
 
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -8,6 +9,7 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
 import frc.robot.Constants;
+import frc.robot.RobotLogger;
 import frc.robot.subsystems.ArmSystem;
 import frc.robot.subsystems.GrabberSystem;
 import frc.robot.subsystems.TankDriveSystem;
@@ -27,6 +29,13 @@ public class Auto {
 
   public static final String kDefaultAutoModeValue = kOnlyScore;
 
+  private static final RobotLogger.Site kNullChooserLog = RobotLogger.createSite(
+      "UNEXPECTED: Got back null for smartdash chooser", 0);
+  private static final RobotLogger.Site kAutoModeLog = RobotLogger.createSite(
+      "Auto mode selected: %s", 0);
+  private static final RobotLogger.Site kUnexpectedAutoModeLog = RobotLogger.createSite(
+      "UNEXPECTED AUTO MODE - auto mode will do nothing", 0);
+
   private Auto() {
     throw new Error("Auto is a utility class and should not be constructed. "
         + "One should utilize this class via static methods.");
@@ -36,7 +45,7 @@ public class Auto {
     Sendable retrievedChooserVal = SmartDashboard.getData(Auto.kAutoModeKey);
 
     if (retrievedChooserVal == null) {
-      System.out.println("UNEXPECTED: Got back null for smartdash chooser");
+      RobotLogger.log(kNullChooserLog);
       return "";
     }
 
@@ -73,29 +82,27 @@ public class Auto {
       ArmSystem armSystem,
       GrabberSystem grabSystem) {
     String autoMode = getSelectedAutoMode();
-    System.out.println("Auto mode selected: " + autoMode);
+    RobotLogger.log(kAutoModeLog, autoMode);
 
     // Switch statement to use specific autoroutines based on sendable dropdown
     switch (autoMode) {
       case kDropAndDriveMode:
         return Commands.sequence(new SetWinchToAngle(armSystem, 0.75, 0.9),
-            new SetExtenderToLength(armSystem, -100, 0.9),
+            new MoveExtenderToPosition(armSystem, -100),
             new WaitCommand(0.5),
             new GrabberOpenCommand(grabSystem),
             new WaitCommand(0.5),
-            new DriveCommand(driveSystem, 15 * 12, Constants.OperatorConstants.kGearBoxRatioDrive,
-                0.5, Constants.OperatorConstants.kWheelCircumferenceInchesDrive));
+            new DriveDistanceProfiled(driveSystem, Units.inchesToMeters(15 * 12)));
 
       case kAutoBalanceMode:
         return Commands.sequence(new SetWinchToAngle(armSystem, 0.75, 1),
             new WaitCommand(0.25),
-            new DriveCommand(driveSystem, 8 * 12, Constants.OperatorConstants.kGearBoxRatioDrive,
-                -0.4, Constants.OperatorConstants.kWheelCircumferenceInchesDrive),
+            new DriveDistanceProfiled(driveSystem, -Units.inchesToMeters(8 * 12)),
             new AutoBalanceCommand(driveSystem, 0.25));
 
       case kOnlyScore:
         return Commands.sequence(new SetWinchToAngle(armSystem, 0.75, 0.9),
-            new SetExtenderToLength(armSystem, -100, 0.9),
+            new MoveExtenderToPosition(armSystem, -100),
             new WaitCommand(0.5),
             new GrabberOpenCommand(grabSystem));
 
@@ -124,7 +131,7 @@ public class Auto {
                 0.4, Constants.OperatorConstants.kWheelCircumferenceInchesDrive));
 
       default:
-        System.out.println("UNEXPECTED AUTO MODE - auto mode will do nothing");
+        RobotLogger.log(kUnexpectedAutoModeLog);
         return new InstantCommand();
     }
   }
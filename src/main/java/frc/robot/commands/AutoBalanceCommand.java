@@ -1,25 +1,25 @@
 package frc.robot.commands;
 
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.TankDriveSystem;
 
 /**
  * This class represents a command for an automated balance control system for a tank drive system.
- * It makes use of a gyroscope to perform balance corrections at a defined rate.
+ * It makes use of a gyroscope to perform balance corrections, limited to a defined rate. See
+ * BalanceController.
  */
 public class AutoBalanceCommand extends CommandBase {
   private TankDriveSystem m_driveSystem;
   private double m_rate;
   private Timer m_timer = new Timer();
-  private double m_cycle = 1;
+  private BalanceController m_controller;
 
   /**
    * Constructs a new AutoBalanceCommand with the given tank drive system and rate.
    *
    * @param driveSystem the tank drive system to control
-   * @param rate        the rate at which balance corrections should be applied
+   * @param rate        the fastest speed balance corrections should drive at
    */
   public AutoBalanceCommand(TankDriveSystem driveSystem, double rate) {
     m_driveSystem = driveSystem;
@@ -29,6 +29,8 @@ public class AutoBalanceCommand extends CommandBase {
 
   @Override
   public void initialize() {
+    m_controller = new BalanceController(m_rate);
+    m_timer.reset();
     m_timer.start();
   }
 
@@ -37,31 +39,8 @@ public class AutoBalanceCommand extends CommandBase {
    */
   @Override
   public void execute() {
-    double executeRate = m_rate / m_cycle;
-
-    if (MathUtil.applyDeadband(m_driveSystem.getGyroRate(), 3) > 0) {
-      m_driveSystem.tankDrive(0, 0, false);
-      if (m_timer.get() >= 0.5) {
-        m_cycle += 0.5;
-        m_timer.reset();
-      }
-    }
-    else if (MathUtil.applyDeadband(m_driveSystem.getGyroAngle() + 2.5, 2) > 0) {
-      m_driveSystem.tankDrive(executeRate, executeRate, false);
-    }
-    else if (MathUtil.applyDeadband(m_driveSystem.getGyroAngle() + 2.5, 2) < 0) {
-      m_driveSystem.tankDrive(-executeRate, -executeRate, false);
-    }
-    else {
-      m_driveSystem.tankDrive(0, 0, false);
-      if (m_timer.get() >= 0.5) {
-        m_cycle += 0.5; // Changed from 0.5
-        m_timer.reset();
-      }
-    }
-
-    m_driveSystem.setRate();
-    // new WaitCommand(0.5).schedule();
+    double speed = m_controller.calculate(m_timer.get(), m_driveSystem.getGyroAngle());
+    m_driveSystem.tankDrive(speed, speed, false);
   }
 
   @Override
@@ -0,0 +1,114 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants;
+
+/**
+ * Balances the robot on the charge station by the Pigeon2 roll, for AutoBalanceCommand. The
+ * roll goes up as the nose goes down, and reads kBalanceLevelRoll when level. There are two
+ * rules, picked by kBalanceUsePd:
+ *
+ * <p>
+ * The competition rule (the default): while the roll changes by more than kBalanceTipping
+ * degrees in one loop, the station is tipping, so stop. While the roll is within
+ * kBalanceLevel of level, stop. Otherwise drive uphill at rate / cycle. Each time it stops,
+ * at most every kBalanceCycleSeconds, the cycle goes up by 0.5, so each pass over the pivot
+ * is slower than the last.
+ * </p>
+ *
+ * <p>
+ * The PD rule: drive at -(kBalanceP * (roll - kBalanceLevelRoll) + kBalanceD * roll rate),
+ * limited to the rate. This drives uphill, and backs off as soon as the station starts to
+ * tip back toward level, before the robot's weight carries it over the pivot.
+ * </p>
+ */
+public class BalanceController {
+  private final double m_rate;
+  private final boolean m_isPd;
+  private double m_lastTimeSeconds = Double.NaN;
+  private double m_lastRoll;
+  private double m_rollRate;
+  private double m_cycle = 1;
+  private double m_cycleStartSeconds = 0;
+
+  /**
+   * Constructor, with the rule picked by kBalanceUsePd.
+   *
+   * @param rate Fastest speed to drive at, as for tankDrive()
+   */
+  public BalanceController(double rate) {
+    this(rate, Constants.OperatorConstants.kBalanceUsePd);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param rate Fastest speed to drive at, as for tankDrive()
+   * @param isPd Use the PD rule, rather than the competition rule
+   */
+  public BalanceController(double rate, boolean isPd) {
+    if (rate < 0) {
+      throw new IllegalArgumentException("rate must be >=0");
+    }
+
+    m_rate = rate;
+    m_isPd = isPd;
+  }
+
+  /**
+   * Returns the speed for both sides for this loop, as for tankDrive(), positive forward.
+   *
+   * @param elapsedSeconds Time since the command started
+   * @param rollDegrees    Pigeon2 roll, which goes up as the robot's nose goes down
+   */
+  public double calculate(double elapsedSeconds, double rollDegrees) {
+    // No change on the first loop
+    double change = Double.isNaN(m_lastTimeSeconds) ? 0 : rollDegrees - m_lastRoll;
+    double dtSeconds = elapsedSeconds - m_lastTimeSeconds;
+    if (Double.isNaN(m_lastTimeSeconds)) {
+      m_rollRate = 0;
+      m_lastTimeSeconds = elapsedSeconds;
+    }
+    else if (dtSeconds > 0) {
+      m_rollRate = change / dtSeconds;
+      m_lastTimeSeconds = elapsedSeconds;
+    }
+
+    m_lastRoll = rollDegrees;
+
+    double tilt = rollDegrees - Constants.OperatorConstants.kBalanceLevelRoll;
+    return m_isPd ? calculatePd(tilt) : calculateCycles(elapsedSeconds, tilt, change);
+  }
+
+  private double calculatePd(double tilt) {
+    double speed = -(Constants.OperatorConstants.kBalanceP * tilt
+        + Constants.OperatorConstants.kBalanceD * m_rollRate);
+    return MathUtil.clamp(speed, -m_rate, m_rate);
+  }
+
+  private double calculateCycles(double elapsedSeconds, double tilt, double change) {
+    if (Math.abs(change) > Constants.OperatorConstants.kBalanceTipping
+        || Math.abs(tilt) <= Constants.OperatorConstants.kBalanceLevel) {
+      if (elapsedSeconds - m_cycleStartSeconds
+          >= Constants.OperatorConstants.kBalanceCycleSeconds) {
+        m_cycle += 0.5;
+        m_cycleStartSeconds = elapsedSeconds;
+      }
+
+      return 0;
+    }
+
+    // Nose down is uphill behind the robot
+    return -Math.signum(tilt) * m_rate / m_cycle;
+  }
+
+  // Degrees per second, from the last two loops
+  public double getRollRate() {
+    return m_rollRate;
+  }
+
+  // The competition rule's cycle; each pass drives at rate / cycle
+  public double getCycle() {
+    return m_cycle;
+  }
+}
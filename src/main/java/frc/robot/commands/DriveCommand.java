@@ -1,16 +1,23 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.OdometrySample;
 import frc.robot.subsystems.TankDriveSystem;
 
 /**
- * Command to drive the robot a certain distance.
+ * Command to drive the robot a certain distance. The distance comes from the odometry
+ * thread's wheel distances when it's running, which are sampled every 5ms, and from the
+ * encoders otherwise.
  */
 public class DriveCommand extends CommandBase {
   private double m_distance;
   private double m_gearBoxRatio;
   private double m_percentOutput;
   private double m_wheelCircumference;
+  private final OdometrySample m_odometry = new OdometrySample();
+  private boolean m_useOdometry;
+  private double m_startLeftMeters;
+  private double m_startRightMeters;
 
   TankDriveSystem m_drive;
 
@@ -35,6 +42,12 @@ public class DriveCommand extends CommandBase {
   @Override
   public void initialize() {
     m_drive.resetEncoders();
+
+    m_useOdometry = m_drive.getOdometry(m_odometry);
+    if (m_useOdometry) {
+      m_startLeftMeters = m_odometry.getLeftDistanceMeters();
+      m_startRightMeters = m_odometry.getRightDistanceMeters();
+    }
   }
 
   @Override
@@ -44,12 +57,23 @@ public class DriveCommand extends CommandBase {
 
   @Override
   public boolean isFinished() {
-    if (m_distance <= m_drive.getAverageEncoderPosition() / m_gearBoxRatio * m_wheelCircumference) {
+    if (m_distance <= getWheelRotations() * m_wheelCircumference) {
       return true;
     }
     return false;
   }
 
+  // Average wheel rotations on both sides since initialize()
+  private double getWheelRotations() {
+    if (m_useOdometry && m_drive.getOdometry(m_odometry)) {
+      double meters = (Math.abs(m_odometry.getLeftDistanceMeters() - m_startLeftMeters)
+          + Math.abs(m_odometry.getRightDistanceMeters() - m_startRightMeters)) / 2;
+      return meters / (m_drive.getWheelDiameterMeters() * Math.PI);
+    }
+
+    return m_drive.getAverageEncoderPosition() / m_gearBoxRatio;
+  }
+
   @Override
   public void end(boolean interrupted) {
     m_drive.tankDrive(0, 0, false);
@@ -0,0 +1,230 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants;
+
+/**
+ * Drives a distance in a straight line along a trapezoidal motion profile. Each side of the
+ * drivetrain gets its own voltage every loop:
+ *
+ * <pre>
+ * feedforward(profile velocity, profile acceleration)
+ *     + kPosition * (profile position - side position)
+ *     + kVelocity * (profile velocity - side velocity)
+ * </pre>
+ *
+ * <p>
+ * Since both sides follow the same profile, the position feedback also keeps the robot
+ * straight. Once the profile stops, the feedforward's kS would drop out, so a side that is
+ * still out of tolerance gets kS toward the goal instead; otherwise the last few centimeters
+ * of feedback can't overcome static friction.
+ * </p>
+ *
+ * <p>
+ * The drive is finished once the profile has finished and the robot has stopped, either
+ * within kDriveDistanceTolerance of the goal or for kDriveStallSeconds anywhere. It also
+ * gives up kDriveTimeoutMarginSeconds after the profile ends, see isTimedOut().
+ * </p>
+ */
+public class DriveDistanceController {
+  // The voltage set in one loop drives the motors until the next one
+  private static final double kLoopPeriodSeconds = 0.02;
+
+  private static final double kMaxVolts = 12.0;
+
+  private final TrapezoidProfile.Constraints m_constraints;
+  private final double m_positionP;
+  private final double m_velocityP;
+  private final SimpleMotorFeedforward m_feedforward;
+  private final double m_timeoutMarginSeconds;
+
+  private TrapezoidProfile m_profile = null;
+  private double m_distanceMeters;
+  private double m_startLeftMeters;
+  private double m_startRightMeters;
+  private double m_setpointPosition;
+  private double m_setpointVelocity;
+  private double m_leftVolts;
+  private double m_rightVolts;
+  private double m_errorMeters;
+  private double m_stoppedSinceSeconds;
+  private boolean m_isFinished = false;
+  private boolean m_isTimedOut = false;
+
+  /**
+   * Constructor, with the profile, gains and feedforward from Constants. The acceleration
+   * limit is tied to the driver's slew limit: 0 to top speed in 1 / kSlewLimit seconds.
+   */
+  public DriveDistanceController() {
+    this(Constants.OperatorConstants.kDriveProfileMaxVelocity,
+        Constants.OperatorConstants.kDriveProfileMaxVelocity
+            * Constants.OperatorConstants.kSlewLimit,
+        Constants.OperatorConstants.kDrivePositionP,
+        Constants.OperatorConstants.kDriveVelocityP,
+        new SimpleMotorFeedforward(Constants.OperatorConstants.kDriveKs,
+            Constants.OperatorConstants.kDriveKv,
+            Constants.OperatorConstants.kDriveKa),
+        Constants.OperatorConstants.kDriveTimeoutMarginSeconds);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxVelocity     Profile speed limit, in meters per second
+   * @param maxAcceleration Profile acceleration limit, in meters per second^2
+   * @param positionP       Volts per meter of position error
+   * @param velocityP       Volts per meter per second of velocity error
+   * @param feedforward     Volts to drive at a velocity and acceleration
+   * @param timeoutMarginSeconds How long after the profile ends to give up
+   */
+  public DriveDistanceController(double maxVelocity,
+      double maxAcceleration,
+      double positionP,
+      double velocityP,
+      SimpleMotorFeedforward feedforward,
+      double timeoutMarginSeconds) {
+    if (maxVelocity <= 0 || maxAcceleration <= 0) {
+      throw new IllegalArgumentException("profile constraints must be >0");
+    }
+
+    if (feedforward == null) {
+      throw new IllegalArgumentException("feedforward cannot be null");
+    }
+
+    if (timeoutMarginSeconds < 0) {
+      throw new IllegalArgumentException("timeoutMarginSeconds must be >=0");
+    }
+
+    m_constraints = new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration);
+    m_positionP = positionP;
+    m_velocityP = velocityP;
+    m_feedforward = feedforward;
+    m_timeoutMarginSeconds = timeoutMarginSeconds;
+  }
+
+  /**
+   * Plans a new profile for driving distanceMeters (negative is backward) from rest, starting
+   * at these wheel distances. The elapsed time passed to calculate() is counted from this
+   * call.
+   */
+  public void reset(double leftMeters, double rightMeters, double distanceMeters) {
+    m_distanceMeters = distanceMeters;
+    m_startLeftMeters = leftMeters;
+    m_startRightMeters = rightMeters;
+    m_profile = new TrapezoidProfile(m_constraints,
+        new TrapezoidProfile.State(distanceMeters, 0), new TrapezoidProfile.State(0, 0));
+    m_setpointPosition = 0;
+    m_setpointVelocity = 0;
+    m_leftVolts = 0;
+    m_rightVolts = 0;
+    m_errorMeters = distanceMeters;
+    m_stoppedSinceSeconds = Double.NaN;
+    m_isFinished = false;
+    m_isTimedOut = false;
+  }
+
+  /**
+   * Computes the voltage for each side for this loop; see getLeftVolts() and getRightVolts().
+   *
+   * @param elapsedSeconds Time since reset()
+   * @param leftMeters     Left wheel distance, forward-positive
+   * @param rightMeters    Right wheel distance, forward-positive
+   * @param leftVelocity   Left wheel velocity, in meters per second
+   * @param rightVelocity  Right wheel velocity, in meters per second
+   */
+  public void calculate(double elapsedSeconds,
+      double leftMeters,
+      double rightMeters,
+      double leftVelocity,
+      double rightVelocity) {
+    if (m_profile == null) {
+      throw new IllegalStateException("reset() must be called before calculate()");
+    }
+
+    TrapezoidProfile.State setpoint = m_profile.calculate(elapsedSeconds);
+    m_setpointPosition = setpoint.position;
+    m_setpointVelocity = setpoint.velocity;
+
+    // Feed forward the average velocity until the next loop, rather than the velocity right
+    // now, so the robot doesn't lag a loop behind the profile
+    TrapezoidProfile.State next = m_profile.calculate(elapsedSeconds + kLoopPeriodSeconds);
+    double velocity = (next.position - m_setpointPosition) / kLoopPeriodSeconds;
+    double acceleration = (next.velocity - m_setpointVelocity) / kLoopPeriodSeconds;
+    double feedforward = m_feedforward.calculate(velocity, acceleration);
+
+    double left = leftMeters - m_startLeftMeters;
+    double right = rightMeters - m_startRightMeters;
+    m_leftVolts = calculateSide(feedforward, velocity, left, leftVelocity);
+    m_rightVolts = calculateSide(feedforward, velocity, right, rightVelocity);
+
+    m_errorMeters = m_distanceMeters - (left + right) / 2;
+    boolean isProfileFinished = m_profile.isFinished(elapsedSeconds);
+    boolean isStopped = Math.abs(leftVelocity + rightVelocity) / 2
+        <= Constants.OperatorConstants.kDriveSettleVelocity;
+
+    if (!isProfileFinished || !isStopped) {
+      m_stoppedSinceSeconds = Double.NaN;
+    }
+    else if (Double.isNaN(m_stoppedSinceSeconds)) {
+      m_stoppedSinceSeconds = elapsedSeconds;
+    }
+
+    boolean isStalled = !Double.isNaN(m_stoppedSinceSeconds)
+        && elapsedSeconds - m_stoppedSinceSeconds >= Constants.OperatorConstants.kDriveStallSeconds;
+    m_isTimedOut = elapsedSeconds >= m_profile.totalTime() + m_timeoutMarginSeconds;
+    m_isFinished = m_isTimedOut || isStalled || (isProfileFinished && isStopped
+        && Math.abs(m_errorMeters) <= Constants.OperatorConstants.kDriveDistanceTolerance);
+  }
+
+  private double calculateSide(double feedforward, double velocity, double sideMeters,
+      double sideVelocity) {
+    double positionError = m_setpointPosition - sideMeters;
+    double volts = feedforward + m_positionP * positionError
+        + m_velocityP * (m_setpointVelocity - sideVelocity);
+
+    // The profile has stopped, so the feedforward has no kS in it
+    if (velocity == 0
+        && Math.abs(positionError) > Constants.OperatorConstants.kDriveDistanceTolerance) {
+      volts += Math.copySign(m_feedforward.ks, positionError);
+    }
+
+    return MathUtil.clamp(volts, -kMaxVolts, kMaxVolts);
+  }
+
+  public double getLeftVolts() {
+    return m_leftVolts;
+  }
+
+  public double getRightVolts() {
+    return m_rightVolts;
+  }
+
+  public boolean isFinished() {
+    return m_isFinished;
+  }
+
+  // Finished because the profile ended kDriveTimeoutMarginSeconds ago, not on the goal
+  public boolean isTimedOut() {
+    return m_isTimedOut;
+  }
+
+  // Distance still to go, from the average of both sides, as of the last calculate()
+  public double getErrorMeters() {
+    return m_errorMeters;
+  }
+
+  public double getSetpointPosition() {
+    return m_setpointPosition;
+  }
+
+  public double getSetpointVelocity() {
+    return m_setpointVelocity;
+  }
+
+  // Duration of the planned profile
+  public double getTotalTimeSeconds() {
+    return m_profile == null ? 0 : m_profile.totalTime();
+  }
+}
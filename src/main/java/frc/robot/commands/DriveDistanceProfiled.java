@@ -0,0 +1,114 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.RobotLogger;
+import frc.robot.subsystems.OdometrySample;
+import frc.robot.subsystems.TankDriveSystem;
+
+/**
+ * Command to drive the robot a distance in meters (negative is backward), along a motion
+ * profile. Unlike DriveCommand, which drives at a fixed output until it has gone far enough
+ * and then cuts power, this speeds up and slows down at the slew-limited acceleration and
+ * stops on the target. See DriveDistanceController, which also decides when to give up.
+ *
+ * <p>
+ * Wheel distances come from the odometry thread, and the wheel velocities from the change in
+ * distance between loops.
+ * </p>
+ */
+public class DriveDistanceProfiled extends CommandBase {
+  private static final RobotLogger.Site kInitializedLog = RobotLogger.createSite(
+      "DriveDistanceProfiled %s meters, planned %s seconds", 0);
+  private static final RobotLogger.Site kEndedLog = RobotLogger.createSite(
+      "DriveDistanceProfiled ended %s meters from the goal", 0);
+  private static final RobotLogger.Site kTimedOutLog = RobotLogger.createSite(
+      "DriveDistanceProfiled timed out %s meters from the goal", 0);
+  private static final RobotLogger.Site kNoOdometryLog = RobotLogger.createSite(
+      "DriveDistanceProfiled: odometry is not running, not driving", 1.0);
+
+  private final TankDriveSystem m_drive;
+  private final double m_distanceMeters;
+  private final DriveDistanceController m_controller = new DriveDistanceController();
+  private final OdometrySample m_odometry = new OdometrySample();
+  private boolean m_hasOdometry;
+  private double m_startSeconds;
+  private double m_lastTimestampSeconds;
+  private double m_lastLeftMeters;
+  private double m_lastRightMeters;
+  private double m_leftVelocity;
+  private double m_rightVelocity;
+
+  /**
+   * Constructor.
+   */
+  public DriveDistanceProfiled(TankDriveSystem drive, double distanceMeters) {
+    m_drive = drive;
+    m_distanceMeters = distanceMeters;
+
+    addRequirements(drive);
+  }
+
+  @Override
+  public void initialize() {
+    m_hasOdometry = m_drive.getOdometry(m_odometry);
+    if (!m_hasOdometry) {
+      RobotLogger.log(kNoOdometryLog);
+      return;
+    }
+
+    m_lastTimestampSeconds = m_odometry.getTimestampSeconds();
+    m_lastLeftMeters = m_odometry.getLeftDistanceMeters();
+    m_lastRightMeters = m_odometry.getRightDistanceMeters();
+    m_leftVelocity = 0;
+    m_rightVelocity = 0;
+
+    m_controller.reset(m_lastLeftMeters, m_lastRightMeters, m_distanceMeters);
+    m_startSeconds = Timer.getFPGATimestamp();
+    RobotLogger.log(kInitializedLog, m_distanceMeters, m_controller.getTotalTimeSeconds());
+  }
+
+  @Override
+  public void execute() {
+    if (!m_hasOdometry) {
+      return;
+    }
+
+    m_drive.getOdometry(m_odometry);
+    updateVelocities();
+
+    double elapsedSeconds = Timer.getFPGATimestamp() - m_startSeconds;
+    m_controller.calculate(elapsedSeconds, m_odometry.getLeftDistanceMeters(),
+        m_odometry.getRightDistanceMeters(), m_leftVelocity, m_rightVelocity);
+    m_drive.tankDriveVolts(m_controller.getLeftVolts(), m_controller.getRightVolts());
+  }
+
+  // Keeps the last velocities if the odometry thread hasn't published since the last loop
+  private void updateVelocities() {
+    double dtSeconds = m_odometry.getTimestampSeconds() - m_lastTimestampSeconds;
+    if (dtSeconds <= 0) {
+      return;
+    }
+
+    m_leftVelocity = (m_odometry.getLeftDistanceMeters() - m_lastLeftMeters) / dtSeconds;
+    m_rightVelocity = (m_odometry.getRightDistanceMeters() - m_lastRightMeters) / dtSeconds;
+    m_lastTimestampSeconds = m_odometry.getTimestampSeconds();
+    m_lastLeftMeters = m_odometry.getLeftDistanceMeters();
+    m_lastRightMeters = m_odometry.getRightDistanceMeters();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return !m_hasOdometry || m_controller.isFinished();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (m_hasOdometry) {
+      RobotLogger.log(m_controller.isTimedOut() ? kTimedOutLog : kEndedLog,
+          m_controller.getErrorMeters());
+    }
+
+    m_drive.tankDrive(0, 0, false);
+  }
+}
@@ -0,0 +1,256 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants;
+
+/**
+ * Turns the robot in place to a heading, along a trapezoidal motion profile of the heading.
+ * Each loop, the voltage for the right side (the left side gets the negative) is:
+ *
+ * <pre>
+ * feedforward(profile wheel speed, profile wheel acceleration)
+ *     + kP * (profile heading - heading) + kD * (profile rate - measured rate)
+ * </pre>
+ *
+ * <p>
+ * Headings are counterclockwise-positive degrees, and may wrap at +-180 like the odometry's.
+ * The controller unwraps them as they come in, so turning through 180 doesn't look like a
+ * 360 degree jump. Turns are limited to +-180 degrees, so there is never a shorter way round.
+ * </p>
+ *
+ * <p>
+ * Once the profile stops, the output is at least kTurnMinVolts toward the goal while the
+ * heading is out of tolerance; otherwise the last degree of feedback can't overcome the
+ * wheels' scrub.
+ * </p>
+ *
+ * <p>
+ * The turn is settled once the profile has finished and the heading has stayed within
+ * kTurnTolerance of the goal, turning no faster than kTurnSettleRate, for
+ * kTurnSettleSeconds. It times out kTurnTimeoutMarginSeconds after the profile ends, settled
+ * or not.
+ * </p>
+ */
+public class HeadingController {
+  // The voltage set in one loop drives the motors until the next one
+  private static final double kLoopPeriodSeconds = 0.02;
+
+  private static final double kMaxVolts = 12.0;
+
+  private final TrapezoidProfile.Constraints m_constraints;
+  private final double m_kp;
+  private final double m_kd;
+  private final SimpleMotorFeedforward m_feedforward;
+  private final double m_wheelMetersPerDegree;
+  private final double m_timeoutMarginSeconds;
+
+  private TrapezoidProfile m_profile = null;
+  private double m_goalDegrees;
+  private double m_lastRawHeading;
+  private double m_lastTimeSeconds;
+  private double m_headingDegrees;
+  private double m_rateDegreesPerSec;
+  private double m_setpointDegrees;
+  private double m_setpointRate;
+  private double m_settledSinceSeconds = Double.NaN;
+  private boolean m_isSettled = false;
+  private boolean m_isTimedOut = false;
+
+  /**
+   * Constructor, with the limits, gains and feedforward from Constants.
+   *
+   * @param speedFraction Fraction of kTurnMaxVelocity to turn at
+   */
+  public HeadingController(double speedFraction) {
+    this(Constants.OperatorConstants.kTurnMaxVelocity * speedFraction,
+        Constants.OperatorConstants.kTurnMaxAcceleration,
+        Constants.OperatorConstants.kTurnP,
+        Constants.OperatorConstants.kTurnD,
+        new SimpleMotorFeedforward(Constants.OperatorConstants.kTurnKs,
+            Constants.OperatorConstants.kTurnKv,
+            Constants.OperatorConstants.kTurnKa),
+        Constants.OperatorConstants.kDriveTrackWidthMeters,
+        Constants.OperatorConstants.kTurnTimeoutMarginSeconds);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxVelocity      Profile turn rate limit, in degrees per second
+   * @param maxAcceleration  Profile turn acceleration limit, in degrees per second^2
+   * @param kp               Volts per degree of heading error
+   * @param kd               Volts per degree per second of turn rate error
+   * @param feedforward      Volts to drive the wheels at a speed and acceleration, turning
+   * @param trackWidthMeters Distance between the left and right wheels
+   * @param timeoutMarginSeconds How long after the profile ends to time out
+   */
+  public HeadingController(double maxVelocity,
+      double maxAcceleration,
+      double kp,
+      double kd,
+      SimpleMotorFeedforward feedforward,
+      double trackWidthMeters,
+      double timeoutMarginSeconds) {
+    if (maxVelocity <= 0 || maxAcceleration <= 0) {
+      throw new IllegalArgumentException("profile constraints must be >0");
+    }
+
+    if (feedforward == null) {
+      throw new IllegalArgumentException("feedforward cannot be null");
+    }
+
+    if (trackWidthMeters <= 0) {
+      throw new IllegalArgumentException("trackWidthMeters must be >0");
+    }
+
+    if (timeoutMarginSeconds < 0) {
+      throw new IllegalArgumentException("timeoutMarginSeconds must be >=0");
+    }
+
+    m_constraints = new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration);
+    m_kp = kp;
+    m_kd = kd;
+    m_feedforward = feedforward;
+    m_wheelMetersPerDegree = Math.toRadians(1) * trackWidthMeters / 2;
+    m_timeoutMarginSeconds = timeoutMarginSeconds;
+  }
+
+  // Turns further than this either way would be shorter the other way round
+  public static void checkTurnDegrees(double turnDegrees) {
+    if (!(Math.abs(turnDegrees) <= 180)) {
+      throw new IllegalArgumentException("turnDegrees must be between -180 and 180");
+    }
+  }
+
+  /**
+   * Plans a new profile from headingDegrees (at rest) to turnDegrees away from it. The elapsed
+   * time passed to calculate() is counted from this call.
+   *
+   * @throws IllegalArgumentException If turnDegrees is beyond +-180
+   */
+  public void reset(double headingDegrees, double turnDegrees) {
+    checkTurnDegrees(turnDegrees);
+
+    m_lastRawHeading = headingDegrees;
+    m_lastTimeSeconds = 0;
+    m_headingDegrees = headingDegrees;
+    m_rateDegreesPerSec = 0;
+    m_goalDegrees = headingDegrees + turnDegrees;
+    m_profile = new TrapezoidProfile(m_constraints, new TrapezoidProfile.State(m_goalDegrees, 0),
+        new TrapezoidProfile.State(headingDegrees, 0));
+    m_setpointDegrees = headingDegrees;
+    m_setpointRate = 0;
+    m_settledSinceSeconds = Double.NaN;
+    m_isSettled = false;
+    m_isTimedOut = false;
+  }
+
+  /**
+   * Returns the voltage for the right side for this loop; the left side gets the negative.
+   *
+   * @param elapsedSeconds Time since reset()
+   * @param headingDegrees Measured heading, counterclockwise-positive
+   */
+  public double calculate(double elapsedSeconds, double headingDegrees) {
+    if (m_profile == null) {
+      throw new IllegalStateException("reset() must be called before calculate()");
+    }
+
+    updateHeading(elapsedSeconds, headingDegrees);
+
+    TrapezoidProfile.State setpoint = m_profile.calculate(elapsedSeconds);
+    m_setpointDegrees = setpoint.position;
+    m_setpointRate = setpoint.velocity;
+    updateSettled(elapsedSeconds);
+    m_isTimedOut = elapsedSeconds >= m_profile.totalTime() + m_timeoutMarginSeconds;
+
+    // Feed forward the average rate until the next loop, rather than the rate right now, so
+    // the robot doesn't lag a loop behind the profile
+    TrapezoidProfile.State next = m_profile.calculate(elapsedSeconds + kLoopPeriodSeconds);
+    double rate = (next.position - m_setpointDegrees) / kLoopPeriodSeconds;
+    double acceleration = (next.velocity - m_setpointRate) / kLoopPeriodSeconds;
+    double feedforward = m_feedforward.calculate(rate * m_wheelMetersPerDegree,
+        acceleration * m_wheelMetersPerDegree);
+
+    double output = feedforward + m_kp * (m_setpointDegrees - m_headingDegrees)
+        + m_kd * (m_setpointRate - m_rateDegreesPerSec);
+
+    // Once the profile is done, drive at least kTurnMinVolts toward the goal until within
+    // tolerance, otherwise the last degree or two of feedback can't overcome the wheels' scrub
+    double error = m_goalDegrees - m_headingDegrees;
+    if (m_profile.isFinished(elapsedSeconds)
+        && Math.abs(error) > Constants.OperatorConstants.kTurnTolerance
+        && Math.abs(output) < Constants.OperatorConstants.kTurnMinVolts) {
+      output = Math.copySign(Constants.OperatorConstants.kTurnMinVolts, error);
+    }
+
+    return MathUtil.clamp(output, -kMaxVolts, kMaxVolts);
+  }
+
+  // Unwraps the new heading onto the previous one, and measures the turn rate
+  private void updateHeading(double elapsedSeconds, double rawHeading) {
+    double delta = MathUtil.inputModulus(rawHeading - m_lastRawHeading, -180, 180);
+    m_lastRawHeading = rawHeading;
+    m_headingDegrees += delta;
+
+    double dtSeconds = elapsedSeconds - m_lastTimeSeconds;
+    if (dtSeconds > 0) {
+      m_rateDegreesPerSec = delta / dtSeconds;
+      m_lastTimeSeconds = elapsedSeconds;
+    }
+  }
+
+  private void updateSettled(double elapsedSeconds) {
+    boolean inTolerance = m_profile.isFinished(elapsedSeconds)
+        && Math.abs(m_goalDegrees - m_headingDegrees)
+            <= Constants.OperatorConstants.kTurnTolerance
+        && Math.abs(m_rateDegreesPerSec) <= Constants.OperatorConstants.kTurnSettleRate;
+
+    if (!inTolerance) {
+      m_settledSinceSeconds = Double.NaN;
+      m_isSettled = false;
+      return;
+    }
+
+    if (Double.isNaN(m_settledSinceSeconds)) {
+      m_settledSinceSeconds = elapsedSeconds;
+    }
+
+    m_isSettled = elapsedSeconds - m_settledSinceSeconds
+        >= Constants.OperatorConstants.kTurnSettleSeconds - 1e-9;
+  }
+
+  public boolean isSettled() {
+    return m_isSettled;
+  }
+
+  // The profile ended kTurnTimeoutMarginSeconds ago, settled or not
+  public boolean isTimedOut() {
+    return m_isTimedOut;
+  }
+
+  // Unwrapped, so it may be outside +-180
+  public double getGoalDegrees() {
+    return m_goalDegrees;
+  }
+
+  // Unwrapped, so it may be outside +-180
+  public double getHeadingDegrees() {
+    return m_headingDegrees;
+  }
+
+  public double getSetpointDegrees() {
+    return m_setpointDegrees;
+  }
+
+  public double getSetpointRate() {
+    return m_setpointRate;
+  }
+
+  // Duration of the planned profile
+  public double getTotalTimeSeconds() {
+    return m_profile == null ? 0 : m_profile.totalTime();
+  }
+}
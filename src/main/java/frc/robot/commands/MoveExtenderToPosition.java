@@ -0,0 +1,86 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.RobotLogger;
+import frc.robot.subsystems.ArmSystem;
+
+/**
+ * Command to move the extender to a position (encoder rotations), using Smart Motion on the
+ * SparkMax. Unlike SetExtenderToLength, which sets the motor speed every loop until the
+ * encoder crosses the target, this sends the setpoint once and then only watches for the
+ * extender to arrive. It gives up kExtenderTimeoutMarginSeconds after the Smart Motion
+ * profile should have got there.
+ */
+public class MoveExtenderToPosition extends CommandBase {
+  private static final RobotLogger.Site kInitializedLog = RobotLogger.createSite(
+      "MoveExtenderToPosition from %s to %s", 0);
+  private static final RobotLogger.Site kEndedLog = RobotLogger.createSite(
+      "MoveExtenderToPosition ended with encoder at %s", 0);
+  private static final RobotLogger.Site kTimedOutLog = RobotLogger.createSite(
+      "MoveExtenderToPosition timed out after %s seconds", 0);
+
+  private final ArmSystem m_armSystem;
+  private final double m_rotations;
+  private double m_startSeconds;
+  private double m_timeoutSeconds;
+
+  /**
+   * Constructor.
+   */
+  public MoveExtenderToPosition(ArmSystem armSystem, double rotations) {
+    m_armSystem = armSystem;
+    addRequirements(armSystem);
+
+    m_rotations = rotations;
+  }
+
+  /**
+   * How long Smart Motion takes to move between two positions, plus
+   * kExtenderTimeoutMarginSeconds. The SparkMax's profile is a trapezoid with the same limits,
+   * which are in motor RPM, so they are converted to encoder rotations with
+   * motorRotationsPerEncoderRotation (see ArmSystem).
+   */
+  public static double calcTimeoutSeconds(double fromRotations,
+      double toRotations,
+      double motorRotationsPerEncoderRotation) {
+    double rpmPerRotationsPerSec = 60 * motorRotationsPerEncoderRotation;
+    TrapezoidProfile profile = new TrapezoidProfile(
+        new TrapezoidProfile.Constraints(
+            Constants.OperatorConstants.kExtenderMaxVelocityRpm / rpmPerRotationsPerSec,
+            Constants.OperatorConstants.kExtenderMaxAccelRpmPerSec / rpmPerRotationsPerSec),
+        new TrapezoidProfile.State(toRotations, 0),
+        new TrapezoidProfile.State(fromRotations, 0));
+
+    return profile.totalTime() + Constants.OperatorConstants.kExtenderTimeoutMarginSeconds;
+  }
+
+  @Override
+  public void initialize() {
+    double position = m_armSystem.getExtenderEncoder();
+    RobotLogger.log(kInitializedLog, position, m_rotations);
+
+    m_timeoutSeconds = calcTimeoutSeconds(position, m_rotations,
+        m_armSystem.getExtenderMotorRotationsPerEncoderRotation());
+    m_startSeconds = Timer.getFPGATimestamp();
+    m_armSystem.setExtenderPosition(m_rotations);
+  }
+
+  @Override
+  public boolean isFinished() {
+    if (Timer.getFPGATimestamp() - m_startSeconds >= m_timeoutSeconds) {
+      RobotLogger.log(kTimedOutLog, m_timeoutSeconds);
+      return true;
+    }
+
+    return m_armSystem.isExtenderAtPosition();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    RobotLogger.log(kEndedLog, m_armSystem.getExtenderEncoder());
+    m_armSystem.setExtenderSpeed(0);
+  }
+}
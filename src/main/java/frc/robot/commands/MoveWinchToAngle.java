@@ -0,0 +1,76 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.RobotLogger;
+import frc.robot.subsystems.ArmSystem;
+
+/**
+ * Command to move the winch to a certain angle (absolute encoder position) along a motion
+ * profile, and hold it there until it settles. Unlike SetWinchToAngle, which runs at a fixed
+ * speed until the encoder crosses the target, this slows down before the target instead of
+ * overshooting it. See WinchPositionController.
+ */
+public class MoveWinchToAngle extends CommandBase {
+  private static final RobotLogger.Site kInitializedLog = RobotLogger.createSite(
+      "MoveWinchToAngle from %s to %s", 0);
+  private static final RobotLogger.Site kEndedLog = RobotLogger.createSite(
+      "MoveWinchToAngle ended with encoder at %s", 0);
+  private static final RobotLogger.Site kNoEncoderLog = RobotLogger.createSite(
+      "MoveWinchToAngle: winch absolute encoder is not connected", 1.0);
+
+  private final ArmSystem m_armSystem;
+  private final double m_angle;
+  private final WinchPositionController m_controller;
+  private double m_startSeconds;
+
+  /**
+   * Constructor.
+   */
+  public MoveWinchToAngle(ArmSystem armSystem, double angle) {
+    m_armSystem = armSystem;
+    addRequirements(armSystem);
+
+    m_angle = angle;
+    m_controller = new WinchPositionController(armSystem.getWinchGravityFeedforward());
+  }
+
+  @Override
+  public void initialize() {
+    double position = m_armSystem.getWinchAbsoluteEncoder();
+    m_controller.reset(position, m_angle);
+    m_startSeconds = Timer.getFPGATimestamp();
+    RobotLogger.log(kInitializedLog, position, m_angle);
+  }
+
+  @Override
+  public void execute() {
+    double elapsedSeconds = Timer.getFPGATimestamp() - m_startSeconds;
+    double output = m_controller.calculate(elapsedSeconds, m_armSystem.getWinchAbsoluteEncoder());
+    m_armSystem.setWinchSpeed(output);
+  }
+
+  @Override
+  public boolean isFinished() {
+    if (MathUtil.applyDeadband(m_armSystem.getLeftAxis(),
+        Constants.OperatorConstants.kDeadband) != 0) {
+      return true;
+    }
+
+    // Same as ArmSystem: a reading of exactly 0 means the encoder is unplugged
+    if (m_armSystem.getWinchAbsoluteEncoder() == 0.0) {
+      RobotLogger.log(kNoEncoderLog);
+      return true;
+    }
+
+    return m_controller.isSettled();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    RobotLogger.log(kEndedLog, m_armSystem.getWinchAbsoluteEncoder());
+    m_armSystem.setWinchSpeed(0);
+  }
+}
@@ -3,12 +3,24 @@ package frc.robot.commands;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants;
+import frc.robot.RobotLogger;
 import frc.robot.subsystems.ArmSystem;
 
 /**
  * Command to set the winch to a certain angle.
  */
 public class SetWinchToAngle extends CommandBase {
+  private static final RobotLogger.Site kInitializedLog = RobotLogger.createSite(
+      "Command initialized with enoder at %s, speed at %s (negative if inversed)", 0);
+  private static final RobotLogger.Site kExecutedLog = RobotLogger.createSite(
+      "Command executed %s", 0.5);
+  private static final RobotLogger.Site kCheckFinishedLog = RobotLogger.createSite(
+      "ENCODER%s ANGLE%s", 0.5);
+  private static final RobotLogger.Site kFinishedLog = RobotLogger.createSite(
+      "Is finished with encoder at %s", 0);
+  private static final RobotLogger.Site kEndedLog = RobotLogger.createSite(
+      "Ended with encoder at %s", 0);
+
   private ArmSystem m_armSystem;
   private double m_angle;
   private double m_speed;
@@ -30,20 +42,17 @@ public class SetWinchToAngle extends CommandBase {
     double currentRotations = m_armSystem.getWinchAbsoluteEncoder();
     if (currentRotations > m_angle) {
       m_inverse = -1;
-      System.out.println("inversed");
     }
     else {
       m_inverse = 1;
-      System.out.println("not inversed");
     }
-    System.out.println("Command initialized with enoder at " + currentRotations);
-    System.out.println("Command initialized with speed at " + m_speed);
+    RobotLogger.log(kInitializedLog, currentRotations, m_inverse * m_speed);
   }
 
   @Override
   public void execute() {
     m_armSystem.setWinchSpeed(m_inverse * m_speed);
-    System.out.println("Command executed " + m_armSystem.getWinchAbsoluteEncoder());
+    RobotLogger.log(kExecutedLog, m_armSystem.getWinchAbsoluteEncoder());
   }
 
   @Override
@@ -53,14 +62,13 @@ public class SetWinchToAngle extends CommandBase {
       return true;
 
     }
-    System.out.println("ENCODER" + m_armSystem.getWinchAbsoluteEncoder());
-    System.out.println("ANGLE" + m_angle);
+    RobotLogger.log(kCheckFinishedLog, m_armSystem.getWinchAbsoluteEncoder(), m_angle);
     if (m_inverse == 1 && m_armSystem.getWinchAbsoluteEncoder() >= m_angle) {
-      System.out.println("Is finished with encoder at " + m_armSystem.getWinchAbsoluteEncoder());
+      RobotLogger.log(kFinishedLog, m_armSystem.getWinchAbsoluteEncoder());
       return true;
     }
     else if (m_inverse == -1 && m_armSystem.getWinchAbsoluteEncoder() <= m_angle) {
-      System.out.println("Is finished with encoder at " + m_armSystem.getWinchAbsoluteEncoder());
+      RobotLogger.log(kFinishedLog, m_armSystem.getWinchAbsoluteEncoder());
       return true;
     }
     return false;
@@ -68,7 +76,7 @@ public class SetWinchToAngle extends CommandBase {
 
   @Override
   public void end(boolean interrupted) {
-    System.out.println("Ended with encoder at " + m_armSystem.getWinchAbsoluteEncoder());
+    RobotLogger.log(kEndedLog, m_armSystem.getWinchAbsoluteEncoder());
     m_armSystem.setWinchSpeed(0);
   }
 }
@@ -1,56 +1,80 @@
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.RobotLogger;
+import frc.robot.subsystems.OdometrySample;
 import frc.robot.subsystems.TankDriveSystem;
 
 /**
- * Command to turn the robot a certain number of degrees.
+ * Command to turn the robot a certain number of degrees, counterclockwise-positive, along a
+ * motion profile, and hold the heading until it settles. See HeadingController. The heading
+ * comes from the odometry thread when it's running, and from the gyro otherwise.
+ *
+ * <p>
+ * Turns are limited to +-180 degrees. The command gives up kTurnTimeoutMarginSeconds after
+ * the profile should have finished, so a turn that can't settle doesn't stall Auto.
+ * </p>
  */
 public class TurnDegrees extends CommandBase {
-  private double m_percentOutput;
+  private static final RobotLogger.Site kEndedLog = RobotLogger.createSite(
+      "TurnDegrees ended %s degrees from the goal", 0);
+  private static final RobotLogger.Site kTimedOutLog = RobotLogger.createSite(
+      "TurnDegrees timed out %s degrees from the goal", 0);
+
   private double m_degrees;
-  private double m_initialHeading;
   private TankDriveSystem m_drive;
+  private final HeadingController m_controller;
+  private final OdometrySample m_odometry = new OdometrySample();
+  private double m_startSeconds;
 
   /**
    * Constructor.
+   *
+   * @param percentOutput Fraction of kTurnMaxVelocity to turn at
+   * @param degrees       How far to turn, counterclockwise-positive, between -180 and 180
    */
   public TurnDegrees(TankDriveSystem drive, double percentOutput, double degrees) {
-    m_percentOutput = percentOutput;
+    HeadingController.checkTurnDegrees(degrees);
+
     m_degrees = degrees;
     m_drive = drive;
+    m_controller = new HeadingController(percentOutput);
 
     addRequirements(drive);
   }
 
   @Override
   public void initialize() {
-    m_initialHeading = m_drive.getGyroYaw();
+    m_controller.reset(getHeading(), m_degrees);
+    m_startSeconds = Timer.getFPGATimestamp();
   }
 
   @Override
   public void execute() {
-    // Calculate the error
-    double error = m_degrees - (m_drive.getGyroYaw() - m_initialHeading);
-
-    // Wrap error to be within -180 to 180 degrees
-    error = ((error + 180) % 360) - 180;
-    if (error < -180) {
-      error += 360;
-    }
-
-    double direction = Math.signum(error);
-    m_drive.tankDrive(-1 * direction * m_percentOutput, direction * m_percentOutput, true);
+    double elapsedSeconds = Timer.getFPGATimestamp() - m_startSeconds;
+    double volts = m_controller.calculate(elapsedSeconds, getHeading());
+    m_drive.tankDriveVolts(-volts, volts);
   }
 
   @Override
   public boolean isFinished() {
-    // Check if the robot is within an acceptable error range (e.g., 2 degrees)
-    return Math.abs(m_degrees - (m_drive.getGyroYaw() - m_initialHeading)) < 2;
+    return m_controller.isSettled() || m_controller.isTimedOut();
+  }
+
+  private double getHeading() {
+    if (m_drive.getOdometry(m_odometry)) {
+      return m_odometry.getHeadingDegrees();
+    }
+
+    return m_drive.getGyroYaw();
   }
 
   @Override
   public void end(boolean interrupted) {
+    boolean isTimedOut = m_controller.isTimedOut() && !m_controller.isSettled();
+    RobotLogger.log(isTimedOut ? kTimedOutLog : kEndedLog,
+        m_controller.getGoalDegrees() - m_controller.getHeadingDegrees());
     m_drive.tankDrive(0, 0, false);
   }
 }
@@ -0,0 +1,208 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants;
+import frc.robot.simulation.ArmSimulation;
+import frc.robot.simulation.CalcArmAngleHelper;
+
+/**
+ * Moves the winch to a position of the absolute encoder, along a trapezoidal motion profile.
+ * Each loop the output is:
+ *
+ * <pre>
+ * velocity feedforward + gravity feedforward + kP * (profile position - measured position)
+ * </pre>
+ *
+ * <p>
+ * The winch pulls a string tied to the back of the arm, so how much string a given arm
+ * movement takes depends on the arm angle. Both feedforwards use the CalcArmAngleHelper
+ * geometry to get the string's lever arm around the pivot at the current angle: the velocity
+ * feedforward turns the profile's encoder velocity into string speed, and the gravity
+ * feedforward turns the arm's gravity torque (largest when level) into string tension.
+ * </p>
+ *
+ * <p>
+ * The position is settled once the profile has finished and the measured position has stayed
+ * within kWinchSettleTolerance of the goal for kWinchSettleSeconds.
+ * </p>
+ */
+public class WinchPositionController {
+  // The output set in one loop drives the winch until the next one
+  private static final double kLoopPeriodSeconds = 0.02;
+
+  // Step used to differentiate the string length by the arm angle
+  private static final double kDerivativeStepDegrees = 0.5;
+
+  // Below this fraction of the arm length, the lever arm is treated as this fraction, so the
+  // gravity feedforward doesn't blow up with the arm nearly vertical
+  private static final double kMinLeverFraction = 0.1;
+
+  private final TrapezoidProfile.Constraints m_constraints;
+  private final double m_kp;
+  private final double m_maxStringSpeedMetersPerSec;
+  private final double m_gravityFeedforward;
+  private final double m_armLengthMeters;
+  private final double m_encoderRotationsOffset;
+  private final CalcArmAngleHelper m_calcArmAngleHelper;
+
+  private TrapezoidProfile m_profile = null;
+  private double m_goal;
+  private double m_setpointPosition;
+  private double m_setpointVelocity;
+  private double m_settledSinceSeconds = Double.NaN;
+  private boolean m_isSettled = false;
+
+  /**
+   * Constructor, with the profile and gains from Constants.
+   *
+   * @param gravityFeedforward Output that holds the arm level against gravity
+   */
+  public WinchPositionController(double gravityFeedforward) {
+    this(Constants.OperatorConstants.kWinchMaxVelocity,
+        Constants.OperatorConstants.kWinchMaxAcceleration,
+        Constants.OperatorConstants.kWinchPositionP,
+        Constants.OperatorConstants.kWinchMaxStringSpeedMetersPerSec,
+        gravityFeedforward);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxVelocity               Profile speed limit, in encoder rotations per second
+   * @param maxAcceleration           Profile acceleration limit, in rotations per second^2
+   * @param kp                        Output per rotation of position error
+   * @param maxStringSpeedMetersPerSec How fast the winch pulls the string at full output
+   * @param gravityFeedforward        Output that holds the arm level against gravity
+   */
+  public WinchPositionController(double maxVelocity,
+      double maxAcceleration,
+      double kp,
+      double maxStringSpeedMetersPerSec,
+      double gravityFeedforward) {
+    if (maxVelocity <= 0 || maxAcceleration <= 0) {
+      throw new IllegalArgumentException("profile constraints must be >0");
+    }
+
+    if (maxStringSpeedMetersPerSec <= 0) {
+      throw new IllegalArgumentException("maxStringSpeedMetersPerSec must be >0");
+    }
+
+    m_constraints = new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration);
+    m_kp = kp;
+    m_maxStringSpeedMetersPerSec = maxStringSpeedMetersPerSec;
+    m_gravityFeedforward = gravityFeedforward;
+    m_armLengthMeters = Constants.SimConstants.karmLengthFromEdgeToPivot;
+    m_encoderRotationsOffset = Constants.SimConstants.karmEncoderRotationsOffset;
+    m_calcArmAngleHelper = new CalcArmAngleHelper(
+        Constants.SimConstants.karmHeightFromWinchToPivotPoint, m_armLengthMeters);
+  }
+
+  /**
+   * Plans a new profile from position (at rest) to goal. The elapsed time passed to
+   * calculate() is counted from this call.
+   */
+  public void reset(double position, double goal) {
+    m_goal = goal;
+    m_profile = new TrapezoidProfile(m_constraints, new TrapezoidProfile.State(goal, 0),
+        new TrapezoidProfile.State(position, 0));
+    m_setpointPosition = position;
+    m_setpointVelocity = 0;
+    m_settledSinceSeconds = Double.NaN;
+    m_isSettled = false;
+  }
+
+  /**
+   * Returns the winch output for this loop, between -1 and 1.
+   *
+   * @param elapsedSeconds Time since reset()
+   * @param position       Measured absolute encoder position
+   */
+  public double calculate(double elapsedSeconds, double position) {
+    if (m_profile == null) {
+      throw new IllegalStateException("reset() must be called before calculate()");
+    }
+
+    TrapezoidProfile.State setpoint = m_profile.calculate(elapsedSeconds);
+    m_setpointPosition = setpoint.position;
+    m_setpointVelocity = setpoint.velocity;
+    updateSettled(elapsedSeconds, position);
+
+    // Feed forward the average velocity until the next loop, rather than the velocity right
+    // now, so the arm doesn't lag a loop behind the profile
+    double nextPosition = m_profile.calculate(elapsedSeconds + kLoopPeriodSeconds).position;
+    double velocity = (nextPosition - m_setpointPosition) / kLoopPeriodSeconds;
+
+    double leverMeters = Math.max(getLeverMeters(position),
+        kMinLeverFraction * m_armLengthMeters);
+    double armRadians = Math.toRadians(getArmDegrees(position));
+
+    double velocityFeedforward = velocity * 2 * Math.PI * leverMeters
+        / m_maxStringSpeedMetersPerSec;
+    double gravityFeedforward = m_gravityFeedforward * Math.cos(armRadians)
+        * m_armLengthMeters / leverMeters;
+    double feedback = m_kp * (m_setpointPosition - position);
+
+    return MathUtil.clamp(velocityFeedforward + gravityFeedforward + feedback, -1, 1);
+  }
+
+  private void updateSettled(double elapsedSeconds, double position) {
+    boolean inTolerance = m_profile.isFinished(elapsedSeconds)
+        && Math.abs(m_goal - position) <= Constants.OperatorConstants.kWinchSettleTolerance;
+
+    if (!inTolerance) {
+      m_settledSinceSeconds = Double.NaN;
+      m_isSettled = false;
+      return;
+    }
+
+    if (Double.isNaN(m_settledSinceSeconds)) {
+      m_settledSinceSeconds = elapsedSeconds;
+    }
+
+    m_isSettled = elapsedSeconds - m_settledSinceSeconds
+        >= Constants.OperatorConstants.kWinchSettleSeconds - 1e-9;
+  }
+
+  public boolean isSettled() {
+    return m_isSettled;
+  }
+
+  public double getGoal() {
+    return m_goal;
+  }
+
+  public double getSetpointPosition() {
+    return m_setpointPosition;
+  }
+
+  public double getSetpointVelocity() {
+    return m_setpointVelocity;
+  }
+
+  // Duration of the planned profile
+  public double getTotalTimeSeconds() {
+    return m_profile == null ? 0 : m_profile.totalTime();
+  }
+
+  /**
+   * Arm angle for an absolute encoder position, in signed degrees (0 is level, positive is
+   * up).
+   */
+  public double getArmDegrees(double position) {
+    return ArmSimulation.toNonOffsetSignedDegrees(position, m_encoderRotationsOffset);
+  }
+
+  /**
+   * How much string the winch pulls in per radian the arm rises, at this position. This is
+   * the string's lever arm around the pivot.
+   */
+  public double getLeverMeters(double position) {
+    double degrees = MathUtil.clamp(getArmDegrees(position), -90 + kDerivativeStepDegrees,
+        90 - kDerivativeStepDegrees);
+    double lengthAbove = m_calcArmAngleHelper.calcStringLength(degrees + kDerivativeStepDegrees);
+    double lengthBelow = m_calcArmAngleHelper.calcStringLength(degrees - kDerivativeStepDegrees);
+
+    return (lengthBelow - lengthAbove) / Math.toRadians(2 * kDerivativeStepDegrees);
+  }
+}
@@ -1,16 +1,31 @@
 package frc.robot.simulation;
 
 import edu.wpi.first.wpilibj.simulation.DutyCycleEncoderSim;
+import frc.robot.RobotLogger;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import java.nio.ByteBuffer;
 import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
 import java.util.function.DoubleSupplier;
 
 /**
  * Simulates the arm as-if it were a real-world object. E.g. if the arm
  * is extended too far, it will break.
  */
-public class ArmSimulation {
+public class ArmSimulation implements SimSnapshotInterface {
+  private static final RobotLogger.Site kOutOfBoundsLog = RobotLogger.createSite(
+      "ARM: Angle is out of bounds, needs to be in right half plane", 1.0);
+  private static final RobotLogger.Site kGrabberStuckLog = RobotLogger.createSite(
+      "ARM: Grabber is open while try to move arm to ground", 1.0);
+  private static final RobotLogger.Site kGrabberBrokeLog = RobotLogger.createSite(
+      "ARM: Grabber is open while arm is in breakable range", 1.0);
+  private static final RobotLogger.Site kAboveTopLimitLog = RobotLogger.createSite(
+      "ARM: Angle is above top limit of %s", 1.0);
+  private static final RobotLogger.Site kBelowBottomLimitLog = RobotLogger.createSite(
+      "ARM: Angle is below limit of %s", 1.0);
+
   private DoubleSupplier m_stringUnspooledLenSupplier;
-  private DutyCycleEncoderSim m_winchAbsoluteEncoderSim;
+  private DoubleConsumer m_absoluteEncoderPositionConsumer;
   private double m_currentSignedDegrees;
   private boolean m_isCurrentSignedDegreesSet = false;
   private double m_topSignedDegreesLimit;
@@ -28,6 +43,17 @@ public class ArmSimulation {
       DutyCycleEncoderSim winchAbsoluteEncoderSim,
       ArmSimulationParams armParams) {
 
+    this(stringUnspooledLenSupplier, position -> winchAbsoluteEncoderSim.set(position), armParams);
+  }
+
+  /**
+   * Constructor that doesn't need the HAL. The new absolute encoder position (in rotations,
+   * including the offset) is passed to absoluteEncoderPositionConsumer on every update.
+   */
+  public ArmSimulation(DoubleSupplier stringUnspooledLenSupplier,
+      DoubleConsumer absoluteEncoderPositionConsumer,
+      ArmSimulationParams armParams) {
+
     if (stringUnspooledLenSupplier == null) {
       throw new IllegalArgumentException("stringUnspooledLenSupplier");
     }
@@ -79,7 +105,7 @@ public class ArmSimulation {
     }
 
     m_stringUnspooledLenSupplier = stringUnspooledLenSupplier;
-    m_winchAbsoluteEncoderSim = winchAbsoluteEncoderSim;
+    m_absoluteEncoderPositionConsumer = absoluteEncoderPositionConsumer;
     m_encoderRotationsOffset = armParams.m_encoderRotationsOffset;
     m_isBroken = false;
 
@@ -94,6 +120,10 @@ public class ArmSimulation {
     return m_isBroken;
   }
 
+  public double getCurrentSignedDegrees() {
+    return m_currentSignedDegrees;
+  }
+
   // $TODO This is ugly - probably don't need a method
   public static double offsetArmRotationPosition(double position, double offset) {
     double positionWithOffset = position + offset;
@@ -122,17 +152,16 @@ public class ArmSimulation {
     boolean isGrabberOpen = getGrabberOpen();
 
     double newStringLen = m_stringUnspooledLenSupplier.getAsDouble();
-    CalcArmAngleHelper.Result resultPair = m_calcArmAngleHelper
-        .calcSignedDegreesForStringLength(newStringLen);
+    double newAbsoluteEncoderSignedDegrees = m_calcArmAngleHelper
+        .calcSignedDegrees(newStringLen);
 
-    // Check if we got back that string length was invalid
-    if (!resultPair.m_isValid) {
-      System.out.println("ARM: Angle is out of bounds, needs to be in right half plane");
+    // Check if we got back that string length was invalid (arm beyond its highest point)
+    if (Double.isNaN(newAbsoluteEncoderSignedDegrees)) {
+      RobotLogger.log(kOutOfBoundsLog);
       m_isBroken = true;
+      newAbsoluteEncoderSignedDegrees = 90;
     }
 
-    double newAbsoluteEncoderSignedDegrees = resultPair.m_value;
-
     if (isGrabberOpen && m_isCurrentSignedDegreesSet
         && isInGrabberBreakRange(newAbsoluteEncoderSignedDegrees)) {
 
@@ -140,7 +169,7 @@ public class ArmSimulation {
 
         // If the arm is ABOUT to go into the breakable range with the grabber open, the arm gets
         // stuck but doesn't break
-        System.out.println("ARM: Grabber is open while try to move arm to ground");
+        RobotLogger.log(kGrabberStuckLog);
 
         // With grabber open, arm is STUCK and not able to go lower than a certain point
         newAbsoluteEncoderSignedDegrees = m_grabberBreaksIfOpenBelowSignedDegreesLimit;
@@ -148,7 +177,7 @@ public class ArmSimulation {
       else {
 
         // If the arm is ALREADY below a certain level, and grabber is broken, arm is broken
-        System.out.println("ARM: Grabber is open while arm is in breakable range");
+        RobotLogger.log(kGrabberBrokeLog);
         m_isBroken = true;
 
         // Note that we don't let the arm move from where it was
@@ -157,13 +186,13 @@ public class ArmSimulation {
     }
 
     if (newAbsoluteEncoderSignedDegrees > m_topSignedDegreesLimit) {
-      System.out.println("ARM: Angle is above top limit of " + m_topSignedDegreesLimit);
+      RobotLogger.log(kAboveTopLimitLog, m_topSignedDegreesLimit);
       newAbsoluteEncoderSignedDegrees = m_topSignedDegreesLimit;
       m_isBroken = true;
     }
 
     if (newAbsoluteEncoderSignedDegrees < m_bottomSignedDegreesLimit) {
-      System.out.println("ARM: Angle is below limit of " + m_bottomSignedDegreesLimit);
+      RobotLogger.log(kBelowBottomLimitLog, m_bottomSignedDegreesLimit);
       newAbsoluteEncoderSignedDegrees = m_bottomSignedDegreesLimit;
       m_isBroken = true;
     }
@@ -180,7 +209,7 @@ public class ArmSimulation {
     double newOffsetAbsoluteEncoderPosition = offsetArmRotationPosition(newAbsoluteEncoderPosition,
         m_encoderRotationsOffset);
 
-    m_winchAbsoluteEncoderSim.set(newOffsetAbsoluteEncoderPosition);
+    m_absoluteEncoderPositionConsumer.accept(newOffsetAbsoluteEncoderPosition);
   }
 
   public void setGrabberOpenSupplier(BooleanSupplier grabberOpenSupplier) {
@@ -204,4 +233,24 @@ public class ArmSimulation {
   public void simulationPeriodic() {
     updateAbsoluteEncoderPosition();
   }
+
+  // The absolute encoder isn't saved; it's refreshed on the next tick after a restore
+  @Override
+  public int getSnapshotSizeBytes() {
+    return Double.BYTES + 2;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_currentSignedDegrees);
+    buffer.put((byte) (m_isCurrentSignedDegreesSet ? 1 : 0));
+    buffer.put((byte) (m_isBroken ? 1 : 0));
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_currentSignedDegrees = buffer.getDouble();
+    m_isCurrentSignedDegreesSet = buffer.get() != 0;
+    m_isBroken = buffer.get() != 0;
+  }
 }
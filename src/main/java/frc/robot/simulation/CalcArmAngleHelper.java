@@ -1,6 +1,7 @@
 package frc.robot.simulation;
 
 import frc.robot.Constants;
+import frc.robot.RobotLogger;
 
 /**
  * The CalcArmAngleHelper class is responsible for calculating the signed degrees
@@ -16,6 +17,14 @@ import frc.robot.Constants;
  * Arm Angle - The angle of the arm, relative to the ground
  * String - Connects winch to arm back end
  * </p>
+ *
+ * <p>
+ * Optionally (enableLookupTable), asin/sin are replaced by precomputed tables with linear
+ * interpolation, sized so the angle is never off by more than a given number of degrees.
+ * calcSignedDegrees() and calcStringLength() return a primitive (NaN when invalid), so they
+ * don't allocate and can be called from controllers and tight loops. calcSignedDegrees() is
+ * the one string length to angle kernel: the Result and batch versions give the same angles.
+ * </p>
  */
 public class CalcArmAngleHelper {
   /**
@@ -23,7 +32,7 @@ public class CalcArmAngleHelper {
    * includes a validity status and a numeric result.
    * This class is immutable; once an instance is created, it cannot be changed.
    */
-  public class Result {
+  public static class Result {
     public final boolean m_isValid;
     public final double m_value;
 
@@ -33,9 +42,25 @@ public class CalcArmAngleHelper {
     }
   }
 
+  private static final RobotLogger.Site kStringTooLongLog = RobotLogger.createSite(
+      "String too long, and is no longer taut", 1.0);
+  private static final RobotLogger.Site kStringTooShortLog = RobotLogger.createSite(
+      "Above highest point: String too short!", 1.0);
+
+  // Above this ratio asin() gets steep, so the table is looked up through
+  // asin(x) = 90 - asin(sqrt(1 - x*x)) instead, which keeps the table small
+  private static final double kAsinSplit = Math.sqrt(0.5);
+
   private double m_lengthFromWinchToPivotPoint;
   private double m_lengthFromPivotPointToArmBackEnd;
 
+  // Lookup tables, in degrees. Null unless enableLookupTable() was called.
+  private double[] m_asinTable = null;
+  private double m_asinInvStep;
+  private double[] m_sinTable = null;
+  private double m_sinInvStep;
+  private double m_lookupTableMaxErrorDegrees = 0;
+
   /**
    * Constructs a new instance of CalcArmAngleHelper.
    *
@@ -73,6 +98,95 @@ public class CalcArmAngleHelper {
     m_lengthFromPivotPointToArmBackEnd = lengthFromPivotPointToArmBackEnd;
   }
 
+  /**
+   * Replaces asin/sin with lookup tables. Linear interpolation error is at most h*h/8 times
+   * the largest second derivative, so the tables are sized from maxErrorDegrees up front.
+   *
+   * @param maxErrorDegrees Largest allowed angle error. For string lengths, the error is at
+   *                        most the length change caused by turning the arm this much.
+   */
+  public void enableLookupTable(double maxErrorDegrees) {
+    if (maxErrorDegrees <= 0) {
+      throw new IllegalArgumentException("maxErrorDegrees must be >0");
+    }
+
+    // asin(x) in degrees over [0, kAsinSplit]. Its second derivative peaks at kAsinSplit,
+    // at 2 radians (times 180/PI for degrees).
+    double asinStep = Math.sqrt(8 * maxErrorDegrees / (2 * Math.toDegrees(1)));
+    int asinIntervals = (int) Math.ceil(kAsinSplit / asinStep);
+    m_asinInvStep = asinIntervals / kAsinSplit;
+    m_asinTable = new double[asinIntervals + 1];
+    for (int i = 0; i <= asinIntervals; i++) {
+      m_asinTable[i] = Math.toDegrees(Math.asin(i / m_asinInvStep));
+    }
+
+    // sin(degrees) over [0, 90]. Its second derivative is at most 1 (in radians).
+    double sinStepRadians = Math.sqrt(8 * Math.toRadians(maxErrorDegrees));
+    int sinIntervals = (int) Math.ceil((Math.PI / 2) / sinStepRadians);
+    m_sinInvStep = sinIntervals / 90.0;
+    m_sinTable = new double[sinIntervals + 1];
+    for (int i = 0; i <= sinIntervals; i++) {
+      m_sinTable[i] = Math.sin(Math.toRadians(i / m_sinInvStep));
+    }
+
+    m_lookupTableMaxErrorDegrees = maxErrorDegrees;
+  }
+
+  /**
+   * Goes back to calling asin/sin exactly.
+   */
+  public void disableLookupTable() {
+    m_asinTable = null;
+    m_sinTable = null;
+    m_lookupTableMaxErrorDegrees = 0;
+  }
+
+  public boolean isLookupTableEnabled() {
+    return m_asinTable != null;
+  }
+
+  // 0 if the lookup table is disabled
+  public double getLookupTableMaxErrorDegrees() {
+    return m_lookupTableMaxErrorDegrees;
+  }
+
+  /**
+   * Same as calcSignedDegreesForStringLength(), but returns NaN instead of an invalid Result,
+   * and doesn't allocate or print.
+   *
+   * @return The signed degrees, or NaN if the string is too short (arm beyond its highest point).
+   */
+  public double calcSignedDegrees(double stringLen) {
+    double heightArmBackendAbovePivot = stringLen - m_lengthFromWinchToPivotPoint;
+
+    // String is no longer taut, so arm is dangling down
+    if (isStringSlack(heightArmBackendAbovePivot)) {
+      return -90;
+    }
+
+    if (isStringTooShort(heightArmBackendAbovePivot)) {
+      return Double.NaN;
+    }
+
+    return -1 * calcAngleDegrees(calcSinRatio(heightArmBackendAbovePivot,
+        m_lengthFromPivotPointToArmBackEnd));
+  }
+
+  /**
+   * Same as calcStringLengthForSignedDegrees(), but returns NaN instead of an invalid Result,
+   * and doesn't allocate.
+   *
+   * @return The string length, or NaN if the angle is beyond straight up or straight down.
+   */
+  public double calcStringLength(double signedDegrees) {
+    if (signedDegrees > 90 || signedDegrees < -90) {
+      return Double.NaN;
+    }
+
+    return m_lengthFromWinchToPivotPoint
+        - calcHeightOnRightTriangle(m_lengthFromPivotPointToArmBackEnd, signedDegrees);
+  }
+
   /**
    * Calculates the signed degrees for a given string length. The result is based on
    * the height of the arm backend above the pivot point, calculated from the input.
@@ -94,32 +208,132 @@ public class CalcArmAngleHelper {
   public Result calcSignedDegreesForStringLength(double stringLen) {
     double heightArmBackendAbovePivot = stringLen - m_lengthFromWinchToPivotPoint;
     double up = 90;
-    double down = -90;
 
     // Is arm beyond lowest possible point?
     // If the string is too long, it means the string is no longer taut.
     // Still, we consider this a valid position of the arm; arm is dangling down
-    if (UnitConversions.greaterThanButNotEqualDouble(heightArmBackendAbovePivot,
-        m_lengthFromPivotPointToArmBackEnd)) {
-      System.out.println("String too long, and is no longer taut");
-      return new Result(true, down);
+    if (isStringSlack(heightArmBackendAbovePivot)) {
+      RobotLogger.log(kStringTooLongLog);
     }
 
     // Is arm beyond highest possible point?
-    if (UnitConversions.lessThanButNotEqualDouble(heightArmBackendAbovePivot,
-        -1 * m_lengthFromPivotPointToArmBackEnd)) {
-      System.out.println("Above highest point: String too short!");
+    double signedDegrees = calcSignedDegrees(stringLen);
+    if (Double.isNaN(signedDegrees)) {
+      RobotLogger.log(kStringTooShortLog);
       return new Result(false, up);
     }
 
-    return new Result(true, -1
-        * calcAngleOnRightTriangle(m_lengthFromPivotPointToArmBackEnd, heightArmBackendAbovePivot));
+    return new Result(true, signedDegrees);
   }
 
-  // We are calculating the angle of a right triangle at point (0,0). We know the length of the
-  // hypotenus, and we know it's other side is exactly H height above the x-axis
-  private double calcAngleOnRightTriangle(double lenHypotenuse, double height) {
-    return Math.toDegrees(Math.asin(height / lenHypotenuse));
+  private boolean isStringSlack(double heightArmBackendAbovePivot) {
+    return UnitConversions.greaterThanButNotEqualDouble(heightArmBackendAbovePivot,
+        m_lengthFromPivotPointToArmBackEnd);
+  }
+
+  private boolean isStringTooShort(double heightArmBackendAbovePivot) {
+    return UnitConversions.lessThanButNotEqualDouble(heightArmBackendAbovePivot,
+        -1 * m_lengthFromPivotPointToArmBackEnd);
+  }
+
+  // Sine of the arm's angle below horizontal. Clamped, since the height can be a hair past the
+  // arm's length and still count as equal to it.
+  private static double calcSinRatio(double heightArmBackendAbovePivot, double pivotToBackEnd) {
+    return Math.max(-1.0, Math.min(1.0, heightArmBackendAbovePivot / pivotToBackEnd));
+  }
+
+  private static void checkBatchArrays(double[] in, double[] out, boolean[] validOut) {
+    if (in == null || out == null || validOut == null) {
+      throw new IllegalArgumentException("arrays cannot be null");
+    }
+
+    if (out.length < in.length || validOut.length < in.length) {
+      throw new IllegalArgumentException("output arrays must be at least as long as input");
+    }
+  }
+
+  /**
+   * Batch version of calcSignedDegreesForStringLength(), for offline tools that evaluate the
+   * geometry millions of times. Fills signedDegreesOut and validOut the same way the Result
+   * would be filled, without allocating. signedDegreesOut may be the same array as stringLens.
+   *
+   * <p>
+   * The work is split into simple passes over the arrays (no calls or branches in the
+   * arithmetic pass), so the JIT can unroll and vectorize them.
+   * </p>
+   */
+  public void calcSignedDegreesForStringLengths(double[] stringLens, double[] signedDegreesOut,
+      boolean[] validOut) {
+    checkBatchArrays(stringLens, signedDegreesOut, validOut);
+
+    double winchToPivot = m_lengthFromWinchToPivotPoint;
+    double pivotToBackEnd = m_lengthFromPivotPointToArmBackEnd;
+    int count = stringLens.length;
+
+    // Pass 1: validity, and the sin of the angle, same as calcSignedDegrees(). Clamping maps a
+    // dangling arm to -90 and a too-short string to 90, the same as the Result.
+    for (int i = 0; i < count; i++) {
+      double height = stringLens[i] - winchToPivot;
+      validOut[i] = !isStringTooShort(height);
+      signedDegreesOut[i] = calcSinRatio(height, pivotToBackEnd);
+    }
+
+    // Pass 2: the angle itself
+    for (int i = 0; i < count; i++) {
+      signedDegreesOut[i] = -1 * calcAngleDegrees(signedDegreesOut[i]);
+    }
+  }
+
+  /**
+   * Batch version of calcStringLengthForSignedDegrees(). Fills stringLensOut and validOut the
+   * same way the Result would be filled, without allocating. stringLensOut may be the same
+   * array as signedDegrees.
+   */
+  public void calcStringLengthsForSignedDegrees(double[] signedDegrees, double[] stringLensOut,
+      boolean[] validOut) {
+    checkBatchArrays(signedDegrees, stringLensOut, validOut);
+
+    double winchToPivot = m_lengthFromWinchToPivotPoint;
+    double pivotToBackEnd = m_lengthFromPivotPointToArmBackEnd;
+    int count = signedDegrees.length;
+
+    // Pass 1: validity, and clamp to straight up or straight down
+    for (int i = 0; i < count; i++) {
+      double degrees = signedDegrees[i];
+      validOut[i] = degrees <= 90 && degrees >= -90;
+      stringLensOut[i] = Math.max(-90.0, Math.min(90.0, degrees));
+    }
+
+    // Pass 2: the string length itself
+    for (int i = 0; i < count; i++) {
+      stringLensOut[i] = winchToPivot
+          - calcHeightOnRightTriangle(pivotToBackEnd, stringLensOut[i]);
+    }
+  }
+
+  // asin(ratio) in degrees, from the lookup table if it's enabled
+  private double calcAngleDegrees(double ratio) {
+    if (m_asinTable == null) {
+      return Math.toDegrees(Math.asin(ratio));
+    }
+
+    double x = Math.abs(ratio);
+    double result;
+    if (x <= kAsinSplit) {
+      result = interpolate(m_asinTable, m_asinInvStep, x);
+    }
+    else {
+      result = 90 - interpolate(m_asinTable, m_asinInvStep, Math.sqrt(Math.max(0, 1 - x * x)));
+    }
+
+    return Math.copySign(result, ratio);
+  }
+
+  private static double interpolate(double[] table, double invStep, double x) {
+    double position = x * invStep;
+    int index = Math.min((int) position, table.length - 2);
+    double fraction = position - index;
+    return table[index] + (table[index + 1] - table[index]) * fraction;
   }
 
   /**
@@ -162,6 +376,11 @@ public class CalcArmAngleHelper {
   }
 
   private double calcHeightOnRightTriangle(double lenHypotenuse, double signedAngle) {
+    if (m_sinTable != null) {
+      return lenHypotenuse * Math.copySign(
+          interpolate(m_sinTable, m_sinInvStep, Math.abs(signedAngle)), signedAngle);
+    }
+
     double angleRadians = Math.toRadians(signedAngle);
     return lenHypotenuse * Math.sin(angleRadians);
   }
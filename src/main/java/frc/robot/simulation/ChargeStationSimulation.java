@@ -0,0 +1,203 @@
+package frc.robot.simulation;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.Constants;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Simulates the charge station: a platform that pivots about its center, with a ramp hinged
+ * to each end. The station lies along the field's x axis, and tips as the robot drives onto
+ * it. The robot's pitch is the slope of whatever it is standing on.
+ *
+ * <p>
+ * Terminology:
+ * Angle - How far the platform is tipped, positive with its +x end up
+ * Offset - How far the robot's center is from the station's center, along x
+ * Pitch - The robot's nose-up tilt, which the Pigeon2 reports as roll
+ * </p>
+ *
+ * <p>
+ * The platform is driven by the robot's weight, held by friction and slowed by damping in
+ * the pivot, and stops at kchargeStationMaxAngleDegrees either way (the low end on the
+ * carpet). On the platform, the robot's whole weight pushes its end down. On a ramp, the
+ * hinge carries part of it: all of it at the hinge, none at the floor end. The robot is a
+ * point at its center, and the slope doesn't slow the simulated drivetrain.
+ * </p>
+ */
+public class ChargeStationSimulation implements SimSnapshotInterface {
+  private static final double kGravity = 9.81;
+
+  private final double m_centerX;
+  private final double m_centerY;
+  private final Supplier<Pose2d> m_robotPose;
+  private final SimStepper m_stepper;
+
+  private final double m_halfWidth = Constants.SimConstants.kchargeStationWidthMeters / 2;
+  private final double m_halfPlatformLen =
+      Constants.SimConstants.kchargeStationPlatformLenMeters / 2;
+  private final double m_rampLen = Constants.SimConstants.kchargeStationRampLenMeters;
+  private final double m_rampSlopeLen = Math.hypot(m_rampLen,
+      Constants.SimConstants.kchargeStationPivotHeightMeters);
+  private final double m_maxAngleRadians =
+      Math.toRadians(Constants.SimConstants.kchargeStationMaxAngleDegrees);
+  private final double m_robotWeight = Constants.SimConstants.krobotMassKg * kGravity;
+
+  private double m_angleRadians = 0;
+  private double m_rateRadiansPerSec = 0;
+  private Pose2d m_lastRobotPose = new Pose2d();
+
+  /**
+   * Constructs a new ChargeStationSimulation, level.
+   *
+   * @param centerX   Field position of the station's center (the pivot), in meters
+   * @param centerY   Field position of the station's center, in meters
+   * @param robotPose Supplies where the robot actually is, e.g. DriveSimulation::getSimPose
+   * @param stepper   Decides how far the station advances each tick
+   */
+  public ChargeStationSimulation(double centerX,
+      double centerY,
+      Supplier<Pose2d> robotPose,
+      SimStepper stepper) {
+
+    if (robotPose == null) {
+      throw new IllegalArgumentException("robotPose cannot be null");
+    }
+
+    if (stepper == null) {
+      throw new IllegalArgumentException("stepper cannot be null");
+    }
+
+    m_centerX = centerX;
+    m_centerY = centerY;
+    m_robotPose = robotPose;
+    m_stepper = stepper;
+  }
+
+  /**
+   * Advances the station by one tick. The robot stays where it is for the whole tick, so
+   * run this after the drivetrain simulation.
+   */
+  public void simulationPeriodic() {
+    m_lastRobotPose = m_robotPose.get();
+    m_stepper.step(this::updateStation);
+  }
+
+  private void updateStation(double dtSeconds) {
+    double offset = getRobotOffsetMeters();
+    double inertia = Constants.SimConstants.kchargeStationInertia;
+    double torque = 0;
+
+    if (isRobotOnPlatform()) {
+      torque = -m_robotWeight * offset * Math.cos(m_angleRadians);
+      inertia += Constants.SimConstants.krobotMassKg * offset * offset;
+    }
+    else if (isRobotOnStation()) {
+      double hingeShare = 1 - (Math.abs(offset) - m_halfPlatformLen) / m_rampLen;
+      torque = -m_robotWeight * hingeShare * Math.signum(offset) * m_halfPlatformLen
+          * Math.cos(m_angleRadians);
+    }
+
+    // Friction holds the platform still until the robot pushes harder than it, and then
+    // slows it down, but never reverses it
+    double friction = Constants.SimConstants.kchargeStationFrictionTorque;
+    if (m_rateRadiansPerSec == 0 && Math.abs(torque) <= friction) {
+      return;
+    }
+
+    double direction = m_rateRadiansPerSec != 0 ? Math.signum(m_rateRadiansPerSec)
+        : Math.signum(torque);
+    torque -= Constants.SimConstants.kchargeStationDamping * m_rateRadiansPerSec
+        + friction * direction;
+
+    // Semi-implicit Euler, then the hard stops. Hitting one stops the platform dead.
+    double newRate = m_rateRadiansPerSec + torque / inertia * dtSeconds;
+    m_rateRadiansPerSec = newRate * direction < 0 ? 0 : newRate;
+    m_angleRadians += m_rateRadiansPerSec * dtSeconds;
+    if (Math.abs(m_angleRadians) >= m_maxAngleRadians) {
+      m_angleRadians = Math.copySign(m_maxAngleRadians, m_angleRadians);
+      if (m_rateRadiansPerSec * m_angleRadians > 0) {
+        m_rateRadiansPerSec = 0;
+      }
+    }
+  }
+
+  public SimStepper getStepper() {
+    return m_stepper;
+  }
+
+  // Along x: positive when the robot is on the +x side
+  public double getRobotOffsetMeters() {
+    return m_lastRobotPose.getX() - m_centerX;
+  }
+
+  public boolean isRobotOnStation() {
+    return Math.abs(m_lastRobotPose.getY() - m_centerY) <= m_halfWidth
+        && Math.abs(getRobotOffsetMeters()) <= m_halfPlatformLen + m_rampLen;
+  }
+
+  public boolean isRobotOnPlatform() {
+    return isRobotOnStation() && Math.abs(getRobotOffsetMeters()) <= m_halfPlatformLen;
+  }
+
+  // Positive with the +x end up
+  public double getAngleDegrees() {
+    return Math.toDegrees(m_angleRadians);
+  }
+
+  public double getRateDegreesPerSec() {
+    return Math.toDegrees(m_rateRadiansPerSec);
+  }
+
+  /**
+   * Tips the platform, e.g. to start a test part way through. Limited to the hard stops.
+   */
+  public void setAngleDegrees(double angleDegrees) {
+    m_angleRadians = MathUtil.clamp(Math.toRadians(angleDegrees), -m_maxAngleRadians,
+        m_maxAngleRadians);
+    m_rateRadiansPerSec = 0;
+  }
+
+  /**
+   * Returns the robot's nose-up pitch, in degrees: the slope, along the way the robot is
+   * facing, of the platform or ramp it is on, or 0 on the carpet.
+   */
+  public double getRobotPitchDegrees() {
+    double slopeRadians = 0;
+    double offset = getRobotOffsetMeters();
+
+    if (isRobotOnPlatform()) {
+      slopeRadians = m_angleRadians;
+    }
+    else if (isRobotOnStation()) {
+      // Each ramp rises from the carpet to the end of the platform it's hinged to
+      double hingeHeight = Constants.SimConstants.kchargeStationPivotHeightMeters
+          + Math.signum(offset) * m_halfPlatformLen * Math.sin(m_angleRadians);
+      double rampRadians = Math.asin(MathUtil.clamp(hingeHeight / m_rampSlopeLen, 0, 1));
+      slopeRadians = -Math.signum(offset) * rampRadians;
+    }
+
+    return Math.toDegrees(slopeRadians) * m_lastRobotPose.getRotation().getCos();
+  }
+
+  // Saves the platform's angle and rate. The robot's pose is read again on the next tick.
+  @Override
+  public int getSnapshotSizeBytes() {
+    return 2 * Double.BYTES;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_angleRadians);
+    buffer.putDouble(m_rateRadiansPerSec);
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_angleRadians = buffer.getDouble();
+    m_rateRadiansPerSec = buffer.getDouble();
+  }
+}
@@ -5,14 +5,19 @@
 package frc.robot.simulation;
 
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
 import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
 import edu.wpi.first.math.kinematics.DifferentialDriveWheelSpeeds;
+import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.numbers.N7;
 import edu.wpi.first.math.system.LinearSystem;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
@@ -25,12 +30,17 @@ import edu.wpi.first.wpilibj.simulation.AnalogGyroSim;
 import edu.wpi.first.wpilibj.simulation.DifferentialDrivetrainSim;
 import edu.wpi.first.wpilibj.simulation.EncoderSim;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
+import frc.robot.PoseHistory;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
+import java.nio.ByteBuffer;
+import java.util.function.DoubleConsumer;
 
 /**
  * Simulates a real world drivetrain. E.g. the position of the robot is even shown
  * on the field.
  */
-public class DriveSimulation {
+public class DriveSimulation implements SimSnapshotInterface {
   // 3 meters per second.
   public static final double kMaxSpeed = 3.0;
   // 1/2 rotation per second.
@@ -39,6 +49,10 @@ public class DriveSimulation {
   private static final double kTrackWidth = 0.381 * 2;
   private final double m_wheelRadius;
   private static final int kEncoderResolution = -4096;
+  private static final int kNumDrivetrainStates = 7;
+
+  // 1.5s of odometry updates, one per robot loop
+  private static final int kPoseHistoryCapacity = 75;
 
   private final PWMSparkMax m_leftLeader = new PWMSparkMax(1);
   private final PWMSparkMax m_leftFollower = new PWMSparkMax(2);
@@ -62,6 +76,7 @@ public class DriveSimulation {
       kTrackWidth);
   private final DifferentialDriveOdometry m_odometry = new DifferentialDriveOdometry(
       m_gyro.getRotation2d(), m_leftEncoder.getDistance(), m_rightEncoder.getDistance());
+  private final PoseHistory m_poseHistory = new PoseHistory(kPoseHistoryCapacity);
 
   // Gains are for example purposes only - must be determined for your own
   // robot!
@@ -79,6 +94,8 @@ public class DriveSimulation {
   private final LinearSystem<N2, N2, N2> m_drivetrainSystem = LinearSystemId
       .identifyDrivetrainSystem(1.98, 0.2, 1.5, 0.3);
   private final DifferentialDrivetrainSim m_drivetrainSimulator;
+  private final SimStepper m_stepper;
+  private final DoubleConsumer m_substepFunc;
 
   // Resets both the absolute-encoders AND the relative-encoders
   private void resetAllEncoders() {
@@ -100,9 +117,24 @@ public class DriveSimulation {
     return m_rightEncoderSimWrapper.getDistance();
   }
 
-  /** Subsystem constructor. */
+  /** Subsystem constructor. Every tick advances exactly 20ms. */
   public DriveSimulation(double wheelRadiusMeters) {
+    this(wheelRadiusMeters, new SimStepper());
+  }
+
+  /**
+   * Subsystem constructor.
+   *
+   * @param stepper Decides the elapsed time and sub-steps of each tick
+   */
+  public DriveSimulation(double wheelRadiusMeters, SimStepper stepper) {
+    if (stepper == null) {
+      throw new IllegalArgumentException("stepper cannot be null");
+    }
+
     m_wheelRadius = wheelRadiusMeters;
+    m_stepper = stepper;
+    m_substepFunc = this::updateDrivetrain;
 
     m_drivetrainSimulator = new DifferentialDrivetrainSim(m_drivetrainSystem, DCMotor.getCIM(2), 8,
         kTrackWidth, m_wheelRadius, null);
@@ -139,6 +171,15 @@ public class DriveSimulation {
     m_rightGroup.setVoltage(rightOutput + rightFeedforward);
   }
 
+  /**
+   * Drives each side with a voltage, instead of through the velocity controllers in
+   * setSpeeds(). Positive is forward on both sides.
+   */
+  public void setVoltages(double leftVolts, double rightVolts) {
+    m_leftGroup.setVoltage(leftVolts);
+    m_rightGroup.setVoltage(rightVolts);
+  }
+
   /**
    * Controls the robot using thank drive.
    *
@@ -182,10 +223,11 @@ public class DriveSimulation {
     setSpeeds(m_kinematics.toWheelSpeeds(new ChassisSpeeds(xspeed, 0, rot)));
   }
 
-  /** Update robot odometry. */
+  /** Update robot odometry, and record the pose at the simulated time. */
   public void updateOdometry() {
-    m_odometry
+    Pose2d pose = m_odometry
         .update(m_gyro.getRotation2d(), m_leftEncoder.getDistance(), m_rightEncoder.getDistance());
+    m_poseHistory.add(m_stepper.getSimulatedSeconds(), pose);
   }
 
   private void drawRobotOnField() {
@@ -200,6 +242,7 @@ public class DriveSimulation {
         m_leftEncoder.getDistance(),
         m_rightEncoder.getDistance(),
         pose);
+    m_poseHistory.clear();
 
     // Even if robot is in Disabled state, we want to update the Field view to show
     // where it is initially
@@ -211,6 +254,16 @@ public class DriveSimulation {
     return m_odometry.getPoseMeters();
   }
 
+  // Where the simulated robot actually is, rather than where the odometry thinks it is
+  public Pose2d getSimPose() {
+    return m_drivetrainSimulator.getPose();
+  }
+
+  // Odometry poses by SimStepper simulated time. Cleared when the pose is reset or restored.
+  public PoseHistory getPoseHistory() {
+    return m_poseHistory;
+  }
+
   public double getHeading() {
     return m_gyroSim.getAngle();
   }
@@ -223,6 +276,14 @@ public class DriveSimulation {
     return m_gyro;
   }
 
+  public SimStepper getStepper() {
+    return m_stepper;
+  }
+
+  private void updateDrivetrain(double dtSeconds) {
+    m_drivetrainSimulator.update(dtSeconds);
+  }
+
   /** Update our simulation. This should be run every robot loop in simulation. */
   public void simulationPeriodic() {
     // To update our simulation, we set motor voltage inputs, update the
@@ -231,8 +292,13 @@ public class DriveSimulation {
     // voltages make the right side move forward.
     m_drivetrainSimulator.setInputs(m_leftGroup.get() * RobotController.getInputVoltage(),
         m_rightGroup.get() * RobotController.getInputVoltage());
-    m_drivetrainSimulator.update(0.02);
+    m_stepper.step(m_substepFunc);
 
+    updateSensors();
+  }
+
+  // Writes the simulated positions and velocities to the simulated encoders and gyro
+  private void updateSensors() {
     m_leftEncoderSim.setDistance(m_drivetrainSimulator.getLeftPositionMeters());
     m_leftEncoderSim.setRate(m_drivetrainSimulator.getLeftVelocityMetersPerSecond());
     m_rightEncoderSim.setDistance(m_drivetrainSimulator.getRightPositionMeters());
@@ -245,4 +311,49 @@ public class DriveSimulation {
     updateOdometry();
     drawRobotOnField();
   }
+
+  // Saves the drivetrain plant (x, y, heading, wheel velocities and positions), the odometry
+  // pose and the relative encoder offsets. Encoders and gyro are rebuilt from the plant.
+  @Override
+  public int getSnapshotSizeBytes() {
+    return (kNumDrivetrainStates + 5) * Double.BYTES;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    Matrix<N7, N1> state = m_drivetrainSimulator.getState();
+    for (int i = 0; i < kNumDrivetrainStates; i++) {
+      buffer.putDouble(state.get(i, 0));
+    }
+
+    Pose2d pose = m_odometry.getPoseMeters();
+    buffer.putDouble(pose.getX());
+    buffer.putDouble(pose.getY());
+    buffer.putDouble(pose.getRotation().getRadians());
+    buffer.putDouble(m_leftEncoderSimWrapper.getOffset());
+    buffer.putDouble(m_rightEncoderSimWrapper.getOffset());
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    Matrix<N7, N1> state = new Matrix<>(Nat.N7(), Nat.N1());
+    for (int i = 0; i < kNumDrivetrainStates; i++) {
+      state.set(i, 0, buffer.getDouble());
+    }
+
+    m_drivetrainSimulator.setState(state);
+    updateSensors();
+
+    Pose2d pose = new Pose2d(buffer.getDouble(), buffer.getDouble(),
+        new Rotation2d(buffer.getDouble()));
+    m_odometry.resetPosition(m_gyro.getRotation2d(),
+        m_leftEncoder.getDistance(),
+        m_rightEncoder.getDistance(),
+        pose);
+    m_poseHistory.clear();
+
+    m_leftEncoderSimWrapper.setOffset(buffer.getDouble());
+    m_rightEncoderSimWrapper.setOffset(buffer.getDouble());
+    drawRobotOnField();
+  }
 }
@@ -1,6 +1,8 @@
 package frc.robot.simulation;
 
+import frc.robot.simulation.framework.SimSnapshotInterface;
 import frc.robot.subsystems.RelativeEncoderSim;
+import java.nio.ByteBuffer;
 
 /**
  * This class represents a simulation of an extender.
@@ -9,7 +11,7 @@ import frc.robot.subsystems.RelativeEncoderSim;
  * total extender length, the current extended length, and whether the extender is broken or not.
  * </p>
  */
-public class ExtenderSimulation {
+public class ExtenderSimulation implements SimSnapshotInterface {
   private RelativeEncoderSim m_motorEncoderSim;
   private double m_totalExtenderLengthMeters = 0.5;
   private double m_minExtendLength = 0;
@@ -114,4 +116,23 @@ public class ExtenderSimulation {
   public void simulationPeriodic() {
     updateNewExtendedLen();
   }
+
+  @Override
+  public int getSnapshotSizeBytes() {
+    return 2 * Double.BYTES + 1;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_currentExtendedLen);
+    buffer.putDouble(m_initialMotorRotations);
+    buffer.put((byte) (m_isBroken ? 1 : 0));
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_currentExtendedLen = buffer.getDouble();
+    m_initialMotorRotations = buffer.getDouble();
+    m_isBroken = buffer.get() != 0;
+  }
 }
@@ -20,6 +20,15 @@ public class RelEncoderWrapper {
     m_offset = m_encoderSim.getDistance();
   }
 
+  // Offset is only exposed so DriveSimulation can save and restore it
+  double getOffset() {
+    return m_offset;
+  }
+
+  void setOffset(double offset) {
+    m_offset = offset;
+  }
+
   public double getDistance() {
     // We return the distance that the SIMULATED bot thinks it moved on the field, in METERS
     return m_encoderSim.getDistance() - m_offset;
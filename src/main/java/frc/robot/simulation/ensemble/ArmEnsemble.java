@@ -0,0 +1,285 @@
+package frc.robot.simulation.ensemble;
+
+import frc.robot.simulation.ArmSimulation;
+import frc.robot.simulation.ArmSimulationParams;
+import frc.robot.simulation.CalcArmAngleHelper;
+import frc.robot.simulation.UnitConversions;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo runner for the winch and arm. Steps thousands of winch + arm instances in
+ * lock-step, each with its own sampled parameters and sensor noise, and reports how often
+ * they break and where the arm ends up.
+ *
+ * <p>
+ * State is kept as one double[] (or boolean[]) per field, rather than one WinchSimModel and
+ * ArmSimulation per instance, so the inner loop is a tight walk over arrays. Instances are
+ * split into fixed-size chunks, and chunks run in parallel on all cores. Each chunk has its
+ * own seeded random generator, so results don't depend on how chunks get scheduled.
+ * </p>
+ *
+ * <p>
+ * The per-instance math is the same as WinchSimModel.updateNewLenSpooled() and
+ * ArmSimulation.simulationPeriodic(), and doesn't touch the HAL.
+ * </p>
+ */
+public class ArmEnsemble {
+  public static final int kChunkSize = 512;
+  public static final double kTickSeconds = 0.02;
+
+  private final int m_numInstances;
+
+  // Sampled parameters
+  private final double[] m_spoolDiameterMeters;
+  private final double[] m_topSignedDegreesLimit;
+  private final double[] m_bottomSignedDegreesLimit;
+  private final double[] m_grabberSignedDegreesLimit;
+
+  // Winch state
+  private final double[] m_initialMotorRotations;
+  private final double[] m_currentLenSpooled;
+  private final boolean[] m_isWinchBroken;
+
+  // Arm state
+  private final double[] m_currentSignedDegrees;
+  private final boolean[] m_isArmBroken;
+  private final int[] m_breakTick;
+
+  /**
+   * Constructor.
+   *
+   * @param numInstances How many instances to run for every scenario
+   */
+  public ArmEnsemble(int numInstances) {
+    if (numInstances < 1) {
+      throw new IllegalArgumentException("numInstances must be >=1");
+    }
+
+    m_numInstances = numInstances;
+    m_spoolDiameterMeters = new double[numInstances];
+    m_topSignedDegreesLimit = new double[numInstances];
+    m_bottomSignedDegreesLimit = new double[numInstances];
+    m_grabberSignedDegreesLimit = new double[numInstances];
+    m_initialMotorRotations = new double[numInstances];
+    m_currentLenSpooled = new double[numInstances];
+    m_isWinchBroken = new boolean[numInstances];
+    m_currentSignedDegrees = new double[numInstances];
+    m_isArmBroken = new boolean[numInstances];
+    m_breakTick = new int[numInstances];
+  }
+
+  public int getNumInstances() {
+    return m_numInstances;
+  }
+
+  /**
+   * Runs every scenario, one after another (each scenario uses all cores).
+   */
+  public List<ArmEnsembleResult> runAll(List<ArmEnsembleScenario> scenarios) {
+    List<ArmEnsembleResult> results = new ArrayList<>();
+    for (ArmEnsembleScenario scenario : scenarios) {
+      results.add(run(scenario));
+    }
+
+    return results;
+  }
+
+  /**
+   * Runs one scenario on every instance.
+   */
+  public ArmEnsembleResult run(ArmEnsembleScenario scenario) {
+    if (scenario == null) {
+      throw new IllegalArgumentException("scenario cannot be null");
+    }
+
+    if (scenario.m_winchRotationsByTick == null) {
+      throw new IllegalArgumentException("scenario.m_winchRotationsByTick cannot be null");
+    }
+
+    int numChunks = (m_numInstances + kChunkSize - 1) / kChunkSize;
+    IntStream.range(0, numChunks).parallel().forEach(chunk -> runChunk(scenario, chunk));
+
+    return summarize(scenario);
+  }
+
+  private void runChunk(ArmEnsembleScenario scenario, int chunk) {
+    int start = chunk * kChunkSize;
+    int end = Math.min(m_numInstances, start + kChunkSize);
+    Random random = new Random(scenario.m_seed * 0x9E3779B97F4A7C15L + chunk);
+
+    ArmSimulationParams armParams = scenario.m_armParams;
+    CalcArmAngleHelper calcArmAngleHelper = new CalcArmAngleHelper(
+        armParams.m_heightFromWinchToPivotPoint, armParams.m_armLengthFromEdgeToPivot);
+    double totalLen = scenario.m_totalStringLenMeters;
+    double polarity = scenario.m_invertMotor ? -1 : 1;
+    double initialLenSpooled =
+        (scenario.m_initialWindingOrientation == WindingOrientation.BackOfRobot)
+            ? -1 * scenario.m_initialLenSpooled
+            : scenario.m_initialLenSpooled;
+
+    for (int i = start; i < end; i++) {
+      sampleInstance(scenario, random, i);
+      m_currentLenSpooled[i] = initialLenSpooled;
+
+      // Same as ArmSimulation's constructor, the arm is set once before the first tick
+      double unspooledLen = totalLen - Math.abs(initialLenSpooled);
+      stepArm(i, unspooledLen, false, false, calcArmAngleHelper);
+    }
+
+    double[] rotationsByTick = scenario.m_winchRotationsByTick;
+    boolean[] grabberOpenByTick = scenario.m_grabberOpenByTick;
+    double noiseStdDev = scenario.m_rotationsNoiseStdDev;
+
+    for (int tick = 0; tick < rotationsByTick.length; tick++) {
+      boolean isGrabberOpen = grabberOpenByTick != null && grabberOpenByTick[tick];
+
+      for (int i = start; i < end; i++) {
+        double rotations = rotationsByTick[tick];
+        if (noiseStdDev > 0) {
+          rotations += random.nextGaussian() * noiseStdDev;
+        }
+
+        boolean wasBroken = m_isWinchBroken[i] || m_isArmBroken[i];
+
+        // Winch: same as WinchSimModel.updateNewLenSpooled()
+        if (!m_isWinchBroken[i]) {
+          double rotationsWithPolarity = rotations * polarity;
+          if (tick == 0) {
+            m_initialMotorRotations[i] = rotationsWithPolarity;
+          }
+
+          double deltaRotations = rotationsWithPolarity - m_initialMotorRotations[i];
+          double newLenSpooled = initialLenSpooled
+              + deltaRotations * (Math.PI * m_spoolDiameterMeters[i]);
+
+          if (newLenSpooled > totalLen) {
+            newLenSpooled = totalLen;
+            m_isWinchBroken[i] = true;
+          }
+          else if (newLenSpooled < -1 * totalLen) {
+            newLenSpooled = -1 * totalLen;
+            m_isWinchBroken[i] = true;
+          }
+
+          m_currentLenSpooled[i] = newLenSpooled;
+        }
+
+        double unspooledLen = totalLen - Math.abs(m_currentLenSpooled[i]);
+        stepArm(i, unspooledLen, isGrabberOpen, true, calcArmAngleHelper);
+
+        if (!wasBroken && (m_isWinchBroken[i] || m_isArmBroken[i])) {
+          m_breakTick[i] = tick;
+        }
+      }
+    }
+  }
+
+  private void sampleInstance(ArmEnsembleScenario scenario, Random random, int i) {
+    ArmSimulationParams armParams = scenario.m_armParams;
+
+    m_spoolDiameterMeters[i] = Math.max(1e-6, scenario.m_spoolDiameterMeters
+        + random.nextGaussian() * scenario.m_spoolDiameterStdDev);
+    double deltaRotations = Math.max(0, armParams.m_deltaRotationsBeforeBroken
+        + random.nextGaussian() * scenario.m_deltaRotationsBeforeBrokenStdDev);
+    double offset = armParams.m_encoderRotationsOffset
+        + random.nextGaussian() * scenario.m_encoderRotationsOffsetStdDev;
+    offset = offset - Math.floor(offset);
+
+    // Same limits as ArmSimulation's constructor
+    m_topSignedDegreesLimit[i] = ArmSimulation.toNonOffsetSignedDegrees(
+        armParams.m_topRotationsLimit + deltaRotations, offset);
+    m_bottomSignedDegreesLimit[i] = ArmSimulation.toNonOffsetSignedDegrees(
+        armParams.m_bottomRotationsLimit - deltaRotations, offset);
+    m_grabberSignedDegreesLimit[i] = ArmSimulation.toNonOffsetSignedDegrees(
+        armParams.m_grabberBreaksIfOpenBelowThisLimit, offset);
+
+    m_initialMotorRotations[i] = 0;
+    m_isWinchBroken[i] = false;
+    m_isArmBroken[i] = false;
+    m_currentSignedDegrees[i] = 0;
+    m_breakTick[i] = -1;
+  }
+
+  // Same as ArmSimulation.updateAbsoluteEncoderPosition(), for instance i
+  private void stepArm(int i, double stringLen, boolean isGrabberOpen,
+      boolean isCurrentSignedDegreesSet, CalcArmAngleHelper calcArmAngleHelper) {
+
+    if (m_isArmBroken[i]) {
+      return;
+    }
+
+    double newSignedDegrees = calcArmAngleHelper.calcSignedDegrees(stringLen);
+
+    if (Double.isNaN(newSignedDegrees)) {
+      newSignedDegrees = 90;
+      m_isArmBroken[i] = true;
+    }
+
+    double grabberLimit = m_grabberSignedDegreesLimit[i];
+    if (isGrabberOpen && isCurrentSignedDegreesSet
+        && UnitConversions.lessThanButNotEqualDouble(newSignedDegrees, grabberLimit)) {
+
+      if (!UnitConversions.lessThanButNotEqualDouble(m_currentSignedDegrees[i], grabberLimit)) {
+        newSignedDegrees = grabberLimit;
+      }
+      else {
+        m_isArmBroken[i] = true;
+        newSignedDegrees = m_currentSignedDegrees[i];
+      }
+    }
+
+    if (newSignedDegrees > m_topSignedDegreesLimit[i]) {
+      newSignedDegrees = m_topSignedDegreesLimit[i];
+      m_isArmBroken[i] = true;
+    }
+
+    if (newSignedDegrees < m_bottomSignedDegreesLimit[i]) {
+      newSignedDegrees = m_bottomSignedDegreesLimit[i];
+      m_isArmBroken[i] = true;
+    }
+
+    m_currentSignedDegrees[i] = newSignedDegrees;
+  }
+
+  private ArmEnsembleResult summarize(ArmEnsembleScenario scenario) {
+    int numBroken = 0;
+    int numWinchBroken = 0;
+    int numArmBroken = 0;
+    double totalBreakSeconds = 0;
+
+    for (int i = 0; i < m_numInstances; i++) {
+      if (m_isWinchBroken[i]) {
+        numWinchBroken++;
+      }
+
+      if (m_isArmBroken[i]) {
+        numArmBroken++;
+      }
+
+      if (m_isWinchBroken[i] || m_isArmBroken[i]) {
+        numBroken++;
+        totalBreakSeconds += (m_breakTick[i] + 1) * kTickSeconds;
+      }
+    }
+
+    double[] sortedFinalDegrees = Arrays.copyOf(m_currentSignedDegrees, m_numInstances);
+    Arrays.sort(sortedFinalDegrees);
+
+    double meanBreakSeconds = (numBroken > 0) ? totalBreakSeconds / numBroken : Double.NaN;
+    return new ArmEnsembleResult(scenario.m_name, numBroken, numWinchBroken, numArmBroken,
+        meanBreakSeconds, sortedFinalDegrees);
+  }
+
+  public double getFinalSignedDegrees(int instance) {
+    return m_currentSignedDegrees[instance];
+  }
+
+  public boolean getIsBroken(int instance) {
+    return m_isWinchBroken[instance] || m_isArmBroken[instance];
+  }
+}
@@ -0,0 +1,95 @@
+package frc.robot.simulation.ensemble;
+
+/**
+ * Results of running one ArmEnsembleScenario.
+ */
+public class ArmEnsembleResult {
+  public static final double kAngleBinDegrees = 1.0;
+  public static final double kMinAngleDegrees = -90.0;
+  public static final int kNumAngleBins = 180;
+
+  private final String m_name;
+  private final int m_numInstances;
+  private final int m_numBroken;
+  private final int m_numWinchBroken;
+  private final int m_numArmBroken;
+  private final double m_meanBreakSeconds;
+  private final double[] m_sortedFinalDegrees;
+  private final int[] m_finalAngleHistogram = new int[kNumAngleBins];
+
+  /**
+   * Constructor.
+   *
+   * @param sortedFinalDegrees Final signed degrees of every instance, sorted ascending
+   */
+  public ArmEnsembleResult(String name,
+      int numBroken,
+      int numWinchBroken,
+      int numArmBroken,
+      double meanBreakSeconds,
+      double[] sortedFinalDegrees) {
+
+    m_name = name;
+    m_numInstances = sortedFinalDegrees.length;
+    m_numBroken = numBroken;
+    m_numWinchBroken = numWinchBroken;
+    m_numArmBroken = numArmBroken;
+    m_meanBreakSeconds = meanBreakSeconds;
+    m_sortedFinalDegrees = sortedFinalDegrees;
+
+    for (double degrees : sortedFinalDegrees) {
+      int bin = (int) Math.floor((degrees - kMinAngleDegrees) / kAngleBinDegrees);
+      m_finalAngleHistogram[Math.max(0, Math.min(kNumAngleBins - 1, bin))]++;
+    }
+  }
+
+  public String getName() {
+    return m_name;
+  }
+
+  public int getNumInstances() {
+    return m_numInstances;
+  }
+
+  // Winch or arm broke
+  public double getBreakProbability() {
+    return (double) m_numBroken / m_numInstances;
+  }
+
+  public double getWinchBreakProbability() {
+    return (double) m_numWinchBroken / m_numInstances;
+  }
+
+  public double getArmBreakProbability() {
+    return (double) m_numArmBroken / m_numInstances;
+  }
+
+  // Average time of the first break, over instances that broke. NaN if none broke.
+  public double getMeanBreakSeconds() {
+    return m_meanBreakSeconds;
+  }
+
+  /**
+   * Returns the final arm angle (signed degrees) that percentile (0 to 100) of instances were
+   * at or below.
+   */
+  public double getFinalAnglePercentile(double percentile) {
+    int index = (int) Math.ceil(m_numInstances * percentile / 100.0) - 1;
+    return m_sortedFinalDegrees[Math.max(0, Math.min(m_numInstances - 1, index))];
+  }
+
+  /**
+   * Returns how many instances ended with an arm angle in each 1 degree bin, starting at -90.
+   */
+  public int[] getFinalAngleHistogram() {
+    return m_finalAngleHistogram.clone();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: P(break)=%.4f (winch %.4f, arm %.4f), "
+        + "final angle p5/p50/p95=%.1f/%.1f/%.1f deg",
+        m_name, getBreakProbability(), getWinchBreakProbability(), getArmBreakProbability(),
+        getFinalAnglePercentile(5), getFinalAnglePercentile(50), getFinalAnglePercentile(95));
+  }
+}
@@ -0,0 +1,62 @@
+package frc.robot.simulation.ensemble;
+
+import frc.robot.simulation.ArmSimulationParams;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+
+/**
+ * One scenario for ArmEnsemble: the nominal arm and winch, how uncertain each parameter is,
+ * and the winch motor trajectory to drive every instance with.
+ *
+ * <p>
+ * Uncertain parameters are sampled once per instance from a normal distribution with the
+ * given standard deviation (0 means no uncertainty). Sensor noise is added to the winch motor
+ * encoder rotations on every tick.
+ * </p>
+ */
+public class ArmEnsembleScenario {
+  public String m_name;
+  public ArmSimulationParams m_armParams;
+
+  // Winch
+  public double m_spoolDiameterMeters;
+  public double m_totalStringLenMeters;
+  public double m_initialLenSpooled;
+  public WindingOrientation m_initialWindingOrientation = WindingOrientation.BackOfRobot;
+  public boolean m_invertMotor;
+
+  // Uncertainty (standard deviations)
+  public double m_spoolDiameterStdDev;
+  public double m_deltaRotationsBeforeBrokenStdDev;
+  public double m_encoderRotationsOffsetStdDev;
+  public double m_rotationsNoiseStdDev;
+
+  // Inputs, one entry per 20ms tick. A null grabber trajectory means always closed.
+  public double[] m_winchRotationsByTick;
+  public boolean[] m_grabberOpenByTick;
+
+  public long m_seed = 1;
+
+  /**
+   * Constructor.
+   */
+  public ArmEnsembleScenario(String name,
+      ArmSimulationParams armParams,
+      double spoolDiameterMeters,
+      double totalStringLenMeters,
+      double initialLenSpooled,
+      boolean invertMotor,
+      double[] winchRotationsByTick) {
+
+    m_name = name;
+    m_armParams = new ArmSimulationParams(armParams);
+    m_spoolDiameterMeters = spoolDiameterMeters;
+    m_totalStringLenMeters = totalStringLenMeters;
+    m_initialLenSpooled = initialLenSpooled;
+    m_invertMotor = invertMotor;
+    m_winchRotationsByTick = winchRotationsByTick;
+  }
+
+  public int getNumTicks() {
+    return m_winchRotationsByTick.length;
+  }
+}
@@ -0,0 +1,9 @@
+package frc.robot.simulation.framework;
+
+/**
+ * A mutable state object that can be overwritten in place from another instance of the
+ * same type. This lets simulation outputs be reused instead of allocated every tick.
+ */
+public interface CopyableState<T> {
+  void copyFrom(T other);
+}
@@ -0,0 +1,96 @@
+package frc.robot.simulation.framework;
+
+import java.lang.invoke.VarHandle;
+import java.util.function.Supplier;
+
+/**
+ * Two preallocated instances of a state object, swapped on every publish. The simulation
+ * thread fills the back buffer in place and then publishes it. Other threads call read() to
+ * get a consistent copy of the latest published state without ever taking a lock, and without
+ * ever seeing a half-written state.
+ *
+ * <p>
+ * Only one thread may write (beginWrite/publish). Any number of threads may read.
+ * </p>
+ */
+public class DoubleBufferedState<T extends CopyableState<T>> {
+  private final Object[] m_buffers = new Object[2];
+
+  // Even/odd selects the front buffer. Incremented on every publish.
+  private volatile long m_version = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param factory Creates each of the two buffers
+   */
+  public DoubleBufferedState(Supplier<T> factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("factory cannot be null");
+    }
+
+    m_buffers[0] = factory.get();
+    m_buffers[1] = factory.get();
+
+    if (m_buffers[0] == null || m_buffers[1] == null || m_buffers[0] == m_buffers[1]) {
+      throw new IllegalArgumentException("factory must return a new instance each call");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T getBuffer(long version) {
+    return (T) m_buffers[(int) (version & 1)];
+  }
+
+  /**
+   * Returns the back buffer, to be filled in place by the writer. The back buffer still holds
+   * the state from two publishes ago, so the writer must set every field.
+   */
+  public T beginWrite() {
+    T result = getBuffer(m_version + 1);
+
+    // Keep the writes to the back buffer from being reordered ahead of the last publish
+    VarHandle.storeStoreFence();
+    return result;
+  }
+
+  /**
+   * Makes the buffer returned by beginWrite() the new front buffer.
+   */
+  public void publish() {
+    m_version = m_version + 1;
+  }
+
+  /**
+   * Returns the most recently published buffer. This is only safe on the writer thread, since
+   * the next beginWrite() may overwrite it.
+   */
+  public T getPublished() {
+    return getBuffer(m_version);
+  }
+
+  public long getVersion() {
+    return m_version;
+  }
+
+  /**
+   * Copies the most recently published state into target. Safe from any thread. If the writer
+   * publishes during the copy, the copy is retried.
+   */
+  public void read(T target) {
+    if (target == null) {
+      throw new IllegalArgumentException("target cannot be null");
+    }
+
+    while (true) {
+      long version = m_version;
+      target.copyFrom(getBuffer(version));
+
+      // Keep the reads of the buffer from being reordered after the version check
+      VarHandle.acquireFence();
+      if (m_version == version) {
+        return;
+      }
+    }
+  }
+}
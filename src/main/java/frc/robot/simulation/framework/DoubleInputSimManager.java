@@ -0,0 +1,66 @@
+package frc.robot.simulation.framework;
+
+import java.util.function.Supplier;
+
+/**
+ * Simulation manager for devices that take a single double as input, but output a state
+ * object (e.g. WinchState). The output is filled in place into a DoubleBufferedState, so a
+ * tick doesn't allocate, and other threads can read the output without tearing.
+ */
+public abstract class DoubleInputSimManager<OutputT extends CopyableState<OutputT>>
+    extends SimManagerCore {
+
+  private final DoubleBufferedState<OutputT> m_outputState;
+  private DoubleSimInput m_inputHandler = null;
+  private SimOutputInterface<OutputT> m_outputHandler = null;
+
+  /**
+   * Constructor.
+   *
+   * @param outputFactory Creates the (two) output state objects that are reused every tick
+   */
+  public DoubleInputSimManager(Supplier<OutputT> outputFactory) {
+    m_outputState = new DoubleBufferedState<>(outputFactory);
+  }
+
+  public final void setInputHandler(DoubleSimInput inputHandler) {
+    m_inputHandler = inputHandler;
+    tryInitializeOutput();
+  }
+
+  public final void setOutputHandler(SimOutputInterface<OutputT> outputHandler) {
+    m_outputHandler = outputHandler;
+    tryInitializeOutput();
+  }
+
+  /**
+   * Copies the latest output into target. Safe to call from any thread.
+   */
+  public final void readOutput(OutputT target) {
+    m_outputState.read(target);
+  }
+
+  // Must be implemented by derived class. Must set every field of output, since the
+  // object is reused.
+  protected abstract void doSimulation(double input, OutputT output);
+
+  @Override
+  protected final boolean areHandlersSet() {
+    return m_inputHandler != null && m_outputHandler != null;
+  }
+
+  @Override
+  protected final void doSimulationStep() {
+    long startNanos = stageTimestamp();
+    double input = m_inputHandler.getInput();
+
+    long inputDoneNanos = stageTimestamp();
+    OutputT output = m_outputState.beginWrite();
+    doSimulation(input, output);
+    m_outputState.publish();
+
+    long simDoneNanos = stageTimestamp();
+    m_outputHandler.setOutput(output);
+    recordStageTimes(startNanos, inputDoneNanos, simDoneNanos);
+  }
+}
@@ -0,0 +1,8 @@
+package frc.robot.simulation.framework;
+
+/**
+ * Same as SimInputInterface, but for a primitive double so nothing is boxed each tick.
+ */
+public interface DoubleSimInput {
+  double getInput();
+}
@@ -0,0 +1,48 @@
+package frc.robot.simulation.framework;
+
+/**
+ * Simulation manager for devices whose input and output are both a single double (e.g. motor
+ * power in, encoder rotations out). Unlike SimManagerBase, nothing is boxed, so a tick
+ * doesn't allocate.
+ */
+public abstract class DoubleSimManager extends SimManagerCore {
+  private DoubleSimInput m_inputHandler = null;
+  private DoubleSimOutput m_outputHandler = null;
+
+  /**
+   * Constructor.
+   */
+  public DoubleSimManager() {
+  }
+
+  public final void setInputHandler(DoubleSimInput inputHandler) {
+    m_inputHandler = inputHandler;
+    tryInitializeOutput();
+  }
+
+  public final void setOutputHandler(DoubleSimOutput outputHandler) {
+    m_outputHandler = outputHandler;
+    tryInitializeOutput();
+  }
+
+  // Must be implemented by derived class
+  protected abstract double doSimulation(double input);
+
+  @Override
+  protected final boolean areHandlersSet() {
+    return m_inputHandler != null && m_outputHandler != null;
+  }
+
+  @Override
+  protected final void doSimulationStep() {
+    long startNanos = stageTimestamp();
+    double input = m_inputHandler.getInput();
+
+    long inputDoneNanos = stageTimestamp();
+    double result = doSimulation(input);
+
+    long simDoneNanos = stageTimestamp();
+    m_outputHandler.setOutput(result);
+    recordStageTimes(startNanos, inputDoneNanos, simDoneNanos);
+  }
+}
@@ -0,0 +1,8 @@
+package frc.robot.simulation.framework;
+
+/**
+ * Same as SimOutputInterface, but for a primitive double so nothing is boxed each tick.
+ */
+public interface DoubleSimOutput {
+  void setOutput(double output);
+}
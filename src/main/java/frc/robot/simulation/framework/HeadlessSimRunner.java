@@ -0,0 +1,212 @@
+package frc.robot.simulation.framework;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs simulation stages back-to-back on a simulated clock, as fast as the CPU allows. This
+ * is used to run the simulation without the 20ms TimedRobot loop, e.g. from unit tests or
+ * tuning sweeps.
+ *
+ * <p>
+ * Stages are run in the order they were added, once per step. SimManagers added through
+ * addManager() follow the runner's own "enabled" flag instead of RobotState.isEnabled().
+ * Other simulations (ArmSimulation, DriveSimulation, etc) are added as plain stages:
+ * </p>
+ *
+ * <pre>
+ * HeadlessSimRunner runner = new HeadlessSimRunner();
+ * runner.addManager("Winch motor", winchMotorSimManager);
+ * runner.addManager("Winch", winchSimManager);
+ * runner.addStage("Arm", armSimulation::simulationPeriodic);
+ * runner.addStage("Drive", () -&gt; {
+ *   driveSimulation.simulationPeriodic();
+ *   driveSimulation.periodic();
+ * });
+ * runner.runFor(15.0);
+ * </pre>
+ */
+public class HeadlessSimRunner {
+  public static final double kDefaultPeriodSeconds = 0.02;
+
+  private final double m_periodSeconds;
+  private final List<String> m_stageNames = new ArrayList<>();
+  private final List<Runnable> m_stages = new ArrayList<>();
+  private Runnable[] m_stageArray = new Runnable[0];
+  private boolean m_isEnabled = true;
+  private boolean m_isHalTimingLocked = false;
+  private long m_stepCount = 0;
+  private long m_wallNanos = 0;
+
+  /**
+   * Constructor. Uses the same 20ms period as TimedRobot.
+   */
+  public HeadlessSimRunner() {
+    this(kDefaultPeriodSeconds);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param periodSeconds How much simulated time passes on every step
+   */
+  public HeadlessSimRunner(double periodSeconds) {
+    if (periodSeconds <= 0) {
+      throw new IllegalArgumentException("periodSeconds must be >0");
+    }
+
+    m_periodSeconds = periodSeconds;
+  }
+
+  /**
+   * Adds a SimManager as the next stage. The manager is switched over to follow this runner's
+   * enabled flag.
+   */
+  public void addManager(String name, SimPeriodicInterface manager) {
+    if (manager == null) {
+      throw new IllegalArgumentException("manager cannot be null");
+    }
+
+    manager.setEnabledSupplier(this::isEnabled);
+    addStage(name, manager::simulationPeriodic);
+  }
+
+  /**
+   * Adds any periodic simulation step as the next stage.
+   */
+  public void addStage(String name, Runnable stage) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (stage == null) {
+      throw new IllegalArgumentException("stage cannot be null");
+    }
+
+    m_stageNames.add(name);
+    m_stages.add(stage);
+    m_stageArray = m_stages.toArray(new Runnable[0]);
+  }
+
+  public List<String> getStageNames() {
+    return List.copyOf(m_stageNames);
+  }
+
+  public boolean isEnabled() {
+    return m_isEnabled;
+  }
+
+  /**
+   * Explicit replacement for RobotState.isEnabled(). When disabled, the simulated clock still
+   * advances, but none of the stages run (the simulation freezes, same as on the robot).
+   */
+  public void setEnabled(boolean isEnabled) {
+    m_isEnabled = isEnabled;
+  }
+
+  /**
+   * When locked, the HAL clock is paused and only moves forward when this runner steps. That
+   * keeps anything based on Timer (e.g. WaitCommand) in sync with the simulated clock.
+   */
+  public void setHalTimingLocked(boolean isLocked) {
+    if (isLocked == m_isHalTimingLocked) {
+      return;
+    }
+
+    if (isLocked) {
+      SimHooks.pauseTiming();
+    }
+    else {
+      SimHooks.resumeTiming();
+    }
+
+    m_isHalTimingLocked = isLocked;
+  }
+
+  public double getPeriodSeconds() {
+    return m_periodSeconds;
+  }
+
+  public long getStepCount() {
+    return m_stepCount;
+  }
+
+  public double getSimTimeSeconds() {
+    return m_stepCount * m_periodSeconds;
+  }
+
+  public double getWallSeconds() {
+    return m_wallNanos / 1e9;
+  }
+
+  /**
+   * Returns how many seconds of simulated time were run per second of wall-clock time.
+   * E.g. 300 means a 15 second autonomous took 50ms to simulate.
+   */
+  public double getSimSecondsPerWallSecond() {
+    if (m_wallNanos == 0) {
+      return 0;
+    }
+
+    return getSimTimeSeconds() / getWallSeconds();
+  }
+
+  /**
+   * Runs a single step of every stage, and advances the simulated clock by one period.
+   */
+  public void step() {
+    long startNanos = System.nanoTime();
+    stepInternal();
+    m_wallNanos += System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Runs as many steps as needed to advance the simulated clock by simSeconds.
+   */
+  public void runFor(double simSeconds) {
+    long numSteps = Math.round(simSeconds / m_periodSeconds);
+    long startNanos = System.nanoTime();
+
+    for (long i = 0; i < numSteps; i++) {
+      stepInternal();
+    }
+
+    m_wallNanos += System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Runs steps until the condition becomes true, or maxSimSeconds have passed.
+   *
+   * @return true if the condition became true
+   */
+  public boolean runUntil(BooleanSupplier condition, double maxSimSeconds) {
+    long maxSteps = Math.round(maxSimSeconds / m_periodSeconds);
+    boolean result = condition.getAsBoolean();
+    long startNanos = System.nanoTime();
+
+    for (long i = 0; i < maxSteps && !result; i++) {
+      stepInternal();
+      result = condition.getAsBoolean();
+    }
+
+    m_wallNanos += System.nanoTime() - startNanos;
+    return result;
+  }
+
+  private void stepInternal() {
+    if (m_isHalTimingLocked) {
+      SimHooks.stepTiming(m_periodSeconds);
+    }
+
+    if (m_isEnabled) {
+      Runnable[] stages = m_stageArray;
+      for (int i = 0; i < stages.length; i++) {
+        stages[i].run();
+      }
+    }
+
+    m_stepCount++;
+  }
+}
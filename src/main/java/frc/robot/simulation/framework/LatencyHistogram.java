@@ -0,0 +1,102 @@
+package frc.robot.simulation.framework;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds. Recording is lock-free and doesn't allocate, so it
+ * is safe to call from the robot loop, and from several threads at once.
+ *
+ * <p>
+ * Buckets are log-linear: each power of two is split into 8 buckets, so a percentile is
+ * accurate to within 12.5%. Values below 16ns get a bucket each.
+ * </p>
+ */
+public class LatencyHistogram {
+  private static final int kSubBucketBits = 3;
+  private static final int kSubBuckets = 1 << kSubBucketBits;
+  private static final int kLinearLimit = 2 * kSubBuckets;
+  private static final int kNumBuckets = kLinearLimit + (63 - kSubBucketBits - 1) * kSubBuckets;
+
+  private final AtomicLongArray m_counts = new AtomicLongArray(kNumBuckets);
+  private final AtomicLong m_totalCount = new AtomicLong();
+  private final AtomicLong m_maxNanos = new AtomicLong();
+
+  private static int getBucketIndex(long nanos) {
+    if (nanos < kLinearLimit) {
+      return (int) Math.max(0, nanos);
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (exponent - kSubBucketBits)) & (kSubBuckets - 1);
+    return kLinearLimit + (exponent - kSubBucketBits - 1) * kSubBuckets + subBucket;
+  }
+
+  // Largest value that falls in the bucket
+  private static long getBucketUpperNanos(int index) {
+    if (index < kLinearLimit) {
+      return index;
+    }
+
+    int exponent = (index - kLinearLimit) / kSubBuckets + kSubBucketBits + 1;
+    int subBucket = (index - kLinearLimit) % kSubBuckets;
+    long lower = (1L << exponent) + ((long) subBucket << (exponent - kSubBucketBits));
+    return lower + (1L << (exponent - kSubBucketBits)) - 1;
+  }
+
+  /**
+   * Records one duration.
+   */
+  public void record(long nanos) {
+    m_counts.incrementAndGet(getBucketIndex(nanos));
+    m_totalCount.incrementAndGet();
+
+    long currentMax = m_maxNanos.get();
+    while (nanos > currentMax && !m_maxNanos.compareAndSet(currentMax, nanos)) {
+      currentMax = m_maxNanos.get();
+    }
+  }
+
+  public long getCount() {
+    return m_totalCount.get();
+  }
+
+  public long getMaxNanos() {
+    return m_maxNanos.get();
+  }
+
+  /**
+   * Returns the duration that percentile (0 to 100) of recordings were at or below.
+   * The result is the upper bound of the bucket, capped at the max.
+   */
+  public long getPercentileNanos(double percentile) {
+    long totalCount = m_totalCount.get();
+    if (totalCount == 0) {
+      return 0;
+    }
+
+    long targetCount = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+    long runningCount = 0;
+
+    for (int i = 0; i < kNumBuckets; i++) {
+      runningCount += m_counts.get(i);
+      if (runningCount >= targetCount) {
+        return Math.min(getBucketUpperNanos(i), getMaxNanos());
+      }
+    }
+
+    return getMaxNanos();
+  }
+
+  /**
+   * Clears all recordings. Recordings that race with reset() may be partially kept.
+   */
+  public void reset() {
+    for (int i = 0; i < kNumBuckets; i++) {
+      m_counts.set(i, 0);
+    }
+
+    m_totalCount.set(0);
+    m_maxNanos.set(0);
+  }
+}
@@ -0,0 +1,399 @@
+package frc.robot.simulation.framework;
+
+import edu.wpi.first.wpilibj.RobotState;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Steps simulation nodes in dependency order. Each node declares which nodes it reads from
+ * (its upstream nodes), and the graph makes sure upstream nodes always run first in the same
+ * tick. Otherwise, a node that runs before its upstream node sees last tick's value, which
+ * silently adds 20ms of latency.
+ *
+ * <p>
+ * The order is computed once (on the first tick after nodes were added), so a tick is just a
+ * walk over an array. Cycles are reported with an IllegalStateException.
+ * </p>
+ *
+ * <p>
+ * Optionally (setThreadCount), chains of nodes that don't depend on each other at all
+ * (e.g. the drivetrain and the arm) are stepped in parallel on a small fork-join pool, and
+ * the tick waits for all of them to finish. Since each chain still runs in the same order on
+ * one thread, the results are identical to stepping serially. Any state shared between two
+ * chains must be declared as a dependency, which puts them in the same chain.
+ * </p>
+ */
+public class SimGraph implements SimPeriodicInterface, AutoCloseable {
+  private static class Node {
+    private final String m_name;
+    private final Runnable m_step;
+    private final List<Node> m_upstream = new ArrayList<>();
+    private final int m_index;
+    private long m_lastNanos = 0;
+    private long m_totalNanos = 0;
+
+    private Node(String name, Runnable step, int index) {
+      m_name = name;
+      m_step = step;
+      m_index = index;
+    }
+  }
+
+  // Steps one chain of nodes. Reused (reinitialized) every tick, so it doesn't allocate.
+  private static class ChainTask extends RecursiveAction {
+    private final Node[] m_chain;
+
+    private ChainTask(Node[] chain) {
+      m_chain = chain;
+    }
+
+    @Override
+    protected void compute() {
+      runNodes(m_chain);
+    }
+  }
+
+  // Forks every chain, runs the first one on this thread, then waits for the others
+  private class TickTask extends RecursiveAction {
+    @Override
+    protected void compute() {
+      ChainTask[] tasks = m_chainTasks;
+      for (int i = 1; i < tasks.length; i++) {
+        tasks[i].fork();
+      }
+
+      tasks[0].compute();
+
+      for (int i = 1; i < tasks.length; i++) {
+        tasks[i].join();
+      }
+    }
+  }
+
+  private final List<Node> m_nodes = new ArrayList<>();
+  private final Map<String, Node> m_nodesByName = new HashMap<>();
+  private Node[] m_order = null;
+  private Node[][] m_chains = null;
+  private ChainTask[] m_chainTasks = null;
+  private final TickTask m_tickTask = new TickTask();
+  private int m_threadCount = 1;
+  private ForkJoinPool m_pool = null;
+  private long m_tickCount = 0;
+  private BooleanSupplier m_isEnabledSupplier = () -> RobotState.isEnabled();
+
+  /**
+   * Adds a node that runs step every tick.
+   *
+   * @param upstream Names of nodes that must run before this one. They must already be added.
+   */
+  public void addNode(String name, Runnable step, String... upstream) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (step == null) {
+      throw new IllegalArgumentException("step cannot be null");
+    }
+
+    if (m_nodesByName.containsKey(name)) {
+      throw new IllegalArgumentException("node " + name + " already exists");
+    }
+
+    Node node = new Node(name, step, m_nodes.size());
+    m_nodes.add(node);
+    m_nodesByName.put(name, node);
+    m_order = null;
+
+    for (String upstreamName : upstream) {
+      addDependency(name, upstreamName);
+    }
+  }
+
+  /**
+   * Adds a SimManager as a node. The manager is switched over to follow the graph's enabled
+   * flag, so it isn't gated twice.
+   */
+  public void addManager(String name, SimPeriodicInterface manager, String... upstream) {
+    if (manager == null) {
+      throw new IllegalArgumentException("manager cannot be null");
+    }
+
+    manager.setEnabledSupplier(() -> true);
+    addNode(name, manager::simulationPeriodic, upstream);
+  }
+
+  /**
+   * Declares that node reads the output of upstream, so upstream must run first.
+   */
+  public void addDependency(String node, String upstream) {
+    Node downstreamNode = getNode(node);
+    Node upstreamNode = getNode(upstream);
+
+    if (!downstreamNode.m_upstream.contains(upstreamNode)) {
+      downstreamNode.m_upstream.add(upstreamNode);
+    }
+
+    m_order = null;
+  }
+
+  /**
+   * Sets how many threads step the graph. 1 (the default) steps every node on the calling
+   * thread.
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be >=1");
+    }
+
+    if (threadCount == m_threadCount) {
+      return;
+    }
+
+    close();
+    m_threadCount = threadCount;
+    if (m_threadCount > 1) {
+      m_pool = new ForkJoinPool(m_threadCount);
+    }
+  }
+
+  public int getThreadCount() {
+    return m_threadCount;
+  }
+
+  /**
+   * Shuts down the thread pool, if any. The graph goes back to stepping serially.
+   */
+  @Override
+  public void close() {
+    if (m_pool != null) {
+      m_pool.shutdown();
+      m_pool = null;
+    }
+
+    m_threadCount = 1;
+  }
+
+  private Node getNode(String name) {
+    Node result = m_nodesByName.get(name);
+    if (result == null) {
+      throw new IllegalArgumentException("node " + name + " does not exist");
+    }
+
+    return result;
+  }
+
+  public boolean hasNode(String name) {
+    return m_nodesByName.containsKey(name);
+  }
+
+  @Override
+  public void setEnabledSupplier(BooleanSupplier isEnabledSupplier) {
+    if (isEnabledSupplier == null) {
+      throw new IllegalArgumentException("isEnabledSupplier cannot be null");
+    }
+
+    m_isEnabledSupplier = isEnabledSupplier;
+  }
+
+  // Kahn's algorithm. Ties are broken by the order nodes were added, so the result
+  // is deterministic.
+  private Node[] sortNodes() {
+    int numNodes = m_nodes.size();
+    int[] numPendingUpstream = new int[numNodes];
+    List<List<Node>> downstream = new ArrayList<>();
+
+    for (int i = 0; i < numNodes; i++) {
+      downstream.add(new ArrayList<>());
+    }
+
+    for (Node node : m_nodes) {
+      numPendingUpstream[node.m_index] = node.m_upstream.size();
+      for (Node upstreamNode : node.m_upstream) {
+        downstream.get(upstreamNode.m_index).add(node);
+      }
+    }
+
+    Node[] result = new Node[numNodes];
+    boolean[] isDone = new boolean[numNodes];
+    int count = 0;
+
+    while (count < numNodes) {
+      Node next = null;
+      for (Node node : m_nodes) {
+        if (!isDone[node.m_index] && numPendingUpstream[node.m_index] == 0) {
+          next = node;
+          break;
+        }
+      }
+
+      if (next == null) {
+        List<String> cycleNodes = new ArrayList<>();
+        for (Node node : m_nodes) {
+          if (!isDone[node.m_index]) {
+            cycleNodes.add(node.m_name);
+          }
+        }
+
+        throw new IllegalStateException("SimGraph has a dependency cycle between nodes: "
+            + cycleNodes);
+      }
+
+      isDone[next.m_index] = true;
+      result[count++] = next;
+      for (Node downstreamNode : downstream.get(next.m_index)) {
+        numPendingUpstream[downstreamNode.m_index]--;
+      }
+    }
+
+    return result;
+  }
+
+  // Splits the sorted nodes into chains (weakly connected components). Nodes keep their
+  // sorted order within a chain.
+  private Node[][] findChains(Node[] order) {
+    int numNodes = order.length;
+    int[] parent = new int[numNodes];
+    for (int i = 0; i < numNodes; i++) {
+      parent[i] = i;
+    }
+
+    for (Node node : m_nodes) {
+      for (Node upstreamNode : node.m_upstream) {
+        parent[findRoot(parent, node.m_index)] = findRoot(parent, upstreamNode.m_index);
+      }
+    }
+
+    Map<Integer, List<Node>> chainsByRoot = new LinkedHashMap<>();
+    for (Node node : order) {
+      chainsByRoot.computeIfAbsent(findRoot(parent, node.m_index), k -> new ArrayList<>())
+          .add(node);
+    }
+
+    Node[][] result = new Node[chainsByRoot.size()][];
+    int count = 0;
+    for (List<Node> chain : chainsByRoot.values()) {
+      result[count++] = chain.toArray(new Node[0]);
+    }
+
+    return result;
+  }
+
+  private static int findRoot(int[] parent, int index) {
+    while (parent[index] != index) {
+      index = parent[index];
+    }
+
+    return index;
+  }
+
+  private void ensureSorted() {
+    if (m_order != null) {
+      return;
+    }
+
+    m_order = sortNodes();
+    m_chains = findChains(m_order);
+    m_chainTasks = new ChainTask[m_chains.length];
+    for (int i = 0; i < m_chains.length; i++) {
+      m_chainTasks[i] = new ChainTask(m_chains[i]);
+    }
+  }
+
+  /**
+   * Returns the node names in the order they will be stepped (when stepping serially).
+   */
+  public List<String> getOrder() {
+    ensureSorted();
+
+    List<String> result = new ArrayList<>();
+    for (Node node : m_order) {
+      result.add(node.m_name);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the node names of each chain that can be stepped in parallel.
+   */
+  public List<List<String>> getChains() {
+    ensureSorted();
+
+    List<List<String>> result = new ArrayList<>();
+    for (Node[] chain : m_chains) {
+      List<String> names = new ArrayList<>();
+      for (Node node : chain) {
+        names.add(node.m_name);
+      }
+
+      result.add(names);
+    }
+
+    return result;
+  }
+
+  public long getTickCount() {
+    return m_tickCount;
+  }
+
+  /**
+   * Returns how long the node took on the most recent tick, in nanoseconds.
+   */
+  public long getLastNanos(String name) {
+    return getNode(name).m_lastNanos;
+  }
+
+  /**
+   * Returns the average time the node took per tick, in nanoseconds.
+   */
+  public double getAverageNanos(String name) {
+    if (m_tickCount == 0) {
+      return 0;
+    }
+
+    return (double) getNode(name).m_totalNanos / m_tickCount;
+  }
+
+  /**
+   * Steps every node once, in dependency order.
+   */
+  @Override
+  public void simulationPeriodic() {
+    // When Robot is disabled, the entire simulation freezes
+    if (!m_isEnabledSupplier.getAsBoolean()) {
+      return;
+    }
+
+    ensureSorted();
+
+    if (m_pool == null || m_chainTasks.length < 2) {
+      runNodes(m_order);
+    }
+    else {
+      for (int i = 0; i < m_chainTasks.length; i++) {
+        m_chainTasks[i].reinitialize();
+      }
+
+      m_tickTask.reinitialize();
+      m_pool.invoke(m_tickTask);
+    }
+
+    m_tickCount++;
+  }
+
+  private static void runNodes(Node[] nodes) {
+    for (int i = 0; i < nodes.length; i++) {
+      Node node = nodes[i];
+      long startNanos = System.nanoTime();
+      node.m_step.run();
+      node.m_lastNanos = System.nanoTime() - startNanos;
+      node.m_totalNanos += node.m_lastNanos;
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package frc.robot.simulation.framework;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Records every input the SimManagers read, so a driver session can be replayed later with
+ * SimInputReplay. Wrap each input with wrap(); every time the manager reads it, the value is
+ * appended to the file along with a timestamp.
+ *
+ * <p>
+ * The file is append-only and binary. Records go into a preallocated buffer, and the buffer
+ * is written through a FileChannel only when it fills up (or on flush/close), so recording
+ * doesn't touch the disk every tick. Reads after close() are passed through without being
+ * recorded. flush() and close() may be called from another thread, e.g. a shutdown hook.
+ * </p>
+ *
+ * <p>
+ * Format (big-endian): a header (kMagic, kVersion), then any mix of records:
+ * kChannelRecord (short id, short name length, UTF-8 name) declaring a channel before its
+ * first sample, and kSampleRecord (short id, double timestamp, double value).
+ * </p>
+ */
+public class SimInputRecorder implements AutoCloseable {
+  public static final int kMagic = 0x53494D49; // "SIMI"
+  public static final int kVersion = 1;
+  public static final byte kChannelRecord = 0;
+  public static final byte kSampleRecord = 1;
+  public static final int kSampleRecordBytes = 1 + Short.BYTES + 2 * Double.BYTES;
+
+  private static final int kBufferBytes = 64 * 1024;
+
+  private final FileChannel m_channel;
+  private final ByteBuffer m_buffer = ByteBuffer.allocateDirect(kBufferBytes);
+  private final DoubleSupplier m_clockSeconds;
+  private final List<String> m_channelNames = new ArrayList<>();
+  private long m_numSamples = 0;
+  private boolean m_isClosed = false;
+
+  /**
+   * Constructor. Creates (or truncates) the file at path.
+   *
+   * @param clockSeconds Clock used to timestamp each sample
+   */
+  public SimInputRecorder(Path path, DoubleSupplier clockSeconds) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    if (clockSeconds == null) {
+      throw new IllegalArgumentException("clockSeconds cannot be null");
+    }
+
+    m_clockSeconds = clockSeconds;
+
+    try {
+      m_channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Could not create sim input recording " + path, e);
+    }
+
+    m_buffer.putInt(kMagic);
+    m_buffer.putInt(kVersion);
+  }
+
+  /**
+   * Returns an input that reads from input, and records every value it returns under name.
+   */
+  public synchronized DoubleSimInput wrap(String name, DoubleSimInput input) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    if (input == null) {
+      throw new IllegalArgumentException("input cannot be null");
+    }
+
+    if (m_channelNames.contains(name)) {
+      throw new IllegalArgumentException("channel " + name + " already exists");
+    }
+
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    short id = (short) m_channelNames.size();
+    m_channelNames.add(name);
+
+    ensureSpace(1 + 2 * Short.BYTES + nameBytes.length);
+    m_buffer.put(kChannelRecord);
+    m_buffer.putShort(id);
+    m_buffer.putShort((short) nameBytes.length);
+    m_buffer.put(nameBytes);
+
+    return () -> {
+      double value = input.getInput();
+      record(id, value);
+      return value;
+    };
+  }
+
+  private synchronized void record(short id, double value) {
+    if (m_isClosed) {
+      return;
+    }
+
+    ensureSpace(kSampleRecordBytes);
+    m_buffer.put(kSampleRecord);
+    m_buffer.putShort(id);
+    m_buffer.putDouble(m_clockSeconds.getAsDouble());
+    m_buffer.putDouble(value);
+    m_numSamples++;
+  }
+
+  private void ensureSpace(int numBytes) {
+    if (m_buffer.remaining() < numBytes) {
+      flush();
+    }
+  }
+
+  public long getNumSamples() {
+    return m_numSamples;
+  }
+
+  /**
+   * Writes everything recorded so far to the file.
+   */
+  public synchronized void flush() {
+    if (m_isClosed) {
+      return;
+    }
+
+    m_buffer.flip();
+    try {
+      while (m_buffer.hasRemaining()) {
+        m_channel.write(m_buffer);
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Could not write sim input recording", e);
+    }
+    finally {
+      m_buffer.clear();
+    }
+  }
+
+  /**
+   * Writes everything recorded so far, and closes the file. Does nothing if already closed.
+   */
+  @Override
+  public synchronized void close() {
+    if (m_isClosed) {
+      return;
+    }
+
+    flush();
+    m_isClosed = true;
+    try {
+      m_channel.close();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Could not close sim input recording", e);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package frc.robot.simulation.framework;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Plays back a file written by SimInputRecorder. Each recorded channel becomes a
+ * DoubleSimInput that returns the recorded values in order, one per read, so the same
+ * managers see exactly the same inputs as in the recorded session.
+ *
+ * <p>
+ * Replay doesn't wait for the recorded timestamps; step the managers with HeadlessSimRunner
+ * (e.g. runUntil(replay::isFinished, ...)) to replay as fast as the CPU allows. Once a
+ * channel runs out, it keeps returning its last value.
+ * </p>
+ *
+ * <p>
+ * If the recorded session stepped its models by elapsed time, give their SimSteppers
+ * getClock() of the same channel, so each tick advances by the recorded time rather than
+ * however long the replayed tick took.
+ * </p>
+ */
+public class SimInputReplay {
+  private static class Channel {
+    private double[] m_timestamps = new double[256];
+    private double[] m_values = new double[256];
+    private int m_count = 0;
+    private int m_cursor = 0;
+
+    private void add(double timestamp, double value) {
+      if (m_count == m_values.length) {
+        m_timestamps = Arrays.copyOf(m_timestamps, m_count * 2);
+        m_values = Arrays.copyOf(m_values, m_count * 2);
+      }
+
+      m_timestamps[m_count] = timestamp;
+      m_values[m_count] = value;
+      m_count++;
+    }
+
+    // Timestamp of the sample played back last, or of the first one before any are played
+    private double getTimestamp() {
+      if (m_count == 0) {
+        return 0;
+      }
+
+      return m_timestamps[Math.max(0, m_cursor - 1)];
+    }
+
+    private double next() {
+      if (m_count == 0) {
+        return 0;
+      }
+
+      if (m_cursor < m_count) {
+        return m_values[m_cursor++];
+      }
+
+      return m_values[m_count - 1];
+    }
+  }
+
+  private final List<Channel> m_channels = new ArrayList<>();
+  private final Map<String, Channel> m_channelsByName = new HashMap<>();
+
+  /**
+   * Constructor. Reads the whole recording into memory.
+   */
+  public SimInputReplay(Path path) {
+    if (path == null) {
+      throw new IllegalArgumentException("path cannot be null");
+    }
+
+    try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+          fileChannel.size());
+      parse(buffer);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Could not read sim input recording " + path, e);
+    }
+  }
+
+  private void parse(ByteBuffer buffer) {
+    if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != SimInputRecorder.kMagic) {
+      throw new IllegalArgumentException("Not a sim input recording");
+    }
+
+    int version = buffer.getInt();
+    if (version != SimInputRecorder.kVersion) {
+      throw new IllegalArgumentException("Unsupported sim input recording version " + version);
+    }
+
+    while (buffer.hasRemaining()) {
+      byte type = buffer.get();
+      if (type == SimInputRecorder.kChannelRecord) {
+        short id = buffer.getShort();
+        byte[] nameBytes = new byte[buffer.getShort()];
+        buffer.get(nameBytes);
+
+        if (id != m_channels.size()) {
+          throw new IllegalArgumentException("Channel " + id + " declared out of order");
+        }
+
+        Channel channel = new Channel();
+        m_channels.add(channel);
+        m_channelsByName.put(new String(nameBytes, StandardCharsets.UTF_8), channel);
+      }
+      else if (type == SimInputRecorder.kSampleRecord) {
+        short id = buffer.getShort();
+        double timestamp = buffer.getDouble();
+        double value = buffer.getDouble();
+
+        if (id < 0 || id >= m_channels.size()) {
+          throw new IllegalArgumentException("Sample for undeclared channel " + id);
+        }
+
+        m_channels.get(id).add(timestamp, value);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown record type " + type);
+      }
+    }
+  }
+
+  private Channel getChannel(String name) {
+    Channel result = m_channelsByName.get(name);
+    if (result == null) {
+      throw new IllegalArgumentException("channel " + name + " was not recorded");
+    }
+
+    return result;
+  }
+
+  public boolean hasChannel(String name) {
+    return m_channelsByName.containsKey(name);
+  }
+
+  /**
+   * Returns an input that plays back the values recorded under name.
+   */
+  public DoubleSimInput getInput(String name) {
+    Channel channel = getChannel(name);
+    return channel::next;
+  }
+
+  /**
+   * Returns a clock that reads the recorded timestamp of the sample just played back under
+   * name, in seconds. Pass it to SimStepper.setClock() to replay the recorded tick lengths.
+   */
+  public DoubleSupplier getClock(String name) {
+    Channel channel = getChannel(name);
+    return channel::getTimestamp;
+  }
+
+  public int getNumSamples(String name) {
+    return getChannel(name).m_count;
+  }
+
+  /**
+   * Returns the timestamp of the i'th sample recorded under name, in seconds.
+   */
+  public double getTimestamp(String name, int index) {
+    Channel channel = getChannel(name);
+    if (index < 0 || index >= channel.m_count) {
+      throw new IllegalArgumentException("index must be between 0 and " + (channel.m_count - 1));
+    }
+
+    return channel.m_timestamps[index];
+  }
+
+  /**
+   * Returns true once every channel has played back all of its samples.
+   */
+  public boolean isFinished() {
+    for (Channel channel : m_channels) {
+      if (channel.m_cursor < channel.m_count) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Starts playing back every channel from the beginning again.
+   */
+  public void rewind() {
+    for (Channel channel : m_channels) {
+      channel.m_cursor = 0;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package frc.robot.simulation.framework;
+
+import edu.wpi.first.wpilibj.RobotState;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shared lifecycle for all simulation managers: the enabled check, the initial run once
+ * both handlers are set, and the periodic tick. Derived classes only decide how the
+ * input, simulation and output are wired together.
+ */
+public abstract class SimManagerCore implements SimPeriodicInterface {
+  private boolean m_outputInitialized = false;
+  private BooleanSupplier m_isEnabledSupplier = () -> RobotState.isEnabled();
+  private SimStageTimings m_stageTimings = null;
+
+  @Override
+  public final void setEnabledSupplier(BooleanSupplier isEnabledSupplier) {
+    if (isEnabledSupplier == null) {
+      throw new IllegalArgumentException("isEnabledSupplier cannot be null");
+    }
+
+    m_isEnabledSupplier = isEnabledSupplier;
+  }
+
+  /**
+   * Starts timing the getInput, doSimulation and setOutput stages of every tick. The
+   * latencies are published to NetworkTables under "SimTiming/[name]".
+   */
+  public final void enableStageTiming(String name) {
+    m_stageTimings = new SimStageTimings(name);
+  }
+
+  // Returns null if stage timing is not enabled
+  public final SimStageTimings getStageTimings() {
+    return m_stageTimings;
+  }
+
+  // Timestamp for stage timing. Skips the clock read entirely when timing is off.
+  protected final long stageTimestamp() {
+    return (m_stageTimings != null) ? System.nanoTime() : 0;
+  }
+
+  protected final void recordStageTimes(long startNanos, long inputDoneNanos,
+      long simDoneNanos) {
+    if (m_stageTimings != null) {
+      m_stageTimings.record(startNanos, inputDoneNanos, simDoneNanos, System.nanoTime());
+    }
+  }
+
+  // By default this follows RobotState, but a headless runner can supply its own flag
+  private boolean isRobotEnabled() {
+    return m_isEnabledSupplier.getAsBoolean();
+  }
+
+  // Must be implemented by derived class. Returns true once both handlers are set.
+  protected abstract boolean areHandlersSet();
+
+  // Must be implemented by derived class. Gets input, does simulation, and sets output.
+  protected abstract void doSimulationStep();
+
+  // Once the input and output handler are both setup, we want to do one run of the
+  // simulation just to properly set the output. This is done even if the Robot
+  // is in diabled state.
+  protected final void tryInitializeOutput() {
+    if (!m_outputInitialized && areHandlersSet()) {
+      doSimulationStep();
+      m_outputInitialized = true;
+    }
+  }
+
+  // The following method cannot be further overriden by derived class
+  @Override
+  public final void simulationPeriodic() {
+    // When Robot is disabled, the entire simulation freezes
+    if (isRobotEnabled() && areHandlersSet()) {
+      doSimulationStep();
+    }
+  }
+}
@@ -5,10 +5,8 @@ package frc.robot.simulation.framework;
  * query inputs to device, and calls the output Consumer to set the new state of the device.
  * It leverages a Model class to do the actual real-world simulation.
  */
-public interface SimManagerInterface<InputT, OutputT> {
+public interface SimManagerInterface<InputT, OutputT> extends SimPeriodicInterface {
   void setInputHandler(SimInputInterface<InputT> inputHandler);
 
   void setOutputHandler(SimOutputInterface<OutputT> outputHandler);
-
-  void simulationPeriodic();
 }
@@ -0,0 +1,17 @@
+package frc.robot.simulation.framework;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * The part of a simulation manager that is driven every tick, regardless of what type of
+ * inputs and outputs it uses.
+ */
+public interface SimPeriodicInterface {
+  /**
+   * Overrides what the manager considers "robot enabled". By default, managers follow
+   * RobotState.isEnabled().
+   */
+  void setEnabledSupplier(BooleanSupplier isEnabledSupplier);
+
+  void simulationPeriodic();
+}
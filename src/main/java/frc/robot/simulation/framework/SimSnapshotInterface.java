@@ -0,0 +1,17 @@
+package frc.robot.simulation.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A simulation model that can save its internal state to a compact binary snapshot, and
+ * later restore it. Only state that changes while the simulation runs is saved; the snapshot
+ * must be restored into a model that was constructed with the same parameters.
+ */
+public interface SimSnapshotInterface {
+  // Number of bytes writeSnapshot() writes. Must always be the same for a given model.
+  int getSnapshotSizeBytes();
+
+  void writeSnapshot(ByteBuffer buffer);
+
+  void readSnapshot(ByteBuffer buffer);
+}
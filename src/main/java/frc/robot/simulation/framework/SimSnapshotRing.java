@@ -0,0 +1,119 @@
+package frc.robot.simulation.framework;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Ring buffer of recent snapshots of a set of simulation models. Capture once per tick, and
+ * when something goes wrong, rewind every model to just before it and re-run only the last
+ * few seconds.
+ *
+ * <p>
+ * All slots are allocated up front, so capturing doesn't allocate. Not thread-safe; capture
+ * and restore from the simulation thread.
+ * </p>
+ */
+public class SimSnapshotRing {
+  private final SimSnapshotInterface[] m_parts;
+  private final ByteBuffer[] m_slots;
+  private final double[] m_slotTimeSeconds;
+  private int m_nextSlot = 0;
+  private int m_count = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param parts    Models captured together in every snapshot
+   * @param capacity How many snapshots to keep (e.g. 250 is 5 seconds at 50 ticks/second)
+   */
+  public SimSnapshotRing(List<SimSnapshotInterface> parts, int capacity) {
+    if (parts == null || parts.isEmpty()) {
+      throw new IllegalArgumentException("parts cannot be empty");
+    }
+
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be >=1");
+    }
+
+    m_parts = parts.toArray(new SimSnapshotInterface[0]);
+
+    int slotSizeBytes = 0;
+    for (SimSnapshotInterface part : m_parts) {
+      slotSizeBytes += part.getSnapshotSizeBytes();
+    }
+
+    m_slots = new ByteBuffer[capacity];
+    for (int i = 0; i < capacity; i++) {
+      m_slots[i] = ByteBuffer.allocate(slotSizeBytes);
+    }
+
+    m_slotTimeSeconds = new double[capacity];
+  }
+
+  public int getCapacity() {
+    return m_slots.length;
+  }
+
+  public int getCount() {
+    return m_count;
+  }
+
+  /**
+   * Saves the state of every model into the next slot, overwriting the oldest one if full.
+   */
+  public void capture(double timeSeconds) {
+    ByteBuffer slot = m_slots[m_nextSlot];
+    slot.clear();
+    for (SimSnapshotInterface part : m_parts) {
+      part.writeSnapshot(slot);
+    }
+
+    m_slotTimeSeconds[m_nextSlot] = timeSeconds;
+    m_nextSlot = (m_nextSlot + 1) % m_slots.length;
+    m_count = Math.min(m_count + 1, m_slots.length);
+  }
+
+  // Slot index of the snapshot taken stepsBack captures ago (0 is the latest)
+  private int getSlotIndex(int stepsBack) {
+    return Math.floorMod(m_nextSlot - 1 - stepsBack, m_slots.length);
+  }
+
+  /**
+   * Restores every model from the snapshot taken stepsBack captures ago (0 is the latest).
+   * Snapshots newer than that are discarded.
+   *
+   * @return The time the restored snapshot was captured at
+   */
+  public double restore(int stepsBack) {
+    if (stepsBack < 0 || stepsBack >= m_count) {
+      throw new IllegalArgumentException("stepsBack must be between 0 and " + (m_count - 1));
+    }
+
+    int slotIndex = getSlotIndex(stepsBack);
+    ByteBuffer slot = m_slots[slotIndex];
+    slot.flip();
+    for (SimSnapshotInterface part : m_parts) {
+      part.readSnapshot(slot);
+    }
+
+    // Newer snapshots are from a timeline that no longer exists
+    m_nextSlot = (slotIndex + 1) % m_slots.length;
+    m_count -= stepsBack;
+    return m_slotTimeSeconds[slotIndex];
+  }
+
+  /**
+   * Restores the latest snapshot captured at or before timeSeconds.
+   *
+   * @return The time the restored snapshot was captured at, or NaN if there is none that old
+   */
+  public double restoreAtOrBefore(double timeSeconds) {
+    for (int stepsBack = 0; stepsBack < m_count; stepsBack++) {
+      if (m_slotTimeSeconds[getSlotIndex(stepsBack)] <= timeSeconds) {
+        return restore(stepsBack);
+      }
+    }
+
+    return Double.NaN;
+  }
+}
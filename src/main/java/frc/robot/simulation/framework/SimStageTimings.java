@@ -0,0 +1,114 @@
+package frc.robot.simulation.framework;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Latency histograms for the three stages of one simulation manager: getInput (usually a
+ * REV/WPILib shim), doSimulation (our model), and setOutput. The p50, p99 and max of each
+ * stage are published to NetworkTables under "SimTiming/[name]" about once per second.
+ *
+ * <p>
+ * Like LoopProfiler, every stage keeps two histograms, reset kWindowSeconds apart and
+ * staggered by half a window, so the stats cover between half and all of the last window
+ * rather than the whole run.
+ * </p>
+ */
+public class SimStageTimings {
+  public static final double kPublishPeriodSeconds = 1.0;
+  public static final double kWindowSeconds = 10.0;
+  public static final int kGetInputStage = 0;
+  public static final int kDoSimulationStage = 1;
+  public static final int kSetOutputStage = 2;
+
+  private static final String[] kStageNames = {"GetInput", "DoSimulation", "SetOutput"};
+
+  private final String m_name;
+  private final LatencyHistogram[][] m_windows = new LatencyHistogram[2][kStageNames.length];
+  private final long[] m_windowStartNanos = new long[2];
+  private final DoublePublisher[] m_p50Publishers = new DoublePublisher[kStageNames.length];
+  private final DoublePublisher[] m_p99Publishers = new DoublePublisher[kStageNames.length];
+  private final DoublePublisher[] m_maxPublishers = new DoublePublisher[kStageNames.length];
+  private long m_lastPublishNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param name Name of the manager, used as the NetworkTables sub-table
+   */
+  public SimStageTimings(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    m_name = name;
+    NetworkTable table = NetworkTableInstance.getDefault().getTable("SimTiming")
+        .getSubTable(name);
+
+    for (int i = 0; i < kStageNames.length; i++) {
+      m_windows[0][i] = new LatencyHistogram();
+      m_windows[1][i] = new LatencyHistogram();
+
+      NetworkTable stageTable = table.getSubTable(kStageNames[i]);
+      m_p50Publishers[i] = stageTable.getDoubleTopic("p50Micros").publish();
+      m_p99Publishers[i] = stageTable.getDoubleTopic("p99Micros").publish();
+      m_maxPublishers[i] = stageTable.getDoubleTopic("maxMicros").publish();
+    }
+
+    m_lastPublishNanos = System.nanoTime();
+    m_windowStartNanos[0] = m_lastPublishNanos;
+    m_windowStartNanos[1] = m_lastPublishNanos - (long) (kWindowSeconds / 2 * 1e9);
+  }
+
+  public String getName() {
+    return m_name;
+  }
+
+  // The stage's histogram in the window that has been recording the longest
+  public LatencyHistogram getHistogram(int stage) {
+    return m_windows[getReportWindow()][stage];
+  }
+
+  private int getReportWindow() {
+    return (m_windowStartNanos[0] - m_windowStartNanos[1] <= 0) ? 0 : 1;
+  }
+
+  /**
+   * Records one tick, given the timestamps before getInput, before doSimulation, before
+   * setOutput, and after setOutput. Rotates the windows and publishes when they are due.
+   */
+  public void record(long startNanos, long inputDoneNanos, long simDoneNanos, long endNanos) {
+    for (int i = 0; i < m_windowStartNanos.length; i++) {
+      if (endNanos - m_windowStartNanos[i] >= (long) (kWindowSeconds * 1e9)) {
+        m_windowStartNanos[i] = endNanos;
+        for (LatencyHistogram histogram : m_windows[i]) {
+          histogram.reset();
+        }
+      }
+    }
+
+    for (LatencyHistogram[] window : m_windows) {
+      window[kGetInputStage].record(inputDoneNanos - startNanos);
+      window[kDoSimulationStage].record(simDoneNanos - inputDoneNanos);
+      window[kSetOutputStage].record(endNanos - simDoneNanos);
+    }
+
+    if (endNanos - m_lastPublishNanos >= (long) (kPublishPeriodSeconds * 1e9)) {
+      m_lastPublishNanos = endNanos;
+      publish();
+    }
+  }
+
+  /**
+   * Publishes p50/p99/max of every stage to NetworkTables, in microseconds.
+   */
+  public void publish() {
+    LatencyHistogram[] histograms = m_windows[getReportWindow()];
+    for (int i = 0; i < kStageNames.length; i++) {
+      m_p50Publishers[i].set(histograms[i].getPercentileNanos(50) / 1000.0);
+      m_p99Publishers[i].set(histograms[i].getPercentileNanos(99) / 1000.0);
+      m_maxPublishers[i].set(histograms[i].getMaxNanos() / 1000.0);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package frc.robot.simulation.framework;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides how far a simulation model should advance on each tick, and splits that into
+ * sub-steps. Also records what each tick cost, so accuracy (sub-step size) can be traded
+ * against CPU explicitly.
+ *
+ * <p>
+ * By default, every tick advances exactly 20ms in a single step (same as before). With a
+ * clock, a tick advances by the real elapsed time instead, so a loop overrun doesn't make
+ * the simulation run slow. The clock can be wall time (Timer::getFPGATimestamp), or
+ * simulated time if HAL timing is paused and stepped.
+ * </p>
+ *
+ * <p>
+ * With enablePublishing(), the sub-steps and cost are published to NetworkTables under
+ * "SimTiming/[name]/Stepper" about once per second, next to the model's stage timings.
+ * </p>
+ */
+public class SimStepper {
+  public static final double kNominalPeriodSeconds = 0.02;
+  public static final double kDefaultMaxElapsedSeconds = 0.1;
+  public static final double kPublishPeriodSeconds = 1.0;
+
+  private DoubleSupplier m_clockSeconds;
+  private int m_fixedSubsteps = 1;
+  private double m_maxStepSeconds = 0;
+  private double m_maxElapsedSeconds = kDefaultMaxElapsedSeconds;
+  private double m_lastClockSeconds = Double.NaN;
+
+  private double m_lastElapsedSeconds = 0;
+  private int m_lastSubsteps = 0;
+  private double m_lastSubstepSeconds = 0;
+  private long m_lastCostNanos = 0;
+  private long m_totalCostNanos = 0;
+  private long m_tickCount = 0;
+  private double m_simulatedSeconds = 0;
+
+  private DoublePublisher m_substepsPublisher = null;
+  private DoublePublisher m_substepMicrosPublisher;
+  private DoublePublisher m_costMicrosPublisher;
+  private DoublePublisher m_averageCostMicrosPublisher;
+  private long m_lastPublishNanos;
+
+  /**
+   * Constructor. Every tick advances exactly kNominalPeriodSeconds.
+   */
+  public SimStepper() {
+    this(null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param clockSeconds Clock used to measure the elapsed time of each tick, or null to
+   *                     always advance kNominalPeriodSeconds.
+   */
+  public SimStepper(DoubleSupplier clockSeconds) {
+    m_clockSeconds = clockSeconds;
+  }
+
+  /**
+   * Measures the elapsed time of each tick with a different clock from now on, e.g. the
+   * recorded timestamps of a replayed session. Null always advances kNominalPeriodSeconds.
+   */
+  public void setClock(DoubleSupplier clockSeconds) {
+    m_clockSeconds = clockSeconds;
+    m_lastClockSeconds = Double.NaN;
+  }
+
+  /**
+   * Always split a tick into this many equal sub-steps. Clears setMaxStepSeconds.
+   */
+  public void setFixedSubsteps(int substeps) {
+    if (substeps < 1) {
+      throw new IllegalArgumentException("substeps must be >=1");
+    }
+
+    m_fixedSubsteps = substeps;
+    m_maxStepSeconds = 0;
+  }
+
+  /**
+   * Split a tick into as many equal sub-steps as needed so no sub-step is longer than
+   * maxStepSeconds. Clears setFixedSubsteps.
+   */
+  public void setMaxStepSeconds(double maxStepSeconds) {
+    if (maxStepSeconds <= 0) {
+      throw new IllegalArgumentException("maxStepSeconds must be >0");
+    }
+
+    m_maxStepSeconds = maxStepSeconds;
+    m_fixedSubsteps = 1;
+  }
+
+  /**
+   * Caps the elapsed time of a single tick, e.g. after the robot was disabled or paused in
+   * the debugger. Otherwise the model would jump forward by the whole pause.
+   */
+  public void setMaxElapsedSeconds(double maxElapsedSeconds) {
+    if (maxElapsedSeconds <= 0) {
+      throw new IllegalArgumentException("maxElapsedSeconds must be >0");
+    }
+
+    m_maxElapsedSeconds = maxElapsedSeconds;
+  }
+
+  /**
+   * Starts publishing the sub-steps and cost of every tick to NetworkTables, under
+   * "SimTiming/[name]/Stepper".
+   */
+  public void enablePublishing(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    NetworkTable table = NetworkTableInstance.getDefault().getTable("SimTiming")
+        .getSubTable(name).getSubTable("Stepper");
+    m_substepsPublisher = table.getDoubleTopic("Substeps").publish();
+    m_substepMicrosPublisher = table.getDoubleTopic("SubstepMicros").publish();
+    m_costMicrosPublisher = table.getDoubleTopic("CostMicros").publish();
+    m_averageCostMicrosPublisher = table.getDoubleTopic("AverageCostMicros").publish();
+    m_lastPublishNanos = System.nanoTime();
+  }
+
+  public boolean isPublishing() {
+    return m_substepsPublisher != null;
+  }
+
+  /**
+   * Publishes the last tick's sub-steps, sub-step length and cost, and the average cost of
+   * a tick, in microseconds. Does nothing unless enablePublishing() was called.
+   */
+  public void publish() {
+    if (m_substepsPublisher == null) {
+      return;
+    }
+
+    m_substepsPublisher.set(m_lastSubsteps);
+    m_substepMicrosPublisher.set(m_lastSubstepSeconds * 1e6);
+    m_costMicrosPublisher.set(m_lastCostNanos / 1000.0);
+    m_averageCostMicrosPublisher.set(getAverageCostNanos() / 1000.0);
+  }
+
+  private double getElapsedSeconds() {
+    if (m_clockSeconds == null) {
+      return kNominalPeriodSeconds;
+    }
+
+    double nowSeconds = m_clockSeconds.getAsDouble();
+    double elapsed = Double.isNaN(m_lastClockSeconds) ? kNominalPeriodSeconds
+        : nowSeconds - m_lastClockSeconds;
+    m_lastClockSeconds = nowSeconds;
+
+    return Math.max(0, Math.min(elapsed, m_maxElapsedSeconds));
+  }
+
+  /**
+   * Advances the model by one tick, calling substep once per sub-step with the sub-step
+   * length in seconds.
+   */
+  public void step(DoubleConsumer substep) {
+    long startNanos = System.nanoTime();
+    double elapsedSeconds = getElapsedSeconds();
+
+    int substeps = m_fixedSubsteps;
+    if (m_maxStepSeconds > 0) {
+      substeps = Math.max(1, (int) Math.ceil(elapsedSeconds / m_maxStepSeconds - 1e-9));
+    }
+
+    double substepSeconds = elapsedSeconds / substeps;
+    if (elapsedSeconds > 0) {
+      for (int i = 0; i < substeps; i++) {
+        substep.accept(substepSeconds);
+      }
+    }
+    else {
+      substeps = 0;
+    }
+
+    m_lastElapsedSeconds = elapsedSeconds;
+    m_lastSubsteps = substeps;
+    m_lastSubstepSeconds = substepSeconds;
+    m_simulatedSeconds += elapsedSeconds;
+    m_tickCount++;
+    long endNanos = System.nanoTime();
+    m_lastCostNanos = endNanos - startNanos;
+    m_totalCostNanos += m_lastCostNanos;
+
+    if (m_substepsPublisher != null
+        && endNanos - m_lastPublishNanos >= (long) (kPublishPeriodSeconds * 1e9)) {
+      m_lastPublishNanos = endNanos;
+      publish();
+    }
+  }
+
+  public double getLastElapsedSeconds() {
+    return m_lastElapsedSeconds;
+  }
+
+  public int getLastSubsteps() {
+    return m_lastSubsteps;
+  }
+
+  // Sub-step length is the main knob on integration accuracy
+  public double getLastSubstepSeconds() {
+    return m_lastSubstepSeconds;
+  }
+
+  public long getLastCostNanos() {
+    return m_lastCostNanos;
+  }
+
+  /**
+   * Returns the average cost of a tick (all sub-steps), in nanoseconds.
+   */
+  public double getAverageCostNanos() {
+    if (m_tickCount == 0) {
+      return 0;
+    }
+
+    return (double) m_totalCostNanos / m_tickCount;
+  }
+
+  // Total time the model has advanced. Compare against the clock to check it stays locked.
+  public double getSimulatedSeconds() {
+    return m_simulatedSeconds;
+  }
+}
@@ -1,11 +1,14 @@
 package frc.robot.simulation.motor;
 
-import frc.robot.simulation.framework.SimManagerBase;
+import frc.robot.simulation.framework.DoubleSimManager;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
+import java.nio.ByteBuffer;
 
 /**
  * Simulation manager for a simple motor, AND an encoder that reads that motor position.
  */
-public class MotorSimManager extends SimManagerBase<Double, Double> {
+public class MotorSimManager extends DoubleSimManager implements SimSnapshotInterface {
   private final MotorSimModel m_model;
 
   /**
@@ -15,8 +18,41 @@ public class MotorSimManager extends SimManagerBase<Double, Double> {
     m_model = new MotorSimModel(gearRatio);
   }
 
+  /**
+   * Constructor.
+   *
+   * @param stepper Decides the elapsed time and sub-steps of each tick
+   */
+  public MotorSimManager(double gearRatio, SimStepper stepper) {
+    m_model = new MotorSimModel(gearRatio, stepper);
+  }
+
+  public SimStepper getStepper() {
+    return m_model.getStepper();
+  }
+
+  // See MotorSimModel.setSmartMotion()
+  public void setSmartMotion(SparkMaxSmartMotionSim smartMotion) {
+    m_model.setSmartMotion(smartMotion);
+  }
+
+  @Override
+  public int getSnapshotSizeBytes() {
+    return m_model.getSnapshotSizeBytes();
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    m_model.writeSnapshot(buffer);
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_model.readSnapshot(buffer);
+  }
+
   @Override
-  protected Double doSimulation(Double motorPowerPercentage) {
+  protected double doSimulation(double motorPowerPercentage) {
     // No need to call super, since it's abstract class and doesn't
     // implement doSimulation()
 
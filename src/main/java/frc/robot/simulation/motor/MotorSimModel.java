@@ -1,44 +1,158 @@
 package frc.robot.simulation.motor;
 
 import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
+import java.nio.ByteBuffer;
+import java.util.function.DoubleConsumer;
 
 /**
  * Does the real-world simulation for the motor.
+ *
+ * <p>
+ * This is the same DC motor plant that WPILib's DCMotorSim uses (state is position and
+ * velocity of the output shaft), but stepped with the exact zero-order-hold solution in
+ * scalar form. DCMotorSim does matrix math that allocates on every update. Since the solution
+ * is exact for a constant input voltage, sub-stepping doesn't change the result here; what
+ * matters is that each tick advances by the right elapsed time.
+ * </p>
  */
-public class MotorSimModel {
+public class MotorSimModel implements SimSnapshotInterface {
+  private static final double kMotorMomentInertia = 0.0005;
+
   private final DCMotor m_realMotorModel;
-  private final DCMotorSim m_realMotorSim;
   private final double m_gearRatio;
+  private final SimStepper m_stepper;
+  private final DoubleConsumer m_substepFunc = this::substep;
+
+  // Continuous plant: dv/dt = a*v + b*u
+  private final double m_a;
+  private final double m_b;
+
+  // Discretized plant, recomputed only when the step length changes
+  private double m_discretizedDtSeconds = Double.NaN;
+  private double m_velocityDecay;
+  private double m_velocityPerVolt;
+  private double m_positionPerVelocity;
+  private double m_positionPerVolt;
+
+  private double m_inputVoltageVolts = 0;
+  private double m_positionRadians = 0;
+  private double m_velocityRadPerSec = 0;
+  private SparkMaxSmartMotionSim m_smartMotion = null;
 
   /**
-   * Constructor.
+   * Constructor. Every update advances exactly 20ms.
    */
   public MotorSimModel(double gearRatio) {
+    this(gearRatio, new SimStepper());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param stepper Decides the elapsed time and sub-steps of each update
+   */
+  public MotorSimModel(double gearRatio, SimStepper stepper) {
+    if (stepper == null) {
+      throw new IllegalArgumentException("stepper cannot be null");
+    }
+
     m_gearRatio = gearRatio;
+    m_stepper = stepper;
 
     // Model a NEO motor (or any other motor)
     m_realMotorModel = DCMotor.getNEO(1); // 1 motor in the gearbox
 
-    // Create the motor simulation with motor model, gear ratio, and moment of
-    // inertia
-    double motorMomentInertia = 0.0005;
-    m_realMotorSim = new DCMotorSim(m_realMotorModel, m_gearRatio, motorMomentInertia);
+    m_a = -m_gearRatio * m_gearRatio * m_realMotorModel.KtNMPerAmp
+        / (m_realMotorModel.KvRadPerSecPerVolt * m_realMotorModel.rOhms * kMotorMomentInertia);
+    m_b = m_gearRatio * m_realMotorModel.KtNMPerAmp
+        / (m_realMotorModel.rOhms * kMotorMomentInertia);
+  }
+
+  public SimStepper getStepper() {
+    return m_stepper;
+  }
+
+  /**
+   * Emulates the motor controller's onboard Smart Motion loop. While it is enabled, it sets
+   * the motor voltage every SparkMaxSmartMotionSim.kLoopPeriodSeconds, and the motor power
+   * passed to updateMotorPosition() is ignored.
+   */
+  public void setSmartMotion(SparkMaxSmartMotionSim smartMotion) {
+    m_smartMotion = smartMotion;
+  }
+
+  private void discretize(double dtSeconds) {
+    double expAdt = Math.exp(m_a * dtSeconds);
+    m_velocityDecay = expAdt;
+    m_velocityPerVolt = m_b / m_a * (expAdt - 1);
+    m_positionPerVelocity = (expAdt - 1) / m_a;
+    m_positionPerVolt = m_b / m_a * ((expAdt - 1) / m_a - dtSeconds);
+    m_discretizedDtSeconds = dtSeconds;
+  }
+
+  private void integrate(double dtSeconds) {
+    if (dtSeconds != m_discretizedDtSeconds) {
+      discretize(dtSeconds);
+    }
+
+    m_positionRadians += m_positionPerVelocity * m_velocityRadPerSec
+        + m_positionPerVolt * m_inputVoltageVolts;
+    m_velocityRadPerSec = m_velocityDecay * m_velocityRadPerSec
+        + m_velocityPerVolt * m_inputVoltageVolts;
+  }
+
+  private void substep(double dtSeconds) {
+    if (m_smartMotion == null || !m_smartMotion.isEnabled()) {
+      integrate(dtSeconds);
+      return;
+    }
+
+    // The controller's output holds until its next loop, so the plant is still exact
+    int loops = Math.max(1,
+        (int) Math.round(dtSeconds / SparkMaxSmartMotionSim.kLoopPeriodSeconds));
+    double loopSeconds = dtSeconds / loops;
+
+    for (int i = 0; i < loops; i++) {
+      double output = m_smartMotion.calculate(m_positionRadians / (2.0 * Math.PI),
+          m_velocityRadPerSec * 60.0 / (2.0 * Math.PI), loopSeconds);
+      m_inputVoltageVolts = output * 12.0;
+      integrate(loopSeconds);
+    }
   }
 
   /**
-   * Runs 20ms simulation of the motor, and then returns the new encoder position (in Rotations).
+   * Runs one tick of simulation of the motor, and then returns the new encoder position (in
+   * Rotations).
    */
   public double updateMotorPosition(double motorPowerPercentage) {
-    // Calculate the input voltage for the motor
-    double inputVoltageVolts = motorPowerPercentage * 12.0;
+    // Calculate the input voltage for the motor (DCMotorSim clamps to battery voltage too)
+    m_inputVoltageVolts = Math.max(-1.0, Math.min(1.0, motorPowerPercentage)) * 12.0;
 
     // Update the motor simulation
-    m_realMotorSim.setInput(inputVoltageVolts);
-    m_realMotorSim.update(0.02);
+    m_stepper.step(m_substepFunc);
 
     // Update the Encoder based on the simulation - the units are "number of
     // rotations"
-    return m_realMotorSim.getAngularPositionRotations();
+    return m_positionRadians / (2.0 * Math.PI);
+  }
+
+  // The input voltage is set again at the start of every update, so it isn't saved
+  @Override
+  public int getSnapshotSizeBytes() {
+    return 2 * Double.BYTES;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_positionRadians);
+    buffer.putDouble(m_velocityRadPerSec);
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_positionRadians = buffer.getDouble();
+    m_velocityRadPerSec = buffer.getDouble();
   }
 }
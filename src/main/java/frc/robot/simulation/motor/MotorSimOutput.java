@@ -1,12 +1,12 @@
 package frc.robot.simulation.motor;
 
-import frc.robot.simulation.framework.SimOutputInterface;
+import frc.robot.simulation.framework.DoubleSimOutput;
 import frc.robot.subsystems.RelativeEncoderSim;
 
 /**
- * Helper class to implement OutputDoubleInterface.
+ * Helper class to implement DoubleSimOutput.
  */
-public class MotorSimOutput implements SimOutputInterface<Double> {
+public class MotorSimOutput implements DoubleSimOutput {
   private final RelativeEncoderSim m_encoderRealWrapper;
 
   /**
@@ -23,7 +23,7 @@ public class MotorSimOutput implements SimOutputInterface<Double> {
   }
 
   @Override
-  public void setOutput(Double outputRotations) {
+  public void setOutput(double outputRotations) {
     // Sets the encoder position in rotations.
     m_encoderRealWrapper.setPosition(outputRotations);
   }
@@ -1,12 +1,12 @@
 package frc.robot.simulation.motor;
 
 import com.revrobotics.CANSparkMax;
-import frc.robot.simulation.framework.SimInputInterface;
+import frc.robot.simulation.framework.DoubleSimInput;
 
 /**
- * Helper class to implement SimInputDoubleInterface.
+ * Helper class to implement DoubleSimInput.
  */
-public class MotorSparkMaxSimInput implements SimInputInterface<Double> {
+public class MotorSparkMaxSimInput implements DoubleSimInput {
   private CANSparkMax m_motorReal;
 
   /**
@@ -21,7 +21,7 @@ public class MotorSparkMaxSimInput implements SimInputInterface<Double> {
   }
 
   @Override
-  public Double getInput() {
+  public double getInput() {
     return m_motorReal.get();
   }
 }
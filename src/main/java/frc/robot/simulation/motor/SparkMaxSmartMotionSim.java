@@ -0,0 +1,181 @@
+package frc.robot.simulation.motor;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import java.nio.ByteBuffer;
+
+/**
+ * Emulates the SparkMax's onboard Smart Motion controller, which REV's simulation support
+ * doesn't do. Robot code sends a position reference once; from then on the controller, not
+ * the robot loop, decides the motor output.
+ *
+ * <p>
+ * Like the SparkMax, it runs every kLoopPeriodSeconds (1kHz). Each loop it moves a velocity
+ * setpoint toward the fastest speed that can still stop at the reference (a trapezoid, capped
+ * at the max velocity and changing no faster than the max acceleration), and then runs a
+ * velocity PID on that setpoint:
+ * </p>
+ *
+ * <pre>
+ * output = kFF * setpoint RPM + kP * (setpoint RPM - measured RPM) + kI * error accumulator
+ * </pre>
+ *
+ * <p>
+ * Within the allowed error of the reference, the setpoint goes to 0. Units are the same as
+ * REV's: encoder rotations and RPM, with gains in duty cycle per RPM. MotorSimModel calls
+ * calculate() every kLoopPeriodSeconds while the controller is enabled.
+ * </p>
+ */
+public class SparkMaxSmartMotionSim implements SimSnapshotInterface {
+  public static final double kLoopPeriodSeconds = 0.001;
+
+  private final double m_kp;
+  private final double m_ki;
+  private final double m_kff;
+  private final double m_maxVelocityRpm;
+  private final double m_maxAccelRpmPerSec;
+  private final double m_allowedErrorRotations;
+
+  private boolean m_isEnabled = false;
+  private double m_referenceRotations = 0;
+  private double m_setpointRpm = 0;
+  private double m_errorAccumulator = 0;
+  private double m_output = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param kp                    Duty cycle per RPM of velocity error
+   * @param ki                    Duty cycle per accumulated RPM of velocity error
+   * @param kff                   Duty cycle per RPM of velocity setpoint
+   * @param maxVelocityRpm        Smart Motion max velocity
+   * @param maxAccelRpmPerSec     Smart Motion max acceleration
+   * @param allowedErrorRotations Smart Motion allowed closed loop error
+   */
+  public SparkMaxSmartMotionSim(double kp,
+      double ki,
+      double kff,
+      double maxVelocityRpm,
+      double maxAccelRpmPerSec,
+      double allowedErrorRotations) {
+    if (maxVelocityRpm <= 0 || maxAccelRpmPerSec <= 0) {
+      throw new IllegalArgumentException("Smart Motion limits must be >0");
+    }
+
+    if (allowedErrorRotations < 0) {
+      throw new IllegalArgumentException("allowedErrorRotations must be >=0");
+    }
+
+    m_kp = kp;
+    m_ki = ki;
+    m_kff = kff;
+    m_maxVelocityRpm = maxVelocityRpm;
+    m_maxAccelRpmPerSec = maxAccelRpmPerSec;
+    m_allowedErrorRotations = allowedErrorRotations;
+  }
+
+  /**
+   * Same as SparkMaxPIDController.setReference() with kSmartMotion. The profile continues
+   * from the current setpoint velocity, so a new reference mid-move doesn't jerk the motor.
+   */
+  public void setReference(double rotations) {
+    if (!m_isEnabled) {
+      m_setpointRpm = 0;
+      m_errorAccumulator = 0;
+    }
+
+    m_referenceRotations = rotations;
+    m_isEnabled = true;
+  }
+
+  // Same as the SparkMax leaving closed loop mode, e.g. when set() is called on it
+  public void disable() {
+    m_isEnabled = false;
+    m_output = 0;
+  }
+
+  public boolean isEnabled() {
+    return m_isEnabled;
+  }
+
+  public double getReference() {
+    return m_referenceRotations;
+  }
+
+  // The reference while enabled, or NaN while disabled. This is everything robot code sets,
+  // as one number, so SimInputRecorder can record it every tick like a motor input.
+  public double getReferenceOrNaN() {
+    return m_isEnabled ? m_referenceRotations : Double.NaN;
+  }
+
+  /**
+   * Replays a value from getReferenceOrNaN(): setReference() with it, or disable() if NaN.
+   * Setting the same reference again doesn't restart the profile.
+   */
+  public void setReferenceOrDisable(double rotations) {
+    if (Double.isNaN(rotations)) {
+      disable();
+    }
+    else {
+      setReference(rotations);
+    }
+  }
+
+  public double getSetpointRpm() {
+    return m_setpointRpm;
+  }
+
+  // Duty cycle from the last loop, i.e. what the SparkMax reports as applied output
+  public double getOutput() {
+    return m_output;
+  }
+
+  /**
+   * Runs one loop of the controller, and returns the duty cycle to apply until the next one.
+   *
+   * @param positionRotations Measured encoder position
+   * @param velocityRpm       Measured encoder velocity
+   * @param dtSeconds         Time since the last loop
+   */
+  public double calculate(double positionRotations, double velocityRpm, double dtSeconds) {
+    if (!m_isEnabled) {
+      return 0;
+    }
+
+    double error = m_referenceRotations - positionRotations;
+    double targetRpm = 0;
+    if (Math.abs(error) > m_allowedErrorRotations) {
+      // Fastest speed that can still decelerate to a stop at the reference
+      double stoppingRpm = Math.sqrt(2 * (m_maxAccelRpmPerSec / 60) * Math.abs(error)) * 60;
+      targetRpm = Math.copySign(Math.min(m_maxVelocityRpm, stoppingRpm), error);
+    }
+
+    double maxChangeRpm = m_maxAccelRpmPerSec * dtSeconds;
+    m_setpointRpm += MathUtil.clamp(targetRpm - m_setpointRpm, -maxChangeRpm, maxChangeRpm);
+
+    double velocityError = m_setpointRpm - velocityRpm;
+    m_errorAccumulator += velocityError;
+
+    m_output = MathUtil.clamp(m_kff * m_setpointRpm + m_kp * velocityError
+        + m_ki * m_errorAccumulator, -1, 1);
+    return m_output;
+  }
+
+  // The reference comes from robot code, like a motor input, so only the profile is saved
+  @Override
+  public int getSnapshotSizeBytes() {
+    return 2 * Double.BYTES;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_setpointRpm);
+    buffer.putDouble(m_errorAccumulator);
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_setpointRpm = buffer.getDouble();
+    m_errorAccumulator = buffer.getDouble();
+  }
+}
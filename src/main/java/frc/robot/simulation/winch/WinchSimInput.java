@@ -1,12 +1,12 @@
 package frc.robot.simulation.winch;
 
-import frc.robot.simulation.framework.SimInputInterface;
+import frc.robot.simulation.framework.DoubleSimInput;
 import frc.robot.subsystems.RelativeEncoderSim;
 
 /**
  * Winch input is the number of rotations on winch motor encoder.
  */
-public class WinchSimInput implements SimInputInterface<Double> {
+public class WinchSimInput implements DoubleSimInput {
   private final RelativeEncoderSim m_encoderRealWrapper;
 
   /**
@@ -21,7 +21,7 @@ public class WinchSimInput implements SimInputInterface<Double> {
   }
 
   @Override
-  public Double getInput() {
+  public double getInput() {
     return m_encoderRealWrapper.getPosition();
   }
 }
@@ -1,13 +1,16 @@
 package frc.robot.simulation.winch;
 
-import frc.robot.simulation.framework.SimManagerBase;
+import frc.robot.simulation.framework.DoubleInputSimManager;
+import frc.robot.simulation.framework.SimSnapshotInterface;
 import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import java.nio.ByteBuffer;
 
 /**
  * Simulates a winch. The winch depends on a motor (not part of this particular simulation),
  * and outputs the length of the string.
  */
-public class WinchSimManager extends SimManagerBase<Double, WinchState> {
+public class WinchSimManager extends DoubleInputSimManager<WinchState>
+    implements SimSnapshotInterface {
   private final WinchSimModel m_model;
 
   /**
@@ -19,22 +22,37 @@ public class WinchSimManager extends SimManagerBase<Double, WinchState> {
       WindingOrientation initialWindingOrientation,
       boolean invertMotor) {
 
+    super(() -> new WinchState(totalStringLenMeters));
+
     m_model = new WinchSimModel(spoolDiameterMeters, totalStringLenMeters, initialLenSpooled,
         initialWindingOrientation, invertMotor);
   }
 
+  // The published output isn't saved; it's refreshed on the next tick after a restore
+  @Override
+  public int getSnapshotSizeBytes() {
+    return m_model.getSnapshotSizeBytes();
+  }
+
   @Override
-  protected WinchState doSimulation(Double winchMotorEncoderRotations) {
+  public void writeSnapshot(ByteBuffer buffer) {
+    m_model.writeSnapshot(buffer);
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_model.readSnapshot(buffer);
+  }
+
+  @Override
+  protected void doSimulation(double winchMotorEncoderRotations, WinchState output) {
     // No need to call super, since it's abstract class and doesn't
     // implement doSimulation()
 
     m_model.updateNewLenSpooled(winchMotorEncoderRotations);
 
-    WinchState result = new WinchState(m_model.getTotalStringLenMeters());
-    result.setStringUnspooledLen(m_model.getStringUnspooledLen());
-    result.setWindingOrientation(m_model.getWindingOrientation());
-    result.setIsBroken(m_model.getIsBroken());
-
-    return result;
+    output.setStringUnspooledLen(m_model.getStringUnspooledLen());
+    output.setWindingOrientation(m_model.getWindingOrientation());
+    output.setIsBroken(m_model.getIsBroken());
   }
 }
@@ -1,5 +1,8 @@
 package frc.robot.simulation.winch;
 
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import java.nio.ByteBuffer;
+
 /**
  * Simulates a winch with a spool and a string. The string can be extended and retracted,
  * and it can be positioned either at the front or the back of a robot.
@@ -17,7 +20,7 @@ package frc.robot.simulation.winch;
  * Winding orientation - Whether string is coming off the top of the spool or the bottom
  * </p>
  */
-public class WinchSimModel {
+public class WinchSimModel implements SimSnapshotInterface {
   /**
    * The WindingOrientation enum represents the orientation of the string.
    * If the string is towards the back of the robot, then we represent as BackOfRobot.
@@ -174,4 +177,25 @@ public class WinchSimModel {
 
     m_currentLenSpooled = newCurrentLenSpooled;
   }
+
+  @Override
+  public int getSnapshotSizeBytes() {
+    return 2 * Double.BYTES + 2;
+  }
+
+  @Override
+  public void writeSnapshot(ByteBuffer buffer) {
+    buffer.putDouble(m_currentLenSpooled);
+    buffer.putDouble(m_initialMotorRotations);
+    buffer.put((byte) (m_isBroken ? 1 : 0));
+    buffer.put((byte) (m_isInitialMotorRotationsSet ? 1 : 0));
+  }
+
+  @Override
+  public void readSnapshot(ByteBuffer buffer) {
+    m_currentLenSpooled = buffer.getDouble();
+    m_initialMotorRotations = buffer.getDouble();
+    m_isBroken = buffer.get() != 0;
+    m_isInitialMotorRotationsSet = buffer.get() != 0;
+  }
 }
@@ -1,11 +1,12 @@
 package frc.robot.simulation.winch;
 
+import frc.robot.simulation.framework.CopyableState;
 import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
 
 /**
  * Holds the outputed state of the winch.
  */
-public class WinchState {
+public class WinchState implements CopyableState<WinchState> {
   private final double m_totalStringLenMeters;
   private double m_stringUnspooledLen;
   private WindingOrientation m_windingOrientation;
@@ -61,6 +62,7 @@ public class WinchState {
   /**
    * Copy to another instance of WinchState.
    */
+  @Override
   public void copyFrom(WinchState other) {
     if (other == null) {
       throw new IllegalArgumentException("other cannot be null");
@@ -5,8 +5,12 @@ import com.revrobotics.CANSparkMax;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.LoopProfiler;
 
 public class ActiveIntakeSystem extends SubsystemBase {
+  private static final int kPeriodicSection =
+      LoopProfiler.addSection("ActiveIntakeSystem.periodic");
+
   private CANSparkMax m_activeIntakeMotor1;
   private CANSparkMax m_activeIntakeMotor2;
   private XboxController m_controller;
@@ -22,6 +26,7 @@ public class ActiveIntakeSystem extends SubsystemBase {
 
   @Override
   public void periodic() {
+    LoopProfiler.startSection();
     if (m_controller.getAButton()) {
       m_activeIntakeMotor1.set(0.2);
       m_activeIntakeMotor2.set(0.2);
@@ -29,5 +34,6 @@ public class ActiveIntakeSystem extends SubsystemBase {
       m_activeIntakeMotor1.set(-0.2);
       m_activeIntakeMotor2.set(-0.2);
     }
+    LoopProfiler.endSection(kPeriodicSection);
   }
 }
@@ -0,0 +1,49 @@
+package frc.robot.subsystems;
+
+/**
+ * The arm's sensor readings for one loop. ArmSystem.refreshSensors() reads every arm sensor
+ * into it once at the start of the loop, and the ArmSystem getters return these values, so
+ * commands don't go back to the devices (JNI/CAN) and all see the same values within a tick.
+ */
+public class ArmSensorSnapshot {
+  private double m_winchAbsolutePosition;
+  private double m_winchPosition;
+  private double m_extenderPosition;
+  private boolean m_hallEffect;
+
+  // Winch absolute encoder, in rotations (0 if it is unplugged)
+  public double getWinchAbsolutePosition() {
+    return m_winchAbsolutePosition;
+  }
+
+  // Winch motor encoder, in motor rotations
+  public double getWinchPosition() {
+    return m_winchPosition;
+  }
+
+  // Extender motor encoder, in motor rotations
+  public double getExtenderPosition() {
+    return m_extenderPosition;
+  }
+
+  // Raw hall effect sensor (false when the extender is fully retracted)
+  public boolean getHallEffect() {
+    return m_hallEffect;
+  }
+
+  void setWinchAbsolutePosition(double winchAbsolutePosition) {
+    m_winchAbsolutePosition = winchAbsolutePosition;
+  }
+
+  void setWinchPosition(double winchPosition) {
+    m_winchPosition = winchPosition;
+  }
+
+  void setExtenderPosition(double extenderPosition) {
+    m_extenderPosition = extenderPosition;
+  }
+
+  void setHallEffect(boolean hallEffect) {
+    m_hallEffect = hallEffect;
+  }
+}
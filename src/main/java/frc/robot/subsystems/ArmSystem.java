@@ -1,10 +1,12 @@
 package frc.robot.subsystems;
 
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMax.SoftLimitDirection;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
@@ -13,12 +15,24 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.LoopProfiler;
+import frc.robot.RobotLogger;
+import frc.robot.Telemetry;
 
 /**
  * The class is responsible for managing the arm subsystem
  * which includes a winch and an extender.
  */
 public class ArmSystem extends SubsystemBase {
+  private static final int kPeriodicSection = LoopProfiler.addSection("ArmSystem.periodic");
+  private static final RobotLogger.Site kInvalidWinchSpeedLog = RobotLogger.createSite(
+      "**** setWinchSpeed() called with invalid speed: %s", 1.0);
+  private static final RobotLogger.Site kInvalidExtenderSpeedLog = RobotLogger.createSite(
+      "**** setExtenderSpeed() called with invalid speed: %s", 1.0);
+
+  // Smart Motion settings go in this PID slot
+  private static final int kExtenderPidSlot = 0;
+
   private XboxController m_controller;
   private double m_maxOutputWinch;
 
@@ -29,6 +43,26 @@ public class ArmSystem extends SubsystemBase {
   protected DutyCycleEncoder m_winchAbsoluteEncoder;
   protected RelativeEncoder m_winchEncoder;
   protected RelativeEncoder m_extenderEncoder;
+  protected SparkMaxPIDController m_extenderPidController;
+  private double m_extenderTargetRotations = 0;
+  private boolean m_isExtenderClosedLoop = false;
+  private final ArmSensorSnapshot m_sensors = new ArmSensorSnapshot();
+
+  // Dashboard. Robot publishes the absolute winch encoder's reading at teleopInit, into the
+  // same entry.
+  public static final String kWinchAbsolutePositionKey = "Winch Absolute Encoder Position";
+  private final Telemetry.DoubleEntry m_winchEncoderTelemetry =
+      Telemetry.addDouble("Winch Encoder", 0.001, Telemetry.kSensorRateHz);
+  private final Telemetry.DoubleEntry m_extenderEncoderTelemetry =
+      Telemetry.addDouble("Extender Encoder", 0.01, Telemetry.kSensorRateHz);
+  private final Telemetry.DoubleEntry m_maxOutputWinchTelemetry =
+      Telemetry.addDouble("Winch Max Output", 0, 0);
+  private final Telemetry.DoubleEntry m_winchAbsolutePositionTelemetry =
+      Telemetry.addDouble(kWinchAbsolutePositionKey, 0.001, Telemetry.kSensorRateHz);
+  private final Telemetry.BooleanEntry m_hallEffectTelemetry =
+      Telemetry.addBoolean("Hall Effect Sensor Output", Telemetry.kSensorRateHz);
+  private final Telemetry.BooleanEntry m_winchAbsoluteConnectedTelemetry =
+      Telemetry.addBoolean("Winch Absolute Encoder", Telemetry.kHealthRateHz);
 
   /**
    * Constructor.
@@ -57,28 +91,46 @@ public class ArmSystem extends SubsystemBase {
 
     m_armWinch.setIdleMode(IdleMode.kBrake);
     m_armExtender.setIdleMode(IdleMode.kBrake);
+    configureExtenderPid();
+
+    refreshSensors();
+  }
+
+  /**
+   * Reads every arm sensor once. Called at the start of each loop, before the scheduler
+   * runs; the getters return these values until the next call.
+   */
+  public void refreshSensors() {
+    m_sensors.setWinchAbsolutePosition(m_winchAbsoluteEncoder.getAbsolutePosition());
+    m_sensors.setWinchPosition(m_winchEncoder.getPosition());
+    m_sensors.setExtenderPosition(m_extenderEncoder.getPosition());
+    m_sensors.setHallEffect(m_sensor.get());
+  }
+
+  public ArmSensorSnapshot getSensors() {
+    return m_sensors;
   }
 
   /**
    * Initialize the values to display on the dashboard.
    */
   public void initDashBoard() {
-    SmartDashboard.putNumber("Winch Encoder", m_winchEncoder.getPosition());
-    SmartDashboard.putNumber("Extender Encoder", m_extenderEncoder.getPosition());
-    SmartDashboard.putNumber("Winch Max Output", m_maxOutputWinch);
+    m_winchEncoderTelemetry.set(m_sensors.getWinchPosition());
+    m_extenderEncoderTelemetry.set(m_sensors.getExtenderPosition());
+    m_maxOutputWinchTelemetry.set(m_maxOutputWinch);
   }
 
   /**
    * Update the values displayed on the dashboard.
    */
   public void updateDashBoard() {
-    SmartDashboard.putNumber("Winch Encoder", m_winchEncoder.getPosition());
-    SmartDashboard.putNumber("Extender Encoder", m_extenderEncoder.getPosition());
+    m_winchEncoderTelemetry.set(m_sensors.getWinchPosition());
+    m_extenderEncoderTelemetry.set(m_sensors.getExtenderPosition());
     m_maxOutputWinch = SmartDashboard.getNumber("Winch Max Output", m_maxOutputWinch);
   }
 
   public double getWinchAbsoluteEncoder() {
-    return m_winchAbsoluteEncoder.getAbsolutePosition();
+    return m_sensors.getWinchAbsolutePosition();
   }
 
   /**
@@ -86,9 +138,8 @@ public class ArmSystem extends SubsystemBase {
    * $TODO - Should this be in updateDashboard?
    */
   public void putSensorOutputs() {
-    SmartDashboard.putNumber("Winch Absolute Encoder Position",
-        m_winchAbsoluteEncoder.getAbsolutePosition());
-    SmartDashboard.putBoolean("Hall Effect Sensor Output", getDigitalSensor());
+    m_winchAbsolutePositionTelemetry.set(m_sensors.getWinchAbsolutePosition());
+    m_hallEffectTelemetry.set(getDigitalSensor());
   }
 
   /**
@@ -107,31 +158,36 @@ public class ArmSystem extends SubsystemBase {
 
   @Override
   public void periodic() {
-    Double winchAbsoluteEncoder = Double.valueOf(getWinchAbsoluteEncoder());
+    LoopProfiler.startSection();
+    double winchAbsoluteEncoder = getWinchAbsoluteEncoder();
 
     // $TODO - This should be in init or update DashBoard?
-    SmartDashboard.putBoolean("Winch Absolute Encoder", !(winchAbsoluteEncoder == 0.0));
+    m_winchAbsoluteConnectedTelemetry.set(winchAbsoluteEncoder != 0.0);
+    LoopProfiler.endSection(kPeriodicSection);
   }
 
   public void resetEncoders() {
-    m_winchEncoder.setPosition(0);
-    m_extenderEncoder.setPosition(0);
+    resetWinchEncoder();
+    resetExtenderEncoder();
   }
 
+  // Also zeroes the snapshot, since the encoder may not report the new position until later
   public void resetWinchEncoder() {
     m_winchEncoder.setPosition(0);
+    m_sensors.setWinchPosition(0);
   }
 
   public void resetExtenderEncoder() {
     m_extenderEncoder.setPosition(0);
+    m_sensors.setExtenderPosition(0);
   }
 
   public Double getWinchEncoder() {
-    return m_winchEncoder.getPosition();
+    return m_sensors.getWinchPosition();
   }
 
   public Double getExtenderEncoder() {
-    return m_extenderEncoder.getPosition();
+    return m_sensors.getExtenderPosition();
   }
 
   /**
@@ -139,7 +195,7 @@ public class ArmSystem extends SubsystemBase {
    */
   public void setWinchSpeed(double speed) {
     if (speed > 1 || speed < -1) {
-      System.out.println("**** setWinchSpeed() called with invalid speed: " + speed);
+      RobotLogger.log(kInvalidWinchSpeedLog, speed);
     }
 
     m_armWinch.set(speed);
@@ -150,18 +206,62 @@ public class ArmSystem extends SubsystemBase {
    */
   public void setExtenderSpeed(double speed) {
     if (speed > 1 || speed < -1) {
-      System.out.println("**** setExtenderSpeed() called with invalid speed: " + speed);
+      RobotLogger.log(kInvalidExtenderSpeedLog, speed);
     }
 
+    m_isExtenderClosedLoop = false;
     m_armExtender.set(speed);
   }
 
+  /**
+   * Sends the extender to a position, in encoder rotations, using Smart Motion on the
+   * SparkMax. The setpoint is only sent once: the SparkMax runs the motion profile and the
+   * control loop itself at 1kHz, until setExtenderSpeed() is called. Use
+   * isExtenderAtPosition() to tell when it has arrived.
+   */
+  public void setExtenderPosition(double rotations) {
+    m_extenderTargetRotations = rotations;
+    m_isExtenderClosedLoop = true;
+    m_extenderPidController.setReference(rotations, ControlType.kSmartMotion,
+        kExtenderPidSlot);
+  }
+
+  /**
+   * Returns true once the extender encoder is within kExtenderAllowedErrorRotations of the
+   * position sent by setExtenderPosition(). Always false when the extender is running open
+   * loop.
+   */
+  public boolean isExtenderAtPosition() {
+    return m_isExtenderClosedLoop
+        && Math.abs(getExtenderEncoder() - m_extenderTargetRotations)
+            <= Constants.OperatorConstants.kExtenderAllowedErrorRotations;
+  }
+
+  // The robot's extender encoder is the motor's own. ArmSystemSim's counts gearbox output
+  // rotations instead.
+  public double getExtenderMotorRotationsPerEncoderRotation() {
+    return 1;
+  }
+
+  public boolean isExtenderClosedLoop() {
+    return m_isExtenderClosedLoop;
+  }
+
+  public double getExtenderTargetRotations() {
+    return m_extenderTargetRotations;
+  }
+
+  // Winch output that holds the arm level, for MoveWinchToAngle's gravity feedforward
+  public double getWinchGravityFeedforward() {
+    return Constants.OperatorConstants.kWinchGravityFeedforward;
+  }
+
   public double getLeftAxis() {
     return m_controller.getLeftY();
   }
 
   public boolean getDigitalSensor() {
-    return m_sensor.get();
+    return m_sensors.getHallEffect();
   }
 
   /**
@@ -174,6 +274,23 @@ public class ArmSystem extends SubsystemBase {
     resetExtenderEncoder();
   }
 
+  // The SparkMax keeps these, so they only need to be sent once
+  private void configureExtenderPid() {
+    m_extenderPidController = m_armExtender.getPIDController();
+    m_extenderPidController.setP(Constants.OperatorConstants.kExtenderP, kExtenderPidSlot);
+    m_extenderPidController.setI(Constants.OperatorConstants.kExtenderI, kExtenderPidSlot);
+    m_extenderPidController.setD(0, kExtenderPidSlot);
+    m_extenderPidController.setFF(Constants.OperatorConstants.kExtenderFF, kExtenderPidSlot);
+    m_extenderPidController.setOutputRange(-1, 1, kExtenderPidSlot);
+    m_extenderPidController.setSmartMotionMaxVelocity(
+        Constants.OperatorConstants.kExtenderMaxVelocityRpm, kExtenderPidSlot);
+    m_extenderPidController.setSmartMotionMaxAccel(
+        Constants.OperatorConstants.kExtenderMaxAccelRpmPerSec, kExtenderPidSlot);
+    m_extenderPidController.setSmartMotionMinOutputVelocity(0, kExtenderPidSlot);
+    m_extenderPidController.setSmartMotionAllowedClosedLoopError(
+        Constants.OperatorConstants.kExtenderAllowedErrorRotations, kExtenderPidSlot);
+  }
+
   private void processJoystickInputForArm() {
     double winchOutput = MathUtil.applyDeadband(-m_controller.getLeftY(),
         Constants.OperatorConstants.kDeadband);
@@ -186,11 +303,12 @@ public class ArmSystem extends SubsystemBase {
     double winchUpperLimit = Constants.OperatorConstants.kWinchEncoderUpperLimit;
     double winchLowerLimit = Constants.OperatorConstants.kWinchEncoderLowerLimit;
 
-    if (getWinchAbsoluteEncoder() != 0.0) {
-      if (getWinchAbsoluteEncoder() >= winchUpperLimit && winchOutput > 0) {
+    double winchAbsoluteEncoder = getWinchAbsoluteEncoder();
+    if (winchAbsoluteEncoder != 0.0) {
+      if (winchAbsoluteEncoder >= winchUpperLimit && winchOutput > 0) {
         m_armWinch.set(0);
       }
-      else if (getWinchAbsoluteEncoder() <= winchLowerLimit && winchOutput < 0) {
+      else if (winchAbsoluteEncoder <= winchLowerLimit && winchOutput < 0) {
         m_armWinch.set(0);
       }
       else {
@@ -202,12 +320,13 @@ public class ArmSystem extends SubsystemBase {
     }
 
     // $TODO - For simulation, test that smart limits actually work when I set a value on SparkMax
-    if (getExtenderEncoder() <= Constants.OperatorConstants.kExtenderSoftLimitTurns
+    double extenderEncoder = m_sensors.getExtenderPosition();
+    if (extenderEncoder <= Constants.OperatorConstants.kExtenderSoftLimitTurns
         && extenderOutput < 0) {
-      m_armExtender.set(0);
+      setExtenderSpeed(0);
     }
-    else if (getExtenderEncoder() > 0 && extenderOutput > 0) {
-      m_armExtender.set(0);
+    else if (extenderEncoder > 0 && extenderOutput > 0) {
+      setExtenderSpeed(0);
     }
     else {
       setExtenderSpeed(extenderOutput);
@@ -1,23 +1,31 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.RobotState;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.simulation.DIOSim;
 import edu.wpi.first.wpilibj.simulation.DutyCycleEncoderSim;
 import frc.robot.Constants;
+import frc.robot.PackedTelemetry;
 import frc.robot.simulation.ArmSimulation;
 import frc.robot.simulation.ArmSimulationParams;
 import frc.robot.simulation.ExtenderSimulation;
-import frc.robot.simulation.framework.SimManagerInterface;
+import frc.robot.simulation.framework.DoubleSimInput;
+import frc.robot.simulation.framework.SimGraph;
+import frc.robot.simulation.framework.SimInputRecorder;
+import frc.robot.simulation.framework.SimInputReplay;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
 import frc.robot.simulation.motor.MotorSimManager;
 import frc.robot.simulation.motor.MotorSimOutput;
 import frc.robot.simulation.motor.MotorSparkMaxSimInput;
+import frc.robot.simulation.motor.SparkMaxSmartMotionSim;
 import frc.robot.simulation.winch.WinchSimInput;
 import frc.robot.simulation.winch.WinchSimManager;
 import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
 import frc.robot.simulation.winch.WinchSimOutput;
 import frc.robot.simulation.winch.WinchState;
+import java.util.List;
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 
@@ -26,21 +34,54 @@ import java.util.function.DoubleSupplier;
  * the robot is not running in simulation mode.
  */
 public class ArmSystemSim extends ArmSystem {
+  public static final String kWinchMotorSimNode = "Arm/WinchMotor";
+  public static final String kExtenderMotorSimNode = "Arm/ExtenderMotor";
+  public static final String kWinchSimNode = "Arm/Winch";
+  public static final String kExtenderSimNode = "Arm/Extender";
+  public static final String kArmSimNode = "Arm/Arm";
+  public static final String kSensorSimNode = "Arm/Sensor";
+  public static final String kExtenderSmartMotionChannel = "Arm/ExtenderSmartMotion";
+
+  // Schema of the packed "Telemetry/Arm" topic: the index of each field
+  public static final int kTelemetryArmDegrees = 0;
+  public static final int kTelemetryArmBroken = 1;
+  public static final int kTelemetryGrabberOpen = 2;
+  public static final int kTelemetryWinchAbsolutePosition = 3;
+  public static final int kTelemetryStringUnspooledMeters = 4;
+  public static final int kTelemetryStringUnspooledPercent = 5;
+  public static final int kTelemetryWindingOrientation = 6;
+  public static final int kTelemetryWinchBroken = 7;
+  public static final int kTelemetryWinchPower = 8;
+  public static final int kTelemetryExtenderMeters = 9;
+  public static final int kTelemetryExtenderPercent = 10;
+  public static final int kTelemetryExtenderBroken = 11;
+  public static final int kTelemetryExtenderPower = 12;
+  public static final int kTelemetryExtenderSensor = 13;
+
+  private static final String[] kTelemetryFields = {"armDegrees", "armBroken", "grabberOpen",
+      "winchAbsolutePosition", "stringUnspooledMeters", "stringUnspooledPercent",
+      "windingOrientation", "winchBroken", "winchPower", "extenderMeters", "extenderPercent",
+      "extenderBroken", "extenderPower", "extenderSensor"};
+
   private DutyCycleEncoderSim m_winchAbsoluteEncoderSim;
 
   private RelativeEncoderSim m_winchEncoderSim;
-  private SimManagerInterface<Double, Double> m_winchMotorSimManager;
-  private SimManagerInterface<Double, WinchState> m_winchSimManager;
+  private MotorSimManager m_winchMotorSimManager;
+  private WinchSimManager m_winchSimManager;
   protected WinchState m_winchState;
 
   private RelativeEncoderSim m_extenderEncoderSim;
-  private SimManagerInterface<Double, Double> m_extenderMotorSimManager;
+  private MotorSimManager m_extenderMotorSimManager;
+  protected SparkMaxSmartMotionSim m_extenderSmartMotionSim = null;
+  private boolean m_isReplayingSmartMotion = false;
   protected ExtenderSimulation m_extenderSimulation;
 
   protected DIOSim m_sensorSim;
 
   protected ArmSimulation m_armSimulation;
 
+  protected PackedTelemetry m_telemetry = null;
+
   /**
    * Creates an instance of the ArmSystem or ArmSystemSim class.
    */
@@ -102,6 +143,30 @@ public class ArmSystemSim extends ArmSystem {
 
     m_armSimulation = new ArmSimulation(stringUnspooledLenSupplier, m_winchAbsoluteEncoderSim,
         armParams);
+
+    m_telemetry = new PackedTelemetry("Arm", kTelemetryFields);
+  }
+
+  private static SimStepper createStepper() {
+    return Constants.SimConstants.ksimUseElapsedTime ? new SimStepper(Timer::getFPGATimestamp)
+        : new SimStepper();
+  }
+
+  /**
+   * Creates the extender's emulated Smart Motion controller, with the robot's settings. The
+   * simulated encoder counts gearbox output rotations, not motor rotations, so the gains (duty
+   * cycle per RPM) are scaled up by the gear ratio, and the velocity and acceleration limits
+   * scaled down by it. Otherwise the cruise velocity asks for more than the NEO's free speed.
+   */
+  public static SparkMaxSmartMotionSim createExtenderSmartMotionSim() {
+    double gearRatio = Constants.SimConstants.kextenderSimGearRatio;
+    return new SparkMaxSmartMotionSim(
+        Constants.OperatorConstants.kExtenderP * gearRatio,
+        Constants.OperatorConstants.kExtenderI * gearRatio,
+        Constants.OperatorConstants.kExtenderFF * gearRatio,
+        Constants.OperatorConstants.kExtenderMaxVelocityRpm / gearRatio,
+        Constants.OperatorConstants.kExtenderMaxAccelRpmPerSec / gearRatio,
+        Constants.OperatorConstants.kExtenderAllowedErrorRotations);
   }
 
   private void createWinchSimParts() {
@@ -111,7 +176,8 @@ public class ArmSystemSim extends ArmSystem {
     m_winchState = new WinchState(Constants.SimConstants.kTotalStringLenMeters);
 
     // Create the motor simulation for the winch motor
-    m_winchMotorSimManager = new MotorSimManager(Constants.SimConstants.kwinchSimGearRatio);
+    m_winchMotorSimManager = new MotorSimManager(Constants.SimConstants.kwinchSimGearRatio,
+        createStepper());
     m_winchMotorSimManager.setInputHandler(new MotorSparkMaxSimInput(m_armWinch));
     m_winchMotorSimManager.setOutputHandler(new MotorSimOutput(m_winchEncoderSim));
 
@@ -127,19 +193,103 @@ public class ArmSystemSim extends ArmSystem {
     m_extenderEncoderSim = new RelativeEncoderSim(m_extenderEncoder);
 
     // Create the motor simulation for the extender motor
-    m_extenderMotorSimManager = new MotorSimManager(Constants.SimConstants.kextenderSimGearRatio);
+    m_extenderMotorSimManager = new MotorSimManager(
+        Constants.SimConstants.kextenderSimGearRatio, createStepper());
     m_extenderMotorSimManager.setInputHandler(new MotorSparkMaxSimInput(m_armExtender));
     m_extenderMotorSimManager.setOutputHandler(new MotorSimOutput(m_extenderEncoderSim));
 
+    m_extenderSmartMotionSim = createExtenderSmartMotionSim();
+    m_extenderMotorSimManager.setSmartMotion(m_extenderSmartMotionSim);
+
     m_extenderSimulation = new ExtenderSimulation(m_extenderEncoderSim,
         Constants.SimConstants.kcylinderDiameterMeters,
         Constants.SimConstants.kTotalExtenderLenMeters, Constants.SimConstants.kInitialExtendedLen,
         true);
   }
 
-  // $TODO Get rid of isRobotEnabled
-  private boolean isRobotEnabled() {
-    return RobotState.isEnabled();
+  /**
+   * Records the winch and extender motor inputs, so the session can be replayed later. The
+   * extender's Smart Motion reference (NaN while it is off) is recorded on its own channel,
+   * every time the extender motor input is read.
+   */
+  public void recordInputs(SimInputRecorder recorder) {
+    m_winchMotorSimManager.setInputHandler(recorder.wrap(kWinchMotorSimNode,
+        new MotorSparkMaxSimInput(m_armWinch)));
+
+    DoubleSimInput smartMotionInput = recorder.wrap(kExtenderSmartMotionChannel,
+        m_extenderSmartMotionSim::getReferenceOrNaN);
+    DoubleSimInput extenderInput = recorder.wrap(kExtenderMotorSimNode,
+        new MotorSparkMaxSimInput(m_armExtender));
+    m_extenderMotorSimManager.setInputHandler(() -> {
+      smartMotionInput.getInput();
+      return extenderInput.getInput();
+    });
+  }
+
+  /**
+   * Drives the winch and extender motors from a recorded session, instead of the motor
+   * controllers. With ksimUseElapsedTime, the motors also advance by the recorded time
+   * between samples, rather than by however long each replayed loop took.
+   */
+  public void replayInputs(SimInputReplay replay) {
+    m_winchMotorSimManager.setInputHandler(replay.getInput(kWinchMotorSimNode));
+
+    // The recorded Smart Motion reference drives the controller, not robot code
+    DoubleSimInput extenderInput = replay.getInput(kExtenderMotorSimNode);
+    if (replay.hasChannel(kExtenderSmartMotionChannel)) {
+      DoubleSimInput smartMotionInput = replay.getInput(kExtenderSmartMotionChannel);
+      m_isReplayingSmartMotion = true;
+      m_extenderMotorSimManager.setInputHandler(() -> {
+        m_extenderSmartMotionSim.setReferenceOrDisable(smartMotionInput.getInput());
+        return extenderInput.getInput();
+      });
+    }
+    else {
+      m_extenderMotorSimManager.setInputHandler(extenderInput);
+    }
+
+    if (Constants.SimConstants.ksimUseElapsedTime) {
+      m_winchMotorSimManager.getStepper().setClock(replay.getClock(kWinchMotorSimNode));
+      m_extenderMotorSimManager.getStepper().setClock(replay.getClock(kExtenderMotorSimNode));
+    }
+  }
+
+  @Override
+  public void setExtenderPosition(double rotations) {
+    super.setExtenderPosition(rotations);
+
+    if (m_extenderSmartMotionSim != null && !m_isReplayingSmartMotion) {
+      m_extenderSmartMotionSim.setReference(rotations);
+    }
+  }
+
+  @Override
+  public void setExtenderSpeed(double speed) {
+    super.setExtenderSpeed(speed);
+
+    if (m_extenderSmartMotionSim != null && !m_isReplayingSmartMotion) {
+      m_extenderSmartMotionSim.disable();
+    }
+  }
+
+  @Override
+  public double getExtenderMotorRotationsPerEncoderRotation() {
+    return Constants.SimConstants.kextenderSimGearRatio;
+  }
+
+  // What the extender motor is driven with, whether open loop or by Smart Motion
+  public double getExtenderAppliedOutput() {
+    if (m_extenderSmartMotionSim != null && m_extenderSmartMotionSim.isEnabled()) {
+      return m_extenderSmartMotionSim.getOutput();
+    }
+
+    return m_armExtender.get();
+  }
+
+  // The simulated winch turns freely: the arm's weight doesn't load it
+  @Override
+  public double getWinchGravityFeedforward() {
+    return 0;
   }
 
   public void setGrabberOpenSupplier(BooleanSupplier grabberOpenSupplier) {
@@ -149,25 +299,79 @@ public class ArmSystemSim extends ArmSystem {
   @Override
   public void periodic() {
     super.periodic();
+
+    if (m_telemetry != null) {
+      updateTelemetry();
+      m_telemetry.publish();
+    }
   }
 
-  @Override
-  public void simulationPeriodic() {
-    super.simulationPeriodic();
+  // Fills in every field of the packed telemetry from the current state
+  private void updateTelemetry() {
+    m_telemetry.set(kTelemetryArmDegrees, m_armSimulation.getCurrentSignedDegrees());
+    m_telemetry.set(kTelemetryArmBroken, m_armSimulation.getIsBroken());
+    m_telemetry.set(kTelemetryGrabberOpen, m_armSimulation.getGrabberOpen());
+    m_telemetry.set(kTelemetryWinchAbsolutePosition, getWinchAbsoluteEncoder());
+
+    m_telemetry.set(kTelemetryStringUnspooledMeters, m_winchState.getStringUnspooledLen());
+    m_telemetry.set(kTelemetryStringUnspooledPercent, m_winchState.getStringUnspooledPercent());
+    m_telemetry.set(kTelemetryWindingOrientation,
+        m_winchState.getWindingOrientation().ordinal());
+    m_telemetry.set(kTelemetryWinchBroken, m_winchState.getIsBroken());
+    m_telemetry.set(kTelemetryWinchPower, m_armWinch.get());
+
+    m_telemetry.set(kTelemetryExtenderMeters, m_extenderSimulation.getExtendedLen());
+    m_telemetry.set(kTelemetryExtenderPercent, m_extenderSimulation.getExtendedPercent());
+    m_telemetry.set(kTelemetryExtenderBroken, m_extenderSimulation.getIsBroken());
+    m_telemetry.set(kTelemetryExtenderPower, getExtenderAppliedOutput());
+    m_telemetry.set(kTelemetryExtenderSensor, !m_sensorSim.getValue());
+  }
+
+  public PackedTelemetry getTelemetry() {
+    return m_telemetry;
+  }
+
+  /**
+   * Registers the arm simulation into the robot's SimGraph. The graph steps these in
+   * dependency order, and freezes them when the robot is disabled.
+   */
+  public void registerSimNodes(SimGraph simGraph) {
+    if (Constants.SimConstants.ksimStageTimingEnabled) {
+      m_winchMotorSimManager.enableStageTiming(kWinchMotorSimNode);
+      m_extenderMotorSimManager.enableStageTiming(kExtenderMotorSimNode);
+      m_winchSimManager.enableStageTiming(kWinchSimNode);
+    }
 
-    // When Robot is disabled, the entire simulation freezes
-    if (isRobotEnabled()) {
+    if (Constants.SimConstants.ksimStepperStatsEnabled) {
+      m_winchMotorSimManager.getStepper().enablePublishing(kWinchMotorSimNode);
+      m_extenderMotorSimManager.getStepper().enablePublishing(kExtenderMotorSimNode);
+    }
 
-      m_winchMotorSimManager.simulationPeriodic();
-      m_extenderMotorSimManager.simulationPeriodic();
-      m_winchSimManager.simulationPeriodic();
+    simGraph.addManager(kWinchMotorSimNode, m_winchMotorSimManager);
+    simGraph.addManager(kExtenderMotorSimNode, m_extenderMotorSimManager);
+    simGraph.addManager(kWinchSimNode, m_winchSimManager, kWinchMotorSimNode);
 
-      m_extenderSimulation.simulationPeriodic();
-      m_armSimulation.simulationPeriodic();
+    simGraph.addNode(kExtenderSimNode, m_extenderSimulation::simulationPeriodic,
+        kExtenderMotorSimNode);
+    simGraph.addNode(kArmSimNode, m_armSimulation::simulationPeriodic, kWinchSimNode);
 
+    simGraph.addNode(kSensorSimNode, () -> {
       boolean isExtenderSensorOn = m_extenderSimulation
           .getExtendedLen() <= Constants.SimConstants.kextenderFullyRetractedLen;
       m_sensorSim.setValue(!isExtenderSensorOn);
-    }
+    }, kExtenderSimNode);
+  }
+
+  /**
+   * Adds every arm simulation model that has state, so the whole arm can be saved and
+   * restored together.
+   */
+  public void addSnapshotParts(List<SimSnapshotInterface> parts) {
+    parts.add(m_winchMotorSimManager);
+    parts.add(m_extenderMotorSimManager);
+    parts.add(m_extenderSmartMotionSim);
+    parts.add(m_winchSimManager);
+    parts.add(m_extenderSimulation);
+    parts.add(m_armSimulation);
   }
 }
@@ -87,14 +87,16 @@ public class ArmSystemSimWithWidgets extends ArmSystemSim {
     // Extender functional
     Widget pos = m_defaultLayout.getWidgetPosition("Extender Functional");
     Shuffleboard.getTab("Simulation")
-        .addBoolean("Extender Functional", () -> !m_extenderSimulation.getIsBroken())
+        .addBoolean("Extender Functional",
+            () -> !m_telemetry.getBoolean(kTelemetryExtenderBroken))
         .withWidget(BuiltInWidgets.kBooleanBox)
         .withProperties(Map.of("colorWhenTrue", "#C0FBC0", "colorWhenFalse", "#8B0000"))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
 
     // Extender motor power
     pos = m_defaultLayout.getWidgetPosition("Extender Motor Power");
-    Shuffleboard.getTab("Simulation").addDouble("Extender Motor Power", () -> m_armExtender.get())
+    Shuffleboard.getTab("Simulation")
+        .addDouble("Extender Motor Power", () -> m_telemetry.get(kTelemetryExtenderPower))
         .withWidget(BuiltInWidgets.kNumberBar)
         .withProperties(Map.of("min", -1.0, "max", 1.0, "show text", false))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
@@ -102,24 +104,34 @@ public class ArmSystemSimWithWidgets extends ArmSystemSim {
     // Extender percent extended
     pos = m_defaultLayout.getWidgetPosition("Extender % Extended");
     Shuffleboard.getTab("Simulation")
-        .addDouble("Extender % Extended", () -> m_extenderSimulation.getExtendedPercent())
+        .addDouble("Extender % Extended", () -> m_telemetry.get(kTelemetryExtenderPercent))
         .withWidget(BuiltInWidgets.kNumberBar)
         .withProperties(Map.of("min", 0.0, "max", 1.0, "show text", false))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
 
     // Extender sensor display
     pos = m_defaultLayout.getWidgetPosition("Extender Sensor");
-    Shuffleboard.getTab("Simulation").addBoolean("Extender Sensor", () -> !m_sensorSim.getValue())
+    Shuffleboard.getTab("Simulation")
+        .addBoolean("Extender Sensor", () -> m_telemetry.getBoolean(kTelemetryExtenderSensor))
         .withWidget(BuiltInWidgets.kBooleanBox)
         .withProperties(Map.of("colorWhenTrue", "#C0FBC0", "colorWhenFalse", "#FFFFFF"))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
   }
 
   private void addShuffleboardArmList() {
+    // Arm commands
+    Widget pos = m_defaultLayout.getWidgetPosition("Arm System Commands");
+    Shuffleboard.getTab("Simulation").add("Arm System Commands", this).withPosition(pos.x, pos.y)
+        .withSize(pos.width, pos.height);
+
+    if (!Constants.SimConstants.ksimScalarWidgetsEnabled) {
+      return;
+    }
+
     // Arm functional display
-    Widget pos = m_defaultLayout.getWidgetPosition("Arm Functional");
+    pos = m_defaultLayout.getWidgetPosition("Arm Functional");
     Shuffleboard.getTab("Simulation")
-        .addBoolean("Arm Functional", () -> !m_armSimulation.getIsBroken())
+        .addBoolean("Arm Functional", () -> !m_telemetry.getBoolean(kTelemetryArmBroken))
         .withWidget(BuiltInWidgets.kBooleanBox)
         .withProperties(Map.of("colorWhenTrue", "#C0FBC0", "colorWhenFalse", "#8B0000"))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
@@ -127,28 +139,24 @@ public class ArmSystemSimWithWidgets extends ArmSystemSim {
     // Arm position
     pos = m_defaultLayout.getWidgetPosition("Arm position");
     Shuffleboard.getTab("Simulation")
-        .addDouble("Arm position", () -> m_winchAbsoluteEncoder.getAbsolutePosition())
+        .addDouble("Arm position", () -> m_telemetry.get(kTelemetryWinchAbsolutePosition))
         .withWidget(BuiltInWidgets.kTextView).withPosition(pos.x, pos.y)
         .withSize(pos.width, pos.height);
-
-    // Arm commands
-    pos = m_defaultLayout.getWidgetPosition("Arm System Commands");
-    Shuffleboard.getTab("Simulation").add("Arm System Commands", this).withPosition(pos.x, pos.y)
-        .withSize(pos.width, pos.height);
   }
 
   private void addShuffleboardWinchList() {
     // Winch functional display
     Widget pos = m_defaultLayout.getWidgetPosition("Winch Functional");
     Shuffleboard.getTab("Simulation")
-        .addBoolean("Winch Functional", () -> !m_winchState.getIsBroken())
+        .addBoolean("Winch Functional", () -> !m_telemetry.getBoolean(kTelemetryWinchBroken))
         .withWidget(BuiltInWidgets.kBooleanBox)
         .withProperties(Map.of("colorWhenTrue", "#C0FBC0", "colorWhenFalse", "#8B0000"))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
 
     // Winch motor power
     pos = m_defaultLayout.getWidgetPosition("Winch Motor Power");
-    Shuffleboard.getTab("Simulation").addDouble("Winch Motor Power", () -> m_armWinch.get())
+    Shuffleboard.getTab("Simulation")
+        .addDouble("Winch Motor Power", () -> m_telemetry.get(kTelemetryWinchPower))
         .withWidget(BuiltInWidgets.kNumberBar)
         .withProperties(Map.of("min", -1.0, "max", 1.0, "show text", false))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
@@ -156,7 +164,8 @@ public class ArmSystemSimWithWidgets extends ArmSystemSim {
     // Winch String % extended
     pos = m_defaultLayout.getWidgetPosition("Winch String % Extended");
     Shuffleboard.getTab("Simulation")
-        .addDouble("Winch String % Extended", () -> m_winchState.getStringUnspooledPercent())
+        .addDouble("Winch String % Extended",
+            () -> m_telemetry.get(kTelemetryStringUnspooledPercent))
         .withWidget(BuiltInWidgets.kNumberBar)
         .withProperties(Map.of("min", 0.0, "max", 1.0, "show text", false))
         .withPosition(pos.x, pos.y).withSize(pos.width, pos.height);
@@ -172,14 +181,19 @@ public class ArmSystemSimWithWidgets extends ArmSystemSim {
   private double getArmPercentRaised() {
     double lowerLimit = Constants.OperatorConstants.kWinchEncoderLowerLimit;
     double upperLimit = Constants.OperatorConstants.kWinchEncoderUpperLimit;
-    double currentPosition = m_winchAbsoluteEncoder.getAbsolutePosition();
+    double currentPosition = getWinchAbsoluteEncoder();
 
     return (currentPosition - lowerLimit) / (upperLimit - lowerLimit);
   }
 
   private void addShuffleboardWidgets() {
-    addShuffleboardWinchList();
-    addShuffleboardExtenderList();
+    // The scalar widgets are each a NetworkTables entry polled every loop. The same values
+    // are in the packed "Telemetry/Arm" topic, so they are off unless asked for.
+    if (Constants.SimConstants.ksimScalarWidgetsEnabled) {
+      addShuffleboardWinchList();
+      addShuffleboardExtenderList();
+    }
+
     addShuffleboardArmList();
 
     // Add Robot Arm widget
@@ -0,0 +1,146 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.PoseHistory;
+import frc.robot.simulation.framework.DoubleBufferedState;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Drive odometry on its own thread, at kPeriodSeconds instead of once per 20ms robot loop.
+ * Fast turns sampled every 20ms cut corners in the integrated pose; sampling every 5ms keeps
+ * the error from the heading changing between samples much smaller.
+ *
+ * <p>
+ * Each update reads the wheel distances and heading through the suppliers, integrates them,
+ * and publishes an OdometrySample through a DoubleBufferedState. Any thread can copy the
+ * latest sample with getLatest(), without locks and without allocating. Every sample also
+ * goes into a PoseHistory, for looking up where the robot was at a past timestamp.
+ * </p>
+ *
+ * <p>
+ * The suppliers are called on the odometry thread, so they must be safe to call from there,
+ * and the distances must never be reset (e.g. by DriveCommand zeroing the encoders).
+ * </p>
+ */
+public class DriveOdometryThread {
+  public static final double kPeriodSeconds = 0.005;
+
+  // 1.5s of samples
+  public static final int kHistoryCapacity = 300;
+
+  private final DoubleSupplier m_leftDistanceMeters;
+  private final DoubleSupplier m_rightDistanceMeters;
+  private final DoubleSupplier m_headingDegrees;
+  private final DoubleSupplier m_clockSeconds;
+  private final DifferentialDriveOdometry m_odometry;
+  private final DoubleBufferedState<OdometrySample> m_samples =
+      new DoubleBufferedState<>(OdometrySample::new);
+  private final PoseHistory m_history = new PoseHistory(kHistoryCapacity);
+  private final AtomicReference<Pose2d> m_pendingReset = new AtomicReference<>();
+  private final Notifier m_notifier;
+  private long m_updateCount = 0;
+
+  /**
+   * Constructor. The pose starts at the origin, facing along the x axis.
+   *
+   * @param leftDistanceMeters  Distance the left wheels have driven, forward-positive
+   * @param rightDistanceMeters Distance the right wheels have driven, forward-positive
+   * @param headingDegrees      Gyro heading, counterclockwise-positive
+   * @param clockSeconds        Time source for the sample timestamps
+   */
+  public DriveOdometryThread(DoubleSupplier leftDistanceMeters,
+      DoubleSupplier rightDistanceMeters,
+      DoubleSupplier headingDegrees,
+      DoubleSupplier clockSeconds) {
+    if (leftDistanceMeters == null || rightDistanceMeters == null) {
+      throw new IllegalArgumentException("distance suppliers cannot be null");
+    }
+
+    if (headingDegrees == null) {
+      throw new IllegalArgumentException("headingDegrees cannot be null");
+    }
+
+    if (clockSeconds == null) {
+      throw new IllegalArgumentException("clockSeconds cannot be null");
+    }
+
+    m_leftDistanceMeters = leftDistanceMeters;
+    m_rightDistanceMeters = rightDistanceMeters;
+    m_headingDegrees = headingDegrees;
+    m_clockSeconds = clockSeconds;
+
+    m_odometry = new DifferentialDriveOdometry(
+        Rotation2d.fromDegrees(headingDegrees.getAsDouble()),
+        leftDistanceMeters.getAsDouble(),
+        rightDistanceMeters.getAsDouble());
+
+    m_notifier = new Notifier(this::update);
+    m_notifier.setName("DriveOdometry");
+  }
+
+  public void start() {
+    m_notifier.startPeriodic(kPeriodSeconds);
+  }
+
+  public void stop() {
+    m_notifier.stop();
+  }
+
+  /**
+   * Reads the sensors once, integrates them and publishes the new sample. Called by the
+   * notifier; tests call it directly instead of starting the thread. Only one thread may call
+   * this.
+   */
+  public void update() {
+    double timestampSeconds = m_clockSeconds.getAsDouble();
+    double leftDistanceMeters = m_leftDistanceMeters.getAsDouble();
+    double rightDistanceMeters = m_rightDistanceMeters.getAsDouble();
+    Rotation2d heading = Rotation2d.fromDegrees(m_headingDegrees.getAsDouble());
+
+    Pose2d pose;
+    Pose2d resetPose = m_pendingReset.getAndSet(null);
+    if (resetPose != null) {
+      m_odometry.resetPosition(heading, leftDistanceMeters, rightDistanceMeters, resetPose);
+      pose = resetPose;
+      m_history.clear();
+    }
+    else {
+      pose = m_odometry.update(heading, leftDistanceMeters, rightDistanceMeters);
+    }
+
+    m_updateCount++;
+    m_samples.beginWrite().set(timestampSeconds, pose, leftDistanceMeters, rightDistanceMeters,
+        m_updateCount);
+    m_samples.publish();
+    m_history.add(timestampSeconds, pose);
+  }
+
+  /**
+   * Moves the pose estimate to pose. Safe from any thread: the reset is applied by the next
+   * update(), so the odometry itself is only ever touched by the odometry thread.
+   */
+  public void resetPose(Pose2d pose) {
+    if (pose == null) {
+      throw new IllegalArgumentException("pose cannot be null");
+    }
+
+    m_pendingReset.set(pose);
+  }
+
+  /**
+   * Copies the latest sample into target. Safe from any thread. Before the first update, the
+   * sample has an update count of 0.
+   */
+  public void getLatest(OdometrySample target) {
+    m_samples.read(target);
+  }
+
+  // Timestamps are from the clockSeconds supplier. Lookups are safe from any thread.
+  public PoseHistory getHistory() {
+    return m_history;
+  }
+}
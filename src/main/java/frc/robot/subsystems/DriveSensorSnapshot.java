@@ -0,0 +1,49 @@
+package frc.robot.subsystems;
+
+/**
+ * The drivetrain's sensor readings for one loop. TankDriveSystem.refreshSensors() reads the
+ * drive encoders and the Pigeon2 into it once at the start of the loop, and the
+ * TankDriveSystem getters return these values.
+ */
+public class DriveSensorSnapshot {
+  private double m_leftPosition;
+  private double m_rightPosition;
+  private double m_gyroRoll;
+  private double m_gyroYaw;
+
+  // Left drive encoder, in motor rotations
+  public double getLeftPosition() {
+    return m_leftPosition;
+  }
+
+  // Right drive encoder, in motor rotations
+  public double getRightPosition() {
+    return m_rightPosition;
+  }
+
+  // Pigeon2 roll (the robot's tilt on the charge station), in degrees
+  public double getGyroRoll() {
+    return m_gyroRoll;
+  }
+
+  // Pigeon2 yaw, in degrees
+  public double getGyroYaw() {
+    return m_gyroYaw;
+  }
+
+  void setLeftPosition(double leftPosition) {
+    m_leftPosition = leftPosition;
+  }
+
+  void setRightPosition(double rightPosition) {
+    m_rightPosition = rightPosition;
+  }
+
+  void setGyroRoll(double gyroRoll) {
+    m_gyroRoll = gyroRoll;
+  }
+
+  void setGyroYaw(double gyroYaw) {
+    m_gyroYaw = gyroYaw;
+  }
+}
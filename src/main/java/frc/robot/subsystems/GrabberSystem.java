@@ -9,11 +9,14 @@ import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.LoopProfiler;
 
 /**
  * The class is responsible for managing the grabber subsystem.
  */
 public class GrabberSystem extends SubsystemBase {
+  private static final int kPeriodicSection = LoopProfiler.addSection("GrabberSystem.periodic");
+
   private XboxController m_controller;
   private final Compressor m_compressor = new Compressor(PneumaticsModuleType.REVPH);
   protected PneumaticHub m_pneumaticHub;
@@ -41,6 +44,7 @@ public class GrabberSystem extends SubsystemBase {
 
   @Override
   public void periodic() {
+    LoopProfiler.startSection();
     if (!RobotState.isAutonomous()) {
       if (m_controller.getLeftBumperReleased()) {
         m_solenoid.set(Value.kForward);
@@ -49,6 +53,8 @@ public class GrabberSystem extends SubsystemBase {
         m_solenoid.set(Value.kReverse);
       }
     }
+
+    LoopProfiler.endSection(kPeriodicSection);
   }
 
   @Override
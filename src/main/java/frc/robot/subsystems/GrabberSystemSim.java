@@ -2,7 +2,6 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -13,6 +12,7 @@ import frc.robot.DefaultLayout;
 import frc.robot.DefaultLayout.Widget;
 import frc.robot.commands.CloseGrabberCommand;
 import frc.robot.commands.GrabberOpenCommand;
+import frc.robot.simulation.framework.SimGraph;
 import java.util.Map;
 import java.util.function.BooleanSupplier;
 
@@ -21,6 +21,8 @@ import java.util.function.BooleanSupplier;
  * the robot is not running in simulation mode.
  */
 public class GrabberSystemSim extends GrabberSystem {
+  public static final String kGrabberSimNode = "Grabber/Grabber";
+
   private Value m_solenoidStatus;
   private boolean m_grabberPhysicallyOpened;
   private REVPHSim m_penumaticSim;
@@ -137,10 +139,6 @@ public class GrabberSystemSim extends GrabberSystem {
         .withSize(pos.width, pos.height);
   }
 
-  private boolean isRobotEnabled() {
-    return RobotState.isEnabled();
-  }
-
   @Override
   public void initDashBoard() {
     super.initDashBoard();
@@ -154,21 +152,22 @@ public class GrabberSystemSim extends GrabberSystem {
     super.periodic();
   }
 
-  @Override
-  public void simulationPeriodic() {
-    super.simulationPeriodic();
-
-    // When Robot is disabled, the entire simulation freezes
-    if (isRobotEnabled()) {
-      m_solenoidStatus = m_solenoidSim.get();
-
-      // If the solenoid is on, update the physicalGrabber as opened or closed
-      if (m_solenoidStatus == Value.kForward) {
-        m_grabberPhysicallyOpened = true;
-      }
-      else if (m_solenoidStatus == Value.kReverse) {
-        m_grabberPhysicallyOpened = false;
-      }
+  /**
+   * Registers the grabber simulation into the robot's SimGraph.
+   */
+  public void registerSimNodes(SimGraph simGraph) {
+    simGraph.addNode(kGrabberSimNode, this::updateGrabberSimulation);
+  }
+
+  private void updateGrabberSimulation() {
+    m_solenoidStatus = m_solenoidSim.get();
+
+    // If the solenoid is on, update the physicalGrabber as opened or closed
+    if (m_solenoidStatus == Value.kForward) {
+      m_grabberPhysicallyOpened = true;
+    }
+    else if (m_solenoidStatus == Value.kReverse) {
+      m_grabberPhysicallyOpened = false;
     }
   }
 }
@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.simulation.framework.CopyableState;
+
+/**
+ * One pose estimate from DriveOdometryThread, with the time its sensors were read. Plain
+ * doubles, so readers can copy it into a preallocated instance without allocating.
+ */
+public class OdometrySample implements CopyableState<OdometrySample> {
+  private double m_timestampSeconds;
+  private double m_xmeters;
+  private double m_ymeters;
+  private double m_headingRadians;
+  private double m_leftDistanceMeters;
+  private double m_rightDistanceMeters;
+  private long m_updateCount;
+
+  @Override
+  public void copyFrom(OdometrySample other) {
+    m_timestampSeconds = other.m_timestampSeconds;
+    m_xmeters = other.m_xmeters;
+    m_ymeters = other.m_ymeters;
+    m_headingRadians = other.m_headingRadians;
+    m_leftDistanceMeters = other.m_leftDistanceMeters;
+    m_rightDistanceMeters = other.m_rightDistanceMeters;
+    m_updateCount = other.m_updateCount;
+  }
+
+  // FPGA time when the encoders and gyro were read
+  public double getTimestampSeconds() {
+    return m_timestampSeconds;
+  }
+
+  public double getX() {
+    return m_xmeters;
+  }
+
+  public double getY() {
+    return m_ymeters;
+  }
+
+  // Counterclockwise-positive, like Rotation2d
+  public double getHeadingRadians() {
+    return m_headingRadians;
+  }
+
+  public double getHeadingDegrees() {
+    return Math.toDegrees(m_headingRadians);
+  }
+
+  // Total distance each side has driven. Never reset, so commands can measure differences.
+  public double getLeftDistanceMeters() {
+    return m_leftDistanceMeters;
+  }
+
+  public double getRightDistanceMeters() {
+    return m_rightDistanceMeters;
+  }
+
+  // Number of odometry updates so far; 0 if none has run yet
+  public long getUpdateCount() {
+    return m_updateCount;
+  }
+
+  // Allocates, so prefer the getters in code that runs every loop
+  public Pose2d getPose() {
+    return new Pose2d(m_xmeters, m_ymeters, new Rotation2d(m_headingRadians));
+  }
+
+  void set(double timestampSeconds, Pose2d pose, double leftDistanceMeters,
+      double rightDistanceMeters, long updateCount) {
+    m_timestampSeconds = timestampSeconds;
+    m_xmeters = pose.getX();
+    m_ymeters = pose.getY();
+    m_headingRadians = pose.getRotation().getRadians();
+    m_leftDistanceMeters = leftDistanceMeters;
+    m_rightDistanceMeters = rightDistanceMeters;
+    m_updateCount = updateCount;
+  }
+}
@@ -1,18 +1,23 @@
 package frc.robot.subsystems;
 
 import com.ctre.phoenix.sensors.Pigeon2;
+import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 import com.revrobotics.RelativeEncoder;
 import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.RobotState;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
 import edu.wpi.first.wpilibj.motorcontrol.MotorControllerGroup;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.PoseHistory;
+import frc.robot.Telemetry;
 
 /**
  * This class represents a tank drive system for a robot. The drive system uses
@@ -45,7 +50,17 @@ public class TankDriveSystem extends SubsystemBase {
   private RelativeEncoder m_rightEncoder;
 
   private final Pigeon2 m_gyro = new Pigeon2(7);
-  private double m_prevRate = 0;
+  private final DriveSensorSnapshot m_sensors = new DriveSensorSnapshot();
+
+  // resetEncoders() moves these instead of the encoders, so odometry never sees a reset
+  private double m_leftEncoderOffset = 0;
+  private double m_rightEncoderOffset = 0;
+  private DriveOdometryThread m_odometryThread = null;
+
+  private final Telemetry.DoubleEntry m_leftMotorTelemetry =
+      Telemetry.addDouble("Left Motor", 0.001, Telemetry.kFastRateHz);
+  private final Telemetry.DoubleEntry m_rightMotorTelemetry =
+      Telemetry.addDouble("Right Motor", 0.001, Telemetry.kFastRateHz);
 
   protected double m_wheelDiameterMeters;
   protected double m_gearBoxRatio;
@@ -77,6 +92,12 @@ public class TankDriveSystem extends SubsystemBase {
     m_leftEncoder = m_leftMotor1.getEncoder();
     m_rightEncoder = m_rightMotor1.getEncoder();
 
+    // Send the encoder positions and the yaw as often as the odometry thread reads them
+    int framePeriodMs = (int) (DriveOdometryThread.kPeriodSeconds * 1000);
+    m_leftMotor1.setPeriodicFramePeriod(PeriodicFrame.kStatus2, framePeriodMs);
+    m_rightMotor1.setPeriodicFramePeriod(PeriodicFrame.kStatus2, framePeriodMs);
+    m_gyro.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, framePeriodMs);
+
     m_controller = controller;
 
     m_squareInputs = Constants.OperatorConstants.kSquareInputsDrive;
@@ -111,19 +132,126 @@ public class TankDriveSystem extends SubsystemBase {
     });
   }
 
+  /**
+   * Reads the drive encoders and the gyro once. Called at the start of each loop, before the
+   * scheduler runs; the getters return these values until the next call.
+   */
+  public void refreshSensors() {
+    m_sensors.setLeftPosition(readLeftEncoder() - m_leftEncoderOffset);
+    m_sensors.setRightPosition(readRightEncoder() - m_rightEncoderOffset);
+    m_sensors.setGyroRoll(readGyroRoll());
+    m_sensors.setGyroYaw(readGyroYaw());
+  }
+
+  public DriveSensorSnapshot getSensors() {
+    return m_sensors;
+  }
+
+  /**
+   * Zeroes getLeftEncoder() and getRightEncoder(). The encoders themselves keep counting, so
+   * the odometry thread, which reads them directly, doesn't see the reset.
+   */
   public void resetEncoders() {
-    m_leftEncoder.setPosition(0);
-    m_rightEncoder.setPosition(0);
+    m_leftEncoderOffset += m_sensors.getLeftPosition();
+    m_rightEncoderOffset += m_sensors.getRightPosition();
+    m_sensors.setLeftPosition(0);
+    m_sensors.setRightPosition(0);
+  }
+
+  /**
+   * Starts the odometry thread. Called once, after the robot's subsystems are created.
+   */
+  public void startOdometry() {
+    if (m_odometryThread != null) {
+      return;
+    }
+
+    m_odometryThread = new DriveOdometryThread(this::readLeftDistanceMeters,
+        this::readRightDistanceMeters,
+        this::readHeadingDegrees,
+        Timer::getFPGATimestamp);
+    m_odometryThread.start();
+  }
+
+  /**
+   * Copies the odometry thread's latest pose into target.
+   *
+   * @return false if the odometry thread hasn't published a pose yet
+   */
+  public boolean getOdometry(OdometrySample target) {
+    if (m_odometryThread == null) {
+      return false;
+    }
+
+    m_odometryThread.getLatest(target);
+    return target.getUpdateCount() > 0;
+  }
+
+  /**
+   * Looks up where the odometry thread had the robot at an earlier FPGA time, e.g. when a
+   * camera frame was captured.
+   *
+   * @return false if the odometry thread hasn't published a pose yet
+   */
+  public boolean getPoseAt(double timestampSeconds, PoseHistory.Sample target) {
+    if (m_odometryThread == null) {
+      return false;
+    }
+
+    return m_odometryThread.getHistory().getSample(timestampSeconds, target);
+  }
+
+  // Applied by the odometry thread on its next update
+  public void resetOdometry(Pose2d pose) {
+    if (m_odometryThread != null) {
+      m_odometryThread.resetPose(pose);
+    }
+  }
+
+  public double getWheelDiameterMeters() {
+    return m_wheelDiameterMeters;
   }
 
   public double getLeftEncoder() {
-    return m_leftEncoder.getPosition();
+    return m_sensors.getLeftPosition();
   }
 
   public double getRightEncoder() {
+    return m_sensors.getRightPosition();
+  }
+
+  // Device reads, only called from refreshSensors(). Simulation overrides these.
+  protected double readLeftEncoder() {
+    return m_leftEncoder.getPosition();
+  }
+
+  protected double readRightEncoder() {
     return m_rightEncoder.getPosition();
   }
 
+  protected double readGyroRoll() {
+    return m_gyro.getRoll();
+  }
+
+  protected double readGyroYaw() {
+    return m_gyro.getYaw();
+  }
+
+  // Odometry inputs, called on the odometry thread. Simulation overrides these.
+  protected double readLeftDistanceMeters() {
+    return m_leftEncoder.getPosition() / m_gearBoxRatio * m_wheelDiameterMeters * Math.PI;
+  }
+
+  protected double readRightDistanceMeters() {
+    // The right motors are inverted, so their encoder counts down when driving forward
+    return -m_rightEncoder.getPosition() / m_gearBoxRatio * m_wheelDiameterMeters * Math.PI;
+  }
+
+  // Counterclockwise-positive, like the Pigeon2's yaw
+  protected double readHeadingDegrees() {
+    return m_gyro.getYaw();
+  }
+
   public double getAverageEncoderPosition() {
     return (Math.abs(getLeftEncoder()) + Math.abs(getRightEncoder())) / 2;
   }
@@ -163,8 +291,8 @@ public class TankDriveSystem extends SubsystemBase {
     }
 
     // $TODO - This should be in init or update DashBoard?
-    SmartDashboard.putNumber("Left Motor", m_leftMotors.get());
-    SmartDashboard.putNumber("Right Motor", m_rightMotors.get());
+    m_leftMotorTelemetry.set(getLeftMotorPower());
+    m_rightMotorTelemetry.set(getRightMotorPower());
   }
 
   public void arcadeDrive(double xspeed, double zrotation, boolean squareInputs) {
@@ -175,22 +303,32 @@ public class TankDriveSystem extends SubsystemBase {
     m_drive.tankDrive(leftSpeed, rightSpeed, squareInputs);
   }
 
+  /**
+   * Drives each side with a voltage, e.g. from a feedforward. Positive is forward on both
+   * sides. Unlike tankDrive(), this isn't scaled by the drive's max output.
+   */
+  public void tankDriveVolts(double leftVolts, double rightVolts) {
+    m_leftMotors.setVoltage(leftVolts);
+    m_rightMotors.setVoltage(rightVolts);
+    m_drive.feed();
+  }
+
   public void calibrate() {
   }
 
-  public double getGyroAngle() {
-    return m_gyro.getRoll();
+  public double getLeftMotorPower() {
+    return m_leftMotors.get();
   }
 
-  public double getGyroYaw() {
-    return m_gyro.getYaw();
+  public double getRightMotorPower() {
+    return m_rightMotors.get();
   }
 
-  public double getGyroRate() {
-    return Math.abs(m_prevRate - m_gyro.getRoll());
+  public double getGyroAngle() {
+    return m_sensors.getGyroRoll();
   }
 
-  public void setRate() {
-    m_prevRate = m_gyro.getRoll();
+  public double getGyroYaw() {
+    return m_sensors.getGyroYaw();
   }
 }
@@ -4,13 +4,21 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotState;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import frc.robot.Constants;
 import frc.robot.DefaultLayout;
 import frc.robot.DefaultLayout.Widget;
+import frc.robot.LoopProfiler;
+import frc.robot.PackedTelemetry;
+import frc.robot.simulation.ChargeStationSimulation;
 import frc.robot.simulation.DriveSimulation;
+import frc.robot.simulation.framework.SimGraph;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimStepper;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,8 +26,32 @@ import java.util.Map;
  * the robot is not running in simulation mode.
  */
 public class TankDriveSystemSim extends TankDriveSystem {
+  public static final String kDriveSimNode = "Drive/Drivetrain";
+  public static final String kOdometrySimNode = "Drive/Odometry";
+  public static final String kChargeStationSimNode = "Drive/ChargeStation";
+
+  // Schema of the packed "Telemetry/Drive" topic: the index of each field
+  public static final int kTelemetryPoseX = 0;
+  public static final int kTelemetryPoseY = 1;
+  public static final int kTelemetryHeadingDegrees = 2;
+  public static final int kTelemetryLeftDistanceMeters = 3;
+  public static final int kTelemetryRightDistanceMeters = 4;
+  public static final int kTelemetryLeftPower = 5;
+  public static final int kTelemetryRightPower = 6;
+  public static final int kTelemetryPitchDegrees = 7;
+  public static final int kTelemetryChargeStationDegrees = 8;
+
+  private static final String[] kTelemetryFields = {"poseX", "poseY", "headingDegrees",
+      "leftDistanceMeters", "rightDistanceMeters", "leftPower", "rightPower", "pitchDegrees",
+      "chargeStationDegrees"};
+  private static final int kPeriodicSection =
+      LoopProfiler.addSection("TankDriveSystemSim.periodic");
+  private static final Pose2d kInitialPose = new Pose2d(2, 2, new Rotation2d());
+
   private DriveSimulation m_driveSimulation = null;
+  private ChargeStationSimulation m_chargeStation = null;
   private DefaultLayout m_defaultLayout = new DefaultLayout();
+  private PackedTelemetry m_telemetry = null;
 
   /**
    * Factory method to create a TankDriveSystemSim or TankDriveSystem object.
@@ -54,8 +86,13 @@ public class TankDriveSystemSim extends TankDriveSystem {
     // check here.
     if (RobotBase.isSimulation()) {
       m_driveSimulation = new DriveSimulation(
-          Constants.OperatorConstants.kWheelDiameterMetersDrive / 2);
+          Constants.OperatorConstants.kWheelDiameterMetersDrive / 2, createStepper());
       resetSimulationRobotPosition();
+      m_chargeStation = new ChargeStationSimulation(
+          kInitialPose.getX() + Constants.SimConstants.kchargeStationOffsetMeters,
+          kInitialPose.getY(), m_driveSimulation::getSimPose, createStepper());
+      m_telemetry = new PackedTelemetry("Drive", kTelemetryFields);
+      refreshSensors();
     }
 
     // $TODO - 1) This should be called from initDashboard, 2) move the widget code into
@@ -63,6 +100,14 @@ public class TankDriveSystemSim extends TankDriveSystem {
     addShuffleboardWidgets();
   }
 
+  private static SimStepper createStepper() {
+    SimStepper stepper = Constants.SimConstants.ksimUseElapsedTime
+        ? new SimStepper(Timer::getFPGATimestamp)
+        : new SimStepper();
+    stepper.setMaxStepSeconds(Constants.SimConstants.kdriveSimMaxStepSeconds);
+    return stepper;
+  }
+
   /**
    * Add widgets to Shuffleboard.
    */
@@ -78,50 +123,89 @@ public class TankDriveSystemSim extends TankDriveSystem {
         .withProperties(Map.of("Starting angle", 90));
   }
 
-  private boolean isRobotEnabled() {
-    return RobotState.isEnabled();
-  }
-
   @Override
   public void periodic() {
+    LoopProfiler.startSection();
     super.periodic();
 
-    // When Robot is disabled, the entire simulation freezes
-    if (isRobotEnabled()) {
-      m_driveSimulation.periodic();
+    if (m_telemetry != null) {
+      Pose2d pose = m_driveSimulation.getPose();
+      m_telemetry.set(kTelemetryPoseX, pose.getX());
+      m_telemetry.set(kTelemetryPoseY, pose.getY());
+      m_telemetry.set(kTelemetryHeadingDegrees, m_driveSimulation.getHeading());
+      m_telemetry.set(kTelemetryLeftDistanceMeters, m_driveSimulation.getRelativeDistanceLeft());
+      m_telemetry.set(kTelemetryRightDistanceMeters,
+          m_driveSimulation.getRelativeDistanceRight());
+      m_telemetry.set(kTelemetryLeftPower, getLeftMotorPower());
+      m_telemetry.set(kTelemetryRightPower, getRightMotorPower());
+      m_telemetry.set(kTelemetryPitchDegrees, m_chargeStation.getRobotPitchDegrees());
+      m_telemetry.set(kTelemetryChargeStationDegrees, m_chargeStation.getAngleDegrees());
+      m_telemetry.publish();
     }
+
+    LoopProfiler.endSection(kPeriodicSection);
   }
 
+  // Starts the odometry thread where the simulated robot is placed on the field
   @Override
-  public void simulationPeriodic() {
-    super.simulationPeriodic();
+  public void startOdometry() {
+    super.startOdometry();
+    resetOdometry(m_driveSimulation.getPose());
+  }
 
-    // When Robot is disabled, the entire simulation freezes
-    if (isRobotEnabled()) {
-      m_driveSimulation.simulationPeriodic();
+  public PackedTelemetry getTelemetry() {
+    return m_telemetry;
+  }
+
+  private boolean isRobotEnabled() {
+    return RobotState.isEnabled();
+  }
+
+  /**
+   * Registers the drivetrain simulation into the robot's SimGraph. Odometry reads the
+   * simulated encoders and gyro, and the charge station reads where the robot is, so both run
+   * after the drivetrain in the same tick.
+   */
+  public void registerSimNodes(SimGraph simGraph) {
+    if (Constants.SimConstants.ksimStepperStatsEnabled) {
+      m_driveSimulation.getStepper().enablePublishing(kDriveSimNode);
+      m_chargeStation.getStepper().enablePublishing(kChargeStationSimNode);
     }
+
+    simGraph.addNode(kDriveSimNode, m_driveSimulation::simulationPeriodic);
+    simGraph.addNode(kOdometrySimNode, m_driveSimulation::periodic, kDriveSimNode);
+    simGraph.addNode(kChargeStationSimNode, m_chargeStation::simulationPeriodic, kDriveSimNode);
   }
 
-  @Override
-  public void resetEncoders() {
-    super.resetEncoders();
+  public void addSnapshotParts(List<SimSnapshotInterface> parts) {
+    parts.add(m_driveSimulation);
+    parts.add(m_chargeStation);
+  }
 
-    m_driveSimulation.resetRelativeEncoders();
+  public ChargeStationSimulation getChargeStation() {
+    return m_chargeStation;
+  }
+
+  // RETURN SIMULATED VALUE: The robot's pitch on the charge station, as the Pigeon2 reads it.
+  // Its roll is positive nose-down, which makes AutoBalanceCommand drive uphill.
+  @Override
+  protected double readGyroRoll() {
+    return -m_chargeStation.getRobotPitchDegrees()
+        + Constants.SimConstants.kgyroRollOffsetDegrees;
   }
 
   @Override
-  public double getGyroYaw() {
+  protected double readGyroYaw() {
     return m_driveSimulation.getHeading();
   }
 
   private void resetSimulationRobotPosition() {
-    Pose2d initialPosition = new Pose2d(2, 2, new Rotation2d());
-    m_driveSimulation.resetOdometry(initialPosition);
+    m_driveSimulation.resetOdometry(kInitialPose);
   }
 
   // RETURN SIMULATED VALUE: Overrides physical encoder value in parent class
   @Override
-  public double getLeftEncoder() {
+  protected double readLeftEncoder() {
     // Note that our relativeEncoder returns distance the SIMULATED robot moved on
     // the field in meters.
     // But we want to return number of MOTOR rotations that our PHYSICAL robot would
@@ -132,7 +216,7 @@ public class TankDriveSystemSim extends TankDriveSystem {
 
   // RETURN SIMULATED VALUE: Overrides physical encoder value in parent class
   @Override
-  public double getRightEncoder() {
+  protected double readRightEncoder() {
     // Note that our relativeEncoder returns distance the SIMULATED robot moved on
     // the field in meters.
     // But we want to return number of MOTOR rotations that our PHYSICAL robot would
@@ -141,6 +225,23 @@ public class TankDriveSystemSim extends TankDriveSystem {
         / (m_wheelDiameterMeters * Math.PI);
   }
 
+  // RETURN SIMULATED VALUES: Odometry thread inputs. The simulated encoders already count
+  // forward-positive meters on both sides, and the simulated gyro is clockwise-positive.
+  @Override
+  protected double readLeftDistanceMeters() {
+    return m_driveSimulation.getRelativeDistanceLeft();
+  }
+
+  @Override
+  protected double readRightDistanceMeters() {
+    return m_driveSimulation.getRelativeDistanceRight();
+  }
+
+  @Override
+  protected double readHeadingDegrees() {
+    return -m_driveSimulation.getHeading();
+  }
+
   @Override
   public void arcadeDrive(double xspeed, double zrotation, boolean squareInputs) {
     super.arcadeDrive(xspeed, zrotation, squareInputs);
@@ -160,4 +261,14 @@ public class TankDriveSystemSim extends TankDriveSystem {
       m_driveSimulation.tankDrive(leftSpeed, rightSpeed, squareInputs);
     }
   }
+
+  @Override
+  public void tankDriveVolts(double leftVolts, double rightVolts) {
+    super.tankDriveVolts(leftVolts, rightVolts);
+
+    // When Robot is disabled, the entire simulation freezes
+    if (isRobotEnabled()) {
+      m_driveSimulation.setVoltages(leftVolts, rightVolts);
+    }
+  }
 }
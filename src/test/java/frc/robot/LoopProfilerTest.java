@@ -0,0 +1,144 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the LoopProfiler class.
+ */
+public class LoopProfilerTest {
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    LoopProfiler.setEnabled(true);
+  }
+
+  // Busy-waits, so the time is spent in the section that calls this
+  private static void spin(long millis) {
+    long endNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    while (System.nanoTime() - endNanos < 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void addSectionShouldReuseExistingName() {
+    int id = LoopProfiler.addSection("Test.reused");
+    assertEquals(id, LoopProfiler.addSection("Test.reused"));
+    assertEquals("Test.reused", LoopProfiler.getSectionName(id));
+  }
+
+  @Test
+  public void sectionsShouldRecordTheirOwnTime() {
+    int fastId = LoopProfiler.addSection("Test.fast");
+    int slowId = LoopProfiler.addSection("Test.slow");
+    long fastCountBefore = LoopProfiler.getHistogram(fastId).getCount();
+    long slowCountBefore = LoopProfiler.getHistogram(slowId).getCount();
+
+    LoopProfiler.beginLoop();
+    LoopProfiler.startSection();
+    LoopProfiler.endSection(fastId);
+    LoopProfiler.startSection();
+    spin(2);
+    LoopProfiler.endSection(slowId);
+    LoopProfiler.endLoop();
+
+    assertEquals(fastCountBefore + 1, LoopProfiler.getHistogram(fastId).getCount());
+    assertEquals(slowCountBefore + 1, LoopProfiler.getHistogram(slowId).getCount());
+    assertTrue(LoopProfiler.getHistogram(slowId).getMaxNanos()
+        >= TimeUnit.MILLISECONDS.toNanos(2));
+  }
+
+  @Test
+  public void overrunShouldBeBlamedOnSlowestSection() {
+    int quickId = LoopProfiler.addSection("Test.quick");
+    int hogId = LoopProfiler.addSection("Test.hog");
+    long overrunsBefore = LoopProfiler.getOverrunCount();
+    long hogOverrunsBefore = LoopProfiler.getOverrunCount(hogId);
+
+    // Within budget
+    LoopProfiler.beginLoop();
+    LoopProfiler.endSection(quickId);
+    LoopProfiler.endLoop();
+    assertEquals(overrunsBefore, LoopProfiler.getOverrunCount());
+
+    // Over budget, mostly because of the hog
+    long budgetMillis = (long) (LoopProfiler.kLoopBudgetSeconds * 1000);
+    LoopProfiler.beginLoop();
+    spin(2);
+    LoopProfiler.endSection(quickId);
+    spin(budgetMillis);
+    LoopProfiler.endSection(hogId);
+    LoopProfiler.endLoop();
+
+    assertEquals(overrunsBefore + 1, LoopProfiler.getOverrunCount());
+    assertEquals(hogOverrunsBefore + 1, LoopProfiler.getOverrunCount(hogId));
+    assertEquals(hogId, LoopProfiler.getLastOverrunSection());
+  }
+
+  @Test
+  public void publishShouldRankSectionsByP99() {
+    int hogId = LoopProfiler.addSection("Test.rankedHog");
+    LoopProfiler.beginLoop();
+    spin((long) (LoopProfiler.kLoopBudgetSeconds * 1000) * 2);
+    LoopProfiler.endSection(hogId);
+    LoopProfiler.endLoop();
+
+    LoopProfiler.publish();
+    assertEquals(hogId, LoopProfiler.getTopSections()[0]);
+  }
+
+  @Test
+  public void allocationTrackingShouldCountBytesPerSection() {
+    if (!LoopProfiler.setAllocationTracking(true)) {
+      return;
+    }
+
+    int allocatingId = LoopProfiler.addSection("Test.allocating");
+    int quietId = LoopProfiler.addSection("Test.quiet");
+    byte[][] kept = new byte[10][];
+
+    try {
+      LoopProfiler.publish();
+      for (int i = 0; i < kept.length; i++) {
+        LoopProfiler.beginLoop();
+        kept[i] = new byte[64 * 1024];
+        LoopProfiler.endSection(allocatingId);
+        LoopProfiler.endSection(quietId);
+        LoopProfiler.endLoop();
+      }
+
+      LoopProfiler.publish();
+    }
+    finally {
+      LoopProfiler.setAllocationTracking(false);
+    }
+
+    assertTrue(LoopProfiler.getBytesPerLoop(allocatingId) >= 64 * 1024);
+    assertTrue(LoopProfiler.getBytesPerLoop(quietId) < 1024);
+    assertTrue(LoopProfiler.getLoopBytesPerLoop() >= 64 * 1024);
+  }
+
+  @Test
+  public void disabledProfilerShouldRecordNothing() {
+    int id = LoopProfiler.addSection("Test.disabled");
+    LoopProfiler.setEnabled(false);
+
+    LoopProfiler.beginLoop();
+    LoopProfiler.startSection();
+    LoopProfiler.endSection(id);
+    LoopProfiler.endLoop();
+
+    LoopProfiler.setEnabled(true);
+    assertEquals(0, LoopProfiler.getHistogram(id).getCount());
+  }
+}
@@ -0,0 +1,56 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the PackedTelemetry class.
+ */
+public class PackedTelemetryTest {
+  private static final int kSpeedField = 0;
+  private static final int kBrokenField = 1;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  @Test
+  public void fieldsShouldFollowSchema() {
+    PackedTelemetry telemetry = new PackedTelemetry("Test", new String[] {"speed", "broken"});
+    assertEquals(2, telemetry.getNumFields());
+    assertEquals("broken", telemetry.getFieldName(kBrokenField));
+
+    telemetry.set(kSpeedField, 0.5);
+    telemetry.set(kBrokenField, true);
+    assertEquals(0.5, telemetry.get(kSpeedField));
+    assertEquals(1.0, telemetry.get(kBrokenField));
+    assertTrue(telemetry.getBoolean(kBrokenField));
+
+    telemetry.set(kBrokenField, false);
+    assertFalse(telemetry.getBoolean(kBrokenField));
+  }
+
+  @Test
+  public void publishShouldCountSamples() {
+    PackedTelemetry telemetry = new PackedTelemetry("TestCount", new String[] {"speed"});
+    telemetry.publish();
+    telemetry.publish();
+    assertEquals(2, telemetry.getPublishCount());
+  }
+
+  @Test
+  public void emptySchemaShouldThrow() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new PackedTelemetry("TestEmpty", new String[0]));
+  }
+}
@@ -0,0 +1,130 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the PoseHistory class.
+ */
+public class PoseHistoryTest {
+  private static final double kEpsilon = 1e-9;
+
+  private final PoseHistory.Sample m_sample = new PoseHistory.Sample();
+
+  @Test
+  public void emptyHistoryShouldHaveNoSample() {
+    PoseHistory history = new PoseHistory(4);
+
+    assertFalse(history.getSample(1.0, m_sample));
+    assertNull(history.getPose(1.0));
+  }
+
+  @Test
+  public void lookupShouldInterpolateBetweenSamples() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 0, 0, 0);
+    history.add(2.0, 2, 4, 1);
+
+    assertTrue(history.getSample(1.25, m_sample));
+    assertEquals(0.5, m_sample.getX(), kEpsilon);
+    assertEquals(1, m_sample.getY(), kEpsilon);
+    assertEquals(0.25, m_sample.getHeadingRadians(), kEpsilon);
+    assertEquals(1.25, m_sample.getTimestampSeconds(), kEpsilon);
+  }
+
+  @Test
+  public void lookupOutsideHistoryShouldReturnEndSample() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1, 1, 0);
+    history.add(2.0, 2, 2, 0);
+
+    history.getSample(0.5, m_sample);
+    assertEquals(1, m_sample.getX(), kEpsilon);
+
+    history.getSample(3.0, m_sample);
+    assertEquals(2, m_sample.getX(), kEpsilon);
+  }
+
+  @Test
+  public void headingShouldInterpolateAlongShorterArc() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 0, 0, Math.toRadians(170));
+    history.add(2.0, 0, 0, Math.toRadians(-170));
+
+    // 170 to -170 is a 20 degree turn through 180, not 340 degrees back through 0
+    history.getSample(1.5, m_sample);
+    assertEquals(180, Math.toDegrees(m_sample.getHeadingRadians()), 1e-6);
+  }
+
+  @Test
+  public void fullHistoryShouldDropOldestSample() {
+    PoseHistory history = new PoseHistory(3);
+    for (int i = 0; i < 5; i++) {
+      history.add(i, i, 0, 0);
+    }
+
+    assertEquals(3, history.size());
+
+    // Samples 0 and 1 are gone, so earlier times clamp to sample 2
+    history.getSample(0.5, m_sample);
+    assertEquals(2, m_sample.getX(), kEpsilon);
+
+    history.getSample(3.5, m_sample);
+    assertEquals(3.5, m_sample.getX(), kEpsilon);
+  }
+
+  @Test
+  public void olderSampleShouldBeIgnored() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(2.0, 2, 0, 0);
+
+    assertFalse(history.add(1.0, 1, 0, 0));
+    assertFalse(history.add(2.0, 3, 0, 0));
+    assertEquals(1, history.size());
+  }
+
+  @Test
+  public void clearShouldRemoveSamples() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1, 0, 0);
+    history.clear();
+
+    assertEquals(0, history.size());
+    assertFalse(history.getSample(1.0, m_sample));
+    assertTrue(history.add(0.5, 1, 0, 0));
+  }
+
+  @Test
+  public void readerShouldNeverSeeTornHistory() throws InterruptedException {
+    PoseHistory history = new PoseHistory(16);
+    AtomicBoolean torn = new AtomicBoolean(false);
+    AtomicBoolean done = new AtomicBoolean(false);
+
+    Thread reader = new Thread(() -> {
+      PoseHistory.Sample sample = new PoseHistory.Sample();
+      while (!done.get()) {
+        // Every sample has x equal to its timestamp, so an interpolated pose has x equal to
+        // the time looked up, and a pose clamped to the oldest or newest sample is whole
+        double time = Math.random() * 100000;
+        if (history.getSample(time, sample) && Math.abs(sample.getX() - time) > 1e-6
+            && sample.getX() != Math.floor(sample.getX())) {
+          torn.set(true);
+        }
+      }
+    });
+    reader.start();
+
+    for (int i = 0; i < 100000; i++) {
+      history.add(i, i, 0, 0);
+    }
+
+    done.set(true);
+    reader.join();
+    assertFalse(torn.get());
+  }
+}
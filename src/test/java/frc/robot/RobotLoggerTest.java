@@ -0,0 +1,88 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the RobotLogger class.
+ */
+public class RobotLoggerTest {
+  private ByteArrayOutputStream m_bytes;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    RobotLogger.flush(5.0);
+    m_bytes = new ByteArrayOutputStream();
+    RobotLogger.setOutput(new PrintStream(m_bytes, true, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Runs after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    RobotLogger.flush(5.0);
+    RobotLogger.setOutput(System.out);
+  }
+
+  private String getOutput() {
+    assertTrue(RobotLogger.flush(5.0));
+    return new String(m_bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void messagesShouldBeFormattedInOrder() {
+    RobotLogger.Site site = RobotLogger.createSite("Encoder %s, angle %s", 0);
+    RobotLogger.Site stringSite = RobotLogger.createSite("Test [%s] %s", 0);
+
+    RobotLogger.log(site, 0.25, 90);
+    RobotLogger.log(stringSite, "Joystick", "passed");
+
+    String separator = System.lineSeparator();
+    assertEquals("Encoder 0.25, angle 90.0" + separator + "Test [Joystick] passed" + separator,
+        getOutput());
+  }
+
+  @Test
+  public void rateLimitedSiteShouldOnlyWriteFirstMessage() {
+    RobotLogger.Site site = RobotLogger.createSite("Executed %s", 60.0);
+
+    for (int i = 0; i < 10; i++) {
+      RobotLogger.log(site, i);
+    }
+
+    // Suppressed messages are reported with the next message that gets written, which may be
+    // this one if the writer thread was slower than the loop above
+    String output = getOutput();
+    assertTrue(output.startsWith("Executed 0.0"), output);
+    assertEquals(1, output.split(System.lineSeparator()).length);
+  }
+
+  @Test
+  public void floodShouldDropInsteadOfBlocking() {
+    RobotLogger.Site site = RobotLogger.createSite("Flood %s", 0);
+    long droppedBefore = RobotLogger.getDroppedCount();
+    long writtenBefore = RobotLogger.getWrittenCount();
+    int numMessages = 100 * RobotLogger.kCapacity;
+
+    for (int i = 0; i < numMessages; i++) {
+      RobotLogger.log(site, i);
+    }
+
+    getOutput();
+    long dropped = RobotLogger.getDroppedCount() - droppedBefore;
+    long written = RobotLogger.getWrittenCount() - writtenBefore;
+    assertEquals(numMessages, dropped + written);
+    assertTrue(written >= RobotLogger.kCapacity);
+  }
+}
@@ -0,0 +1,134 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.XboxController;
+import frc.robot.subsystems.ArmSystem;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the Telemetry class.
+ */
+public class TelemetryTest {
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  private static void sleepMillis(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void doubleShouldOnlyPublishChangesBeyondEpsilon() {
+    Telemetry.DoubleEntry entry = Telemetry.addDouble("Test.epsilon", 0.1, 0);
+
+    entry.set(1.0);
+    entry.set(1.0);
+    entry.set(1.05);
+    assertEquals(1, entry.getPublishCount());
+
+    entry.set(1.2);
+    assertEquals(2, entry.getPublishCount());
+
+    // Compared to the last published value, so slow drift still gets published
+    entry.set(1.25);
+    entry.set(1.31);
+    assertEquals(3, entry.getPublishCount());
+  }
+
+  @Test
+  public void nanShouldBePublishedOnce() {
+    Telemetry.DoubleEntry entry = Telemetry.addDouble("Test.nan", 0.1, 0);
+
+    entry.set(1.0);
+    entry.set(Double.NaN);
+    entry.set(Double.NaN);
+    assertEquals(2, entry.getPublishCount());
+  }
+
+  @Test
+  public void rateShouldDelayChangesUntilAllowed() {
+    Telemetry.BooleanEntry entry = Telemetry.addBoolean("Test.rate", 10);
+
+    entry.set(true);
+    entry.set(false);
+    entry.set(true);
+    entry.set(false);
+    assertEquals(1, entry.getPublishCount());
+
+    // The change that was held back goes out on the next set() after the period
+    sleepMillis(150);
+    entry.set(false);
+    assertEquals(2, entry.getPublishCount());
+  }
+
+  @Test
+  public void periodicShouldPublishHeldBackChange() {
+    Telemetry.DoubleEntry entry = Telemetry.addDouble("Test.periodic", 0, 10);
+
+    // Set only once each, like a value written from teleopInit
+    entry.set(1.0);
+    entry.set(2.0);
+    assertEquals(1, entry.getPublishCount());
+    assertTrue(entry.isPending());
+
+    Telemetry.periodic();
+    assertEquals(1, entry.getPublishCount());
+
+    sleepMillis(150);
+    Telemetry.periodic();
+    assertEquals(2, entry.getPublishCount());
+    assertFalse(entry.isPending());
+
+    Telemetry.periodic();
+    assertEquals(2, entry.getPublishCount());
+  }
+
+  @Test
+  public void changeBackShouldCancelPending() {
+    Telemetry.DoubleEntry entry = Telemetry.addDouble("Test.cancel", 0, 10);
+
+    entry.set(1.0);
+    entry.set(2.0);
+    entry.set(1.0);
+    assertFalse(entry.isPending());
+
+    sleepMillis(150);
+    Telemetry.periodic();
+    assertEquals(1, entry.getPublishCount());
+  }
+
+  @Test
+  public void sameKeyShouldReturnSameEntry() {
+    Telemetry.DoubleEntry entry = Telemetry.addDouble("Test.shared", 0, 0);
+    assertSame(entry, Telemetry.addDouble("Test.shared", 1, 50));
+    assertThrows(IllegalArgumentException.class, () -> Telemetry.addBoolean("Test.shared", 0));
+  }
+
+  @Test
+  public void robotAndArmTelemetryShouldNotClash() {
+    // Robot's fields are created before robotInit() creates the ArmSystem, as on the robot
+    assertDoesNotThrow(() -> {
+      try (Robot robot = new Robot()) {
+        new ArmSystem(new XboxController(Constants.OperatorConstants.kDriverControllerPort2));
+      }
+    });
+  }
+}
@@ -0,0 +1,186 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants;
+import frc.robot.simulation.ChargeStationSimulation;
+import frc.robot.simulation.framework.HeadlessSimRunner;
+import frc.robot.simulation.framework.SimStepper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the BalanceController class, and runs Auto Balance headless against the simulated
+ * drivetrain and charge station: drive 8 feet backward onto the station, like Auto, then
+ * balance for the rest of the autonomous period.
+ */
+public class BalanceControllerTest {
+  private static final double kLevelRoll = Constants.OperatorConstants.kBalanceLevelRoll;
+  private static final double kRate = 0.25; // As in Auto
+  private static final double kBalanceSeconds = 15; // The whole autonomous period
+  private static final double kLevelDegrees = 2.5; // Level enough to count as engaged
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  /**
+   * How one Auto Balance went. The station is level for good from levelSinceSeconds, or NaN
+   * if it wasn't level at the end.
+   */
+  private static class Balance {
+    private double m_levelSinceSeconds = Double.NaN;
+    private double m_levelSeconds;
+    private double m_angleDegrees;
+    private double m_rateDegreesPerSec;
+    private boolean m_isAlwaysOnPlatform = true;
+  }
+
+  private Balance runAutoBalance(BalanceController controller) {
+    // Where TankDriveSystemSim puts the station, from the robot's starting pose
+    SimDrivetrainRig rig = new SimDrivetrainRig();
+    SimStepper stepper = new SimStepper();
+    stepper.setMaxStepSeconds(Constants.SimConstants.kdriveSimMaxStepSeconds);
+    ChargeStationSimulation station = new ChargeStationSimulation(
+        Constants.SimConstants.kchargeStationOffsetMeters, 0,
+        rig.getDriveSimulation()::getSimPose, stepper);
+
+    HeadlessSimRunner runner = rig.getRunner();
+    runner.addStage("ChargeStation", station::simulationPeriodic);
+
+    // Same as DriveDistanceProfiled
+    DriveDistanceController drive = new DriveDistanceController();
+    drive.reset(0, 0, -Units.inchesToMeters(8 * 12));
+    double[] last = {0, 0};
+    double driveStartSeconds = runner.getSimTimeSeconds();
+    boolean[] isDriving = {true};
+    runner.addStage("DriveDistanceProfiled", () -> {
+      if (!isDriving[0]) {
+        return;
+      }
+
+      double leftVelocity = (rig.getLeftMeters() - last[0]) / runner.getPeriodSeconds();
+      double rightVelocity = (rig.getRightMeters() - last[1]) / runner.getPeriodSeconds();
+      last[0] = rig.getLeftMeters();
+      last[1] = rig.getRightMeters();
+      drive.calculate(runner.getSimTimeSeconds() - driveStartSeconds, rig.getLeftMeters(),
+          rig.getRightMeters(), leftVelocity, rightVelocity);
+      rig.setVoltages(drive.getLeftVolts(), drive.getRightVolts());
+    });
+
+    runner.runUntil(drive::isFinished, kBalanceSeconds);
+    isDriving[0] = false;
+
+    // Same as AutoBalanceCommand: in simulation, TankDriveSystemSim passes tankDrive() on to
+    // DriveSimulation
+    Balance balance = new Balance();
+    double startSeconds = runner.getSimTimeSeconds();
+    runner.addStage("AutoBalanceCommand", () -> {
+      double elapsedSeconds = runner.getSimTimeSeconds() - startSeconds;
+      double roll = -station.getRobotPitchDegrees()
+          + Constants.SimConstants.kgyroRollOffsetDegrees;
+      double speed = controller.calculate(elapsedSeconds, roll);
+      rig.getDriveSimulation().tankDrive(speed, speed, false);
+
+      balance.m_isAlwaysOnPlatform &= station.isRobotOnPlatform();
+      if (Math.abs(station.getAngleDegrees()) <= kLevelDegrees) {
+        balance.m_levelSeconds += runner.getPeriodSeconds();
+        if (Double.isNaN(balance.m_levelSinceSeconds)) {
+          balance.m_levelSinceSeconds = elapsedSeconds;
+        }
+      }
+      else {
+        balance.m_levelSinceSeconds = Double.NaN;
+      }
+    });
+
+    runner.runFor(kBalanceSeconds);
+    balance.m_angleDegrees = station.getAngleDegrees();
+    balance.m_rateDegreesPerSec = station.getRateDegreesPerSec();
+    return balance;
+  }
+
+  private static void print(String name, Balance balance) {
+    System.out.println(String.format(
+        "Auto Balance (%s): level for good after %.2fs, level %.2fs of %.0fs, station at "
+            + "%.2f degrees", name, balance.m_levelSinceSeconds, balance.m_levelSeconds,
+        kBalanceSeconds, balance.m_angleDegrees));
+  }
+
+  @Test
+  public void pdBalanceShouldLevelStation() {
+    Balance balance = runAutoBalance(new BalanceController(kRate, true));
+    print("PD", balance);
+
+    assertTrue(balance.m_isAlwaysOnPlatform);
+    assertTrue(balance.m_levelSinceSeconds <= kBalanceSeconds / 2);
+    assertEquals(0, balance.m_rateDegreesPerSec, 1e-9);
+  }
+
+  // Reports how the competition rule does, which is what the PD rule has to beat on the robot
+  @Test
+  public void competitionBalanceShouldStayOnPlatform() {
+    Balance balance = runAutoBalance(new BalanceController(kRate, false));
+    print("competition", balance);
+
+    assertTrue(balance.m_isAlwaysOnPlatform);
+  }
+
+  @Test
+  public void levelStationShouldNotMove() {
+    boolean[] rules = {false, true};
+    for (boolean isPd : rules) {
+      BalanceController controller = new BalanceController(kRate, isPd);
+      assertEquals(0, controller.calculate(0, kLevelRoll), 1e-9);
+      assertEquals(0, controller.calculate(0.02, kLevelRoll), 1e-9);
+    }
+  }
+
+  @Test
+  public void shouldDriveUphillUpToRate() {
+    // Nose down: the uphill end is behind the robot
+    boolean[] rules = {false, true};
+    for (boolean isPd : rules) {
+      BalanceController controller = new BalanceController(kRate, isPd);
+      assertEquals(-kRate, controller.calculate(0, kLevelRoll + 15), 1e-9);
+    }
+
+    BalanceController controller = new BalanceController(kRate, true);
+    double speed = controller.calculate(0, kLevelRoll - 1);
+    assertTrue(speed > 0 && speed < kRate);
+  }
+
+  @Test
+  public void competitionRuleShouldStopWhileTippingAndSlowDown() {
+    BalanceController controller = new BalanceController(kRate, false);
+    assertEquals(kRate, controller.calculate(0, kLevelRoll - 15), 1e-9);
+    assertEquals(kRate, controller.calculate(0.3, kLevelRoll - 14), 1e-9);
+
+    // Tipping stops it, and after kBalanceCycleSeconds slows the next pass
+    assertEquals(0, controller.calculate(0.5, kLevelRoll - 10), 1e-9);
+    assertEquals(1.5, controller.getCycle(), 1e-9);
+    assertEquals(kRate / 1.5, controller.calculate(0.52, kLevelRoll - 10), 1e-9);
+  }
+
+  @Test
+  public void pdRuleShouldBackOffWhenStationTipsTowardLevel() {
+    // Nose up, but coming down fast: the robot is past the pivot
+    BalanceController controller = new BalanceController(kRate, true);
+    controller.calculate(0, kLevelRoll - 10);
+    assertTrue(controller.calculate(0.02, kLevelRoll - 9) < 0);
+    assertEquals(50, controller.getRollRate(), 1e-9);
+  }
+
+  @Test
+  public void negativeRateShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new BalanceController(-0.1));
+  }
+}
@@ -0,0 +1,195 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants;
+import frc.robot.simulation.framework.HeadlessSimRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the DriveDistanceController class, headless against the simulated drivetrain, and
+ * compares it with driving at a fixed output like DriveCommand.
+ */
+public class DriveDistanceControllerTest {
+  private static final double kMaxSeconds = 15;
+
+  // The drive moves in Auto, and the fixed output DriveCommand used for each
+  private static final String[] kMoveNames = {"Score and Move", "Auto Balance"};
+  private static final double[] kDistances = {Units.inchesToMeters(15 * 12),
+      -Units.inchesToMeters(8 * 12)};
+  private static final double[] kFixedOutputs = {0.5, -0.4};
+
+  private SimDrivetrainRig m_rig;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_rig = new SimDrivetrainRig();
+  }
+
+  /**
+   * How one move went. The error is how far from the goal the robot stopped.
+   */
+  private static class Move {
+    private double m_seconds = Double.NaN;
+    private double m_errorMeters;
+  }
+
+  private Move runProfiled(double distanceMeters) {
+    return runProfiled(distanceMeters, new DriveDistanceController());
+  }
+
+  private Move runProfiled(double distanceMeters, DriveDistanceController controller) {
+    HeadlessSimRunner runner = m_rig.getRunner();
+    controller.reset(m_rig.getLeftMeters(), m_rig.getRightMeters(), distanceMeters);
+    double startSeconds = runner.getSimTimeSeconds();
+    double[] last = {m_rig.getLeftMeters(), m_rig.getRightMeters()};
+
+    // Same as DriveDistanceProfiled: velocities come from the change in distance between loops
+    runner.addStage("Controller", () -> {
+      double leftVelocity = (m_rig.getLeftMeters() - last[0]) / runner.getPeriodSeconds();
+      double rightVelocity = (m_rig.getRightMeters() - last[1]) / runner.getPeriodSeconds();
+      last[0] = m_rig.getLeftMeters();
+      last[1] = m_rig.getRightMeters();
+
+      controller.calculate(runner.getSimTimeSeconds() - startSeconds, m_rig.getLeftMeters(),
+          m_rig.getRightMeters(), leftVelocity, rightVelocity);
+      m_rig.setVoltages(controller.getLeftVolts(), controller.getRightVolts());
+    });
+
+    Move move = new Move();
+    if (runner.runUntil(controller::isFinished, kMaxSeconds)) {
+      move.m_seconds = runner.getSimTimeSeconds() - startSeconds;
+    }
+
+    m_rig.setVoltages(0, 0);
+    move.m_errorMeters = m_rig.getTraveledMeters() - distanceMeters;
+    return move;
+  }
+
+  // Same as DriveCommand: fixed output every loop until far enough, then stop and coast
+  private Move runFixedOutput(double distanceMeters, double output) {
+    HeadlessSimRunner runner = m_rig.getRunner();
+    double startSeconds = runner.getSimTimeSeconds();
+    double[] currentOutput = {output};
+    runner.addStage("DriveCommand", () -> {
+      m_rig.getDriveSimulation().tankDrive(currentOutput[0], currentOutput[0], false);
+    });
+
+    Move move = new Move();
+    if (runner.runUntil(() -> Math.abs(m_rig.getTraveledMeters()) >= Math.abs(distanceMeters),
+        kMaxSeconds)) {
+      move.m_seconds = runner.getSimTimeSeconds() - startSeconds;
+    }
+
+    currentOutput[0] = 0;
+    runner.runFor(1.0);
+    move.m_errorMeters = m_rig.getTraveledMeters() - distanceMeters;
+    return move;
+  }
+
+  @Test
+  public void profiledDriveShouldBeFasterAndStopOnTarget() {
+    for (int i = 0; i < kDistances.length; i++) {
+      Move fixed = runFixedOutput(kDistances[i], kFixedOutputs[i]);
+      m_rig = new SimDrivetrainRig();
+      Move profiled = runProfiled(kDistances[i]);
+      m_rig = new SimDrivetrainRig();
+
+      System.out.println(String.format(
+          "%s (%.2fm): profiled %.2fs, final error %.3fm; fixed output %.2fs, "
+              + "final error %.3fm",
+          kMoveNames[i], kDistances[i], profiled.m_seconds, profiled.m_errorMeters,
+          fixed.m_seconds, fixed.m_errorMeters));
+
+      assertFalse(Double.isNaN(profiled.m_seconds), kMoveNames[i]);
+      assertTrue(profiled.m_seconds < fixed.m_seconds, kMoveNames[i]);
+      assertTrue(Math.abs(profiled.m_errorMeters)
+          <= Constants.OperatorConstants.kDriveDistanceTolerance, kMoveNames[i]);
+    }
+  }
+
+  @Test
+  public void staticFrictionShouldNotStopShortOfGoal() {
+    // More than the position feedback gives at the edge of the tolerance, less than kS
+    double frictionVolts = 0.25;
+    m_rig.setFrictionVolts(frictionVolts);
+    Move move = runProfiled(kDistances[1]);
+
+    System.out.println(String.format("With %.2fV of friction: %.2fs, final error %.3fm",
+        frictionVolts, move.m_seconds, move.m_errorMeters));
+    assertFalse(Double.isNaN(move.m_seconds));
+    assertTrue(Math.abs(move.m_errorMeters)
+        <= Constants.OperatorConstants.kDriveDistanceTolerance);
+  }
+
+  @Test
+  public void stalledDriveShouldStillFinish() {
+    // Friction more than kS can overcome: the drive gives up rather than hanging
+    m_rig.setFrictionVolts(2.0);
+    DriveDistanceController controller = new DriveDistanceController();
+    Move move = runProfiled(kDistances[1], controller);
+
+    assertFalse(Double.isNaN(move.m_seconds));
+    assertTrue(move.m_seconds <= controller.getTotalTimeSeconds()
+        + Constants.OperatorConstants.kDriveTimeoutMarginSeconds + 0.02);
+    assertTrue(Math.abs(move.m_errorMeters)
+        > Constants.OperatorConstants.kDriveDistanceTolerance);
+  }
+
+  @Test
+  public void driveShouldTimeOutAfterProfile() {
+    DriveDistanceController controller = new DriveDistanceController();
+    controller.reset(0, 0, 1);
+    double timeout = controller.getTotalTimeSeconds()
+        + Constants.OperatorConstants.kDriveTimeoutMarginSeconds;
+
+    // Still moving, nowhere near the goal
+    controller.calculate(timeout - 0.02, 0, 0, 1, 1);
+    assertFalse(controller.isFinished());
+    controller.calculate(timeout, 0, 0, 1, 1);
+    assertTrue(controller.isFinished());
+    assertTrue(controller.isTimedOut());
+  }
+
+  @Test
+  public void accelerationShouldBeTiedToSlewLimit() {
+    DriveDistanceController controller = new DriveDistanceController();
+    controller.reset(0, 0, 10);
+
+    double maxVelocity = Constants.OperatorConstants.kDriveProfileMaxVelocity;
+    double maxChange = maxVelocity * Constants.OperatorConstants.kSlewLimit * 0.02;
+    double lastVelocity = 0;
+    for (double t = 0; t <= controller.getTotalTimeSeconds(); t += 0.02) {
+      controller.calculate(t, 0, 0, 0, 0);
+      assertTrue(Math.abs(controller.getSetpointVelocity() - lastVelocity) <= maxChange + 1e-9);
+      assertTrue(controller.getSetpointVelocity() <= maxVelocity + 1e-9);
+      lastVelocity = controller.getSetpointVelocity();
+    }
+
+    // Top speed is reached 1 / kSlewLimit seconds in
+    controller.calculate(1 / Constants.OperatorConstants.kSlewLimit, 0, 0, 0, 0);
+    assertEquals(maxVelocity, controller.getSetpointVelocity(), 1e-9);
+  }
+
+  @Test
+  public void backwardDriveShouldDriveBothSidesBackward() {
+    DriveDistanceController controller = new DriveDistanceController();
+    controller.reset(1, 2, -3);
+
+    controller.calculate(0.5, 1, 2, 0, 0);
+    assertTrue(controller.getSetpointPosition() < 0);
+    assertTrue(controller.getLeftVolts() < 0);
+    assertTrue(controller.getRightVolts() < 0);
+    assertFalse(controller.isFinished());
+  }
+}
@@ -0,0 +1,231 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
+import frc.robot.Constants;
+import frc.robot.simulation.framework.HeadlessSimRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the HeadingController class, headless against the simulated drivetrain, and compares
+ * it with the old TurnDegrees, which turned at a fixed output until the heading was close.
+ */
+public class HeadingControllerTest {
+  private static final double kMaxSeconds = 10;
+
+  // The old TurnDegrees: fixed output, stopping when within this of the goal
+  private static final double kFixedOutput = 0.6;
+  private static final double kFixedToleranceDegrees = 2.0;
+
+  private SimDrivetrainRig m_rig;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_rig = new SimDrivetrainRig();
+  }
+
+  /**
+   * How one turn went. The overshoot is how far past the goal the heading went, in the
+   * direction of the turn, and the error is how far from the goal it came to rest.
+   */
+  private static class Turn {
+    private final double m_goalDegrees;
+    private double m_lastHeadingDegrees;
+    private double m_turnedDegrees;
+    private double m_seconds = Double.NaN;
+    private double m_overshootDegrees;
+
+    Turn(double headingDegrees, double turnDegrees) {
+      m_goalDegrees = turnDegrees;
+      m_lastHeadingDegrees = headingDegrees;
+    }
+
+    // Unwraps the heading, so turning through +-180 counts as turning on
+    void update(double headingDegrees) {
+      m_turnedDegrees += MathUtil.inputModulus(headingDegrees - m_lastHeadingDegrees, -180, 180);
+      m_lastHeadingDegrees = headingDegrees;
+      m_overshootDegrees = Math.max(m_overshootDegrees, Math.signum(m_goalDegrees) * getError());
+    }
+
+    double getError() {
+      return m_turnedDegrees - m_goalDegrees;
+    }
+  }
+
+  private Turn runProfiled(double turnDegrees) {
+    HeadlessSimRunner runner = m_rig.getRunner();
+    HeadingController controller = new HeadingController(1.0);
+    controller.reset(m_rig.getHeadingDegrees(), turnDegrees);
+    double startSeconds = runner.getSimTimeSeconds();
+
+    // Stages can't be removed, so this one stops driving once the turn is done
+    Turn turn = new Turn(m_rig.getHeadingDegrees(), turnDegrees);
+    boolean[] isActive = {true};
+    runner.addStage("Controller", () -> {
+      turn.update(m_rig.getHeadingDegrees());
+      if (isActive[0]) {
+        double volts = controller.calculate(runner.getSimTimeSeconds() - startSeconds,
+            m_rig.getHeadingDegrees());
+        m_rig.setVoltages(-volts, volts);
+      }
+    });
+
+    if (runner.runUntil(controller::isSettled, kMaxSeconds)) {
+      turn.m_seconds = runner.getSimTimeSeconds() - startSeconds;
+    }
+
+    isActive[0] = false;
+    m_rig.setVoltages(0, 0);
+    runner.runFor(1.0);
+    return turn;
+  }
+
+  // Same as the old TurnDegrees: fixed output every loop until close enough, then stop and
+  // coast. The simulated drivetrain's tankDrive() has its turn mirrored, so drive it with the
+  // voltages TankDriveSystem.tankDrive() would have set: squared, times the max output.
+  private Turn runFixedOutput(double turnDegrees) {
+    HeadlessSimRunner runner = m_rig.getRunner();
+    double startSeconds = runner.getSimTimeSeconds();
+    double[] volts = {Math.signum(turnDegrees) * kFixedOutput * kFixedOutput
+        * Constants.OperatorConstants.kMaxOutputDrive * 12};
+
+    Turn turn = new Turn(m_rig.getHeadingDegrees(), turnDegrees);
+    runner.addStage("TurnDegrees", () -> {
+      turn.update(m_rig.getHeadingDegrees());
+      m_rig.getDriveSimulation().setVoltages(-volts[0], volts[0]);
+    });
+
+    if (runner.runUntil(() -> Math.abs(turn.getError()) <= kFixedToleranceDegrees,
+        kMaxSeconds)) {
+      turn.m_seconds = runner.getSimTimeSeconds() - startSeconds;
+    }
+
+    volts[0] = 0;
+    runner.runFor(1.0);
+    return turn;
+  }
+
+  @Test
+  public void profiledTurnShouldSettleWithoutOvershoot() {
+    double[] turns = {90, 180, -90};
+    for (double turnDegrees : turns) {
+      Turn fixed = runFixedOutput(turnDegrees);
+      m_rig = new SimDrivetrainRig();
+      Turn profiled = runProfiled(turnDegrees);
+      m_rig = new SimDrivetrainRig();
+
+      System.out.println(String.format(
+          "Turn %.0f degrees: profiled %.2fs, overshoot %.2f, final error %.2f; "
+              + "fixed output %.2fs, overshoot %.2f, final error %.2f",
+          turnDegrees, profiled.m_seconds, profiled.m_overshootDegrees, profiled.getError(),
+          fixed.m_seconds, fixed.m_overshootDegrees, fixed.getError()));
+
+      String name = "turn " + turnDegrees;
+      assertFalse(Double.isNaN(profiled.m_seconds), name);
+      assertTrue(profiled.m_overshootDegrees < 2.0, name);
+      assertTrue(Math.abs(profiled.getError()) < 2.0, name);
+      assertTrue(profiled.m_seconds < fixed.m_seconds, name);
+    }
+  }
+
+  @Test
+  public void turnThroughWrapShouldNotSpin() {
+    // Face 170 degrees first, then turn 40 more, through +-180
+    Turn first = runProfiled(170);
+    assertFalse(Double.isNaN(first.m_seconds));
+
+    double startDegrees = m_rig.getHeadingDegrees();
+    Turn turn = runProfiled(40);
+    assertFalse(Double.isNaN(turn.m_seconds));
+    assertTrue(turn.m_overshootDegrees < 2.0);
+    assertEquals(MathUtil.inputModulus(startDegrees + 40, -180, 180),
+        m_rig.getHeadingDegrees(), 2.0);
+  }
+
+  @Test
+  public void headingShouldUnwrap() {
+    HeadingController controller = new HeadingController(1.0);
+    controller.reset(170, 40);
+    assertEquals(210, controller.getGoalDegrees(), 1e-9);
+
+    // Turning counterclockwise drives the right side forward
+    assertTrue(controller.calculate(0.02, 170) > 0);
+
+    controller.calculate(0.04, -170);
+    assertEquals(190, controller.getHeadingDegrees(), 1e-9);
+  }
+
+  @Test
+  public void turnBeyondHalfCircleShouldBeRejected() {
+    HeadingController controller = new HeadingController(1.0);
+    assertThrows(IllegalArgumentException.class, () -> controller.reset(0, 270));
+    assertThrows(IllegalArgumentException.class, () -> controller.reset(0, -180.5));
+    assertThrows(IllegalArgumentException.class, () -> controller.reset(0, Double.NaN));
+
+    controller.reset(0, -180);
+    assertEquals(-180, controller.getGoalDegrees(), 1e-9);
+  }
+
+  @Test
+  public void staticFrictionShouldNotStopShortOfGoal() {
+    // More than the feedback gives at the edge of the tolerance, less than kTurnMinVolts
+    m_rig.setFrictionVolts(0.25);
+    Turn turn = runProfiled(90);
+
+    System.out.println(String.format("Turn 90 degrees with 0.25V of friction: %.2fs, "
+        + "final error %.2f", turn.m_seconds, turn.getError()));
+    assertFalse(Double.isNaN(turn.m_seconds));
+    assertTrue(Math.abs(turn.getError()) <= Constants.OperatorConstants.kTurnTolerance + 0.5);
+  }
+
+  @Test
+  public void turnShouldTimeOutAfterProfile() {
+    HeadingController controller = new HeadingController(1.0);
+    controller.reset(0, 90);
+    double timeout = controller.getTotalTimeSeconds()
+        + Constants.OperatorConstants.kTurnTimeoutMarginSeconds;
+
+    // Stuck where it started
+    controller.calculate(timeout - 0.02, 0);
+    assertFalse(controller.isTimedOut());
+    controller.calculate(timeout, 0);
+    assertTrue(controller.isTimedOut());
+    assertFalse(controller.isSettled());
+  }
+
+  @Test
+  public void settledShouldWaitForSettleTime() {
+    HeadingController controller = new HeadingController(1.0);
+    controller.reset(0, 10);
+    double endSeconds = controller.getTotalTimeSeconds();
+
+    // At the goal, but not yet for long enough
+    controller.calculate(endSeconds, 10);
+    assertFalse(controller.isSettled());
+    controller.calculate(endSeconds + 0.04, 10.1);
+    assertFalse(controller.isSettled());
+
+    // Wandering out of tolerance starts the wait over
+    controller.calculate(endSeconds + 0.08, 12);
+    assertFalse(controller.isSettled());
+
+    // So does passing through the tolerance too fast
+    controller.calculate(endSeconds + 0.1, 10);
+    controller.calculate(endSeconds + 0.12, 10);
+    controller.calculate(endSeconds + 0.2, 10);
+    assertFalse(controller.isSettled());
+    controller.calculate(endSeconds + 0.22, 10);
+    assertTrue(controller.isSettled());
+  }
+}
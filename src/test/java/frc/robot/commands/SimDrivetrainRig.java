@@ -0,0 +1,100 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants;
+import frc.robot.simulation.DriveSimulation;
+import frc.robot.simulation.framework.HeadlessSimRunner;
+import frc.robot.simulation.framework.SimStepper;
+
+/**
+ * The simulated drivetrain, stepped headless, for testing the drive controllers. Stages added
+ * to the runner are the robot code: they run after the drivetrain in each step, and see its
+ * new sensor values.
+ *
+ * <p>
+ * DriveSimulation allocates HAL devices, so every test shares one. The HAL must be
+ * initialized before the first rig is created.
+ * </p>
+ */
+class SimDrivetrainRig {
+  private static DriveSimulation s_driveSimulation = null;
+
+  private final HeadlessSimRunner m_runner = new HeadlessSimRunner();
+  private double m_leftMeters;
+  private double m_rightMeters;
+  private double m_headingDegrees;
+  private double m_frictionVolts = 0;
+
+  /**
+   * Lets the robot come to rest from any earlier test, then puts it back at the origin, facing
+   * along the x axis.
+   */
+  SimDrivetrainRig() {
+    if (s_driveSimulation == null) {
+      SimStepper stepper = new SimStepper();
+      stepper.setMaxStepSeconds(Constants.SimConstants.kdriveSimMaxStepSeconds);
+      s_driveSimulation = new DriveSimulation(
+          Constants.OperatorConstants.kWheelDiameterMetersDrive / 2, stepper);
+    }
+
+    m_runner.addStage("Drive", () -> {
+      s_driveSimulation.simulationPeriodic();
+      s_driveSimulation.periodic();
+      m_leftMeters = s_driveSimulation.getRelativeDistanceLeft();
+      m_rightMeters = s_driveSimulation.getRelativeDistanceRight();
+
+      // The simulated gyro is clockwise-positive; wrap like the odometry heading does
+      m_headingDegrees = MathUtil.inputModulus(-s_driveSimulation.getHeading(), -180, 180);
+    });
+
+    s_driveSimulation.setVoltages(0, 0);
+    m_runner.runFor(2.0);
+    s_driveSimulation.resetOdometry(new Pose2d(0, 0, new Rotation2d()));
+    m_leftMeters = 0;
+    m_rightMeters = 0;
+    m_headingDegrees = 0;
+  }
+
+  /**
+   * Models static friction, which the simulated drivetrain doesn't have: setVoltages() takes
+   * this much off each side's voltage, so less than this doesn't move the robot at all.
+   */
+  void setFrictionVolts(double frictionVolts) {
+    m_frictionVolts = frictionVolts;
+  }
+
+  void setVoltages(double leftVolts, double rightVolts) {
+    s_driveSimulation.setVoltages(applyFriction(leftVolts), applyFriction(rightVolts));
+  }
+
+  private double applyFriction(double volts) {
+    return Math.copySign(Math.max(0, Math.abs(volts) - m_frictionVolts), volts);
+  }
+
+  DriveSimulation getDriveSimulation() {
+    return s_driveSimulation;
+  }
+
+  HeadlessSimRunner getRunner() {
+    return m_runner;
+  }
+
+  double getLeftMeters() {
+    return m_leftMeters;
+  }
+
+  double getRightMeters() {
+    return m_rightMeters;
+  }
+
+  double getTraveledMeters() {
+    return (m_leftMeters + m_rightMeters) / 2;
+  }
+
+  // Counterclockwise-positive, wrapped to +-180
+  double getHeadingDegrees() {
+    return m_headingDegrees;
+  }
+}
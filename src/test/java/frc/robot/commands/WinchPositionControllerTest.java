@@ -0,0 +1,192 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.Constants;
+import frc.robot.simulation.ArmSimulation;
+import frc.robot.simulation.ArmSimulationParams;
+import frc.robot.simulation.motor.MotorSimModel;
+import frc.robot.simulation.winch.WinchSimModel;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the WinchPositionController class, against the same winch motor, winch and arm
+ * models that ArmSystemSim uses.
+ */
+public class WinchPositionControllerTest {
+  private static final double kTickSeconds = 0.02;
+  private static final double kMaxSeconds = 5;
+
+  // Every winch setpoint in Constants
+  private static final String[] kSetpointNames = {"kWinchEncoderUpperLimit",
+      "kWinchEncoderLowerLimit", "kWinchMiddleNodeCone", "kWinchMiddleNodeCube",
+      "kWinchRetractAngle", "kWinchGroundAngle"};
+  private static final double[] kSetpoints = {Constants.OperatorConstants.kWinchEncoderUpperLimit,
+      Constants.OperatorConstants.kWinchEncoderLowerLimit,
+      Constants.OperatorConstants.kWinchMiddleNodeCone,
+      Constants.OperatorConstants.kWinchMiddleNodeCube,
+      Constants.OperatorConstants.kWinchRetractAngle,
+      Constants.OperatorConstants.kWinchGroundAngle};
+
+  /**
+   * Winch motor, winch and arm, stepped together like the SimGraph does. The arm starts
+   * level, where ArmSystemSim starts it.
+   */
+  private static class ArmRig {
+    private final MotorSimModel m_motor =
+        new MotorSimModel(Constants.SimConstants.kwinchSimGearRatio);
+    private final WinchSimModel m_winch = new WinchSimModel(0.0254,
+        Constants.SimConstants.kTotalStringLenMeters, Constants.SimConstants.kCurrentLenSpooled,
+        WindingOrientation.BackOfRobot, true);
+    private final ArmSimulation m_arm;
+    private double m_position;
+
+    ArmRig() {
+      ArmSimulationParams armParams = new ArmSimulationParams(
+          Constants.OperatorConstants.kWinchEncoderUpperLimit,
+          Constants.OperatorConstants.kWinchEncoderLowerLimit,
+          Constants.SimConstants.kdeltaRotationsBeforeBroken,
+          Constants.SimConstants.kgrabberBreaksIfOpenBelowThisLimit,
+          Constants.SimConstants.karmHeightFromWinchToPivotPoint,
+          Constants.SimConstants.karmLengthFromEdgeToPivot,
+          Constants.SimConstants.klengthFromPivotPointToArmBackEnd_Min,
+          Constants.SimConstants.karmEncoderRotationsOffset);
+
+      m_arm = new ArmSimulation(m_winch::getStringUnspooledLen, position -> {
+        m_position = position;
+      }, armParams);
+    }
+
+    void step(double output) {
+      m_winch.updateNewLenSpooled(m_motor.updateMotorPosition(output));
+      m_arm.simulationPeriodic();
+    }
+  }
+
+  /**
+   * How one move went. Overshoot is in absolute encoder rotations past the setpoint.
+   */
+  private static class Move {
+    private double m_timeToTargetSeconds = Double.NaN;
+    private double m_overshoot = 0;
+    private boolean m_isBroken;
+  }
+
+  private static Move runProfiled(double setpoint) {
+    ArmRig rig = new ArmRig();
+    WinchPositionController controller = new WinchPositionController(0);
+    controller.reset(rig.m_position, setpoint);
+    double direction = Math.signum(setpoint - rig.m_position);
+
+    Move move = new Move();
+    for (int tick = 0; tick * kTickSeconds < kMaxSeconds; tick++) {
+      double elapsedSeconds = tick * kTickSeconds;
+      double output = controller.calculate(elapsedSeconds, rig.m_position);
+      if (controller.isSettled()) {
+        move.m_timeToTargetSeconds = elapsedSeconds;
+        break;
+      }
+
+      rig.step(output);
+      move.m_overshoot = Math.max(move.m_overshoot, (rig.m_position - setpoint) * direction);
+    }
+
+    move.m_isBroken = rig.m_arm.getIsBroken();
+    return move;
+  }
+
+  // Same as SetWinchToAngle at full speed, for comparison
+  private static Move runBangBang(double setpoint) {
+    ArmRig rig = new ArmRig();
+    double direction = (rig.m_position > setpoint) ? -1 : 1;
+
+    Move move = new Move();
+    for (int tick = 0; tick * kTickSeconds < kMaxSeconds; tick++) {
+      if ((rig.m_position - setpoint) * direction >= 0) {
+        move.m_timeToTargetSeconds = tick * kTickSeconds;
+        break;
+      }
+
+      rig.step(direction);
+    }
+
+    // Stop, and see where the arm coasts to
+    for (int tick = 0; tick < 10; tick++) {
+      rig.step(0);
+      move.m_overshoot = Math.max(move.m_overshoot, (rig.m_position - setpoint) * direction);
+    }
+
+    move.m_isBroken = rig.m_arm.getIsBroken();
+    return move;
+  }
+
+  @Test
+  public void everySetpointShouldSettleWithoutOvershoot() {
+    for (int i = 0; i < kSetpoints.length; i++) {
+      Move profiled = runProfiled(kSetpoints[i]);
+      Move bangBang = runBangBang(kSetpoints[i]);
+
+      System.out.println(String.format(
+          "%s (%.3f): profiled settled in %.2fs, overshoot %.4f; bang-bang crossed in %.2fs, "
+              + "overshoot %.4f%s",
+          kSetpointNames[i], kSetpoints[i], profiled.m_timeToTargetSeconds,
+          profiled.m_overshoot, bangBang.m_timeToTargetSeconds, bangBang.m_overshoot,
+          bangBang.m_isBroken ? ", broke the arm" : ""));
+
+      assertFalse(profiled.m_isBroken, kSetpointNames[i]);
+      assertTrue(profiled.m_timeToTargetSeconds < 2.0, kSetpointNames[i]);
+      assertTrue(profiled.m_overshoot < Constants.OperatorConstants.kWinchSettleTolerance,
+          kSetpointNames[i]);
+    }
+  }
+
+  @Test
+  public void profileShouldStartAndEndAtRest() {
+    WinchPositionController controller = new WinchPositionController(0);
+    controller.reset(0.45, 0.60);
+
+    controller.calculate(0, 0.45);
+    assertEquals(0.45, controller.getSetpointPosition(), 1e-9);
+    assertEquals(0, controller.getSetpointVelocity(), 1e-9);
+
+    controller.calculate(controller.getTotalTimeSeconds() + 0.1, 0.60);
+    assertEquals(0.60, controller.getSetpointPosition(), 1e-9);
+    assertEquals(0, controller.getSetpointVelocity(), 1e-9);
+  }
+
+  @Test
+  public void gravityFeedforwardShouldHoldArmAtGoal() {
+    WinchPositionController controller = new WinchPositionController(0.1);
+    double level = Constants.SimConstants.karmEncoderRotationsOffset;
+    controller.reset(level, level);
+
+    assertEquals(0.1, controller.calculate(10, level), 1e-3);
+    assertEquals(Constants.SimConstants.karmLengthFromEdgeToPivot,
+        controller.getLeverMeters(level), 1e-4);
+
+    // The string hangs straight down, so its lever arm shrinks along with the arm's gravity
+    // torque, and the tension needed to hold the arm is the same at any angle
+    double raised = level + 0.05;
+    controller.reset(raised, raised);
+    assertEquals(0.1, controller.calculate(10, raised), 1e-3);
+    assertTrue(controller.getLeverMeters(raised) < controller.getLeverMeters(level));
+  }
+
+  @Test
+  public void settledShouldNeedPositionHeldForSettleTime() {
+    WinchPositionController controller = new WinchPositionController(0);
+    controller.reset(0.60, 0.60);
+
+    controller.calculate(0, 0.60);
+    assertFalse(controller.isSettled());
+
+    controller.calculate(Constants.OperatorConstants.kWinchSettleSeconds, 0.60);
+    assertTrue(controller.isSettled());
+
+    controller.calculate(Constants.OperatorConstants.kWinchSettleSeconds + 0.02, 0.61);
+    assertFalse(controller.isSettled());
+  }
+}
@@ -0,0 +1,119 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.simulation.ensemble.ArmEnsemble;
+import frc.robot.simulation.ensemble.ArmEnsembleResult;
+import frc.robot.simulation.ensemble.ArmEnsembleScenario;
+import frc.robot.simulation.winch.WinchSimModel;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the ArmEnsemble class. Note that none of this needs the HAL.
+ */
+public class ArmEnsembleTest {
+  private final ArmSimulationParams m_armParams = new ArmSimulationParams(0.25, // top
+      0.75, // bottom
+      0, // deltaRotationsBeforeBroken
+      0.80, // grabberBreaksIfOpenBelowThisLimit
+      1, // heightFromWinchToPivotPoint
+      0.5, // armLengthFromEdgeToPivot
+      0.1, // armLengthFromEdgeToPivotMin
+      0); // encoderRotationsOffset
+
+  private double[] createTrajectory(int numTicks, double amplitudeRotations) {
+    double[] result = new double[numTicks];
+    for (int i = 0; i < numTicks; i++) {
+      result[i] = amplitudeRotations * Math.sin(i * 0.02);
+    }
+
+    return result;
+  }
+
+  private ArmEnsembleScenario createScenario(double[] trajectory) {
+    return new ArmEnsembleScenario("Test", m_armParams, 0.01, 5, 4, false, trajectory);
+  }
+
+  @Test
+  public void noUncertaintyShouldMatchScalarModels() {
+    double[] trajectory = createTrajectory(500, 10);
+
+    WinchSimModel winch = new WinchSimModel(0.01, 5, 4, WindingOrientation.BackOfRobot, false);
+    double[] encoderPosition = {0};
+    ArmSimulation arm = new ArmSimulation(() -> winch.getStringUnspooledLen(),
+        position -> encoderPosition[0] = position, m_armParams);
+
+    for (double rotations : trajectory) {
+      winch.updateNewLenSpooled(rotations);
+      arm.simulationPeriodic();
+    }
+
+    ArmEnsemble ensemble = new ArmEnsemble(1000);
+    ArmEnsembleResult result = ensemble.run(createScenario(trajectory));
+
+    for (int i = 0; i < ensemble.getNumInstances(); i++) {
+      assertEquals(arm.getCurrentSignedDegrees(), ensemble.getFinalSignedDegrees(i), 0.0);
+    }
+
+    double expectedBreak = (arm.getIsBroken() || winch.getIsBroken()) ? 1.0 : 0.0;
+    assertEquals(expectedBreak, result.getBreakProbability(), 0.0);
+  }
+
+  @Test
+  public void resultsShouldBeDeterministic() {
+    ArmEnsembleScenario scenario = createScenario(createTrajectory(300, 12));
+    scenario.m_spoolDiameterStdDev = 0.001;
+    scenario.m_encoderRotationsOffsetStdDev = 0.02;
+    scenario.m_rotationsNoiseStdDev = 0.1;
+
+    ArmEnsemble ensemble = new ArmEnsemble(5000);
+    ArmEnsembleResult first = ensemble.run(scenario);
+    double[] firstDegrees = new double[ensemble.getNumInstances()];
+    for (int i = 0; i < firstDegrees.length; i++) {
+      firstDegrees[i] = ensemble.getFinalSignedDegrees(i);
+    }
+
+    ArmEnsembleResult second = ensemble.run(scenario);
+
+    assertEquals(first.getBreakProbability(), second.getBreakProbability(), 0.0);
+    for (int i = 0; i < firstDegrees.length; i++) {
+      assertEquals(firstDegrees[i], ensemble.getFinalSignedDegrees(i), 0.0);
+    }
+  }
+
+  @Test
+  public void moreUncertaintyShouldBreakMoreOften() {
+    // Arm ends at ~52 degrees, close to its top limit of 54 degrees (0.15 rotations), so an
+    // uncertain encoder offset sometimes breaks it
+    ArmSimulationParams armParams = new ArmSimulationParamsBuilder(m_armParams)
+        .setTopRotationsLimit(0.15).build();
+    double[] trajectory = new double[100];
+    for (int i = 0; i < trajectory.length; i++) {
+      trajectory[i] = -12.5 * (i + 1) / trajectory.length;
+    }
+
+    ArmEnsemble ensemble = new ArmEnsemble(4000);
+    ArmEnsembleResult certain = ensemble.run(
+        new ArmEnsembleScenario("Certain", armParams, 0.01, 5, 4, false, trajectory));
+
+    ArmEnsembleScenario uncertainScenario = new ArmEnsembleScenario("Uncertain", armParams,
+        0.01, 5, 4, false, trajectory);
+    uncertainScenario.m_encoderRotationsOffsetStdDev = 0.05;
+    ArmEnsembleResult uncertain = ensemble.run(uncertainScenario);
+
+    assertEquals(0.0, certain.getBreakProbability(), 0.0);
+    assertTrue(uncertain.getBreakProbability() > 0.1, uncertain.toString());
+    assertEquals(4000, sum(uncertain.getFinalAngleHistogram()));
+  }
+
+  private static int sum(int[] values) {
+    int result = 0;
+    for (int value : values) {
+      result += value;
+    }
+
+    return result;
+  }
+}
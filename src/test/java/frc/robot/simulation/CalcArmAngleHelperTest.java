@@ -1,8 +1,10 @@
 package frc.robot.simulation;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import frc.robot.simulation.CalcArmAngleHelper.Result;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -102,4 +104,185 @@ public class CalcArmAngleHelperTest {
   public void calcStringLenForNegative91Degrees() {
     calcStringLenHelper(-91, m_armHeightFromWinchToPivotPoint + m_armLengthFromEdgeToPivot, false);
   }
+
+  @Test
+  public void primitiveApiShouldMatchResultApi() {
+    for (double stringLen = 0.7; stringLen <= 1.3; stringLen += 0.001) {
+      Result result = m_calcArmAngleHelper.calcSignedDegreesForStringLength(stringLen);
+      double signedDegrees = m_calcArmAngleHelper.calcSignedDegrees(stringLen);
+
+      assertEquals(result.m_isValid, !Double.isNaN(signedDegrees));
+      if (result.m_isValid) {
+        assertEquals(result.m_value, signedDegrees, 0.0);
+      }
+    }
+
+    assertTrue(Double.isNaN(m_calcArmAngleHelper.calcStringLength(91)));
+    assertEquals(0.8232233047033631, m_calcArmAngleHelper.calcStringLength(45),
+        UnitConversions.kDoubleTolerance);
+  }
+
+  @Test
+  public void lookupTableShouldStayWithinErrorBoundAndBeMonotonic() {
+    double maxErrorDegrees = 0.01;
+    CalcArmAngleHelper exact = new CalcArmAngleHelper(m_armHeightFromWinchToPivotPoint,
+        m_armLengthFromEdgeToPivot);
+    m_calcArmAngleHelper.enableLookupTable(maxErrorDegrees);
+
+    double minLen = m_armHeightFromWinchToPivotPoint - m_armLengthFromEdgeToPivot;
+    double maxLen = m_armHeightFromWinchToPivotPoint + m_armLengthFromEdgeToPivot;
+    int numSamples = 1000000;
+    double maxAngleError = 0;
+    double previousDegrees = Double.POSITIVE_INFINITY;
+
+    for (int i = 0; i <= numSamples; i++) {
+      double stringLen = minLen + (maxLen - minLen) * i / numSamples;
+      double signedDegrees = m_calcArmAngleHelper.calcSignedDegrees(stringLen);
+
+      maxAngleError = Math.max(maxAngleError,
+          Math.abs(signedDegrees - exact.calcSignedDegrees(stringLen)));
+      assertTrue(signedDegrees <= previousDegrees + 1e-12, "Not monotonic at " + stringLen);
+      previousDegrees = signedDegrees;
+    }
+
+    double maxLenError = 0;
+    for (int i = 0; i <= numSamples; i++) {
+      double signedDegrees = -90 + 180.0 * i / numSamples;
+      maxLenError = Math.max(maxLenError, Math.abs(m_calcArmAngleHelper
+          .calcStringLength(signedDegrees) - exact.calcStringLength(signedDegrees)));
+    }
+
+    System.out.println("Lookup table max angle error: " + maxAngleError
+        + " degrees, max string length error: " + maxLenError + " meters");
+    assertTrue(maxAngleError <= maxErrorDegrees);
+    assertTrue(maxLenError <= m_armLengthFromEdgeToPivot * Math.toRadians(maxErrorDegrees));
+  }
+
+  private double sumSignedDegrees(double[] stringLens) {
+    double result = 0;
+    for (double stringLen : stringLens) {
+      result += m_calcArmAngleHelper.calcSignedDegrees(stringLen);
+    }
+
+    return result;
+  }
+
+  private long timeSumSignedDegreesNanos(double[] stringLens) {
+    long bestNanos = Long.MAX_VALUE;
+    for (int repeat = 0; repeat < 20; repeat++) {
+      long startNanos = System.nanoTime();
+      double sum = sumSignedDegrees(stringLens);
+      bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+      assertTrue(!Double.isNaN(sum));
+    }
+
+    return bestNanos;
+  }
+
+  @Test
+  public void benchmarkLookupTableAgainstExact() {
+    double[] stringLens = new double[200000];
+    for (int i = 0; i < stringLens.length; i++) {
+      stringLens[i] = m_armHeightFromWinchToPivotPoint
+          + m_armLengthFromEdgeToPivot * Math.sin(i * 0.001);
+    }
+
+    long exactNanos = timeSumSignedDegreesNanos(stringLens);
+    m_calcArmAngleHelper.enableLookupTable(0.01);
+    long lookupNanos = timeSumSignedDegreesNanos(stringLens);
+
+    // Only reported, since timing on a shared build machine is too noisy to assert on
+    System.out.println("calcSignedDegrees: exact " + (double) exactNanos / stringLens.length
+        + " ns/call, lookup table " + (double) lookupNanos / stringLens.length
+        + " ns/call, speedup " + (double) exactNanos / lookupNanos + "x");
+  }
+
+  @Test
+  public void batchShouldMatchScalar() {
+    Random random = new Random(1);
+    double[] stringLens = new double[1000];
+    double[] degrees = new double[stringLens.length];
+    for (int i = 0; i < stringLens.length; i++) {
+      stringLens[i] = 0.7 + 0.6 * random.nextDouble();
+      degrees[i] = -100 + 200 * random.nextDouble();
+    }
+
+    double[] batchDegrees = new double[stringLens.length];
+    double[] batchLens = new double[stringLens.length];
+    boolean[] valid = new boolean[stringLens.length];
+
+    m_calcArmAngleHelper.calcSignedDegreesForStringLengths(stringLens, batchDegrees, valid);
+    for (int i = 0; i < stringLens.length; i++) {
+      Result result = m_calcArmAngleHelper.calcSignedDegreesForStringLength(stringLens[i]);
+      assertEquals(result.m_isValid, valid[i]);
+      assertEquals(result.m_value, batchDegrees[i], 0.0);
+    }
+
+    m_calcArmAngleHelper.calcStringLengthsForSignedDegrees(degrees, batchLens, valid);
+    for (int i = 0; i < degrees.length; i++) {
+      Result result = m_calcArmAngleHelper.calcStringLengthForSignedDegrees(degrees[i]);
+      assertEquals(result.m_isValid, valid[i]);
+      assertEquals(result.m_value, batchLens[i], 0.0);
+    }
+  }
+
+  @Test
+  public void stringLengthWithinToleranceOfEndsShouldNotBeNaN() {
+    double halfTolerance = UnitConversions.kDoubleTolerance / 2;
+    double[] stringLens = {
+        m_armHeightFromWinchToPivotPoint + m_armLengthFromEdgeToPivot + halfTolerance,
+        m_armHeightFromWinchToPivotPoint - m_armLengthFromEdgeToPivot - halfTolerance};
+    double[] batchDegrees = new double[stringLens.length];
+    boolean[] valid = new boolean[stringLens.length];
+    m_calcArmAngleHelper.calcSignedDegreesForStringLengths(stringLens, batchDegrees, valid);
+
+    assertEquals(-90, m_calcArmAngleHelper.calcSignedDegrees(stringLens[0]), 1e-9);
+    assertEquals(90, m_calcArmAngleHelper.calcSignedDegrees(stringLens[1]), 1e-9);
+    for (int i = 0; i < stringLens.length; i++) {
+      assertTrue(valid[i]);
+      assertEquals(m_calcArmAngleHelper.calcSignedDegrees(stringLens[i]), batchDegrees[i], 0.0);
+    }
+  }
+
+  @Test
+  public void benchmarkBatchAgainstScalar() {
+    double[] stringLens = new double[200000];
+    for (int i = 0; i < stringLens.length; i++) {
+      stringLens[i] = m_armHeightFromWinchToPivotPoint
+          + m_armLengthFromEdgeToPivot * 0.99 * Math.sin(i * 0.001);
+    }
+
+    double[] degrees = new double[stringLens.length];
+    boolean[] valid = new boolean[stringLens.length];
+    long scalarNanos = Long.MAX_VALUE;
+    long batchNanos = Long.MAX_VALUE;
+
+    for (int repeat = 0; repeat < 20; repeat++) {
+      long startNanos = System.nanoTime();
+      for (int i = 0; i < stringLens.length; i++) {
+        Result result = m_calcArmAngleHelper.calcSignedDegreesForStringLength(stringLens[i]);
+        degrees[i] = result.m_value;
+        valid[i] = result.m_isValid;
+      }
+      scalarNanos = Math.min(scalarNanos, System.nanoTime() - startNanos);
+
+      startNanos = System.nanoTime();
+      m_calcArmAngleHelper.calcSignedDegreesForStringLengths(stringLens, degrees, valid);
+      batchNanos = Math.min(batchNanos, System.nanoTime() - startNanos);
+    }
+
+    m_calcArmAngleHelper.enableLookupTable(0.01);
+    long batchLookupNanos = Long.MAX_VALUE;
+    for (int repeat = 0; repeat < 20; repeat++) {
+      long startNanos = System.nanoTime();
+      m_calcArmAngleHelper.calcSignedDegreesForStringLengths(stringLens, degrees, valid);
+      batchLookupNanos = Math.min(batchLookupNanos, System.nanoTime() - startNanos);
+    }
+
+    System.out.println("calcSignedDegrees per call: scalar Result "
+        + (double) scalarNanos / stringLens.length + " ns, batch "
+        + (double) batchNanos / stringLens.length + " ns, batch with lookup table "
+        + (double) batchLookupNanos / stringLens.length + " ns");
+    assertTrue(valid[0]);
+  }
 }
@@ -0,0 +1,116 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants;
+import frc.robot.simulation.framework.SimStepper;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the ChargeStationSimulation class, with the robot placed by the test rather than by
+ * a drivetrain simulation.
+ */
+public class ChargeStationSimulationTest {
+  private static final double kPeriodSeconds = SimStepper.kNominalPeriodSeconds;
+  private static final double kMaxAngleDegrees =
+      Constants.SimConstants.kchargeStationMaxAngleDegrees;
+
+  private Pose2d m_robotPose;
+  private ChargeStationSimulation m_station;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    m_robotPose = new Pose2d(-5, 0, new Rotation2d());
+
+    SimStepper stepper = new SimStepper();
+    stepper.setMaxStepSeconds(Constants.SimConstants.kdriveSimMaxStepSeconds);
+    m_station = new ChargeStationSimulation(0, 0, () -> m_robotPose, stepper);
+  }
+
+  private void placeRobot(double offsetMeters, double headingDegrees) {
+    m_robotPose = new Pose2d(offsetMeters, 0, Rotation2d.fromDegrees(headingDegrees));
+  }
+
+  private void runFor(double seconds) {
+    for (double t = 0; t < seconds - 1e-9; t += kPeriodSeconds) {
+      m_station.simulationPeriodic();
+    }
+  }
+
+  @Test
+  public void emptyStationShouldStayLevel() {
+    runFor(2.0);
+    assertEquals(0, m_station.getAngleDegrees(), 1e-9);
+    assertFalse(m_station.isRobotOnStation());
+    assertEquals(0, m_station.getRobotPitchDegrees(), 1e-9);
+  }
+
+  @Test
+  public void robotOnPlatformShouldTipItsEndDown() {
+    placeRobot(0.4, 0);
+    runFor(3.0);
+    assertTrue(m_station.isRobotOnPlatform());
+    assertEquals(-kMaxAngleDegrees, m_station.getAngleDegrees(), 1e-9);
+    assertEquals(0, m_station.getRateDegreesPerSec(), 1e-9);
+
+    // Facing +x, toward the low end, the nose is down. Facing the other way it is up.
+    assertEquals(-kMaxAngleDegrees, m_station.getRobotPitchDegrees(), 1e-9);
+    placeRobot(0.4, 180);
+    m_station.simulationPeriodic();
+    assertEquals(kMaxAngleDegrees, m_station.getRobotPitchDegrees(), 1e-9);
+  }
+
+  @Test
+  public void robotOnRampShouldPitchNoseUpAndTipStation() {
+    double halfPlatform = Constants.SimConstants.kchargeStationPlatformLenMeters / 2;
+    placeRobot(-halfPlatform - 0.1, 0);
+    runFor(3.0);
+
+    // The hinge carries part of the robot, so the -x end goes down, and the ramp gets flatter
+    assertTrue(m_station.isRobotOnStation());
+    assertFalse(m_station.isRobotOnPlatform());
+    assertEquals(kMaxAngleDegrees, m_station.getAngleDegrees(), 1e-9);
+    assertTrue(m_station.getRobotPitchDegrees() > 0);
+    assertTrue(m_station.getRobotPitchDegrees() < 20);
+  }
+
+  @Test
+  public void dampingShouldStopPlatformWithRobotCentered() {
+    placeRobot(0.3, 0);
+    runFor(0.3);
+    double rate = m_station.getRateDegreesPerSec();
+    assertTrue(rate < -1);
+
+    placeRobot(0, 0);
+    runFor(3.0);
+    assertEquals(0, m_station.getRateDegreesPerSec(), 0.01);
+    assertTrue(Math.abs(m_station.getAngleDegrees()) < kMaxAngleDegrees);
+  }
+
+  @Test
+  public void snapshotShouldRestoreStation() {
+    placeRobot(0.3, 0);
+    runFor(0.2);
+
+    ByteBuffer buffer = ByteBuffer.allocate(m_station.getSnapshotSizeBytes());
+    m_station.writeSnapshot(buffer);
+    assertEquals(m_station.getSnapshotSizeBytes(), buffer.position());
+    double angle = m_station.getAngleDegrees();
+    double rate = m_station.getRateDegreesPerSec();
+
+    runFor(0.5);
+    buffer.flip();
+    m_station.readSnapshot(buffer);
+    assertEquals(angle, m_station.getAngleDegrees(), 1e-12);
+    assertEquals(rate, m_station.getRateDegreesPerSec(), 1e-12);
+  }
+}
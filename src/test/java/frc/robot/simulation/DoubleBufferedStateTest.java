@@ -0,0 +1,81 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.simulation.framework.CopyableState;
+import frc.robot.simulation.framework.DoubleBufferedState;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the DoubleBufferedState class.
+ */
+public class DoubleBufferedStateTest {
+  // Test state where m_second must always equal -m_first, unless the state was torn
+  private static class PairState implements CopyableState<PairState> {
+    private long m_first;
+    private long m_second;
+
+    @Override
+    public void copyFrom(PairState other) {
+      m_first = other.m_first;
+      m_second = other.m_second;
+    }
+  }
+
+  @Test
+  public void readShouldReturnLastPublishedState() {
+    DoubleBufferedState<PairState> state = new DoubleBufferedState<>(PairState::new);
+
+    PairState back = state.beginWrite();
+    back.m_first = 7;
+    back.m_second = -7;
+    state.publish();
+
+    // Not yet published, so readers shouldn't see it
+    back = state.beginWrite();
+    back.m_first = 8;
+    back.m_second = -8;
+
+    PairState target = new PairState();
+    state.read(target);
+    assertEquals(7, target.m_first);
+    assertEquals(1, state.getVersion());
+  }
+
+  @Test
+  public void factoryReturningSameInstanceShouldFail() {
+    PairState shared = new PairState();
+    assertThrows(IllegalArgumentException.class, () -> {
+      new DoubleBufferedState<>(() -> shared);
+    });
+  }
+
+  @Test
+  public void readerOnAnotherThreadShouldNeverSeeTornState() throws InterruptedException {
+    DoubleBufferedState<PairState> state = new DoubleBufferedState<>(PairState::new);
+    int numWrites = 2000000;
+
+    Thread writer = new Thread(() -> {
+      for (long i = 1; i <= numWrites; i++) {
+        PairState back = state.beginWrite();
+        back.m_first = i;
+        back.m_second = -i;
+        state.publish();
+      }
+    });
+    writer.start();
+
+    PairState target = new PairState();
+    long lastSeen = 0;
+    while (writer.isAlive() || lastSeen < numWrites) {
+      state.read(target);
+      assertEquals(-target.m_first, target.m_second);
+      assertTrue(target.m_first >= lastSeen);
+      lastSeen = target.m_first;
+    }
+
+    writer.join();
+  }
+}
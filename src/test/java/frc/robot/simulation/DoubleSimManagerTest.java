@@ -0,0 +1,110 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.simulation.motor.MotorSimManager;
+import frc.robot.simulation.motor.MotorSimOutput;
+import frc.robot.simulation.winch.WinchSimInput;
+import frc.robot.simulation.winch.WinchSimManager;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import frc.robot.simulation.winch.WinchSimOutput;
+import frc.robot.simulation.winch.WinchState;
+import frc.robot.subsystems.RelativeEncoderSim;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the double-valued simulation managers (motor and winch).
+ */
+public class DoubleSimManagerTest {
+  private final double m_gearRatio = 5.0;
+  private final double m_totalStringLenMeters = 5;
+  private double m_motorPower;
+  private RelativeEncoderSim m_encoderSim;
+  private WinchState m_winchState;
+  private MotorSimManager m_motorSimManager;
+  private WinchSimManager m_winchSimManager;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_motorPower = 0.1;
+    m_encoderSim = new RelativeEncoderSim(null, true);
+    m_winchState = new WinchState(m_totalStringLenMeters);
+
+    m_motorSimManager = new MotorSimManager(m_gearRatio);
+    m_motorSimManager.setEnabledSupplier(() -> true);
+    m_motorSimManager.setInputHandler(() -> m_motorPower);
+    m_motorSimManager.setOutputHandler(new MotorSimOutput(m_encoderSim));
+
+    m_winchSimManager = new WinchSimManager(0.01, m_totalStringLenMeters, 2.5,
+        WindingOrientation.BackOfRobot, false);
+    m_winchSimManager.setEnabledSupplier(() -> true);
+    m_winchSimManager.setInputHandler(new WinchSimInput(m_encoderSim));
+    m_winchSimManager.setOutputHandler(new WinchSimOutput(m_winchState));
+  }
+
+  private void tick() {
+    m_motorSimManager.simulationPeriodic();
+    m_winchSimManager.simulationPeriodic();
+  }
+
+  @Test
+  public void motorShouldReachFreeSpeed() {
+    m_motorPower = 1.0;
+    for (int i = 0; i < 500; i++) {
+      tick();
+    }
+
+    double before = m_encoderSim.getPosition();
+    tick();
+    double rotationsPerTick = m_encoderSim.getPosition() - before;
+
+    DCMotor neo = DCMotor.getNEO(1);
+    double expected = neo.KvRadPerSecPerVolt * 12.0 / m_gearRatio * 0.02 / (2.0 * Math.PI);
+    assertEquals(expected, rotationsPerTick, expected * 1e-6);
+  }
+
+  @Test
+  public void winchShouldFollowMotor() {
+    for (int i = 0; i < 50; i++) {
+      tick();
+    }
+
+    assertTrue(m_winchState.getStringUnspooledLen() > 2.5);
+  }
+
+  @Test
+  public void steadyStateTickShouldNotAllocate() {
+    com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    int numTicks = 100000;
+
+    // Warm up, so that class loading and JIT don't show up in the measurement
+    for (int i = 0; i < numTicks; i++) {
+      m_motorPower = (i % 200 < 100) ? 0.1 : -0.1;
+      tick();
+    }
+
+    long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < numTicks; i++) {
+      m_motorPower = (i % 200 < 100) ? 0.1 : -0.1;
+      tick();
+    }
+    long bytesAfter = threadBean.getThreadAllocatedBytes(threadId);
+
+    // Allow for a few bytes from the measurement calls themselves
+    double bytesPerTick = (double) (bytesAfter - bytesBefore) / numTicks;
+    assertTrue(bytesPerTick < 0.01, "Allocated " + bytesPerTick + " bytes per tick");
+    assertTrue(!m_winchState.getIsBroken());
+  }
+}
@@ -0,0 +1,113 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.framework.LatencyHistogram;
+import frc.robot.simulation.framework.SimStageTimings;
+import frc.robot.simulation.motor.MotorSimManager;
+import frc.robot.simulation.motor.MotorSimOutput;
+import frc.robot.subsystems.RelativeEncoderSim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the LatencyHistogram class, and stage timing of sim managers.
+ */
+public class LatencyHistogramTest {
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+  }
+
+  @Test
+  public void percentilesShouldBeWithinBucketAccuracy() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMaxNanos());
+
+    long p50 = histogram.getPercentileNanos(50);
+    long p99 = histogram.getPercentileNanos(99);
+    assertTrue(p50 >= 500000 && p50 <= 500000 * 1.125, "p50 was " + p50);
+    assertTrue(p99 >= 990000 && p99 <= 1000000, "p99 was " + p99);
+  }
+
+  @Test
+  public void smallValuesShouldBeExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(3);
+    histogram.record(5);
+
+    assertEquals(3, histogram.getPercentileNanos(50));
+    assertEquals(5, histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  public void concurrentRecordsShouldAllBeCounted() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[4];
+
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100000; i++) {
+          histogram.record(i);
+        }
+      });
+      threads[t].start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(400000, histogram.getCount());
+    assertEquals(99999, histogram.getMaxNanos());
+  }
+
+  @Test
+  public void managerShouldTimeEveryStage() {
+    MotorSimManager manager = new MotorSimManager(5.0);
+    manager.setEnabledSupplier(() -> true);
+    manager.enableStageTiming("TestMotor");
+    manager.setInputHandler(() -> 0.5);
+    manager.setOutputHandler(new MotorSimOutput(new RelativeEncoderSim(null, true)));
+
+    for (int i = 0; i < 10; i++) {
+      manager.simulationPeriodic();
+    }
+
+    // The initial run when handlers are set counts too
+    SimStageTimings timings = manager.getStageTimings();
+    assertEquals(11, timings.getHistogram(SimStageTimings.kGetInputStage).getCount());
+    assertEquals(11, timings.getHistogram(SimStageTimings.kDoSimulationStage).getCount());
+    assertEquals(11, timings.getHistogram(SimStageTimings.kSetOutputStage).getCount());
+  }
+
+  @Test
+  public void stageTimingsShouldForgetOldWindows() {
+    SimStageTimings timings = new SimStageTimings("TestWindows");
+    long nowNanos = System.nanoTime();
+    timings.record(nowNanos, nowNanos + 5000000, nowNanos + 5001000, nowNanos + 5002000);
+    LatencyHistogram histogram = timings.getHistogram(SimStageTimings.kGetInputStage);
+    assertTrue(histogram.getMaxNanos() >= 5000000);
+
+    // One fast tick a second, until both windows have been reset since the slow tick
+    long stepNanos = 1000000000L;
+    for (int i = 1; i <= 2 * SimStageTimings.kWindowSeconds; i++) {
+      long start = nowNanos + i * stepNanos;
+      timings.record(start, start + 1000, start + 2000, start + 3000);
+    }
+
+    histogram = timings.getHistogram(SimStageTimings.kGetInputStage);
+    assertTrue(histogram.getMaxNanos() < 5000000);
+    assertTrue(histogram.getCount() >= SimStageTimings.kWindowSeconds / 2);
+  }
+}
@@ -0,0 +1,166 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.framework.SimGraph;
+import frc.robot.simulation.motor.MotorSimManager;
+import frc.robot.simulation.motor.MotorSimOutput;
+import frc.robot.simulation.winch.WinchSimInput;
+import frc.robot.simulation.winch.WinchSimManager;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import frc.robot.simulation.winch.WinchSimOutput;
+import frc.robot.simulation.winch.WinchState;
+import frc.robot.subsystems.RelativeEncoderSim;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the SimGraph class.
+ */
+public class SimGraphTest {
+  private SimGraph m_graph;
+  private List<String> m_calls;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_graph = new SimGraph();
+    m_graph.setEnabledSupplier(() -> true);
+    m_calls = new ArrayList<>();
+  }
+
+  private void addNode(String name, String... upstream) {
+    m_graph.addNode(name, () -> m_calls.add(name), upstream);
+  }
+
+  @Test
+  public void upstreamNodesShouldRunFirst() {
+    addNode("Arm");
+    addNode("Winch");
+    addNode("WinchMotor");
+    m_graph.addDependency("Arm", "Winch");
+    m_graph.addDependency("Winch", "WinchMotor");
+
+    m_graph.simulationPeriodic();
+
+    assertEquals(List.of("WinchMotor", "Winch", "Arm"), m_calls);
+    assertEquals(m_calls, m_graph.getOrder());
+  }
+
+  @Test
+  public void independentNodesShouldKeepInsertionOrder() {
+    addNode("Drive");
+    addNode("WinchMotor");
+    addNode("Winch", "WinchMotor");
+    addNode("Grabber");
+
+    assertEquals(List.of("Drive", "WinchMotor", "Winch", "Grabber"), m_graph.getOrder());
+  }
+
+  @Test
+  public void cycleShouldFail() {
+    addNode("A");
+    addNode("B", "A");
+    addNode("C", "B");
+    m_graph.addDependency("A", "C");
+
+    assertThrows(IllegalStateException.class, () -> {
+      m_graph.simulationPeriodic();
+    });
+  }
+
+  @Test
+  public void unknownUpstreamShouldFail() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      addNode("Arm", "Winch");
+    });
+  }
+
+  @Test
+  public void disabledGraphShouldNotStep() {
+    addNode("A");
+    m_graph.setEnabledSupplier(() -> false);
+
+    m_graph.simulationPeriodic();
+
+    assertEquals(0, m_calls.size());
+    assertEquals(0, m_graph.getTickCount());
+  }
+
+  // A winch chain and an extender chain, similar to ArmSystemSim
+  private static class ArmRig {
+    private final RelativeEncoderSim m_winchEncoderSim = new RelativeEncoderSim(null, true);
+    private final RelativeEncoderSim m_extenderEncoderSim = new RelativeEncoderSim(null, true);
+    private final WinchState m_winchState = new WinchState(1.0);
+    private final ExtenderSimulation m_extenderSimulation;
+    private final SimGraph m_graph = new SimGraph();
+    private double m_power = 0;
+
+    private ArmRig(int threadCount) {
+      MotorSimManager winchMotor = new MotorSimManager(20.0);
+      winchMotor.setInputHandler(() -> m_power);
+      winchMotor.setOutputHandler(new MotorSimOutput(m_winchEncoderSim));
+
+      WinchSimManager winch = new WinchSimManager(0.0254, 1.0, 0.25,
+          WindingOrientation.BackOfRobot, true);
+      winch.setInputHandler(new WinchSimInput(m_winchEncoderSim));
+      winch.setOutputHandler(new WinchSimOutput(m_winchState));
+
+      MotorSimManager extenderMotor = new MotorSimManager(2.0);
+      extenderMotor.setInputHandler(() -> -m_power);
+      extenderMotor.setOutputHandler(new MotorSimOutput(m_extenderEncoderSim));
+
+      m_extenderSimulation = new ExtenderSimulation(m_extenderEncoderSim, 0.00155, 0.75, 0.2,
+          true);
+
+      m_graph.setEnabledSupplier(() -> true);
+      m_graph.setThreadCount(threadCount);
+      m_graph.addManager("WinchMotor", winchMotor);
+      m_graph.addManager("ExtenderMotor", extenderMotor);
+      m_graph.addManager("Winch", winch, "WinchMotor");
+      m_graph.addNode("Extender", m_extenderSimulation::simulationPeriodic, "ExtenderMotor");
+    }
+  }
+
+  @Test
+  public void independentChainsShouldBeFound() {
+    ArmRig rig = new ArmRig(1);
+
+    assertEquals(List.of(List.of("WinchMotor", "Winch"), List.of("ExtenderMotor", "Extender")),
+        rig.m_graph.getChains());
+  }
+
+  @Test
+  public void parallelStepShouldMatchSerial() {
+    ArmRig serialRig = new ArmRig(1);
+    ArmRig parallelRig = new ArmRig(3);
+
+    try {
+      for (int i = 0; i < 500; i++) {
+        double power = Math.sin(i * 0.05) * 0.2;
+        serialRig.m_power = power;
+        parallelRig.m_power = power;
+
+        serialRig.m_graph.simulationPeriodic();
+        parallelRig.m_graph.simulationPeriodic();
+
+        // Bit-identical, not just close
+        assertEquals(serialRig.m_winchState.getStringUnspooledLen(),
+            parallelRig.m_winchState.getStringUnspooledLen(), 0.0);
+        assertEquals(serialRig.m_extenderSimulation.getExtendedLen(),
+            parallelRig.m_extenderSimulation.getExtendedLen(), 0.0);
+      }
+    }
+    finally {
+      parallelRig.m_graph.close();
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.framework.DoubleSimInput;
+import frc.robot.simulation.framework.HeadlessSimRunner;
+import frc.robot.simulation.framework.SimInputRecorder;
+import frc.robot.simulation.framework.SimInputReplay;
+import frc.robot.simulation.framework.SimStepper;
+import frc.robot.simulation.motor.MotorSimManager;
+import frc.robot.simulation.motor.MotorSimOutput;
+import frc.robot.simulation.winch.WinchSimInput;
+import frc.robot.simulation.winch.WinchSimManager;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import frc.robot.simulation.winch.WinchSimOutput;
+import frc.robot.simulation.winch.WinchState;
+import frc.robot.subsystems.RelativeEncoderSim;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Records a session of the motor + winch simulation, replays it, and checks the replay
+ * produces exactly the same outputs.
+ */
+public class SimInputReplayTest {
+  private Path m_path;
+
+  // Motor + winch simulation, stepped headless, that records the winch length every step
+  private static class Session {
+    private final RelativeEncoderSim m_encoderSim = new RelativeEncoderSim(null, true);
+    private final WinchState m_winchState = new WinchState(5);
+    private final MotorSimManager m_motorSimManager;
+    private final WinchSimManager m_winchSimManager = new WinchSimManager(0.01, 5, 4,
+        WindingOrientation.BackOfRobot, false);
+    private final HeadlessSimRunner m_runner = new HeadlessSimRunner();
+    private final List<Double> m_unspooledLenByStep = new ArrayList<>();
+
+    private Session(DoubleSimInput motorInput) {
+      this(motorInput, new SimStepper());
+    }
+
+    private Session(DoubleSimInput motorInput, SimStepper stepper) {
+      m_motorSimManager = new MotorSimManager(100.0, stepper);
+      m_motorSimManager.setInputHandler(motorInput);
+      m_motorSimManager.setOutputHandler(new MotorSimOutput(m_encoderSim));
+      m_winchSimManager.setInputHandler(new WinchSimInput(m_encoderSim));
+      m_winchSimManager.setOutputHandler(new WinchSimOutput(m_winchState));
+
+      m_runner.addManager("Motor", m_motorSimManager);
+      m_runner.addManager("Winch", m_winchSimManager);
+      m_runner.addStage("Record", () -> {
+        m_unspooledLenByStep.add(m_winchState.getStringUnspooledLen());
+      });
+    }
+  }
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() throws IOException {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_path = Files.createTempFile("siminputs", ".bin");
+  }
+
+  /**
+   * Runs after each test.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(m_path);
+  }
+
+  @Test
+  public void replayShouldReproduceRecordedSession() {
+    // Stand-in for a driver: power that changes every step
+    int[] step = {0};
+    DoubleSimInput driver = () -> 0.6 * Math.sin(0.03 * step[0]++) + 0.1;
+
+    Session recorded;
+    long numSamples;
+    try (SimInputRecorder recorder = new SimInputRecorder(m_path, () -> step[0] * 0.02)) {
+      recorded = new Session(recorder.wrap("Motor", driver));
+      recorded.m_runner.runFor(10.0);
+      numSamples = recorder.getNumSamples();
+    }
+
+    SimInputReplay replay = new SimInputReplay(m_path);
+    assertTrue(numSamples >= recorded.m_runner.getStepCount());
+    assertEquals(numSamples, replay.getNumSamples("Motor"));
+    assertEquals(0.02, replay.getTimestamp("Motor", 0), 1e-12);
+
+    Session replayed = new Session(replay.getInput("Motor"));
+    assertTrue(replayed.m_runner.runUntil(replay::isFinished, 60.0));
+
+    assertEquals(recorded.m_unspooledLenByStep, replayed.m_unspooledLenByStep);
+  }
+
+  @Test
+  public void replayShouldUseRecordedTickLengths() {
+    // Ticks that took 20ms or 35ms, with the motor stepped by the elapsed time
+    int[] step = {0};
+    DoubleSimInput driver = () -> 0.6 * Math.sin(0.03 * step[0]++) + 0.1;
+    DoubleSupplier clock = () -> step[0] * 0.02 + (step[0] % 3 == 0 ? 0.015 : 0);
+
+    Session recorded;
+    try (SimInputRecorder recorder = new SimInputRecorder(m_path, clock)) {
+      recorded = new Session(recorder.wrap("Motor", driver), new SimStepper(clock));
+      recorded.m_runner.runFor(5.0);
+    }
+
+    SimInputReplay replay = new SimInputReplay(m_path);
+    SimStepper stepper = new SimStepper(() -> 1000.0);
+    stepper.setClock(replay.getClock("Motor"));
+    Session replayed = new Session(replay.getInput("Motor"), stepper);
+    assertTrue(replayed.m_runner.runUntil(replay::isFinished, 60.0));
+
+    assertEquals(recorded.m_unspooledLenByStep, replayed.m_unspooledLenByStep);
+  }
+
+  @Test
+  public void closedRecorderShouldPassInputsThrough() {
+    SimInputRecorder recorder = new SimInputRecorder(m_path, () -> 0);
+    DoubleSimInput input = recorder.wrap("Motor", () -> 0.5);
+    input.getInput();
+    recorder.close();
+    recorder.close();
+
+    assertEquals(0.5, input.getInput(), 0.0);
+    assertEquals(1, recorder.getNumSamples());
+    assertEquals(1, new SimInputReplay(m_path).getNumSamples("Motor"));
+  }
+
+  @Test
+  public void missingChannelShouldThrow() {
+    try (SimInputRecorder recorder = new SimInputRecorder(m_path, () -> 0)) {
+      recorder.wrap("Motor", () -> 0).getInput();
+    }
+
+    SimInputReplay replay = new SimInputReplay(m_path);
+    assertTrue(replay.hasChannel("Motor"));
+    assertThrows(IllegalArgumentException.class, () -> replay.getInput("Extender"));
+  }
+}
@@ -0,0 +1,119 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.framework.SimSnapshotInterface;
+import frc.robot.simulation.framework.SimSnapshotRing;
+import frc.robot.simulation.motor.MotorSimManager;
+import frc.robot.simulation.motor.MotorSimOutput;
+import frc.robot.simulation.winch.WinchSimInput;
+import frc.robot.simulation.winch.WinchSimManager;
+import frc.robot.simulation.winch.WinchSimModel.WindingOrientation;
+import frc.robot.simulation.winch.WinchSimOutput;
+import frc.robot.simulation.winch.WinchState;
+import frc.robot.subsystems.RelativeEncoderSim;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests saving and restoring the motor, winch and arm simulation through SimSnapshotRing.
+ */
+public class SimSnapshotRingTest {
+  private final ArmSimulationParams m_armParams = new ArmSimulationParams(0.25, // top
+      0.75, // bottom
+      0, // deltaRotationsBeforeBroken
+      0.80, // grabberBreaksIfOpenBelowThisLimit
+      1, // heightFromWinchToPivotPoint
+      0.5, // armLengthFromEdgeToPivot
+      0.1, // armLengthFromEdgeToPivotMin
+      0); // encoderRotationsOffset
+
+  private double m_motorPower;
+  private RelativeEncoderSim m_encoderSim;
+  private WinchState m_winchState;
+  private MotorSimManager m_motorSimManager;
+  private WinchSimManager m_winchSimManager;
+  private ArmSimulation m_armSimulation;
+  private SimSnapshotRing m_ring;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_motorPower = 0;
+    m_encoderSim = new RelativeEncoderSim(null, true);
+    m_winchState = new WinchState(5);
+
+    m_motorSimManager = new MotorSimManager(100.0);
+    m_motorSimManager.setEnabledSupplier(() -> true);
+    m_motorSimManager.setInputHandler(() -> m_motorPower);
+    m_motorSimManager.setOutputHandler(new MotorSimOutput(m_encoderSim));
+
+    m_winchSimManager = new WinchSimManager(0.01, 5, 4, WindingOrientation.BackOfRobot, false);
+    m_winchSimManager.setEnabledSupplier(() -> true);
+    m_winchSimManager.setInputHandler(new WinchSimInput(m_encoderSim));
+    m_winchSimManager.setOutputHandler(new WinchSimOutput(m_winchState));
+
+    double[] encoderPosition = {0};
+    m_armSimulation = new ArmSimulation(() -> m_winchState.getStringUnspooledLen(),
+        position -> encoderPosition[0] = position, m_armParams);
+
+    m_ring = new SimSnapshotRing(
+        List.<SimSnapshotInterface>of(m_motorSimManager, m_winchSimManager, m_armSimulation),
+        50);
+  }
+
+  private void tick(int tick) {
+    m_motorPower = 0.5 * Math.sin(tick * 0.05);
+    m_motorSimManager.simulationPeriodic();
+    m_winchSimManager.simulationPeriodic();
+    m_armSimulation.simulationPeriodic();
+  }
+
+  @Test
+  public void restoreAndReplayShouldMatchExactly() {
+    int numTicks = 100;
+    double[] degreesByTick = new double[numTicks];
+    double[] rotationsByTick = new double[numTicks];
+
+    for (int i = 0; i < numTicks; i++) {
+      tick(i);
+      m_ring.capture(i * 0.02);
+      degreesByTick[i] = m_armSimulation.getCurrentSignedDegrees();
+      rotationsByTick[i] = m_encoderSim.getPosition();
+    }
+
+    // Go back to right after tick 59, and replay the rest
+    assertEquals(59 * 0.02, m_ring.restore(numTicks - 1 - 59), 0.0);
+    assertEquals(degreesByTick[59], m_armSimulation.getCurrentSignedDegrees(), 0.0);
+
+    for (int i = 60; i < numTicks; i++) {
+      tick(i);
+      assertEquals(rotationsByTick[i], m_encoderSim.getPosition(), 0.0);
+      assertEquals(degreesByTick[i], m_armSimulation.getCurrentSignedDegrees(), 0.0);
+    }
+  }
+
+  @Test
+  public void ringShouldKeepOnlyLatestSnapshots() {
+    for (int i = 0; i < 120; i++) {
+      tick(i);
+      m_ring.capture(i * 0.02);
+    }
+
+    assertEquals(50, m_ring.getCount());
+    assertTrue(Double.isNaN(m_ring.restoreAtOrBefore(60 * 0.02)));
+    assertEquals(80 * 0.02, m_ring.restoreAtOrBefore(80 * 0.02 + 0.001), 0.0);
+
+    // Snapshots after the restored one are discarded
+    assertEquals(11, m_ring.getCount());
+    assertThrows(IllegalArgumentException.class, () -> m_ring.restore(11));
+  }
+}
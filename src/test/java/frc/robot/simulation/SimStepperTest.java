@@ -0,0 +1,125 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.simulation.framework.SimStepper;
+import frc.robot.simulation.motor.MotorSimModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the SimStepper class.
+ */
+public class SimStepperTest {
+  private double m_clockSeconds;
+  private int m_substepCount;
+  private double m_substepTotalSeconds;
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_clockSeconds = 100.0;
+    m_substepCount = 0;
+    m_substepTotalSeconds = 0;
+  }
+
+  private void countSubstep(double dtSeconds) {
+    m_substepCount++;
+    m_substepTotalSeconds += dtSeconds;
+  }
+
+  @Test
+  public void defaultStepperShouldAdvanceNominalPeriod() {
+    SimStepper stepper = new SimStepper();
+
+    stepper.step(this::countSubstep);
+
+    assertEquals(1, m_substepCount);
+    assertEquals(0.02, m_substepTotalSeconds, 1e-12);
+  }
+
+  @Test
+  public void overrunShouldAdvanceElapsedTime() {
+    SimStepper stepper = new SimStepper(() -> m_clockSeconds);
+    stepper.step(this::countSubstep);
+
+    // 35ms loop overrun
+    m_clockSeconds += 0.035;
+    stepper.step(this::countSubstep);
+
+    assertEquals(0.035, stepper.getLastElapsedSeconds(), 1e-9);
+    assertEquals(0.055, stepper.getSimulatedSeconds(), 1e-9);
+  }
+
+  @Test
+  public void maxStepShouldSplitIntoSubsteps() {
+    SimStepper stepper = new SimStepper(() -> m_clockSeconds);
+    stepper.setMaxStepSeconds(0.005);
+    stepper.step(this::countSubstep);
+
+    m_substepCount = 0;
+    m_clockSeconds += 0.021;
+    stepper.step(this::countSubstep);
+
+    assertEquals(5, m_substepCount);
+    assertEquals(5, stepper.getLastSubsteps());
+    assertEquals(0.021 / 5, stepper.getLastSubstepSeconds(), 1e-12);
+  }
+
+  @Test
+  public void publishingShouldNotChangeSteps() {
+    SimStepper stepper = new SimStepper(() -> m_clockSeconds);
+    stepper.setMaxStepSeconds(0.005);
+    assertFalse(stepper.isPublishing());
+    assertThrows(IllegalArgumentException.class, () -> stepper.enablePublishing(null));
+
+    stepper.enablePublishing("Test");
+    assertTrue(stepper.isPublishing());
+    stepper.step(this::countSubstep);
+
+    m_substepCount = 0;
+    m_clockSeconds += 0.021;
+    stepper.step(this::countSubstep);
+    stepper.publish();
+
+    assertEquals(5, m_substepCount);
+    assertTrue(stepper.getAverageCostNanos() >= 0);
+  }
+
+  @Test
+  public void longPauseShouldBeCapped() {
+    SimStepper stepper = new SimStepper(() -> m_clockSeconds);
+    stepper.step(this::countSubstep);
+
+    m_clockSeconds += 30.0;
+    stepper.step(this::countSubstep);
+
+    assertEquals(SimStepper.kDefaultMaxElapsedSeconds, stepper.getLastElapsedSeconds(), 1e-12);
+  }
+
+  @Test
+  public void motorSubstepsShouldMatchSingleStep() {
+    SimStepper substepped = new SimStepper();
+    substepped.setFixedSubsteps(8);
+    MotorSimModel singleModel = new MotorSimModel(5.0);
+    MotorSimModel substeppedModel = new MotorSimModel(5.0, substepped);
+
+    double single = 0;
+    double multi = 0;
+    for (int i = 0; i < 100; i++) {
+      single = singleModel.updateMotorPosition(0.5);
+      multi = substeppedModel.updateMotorPosition(0.5);
+    }
+
+    // Exact discretization, so sub-stepping only changes rounding
+    assertEquals(single, multi, 1e-9);
+  }
+}
@@ -0,0 +1,192 @@
+package frc.robot.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.Constants;
+import frc.robot.commands.MoveExtenderToPosition;
+import frc.robot.simulation.framework.DoubleSimInput;
+import frc.robot.simulation.framework.SimInputRecorder;
+import frc.robot.simulation.framework.SimInputReplay;
+import frc.robot.simulation.motor.MotorSimModel;
+import frc.robot.simulation.motor.SparkMaxSmartMotionSim;
+import frc.robot.subsystems.ArmSystemSim;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the SparkMaxSmartMotionSim class, driving the extender motor model the same way
+ * ArmSystemSim does.
+ */
+public class SparkMaxSmartMotionSimTest {
+  private static final double kTickSeconds = 0.02;
+  private static final double kGearRatio = Constants.SimConstants.kextenderSimGearRatio;
+  private static final double kAllowedError =
+      Constants.OperatorConstants.kExtenderAllowedErrorRotations;
+
+  private final MotorSimModel m_motor = new MotorSimModel(kGearRatio);
+  private final SparkMaxSmartMotionSim m_smartMotion = createSmartMotion();
+
+  // The simulated encoder counts gearbox output rotations, so the limits are scaled down
+  private static final double kMaxVelocityRpm =
+      Constants.OperatorConstants.kExtenderMaxVelocityRpm / kGearRatio;
+  private static final double kMaxAccelRpmPerSec =
+      Constants.OperatorConstants.kExtenderMaxAccelRpmPerSec / kGearRatio;
+
+  private static SparkMaxSmartMotionSim createSmartMotion() {
+    return ArmSystemSim.createExtenderSmartMotionSim();
+  }
+
+  /**
+   * Sends the reference once, like MoveExtenderToPosition, and steps the robot loop until the
+   * encoder is within the allowed error. Returns how long that took.
+   */
+  private double moveTo(double reference, double startPosition) {
+    m_smartMotion.setReference(reference);
+    double position = startPosition;
+
+    for (int tick = 0; tick < 500; tick++) {
+      if (Math.abs(position - reference) <= kAllowedError) {
+        return tick * kTickSeconds;
+      }
+
+      // The robot loop's motor power is ignored while Smart Motion runs the motor
+      position = m_motor.updateMotorPosition(1);
+    }
+
+    return Double.NaN;
+  }
+
+  @Test
+  public void extenderShouldReachReferenceAndStay() {
+    m_motor.setSmartMotion(m_smartMotion);
+
+    double seconds = moveTo(-100, 0);
+    System.out.println(String.format("Extended 100 rotations in %.2fs", seconds));
+    assertTrue(seconds < MoveExtenderToPosition.calcTimeoutSeconds(0, -100, kGearRatio));
+
+    // Stays there, without the robot loop doing anything
+    double maxError = 0;
+    double position = 0;
+    for (int tick = 0; tick < 50; tick++) {
+      position = m_motor.updateMotorPosition(0);
+      maxError = Math.max(maxError, Math.abs(position + 100));
+    }
+
+    assertTrue(maxError <= kAllowedError, "max error " + maxError);
+
+    seconds = moveTo(-20, position);
+    assertTrue(seconds < MoveExtenderToPosition.calcTimeoutSeconds(position, -20, kGearRatio));
+  }
+
+  @Test
+  public void setpointShouldRespectVelocityAndAccelLimits() {
+    m_smartMotion.setReference(1000);
+    double dtSeconds = SparkMaxSmartMotionSim.kLoopPeriodSeconds;
+
+    double lastRpm = 0;
+    for (int loop = 0; loop < 2000; loop++) {
+      m_smartMotion.calculate(0, 0, dtSeconds);
+      double rpm = m_smartMotion.getSetpointRpm();
+
+      assertTrue(rpm <= kMaxVelocityRpm + 1e-9);
+      assertTrue(rpm - lastRpm <= kMaxAccelRpmPerSec * dtSeconds + 1e-9);
+      lastRpm = rpm;
+    }
+
+    assertEquals(kMaxVelocityRpm, lastRpm, 1e-9);
+  }
+
+  @Test
+  public void disabledControllerShouldLeaveMotorOpenLoop() {
+    m_motor.setSmartMotion(m_smartMotion);
+    m_smartMotion.setReference(-100);
+    m_smartMotion.disable();
+
+    assertFalse(m_smartMotion.isEnabled());
+    assertEquals(0, m_smartMotion.calculate(0, 0, 0.001), 1e-9);
+
+    // Same as a motor without the controller
+    MotorSimModel plainMotor = new MotorSimModel(kGearRatio);
+    for (int tick = 0; tick < 10; tick++) {
+      assertEquals(plainMotor.updateMotorPosition(0.5), m_motor.updateMotorPosition(0.5), 1e-9);
+    }
+  }
+
+  @Test
+  public void timeoutShouldCoverSmartMotionProfile() {
+    m_motor.setSmartMotion(m_smartMotion);
+    double seconds = moveTo(-100, 0);
+    double timeout = MoveExtenderToPosition.calcTimeoutSeconds(0, -100, kGearRatio);
+
+    assertTrue(seconds < timeout);
+    assertTrue(timeout < seconds + 2 * Constants.OperatorConstants.kExtenderTimeoutMarginSeconds);
+  }
+
+  @Test
+  public void extenderShouldFollowProfileWithoutSaturating() {
+    // Long enough to cruise. The real SparkMax's limits are in motor RPM, which the motor
+    // reaches without running flat out.
+    m_motor.setSmartMotion(m_smartMotion);
+    m_smartMotion.setReference(-100);
+    double maxOutput = 0;
+    double lastPosition = 0;
+    double maxRpm = 0;
+    for (int tick = 0; tick < 200; tick++) {
+      double position = m_motor.updateMotorPosition(0);
+      maxOutput = Math.max(maxOutput, Math.abs(m_smartMotion.getOutput()));
+      maxRpm = Math.max(maxRpm, Math.abs(position - lastPosition) / kTickSeconds * 60);
+      lastPosition = position;
+    }
+
+    assertTrue(maxOutput < 1, "max output " + maxOutput);
+    assertEquals(kMaxVelocityRpm, maxRpm, kMaxVelocityRpm * 0.05);
+    assertEquals(-100, lastPosition, kAllowedError);
+  }
+
+  @Test
+  public void recordedReferenceShouldReplay() throws IOException {
+    Path path = Files.createTempFile("smartmotion", ".bin");
+    try {
+      // Robot code: extend, stop part way (back to open loop), then retract a little
+      double[] recorded = new double[150];
+      try (SimInputRecorder recorder = new SimInputRecorder(path, () -> 0)) {
+        m_motor.setSmartMotion(m_smartMotion);
+        DoubleSimInput reference = recorder.wrap("SmartMotion", m_smartMotion::getReferenceOrNaN);
+        for (int tick = 0; tick < recorded.length; tick++) {
+          if (tick == 0) {
+            m_smartMotion.setReference(-100);
+          }
+          else if (tick == 40) {
+            m_smartMotion.disable();
+          }
+          else if (tick == 60) {
+            m_smartMotion.setReference(-20);
+          }
+
+          reference.getInput();
+          recorded[tick] = m_motor.updateMotorPosition(0);
+        }
+      }
+
+      // Replay into a fresh motor and controller, with no robot code
+      SimInputReplay replay = new SimInputReplay(path);
+      DoubleSimInput reference = replay.getInput("SmartMotion");
+      MotorSimModel motor = new MotorSimModel(kGearRatio);
+      SparkMaxSmartMotionSim smartMotion = createSmartMotion();
+      motor.setSmartMotion(smartMotion);
+      for (int tick = 0; tick < recorded.length; tick++) {
+        smartMotion.setReferenceOrDisable(reference.getInput());
+        assertEquals(recorded[tick], motor.updateMotorPosition(0), 0.0, "tick " + tick);
+      }
+
+      assertFalse(Double.isNaN(smartMotion.getReferenceOrNaN()));
+    }
+    finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
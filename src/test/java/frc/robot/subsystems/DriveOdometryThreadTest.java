@@ -0,0 +1,133 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the DriveOdometryThread class. The tests call update() directly instead of starting
+ * the notifier, so each update sees exactly the sensor values the test set.
+ */
+public class DriveOdometryThreadTest {
+  private static final double kEpsilon = 1e-6;
+
+  private double m_leftMeters;
+  private double m_rightMeters;
+  private double m_headingDegrees;
+  private double m_timeSeconds;
+  private DriveOdometryThread m_odometry;
+  private final OdometrySample m_sample = new OdometrySample();
+
+  /**
+   * Runs before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    assert HAL.initialize(500, 0); // initialize the HAL, crash if failed
+
+    m_leftMeters = 0;
+    m_rightMeters = 0;
+    m_headingDegrees = 0;
+    m_timeSeconds = 0;
+    m_odometry = new DriveOdometryThread(() -> m_leftMeters, () -> m_rightMeters,
+        () -> m_headingDegrees, () -> m_timeSeconds);
+  }
+
+  @Test
+  public void sampleShouldBeEmptyBeforeFirstUpdate() {
+    m_odometry.getLatest(m_sample);
+
+    assertEquals(0, m_sample.getUpdateCount());
+  }
+
+  @Test
+  public void drivingStraightShouldMoveAlongHeading() {
+    m_leftMeters = 1;
+    m_rightMeters = 1;
+    m_timeSeconds = 0.005;
+    m_odometry.update();
+    m_odometry.getLatest(m_sample);
+
+    assertEquals(1, m_sample.getX(), kEpsilon);
+    assertEquals(0, m_sample.getY(), kEpsilon);
+    assertEquals(0.005, m_sample.getTimestampSeconds(), kEpsilon);
+    assertEquals(1, m_sample.getUpdateCount());
+  }
+
+  @Test
+  public void turnThenDriveShouldFollowNewHeading() {
+    m_leftMeters = 1;
+    m_rightMeters = 1;
+    m_odometry.update();
+
+    // Turn in place to face the y axis, then drive another meter
+    m_headingDegrees = 90;
+    m_odometry.update();
+    m_leftMeters = 2;
+    m_rightMeters = 2;
+    m_odometry.update();
+    m_odometry.getLatest(m_sample);
+
+    assertEquals(1, m_sample.getX(), kEpsilon);
+    assertEquals(1, m_sample.getY(), kEpsilon);
+    assertEquals(90, m_sample.getHeadingDegrees(), kEpsilon);
+    assertEquals(2, m_sample.getLeftDistanceMeters(), kEpsilon);
+  }
+
+  @Test
+  public void resetPoseShouldApplyOnNextUpdate() {
+    m_leftMeters = 3;
+    m_rightMeters = 3;
+    m_odometry.update();
+
+    m_odometry.resetPose(new Pose2d(5, 5, Rotation2d.fromDegrees(90)));
+    m_odometry.getLatest(m_sample);
+    assertEquals(3, m_sample.getX(), kEpsilon);
+
+    m_odometry.update();
+    m_leftMeters = 4;
+    m_rightMeters = 4;
+    m_odometry.update();
+    m_odometry.getLatest(m_sample);
+
+    // The gyro still reads 0, but the pose keeps the heading it was reset to
+    assertEquals(5, m_sample.getX(), kEpsilon);
+    assertEquals(6, m_sample.getY(), kEpsilon);
+    assertEquals(90, m_sample.getHeadingDegrees(), kEpsilon);
+  }
+
+  @Test
+  public void readerShouldNeverSeeTornSample() throws InterruptedException {
+    AtomicBoolean torn = new AtomicBoolean(false);
+    AtomicBoolean done = new AtomicBoolean(false);
+
+    Thread reader = new Thread(() -> {
+      OdometrySample sample = new OdometrySample();
+      while (!done.get()) {
+        m_odometry.getLatest(sample);
+
+        // Driving straight along x, so x always matches the distance it was integrated from
+        if (Math.abs(sample.getX() - sample.getLeftDistanceMeters()) > kEpsilon) {
+          torn.set(true);
+        }
+      }
+    });
+    reader.start();
+
+    for (int i = 1; i <= 200000; i++) {
+      m_leftMeters = i * 0.001;
+      m_rightMeters = m_leftMeters;
+      m_odometry.update();
+    }
+
+    done.set(true);
+    reader.join();
+    assertFalse(torn.get());
+  }
+}